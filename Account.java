@@ -4,7 +4,11 @@ import java.io.Serializable;
 
 /**
  * Represents a bank account with basic operations such as deposit, withdrawal, and transfer.
- * Implements Serializable to allow persistence of account objects to file storage.
+ * Persisted with {@link BinaryCodec}; Serializable only so that accounts.dat files of
+ * earlier versions can still be read (see {@link LegacyMigration}).
+ * Deposits and withdrawals are synchronized on the account, and the balance is
+ * volatile so it can be read without locking. Multi-account atomicity (transfers)
+ * is provided by the Bank's lock stripes.
  * @see Bank
  * @see Transaction
  */
@@ -15,7 +19,7 @@ public class Account implements Serializable {
     private String accountNumber;
     private String ownerName;
     private String accountType;
-    private double balance;
+    private volatile double balance;
 
     /**
      * Constructs a new Account instance with the specified details.
@@ -75,7 +79,7 @@ public class Account implements Serializable {
      * @return true if deposition succeeded, false otherwise
      * @see #withdraw(double)
      */
-    public boolean deposit(double amount) {
+    public synchronized boolean deposit(double amount) {
         if (amount > 0) {
             balance += amount;
             return true;
@@ -91,7 +95,7 @@ public class Account implements Serializable {
      * @return true if withdrawal succeeded, false otherwise
      * @see #deposit(double)
      */
-    public boolean withdraw(double amount) {
+    public synchronized boolean withdraw(double amount) {
         if (amount > 0 && amount <= balance) {
             balance -= amount;
             return true;
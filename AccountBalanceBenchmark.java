@@ -0,0 +1,62 @@
+package com.jibstech.bank_account_management_system;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the CAS-based LockFreeAccount against the synchronized Account for
+ * deposit/withdraw pairs, both uncontended (one account per thread) and contended
+ * (all threads on one account). Run with several thread counts (e.g. {@code -t 1,2,4,8});
+ * the uncontended lock-free case should scale linearly.
+ * @see LockFreeAccount
+ * @see Account
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountBalanceBenchmark {
+
+    @State(Scope.Thread)
+    public static class PerThread {
+        final Account synchronizedAccount = new Account("1000001", "Owner", "Savings", 1_000_000);
+        final LockFreeAccount lockFreeAccount = new LockFreeAccount("1000002", "Owner", "Savings", BigDecimal.valueOf(1_000_000));
+    }
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        final Account synchronizedAccount = new Account("1000001", "Owner", "Savings", 1_000_000);
+        final LockFreeAccount lockFreeAccount = new LockFreeAccount("1000002", "Owner", "Savings", BigDecimal.valueOf(1_000_000));
+    }
+
+    @Benchmark
+    public boolean synchronizedUncontended(PerThread state) {
+        return state.synchronizedAccount.deposit(5) & state.synchronizedAccount.withdraw(5);
+    }
+
+    @Benchmark
+    public boolean lockFreeUncontended(PerThread state) {
+        return state.lockFreeAccount.depositMinor(500) & state.lockFreeAccount.withdrawMinor(500);
+    }
+
+    @Benchmark
+    public boolean synchronizedContended(Shared state) {
+        return state.synchronizedAccount.deposit(5) & state.synchronizedAccount.withdraw(5);
+    }
+
+    @Benchmark
+    public boolean lockFreeContended(Shared state) {
+        return state.lockFreeAccount.depositMinor(500) & state.lockFreeAccount.withdrawMinor(500);
+    }
+}
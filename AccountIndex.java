@@ -0,0 +1,376 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+/**
+ * Persistent per-account index over a {@link Ledger}. Every ledger record adds one entry
+ * for its account and, for a transfer, one for the receiving account. Each entry points
+ * back to the previous entry of the same account, so an account's history is a chain that
+ * is walked from its newest entry without visiting any other account's records.
+ * <p>
+ * Entry layout ({@value #ENTRY_SIZE} bytes, big-endian):
+ * <pre>
+ *  0  long  ledger record index
+ *  8  long  previous entry of the same account, or -1
+ * 16  long  account balance after the transaction, in minor units
+ * 24  byte  1 if the account is the receiving side of a transfer, else 0
+ * 25  -     reserved
+ * </pre>
+ * The newest entry of every account (its chain head) is held in memory and written to a
+ * separate heads file on {@link #force(long)}. An index whose heads file is missing or
+ * does not match the ledger is {@linkplain #isValid() invalid} and must be rebuilt.
+ * <p>
+ * Guarded by the owning Ledger: writers hold its lock. Readers walk chains without a
+ * lock, since entries below the published count are never rewritten while the Bank runs.
+ * @see Ledger#statement(String, java.time.LocalDateTime, java.time.LocalDateTime)
+ */
+final class AccountIndex implements Closeable {
+
+    static final int ENTRY_SIZE = 32;
+    static final long NONE = -1;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC = 0x41494458; // "AIDX"
+    private static final int HEADS_MAGIC = 0x48454144; // "HEAD"
+    private static final int VERSION = 1;
+    private static final int COUNT_OFFSET = 16;
+    private static final int REGION_SHIFT = 16;
+    private static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+    private static final long REGION_BYTES = (long) ENTRY_SIZE << REGION_SHIFT;
+
+    private final Path headsFile;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final Map<String, Long> heads = new HashMap<>();
+    private volatile MappedByteBuffer[] regions = new MappedByteBuffer[0];
+    private volatile long count;
+    private long coveredRecords;
+    private long forcedCount;
+    private boolean valid;
+
+    /**
+     * Opens (or creates) the index and loads its chain heads.
+     *
+     * @param file path of the entry file
+     * @param headsFile path of the chain heads file
+     * @throws IOException if the files cannot be opened
+     */
+    AccountIndex(Path file, Path headsFile) throws IOException {
+        this.headsFile = headsFile;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = channel.size() == 0;
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (created || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, ENTRY_SIZE);
+            header.putLong(COUNT_OFFSET, 0);
+        }
+        long stored = header.getLong(COUNT_OFFSET);
+        if (Files.exists(headsFile)) {
+            loadHeads(stored);
+        } else {
+            valid = stored == 0;
+        }
+        if (!valid) {
+            heads.clear();
+            count = 0;
+            coveredRecords = 0;
+        }
+    }
+
+    /**
+     * Tells whether the index matches the ledger and can be used.
+     *
+     * @return false if the index must be rebuilt
+     */
+    synchronized boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the entry count
+     */
+    long size() {
+        return count;
+    }
+
+    /**
+     * Gets the number of ledger records the index covers.
+     *
+     * @return the covered record count
+     */
+    synchronized long coveredRecords() {
+        return coveredRecords;
+    }
+
+    /**
+     * Marks the index as not matching the ledger, e.g. when records were appended
+     * without balances. It is ignored until {@link #reset()} and a rebuild.
+     */
+    synchronized void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Discards every entry, ahead of a rebuild.
+     */
+    synchronized void reset() {
+        heads.clear();
+        count = 0;
+        forcedCount = 0;
+        coveredRecords = 0;
+        header.putLong(COUNT_OFFSET, 0);
+        valid = true;
+    }
+
+    /**
+     * Adds an entry for one account. Entries must be added in ledger order.
+     *
+     * @param ledgerIndex the ledger record index
+     * @param accountNumber the account
+     * @param balanceMinor balance of the account after the transaction, in minor units
+     * @param receiving true for the receiving account of a transfer
+     */
+    synchronized void add(long ledgerIndex, String accountNumber, long balanceMinor, boolean receiving) {
+        long entry = count;
+        MappedByteBuffer region = region(entry);
+        int base = (int) (entry & REGION_MASK) * ENTRY_SIZE;
+        Long previous = heads.put(accountNumber, entry);
+        region.putLong(base, ledgerIndex);
+        region.putLong(base + 8, previous == null ? NONE : previous);
+        region.putLong(base + 16, balanceMinor);
+        region.put(base + 24, (byte) (receiving ? 1 : 0));
+        count = entry + 1;
+        coveredRecords = ledgerIndex + 1;
+        header.putLong(COUNT_OFFSET, count);
+    }
+
+    /**
+     * Removes the entries of ledger records from the given index onwards and moves every
+     * affected chain head back to its last remaining entry.
+     *
+     * @param ledgerCount number of ledger records to keep
+     */
+    synchronized void truncate(long ledgerCount) {
+        if (ledgerCount >= coveredRecords) {
+            if (ledgerCount > coveredRecords) {
+                valid = false; // records the index never saw
+            }
+            return;
+        }
+        long low = 0;
+        long high = count;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (ledgerIndex(mid) < ledgerCount) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        long cut = low;
+        Iterator<Map.Entry<String, Long>> it = heads.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> head = it.next();
+            long entry = head.getValue();
+            while (entry != NONE && entry >= cut) {
+                entry = previous(entry);
+            }
+            if (entry == NONE) {
+                it.remove();
+            } else {
+                head.setValue(entry);
+            }
+        }
+        count = cut;
+        forcedCount = Math.min(forcedCount, cut);
+        coveredRecords = ledgerCount;
+        header.putLong(COUNT_OFFSET, count);
+    }
+
+    /**
+     * Gets the newest entry of an account.
+     *
+     * @param accountNumber the account
+     * @return the entry, or {@link #NONE} if the account has none
+     */
+    synchronized long head(String accountNumber) {
+        Long head = heads.get(accountNumber);
+        return head == null ? NONE : head;
+    }
+
+    /**
+     * Returns the ledger record indexes of one account within a range of record indexes.
+     * Newest-first order is lazy; oldest-first order walks the chain down to {@code start}.
+     *
+     * @param accountNumber the account
+     * @param start first record index, inclusive
+     * @param end last record index, exclusive
+     * @param descending true to return the highest index first
+     * @return the record indexes, in the requested order
+     */
+    LongStream records(String accountNumber, long start, long end, boolean descending) {
+        long first = head(accountNumber);
+        while (first != NONE && ledgerIndex(first) >= end) {
+            first = previous(first);
+        }
+        LongStream newestFirst = LongStream.iterate(first, entry -> entry != NONE && ledgerIndex(entry) >= start,
+                this::previous).map(this::ledgerIndex);
+        if (descending) {
+            return newestFirst;
+        }
+        long[] indexes = newestFirst.toArray();
+        return LongStream.range(0, indexes.length).map(i -> indexes[indexes.length - 1 - (int) i]);
+    }
+
+    /**
+     * Gets the ledger record index of an entry.
+     *
+     * @param entry the entry
+     * @return the record index
+     */
+    long ledgerIndex(long entry) {
+        return region(entry).getLong((int) (entry & REGION_MASK) * ENTRY_SIZE);
+    }
+
+    /**
+     * Gets the previous entry of the same account.
+     *
+     * @param entry the entry
+     * @return the previous entry, or {@link #NONE}
+     */
+    long previous(long entry) {
+        return region(entry).getLong((int) (entry & REGION_MASK) * ENTRY_SIZE + 8);
+    }
+
+    /**
+     * Gets the account balance after the transaction of an entry.
+     *
+     * @param entry the entry
+     * @return the balance in minor units
+     */
+    long balance(long entry) {
+        return region(entry).getLong((int) (entry & REGION_MASK) * ENTRY_SIZE + 16);
+    }
+
+    /**
+     * Tells whether an entry is the receiving side of a transfer.
+     *
+     * @param entry the entry
+     * @return true for the receiving account
+     */
+    boolean isReceiving(long entry) {
+        return region(entry).get((int) (entry & REGION_MASK) * ENTRY_SIZE + 24) == 1;
+    }
+
+    /**
+     * Forces the entries to disk, then writes the chain heads.
+     *
+     * @param ledgerCount the ledger size the heads correspond to
+     * @throws IOException if the heads cannot be written
+     */
+    synchronized void force(long ledgerCount) throws IOException {
+        if (!valid) {
+            return;
+        }
+        MappedByteBuffer[] mapped = regions;
+        for (int i = (int) (forcedCount >>> REGION_SHIFT); i < mapped.length; i++) {
+            if (mapped[i] != null) {
+                mapped[i].force();
+            }
+        }
+        header.force();
+        forcedCount = count;
+        Path temp = headsFile.resolveSibling(headsFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(HEADS_MAGIC);
+            out.writeLong(count);
+            out.writeLong(ledgerCount);
+            out.writeInt(heads.size());
+            for (Map.Entry<String, Long> head : heads.entrySet()) {
+                out.writeUTF(head.getKey());
+                out.writeLong(head.getValue());
+            }
+        }
+        Files.move(temp, headsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        coveredRecords = ledgerCount;
+    }
+
+    /**
+     * Closes the entry file without forcing it.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void loadHeads(long storedCount) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(headsFile), 1 << 16))) {
+            if (in.readInt() != HEADS_MAGIC) {
+                return;
+            }
+            long entries = in.readLong();
+            long ledgerCount = in.readLong();
+            if (entries > storedCount) {
+                return;
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                heads.put(in.readUTF(), in.readLong());
+            }
+            count = entries; // anything after the heads was never forced together with them
+            forcedCount = entries;
+            coveredRecords = ledgerCount;
+            header.putLong(COUNT_OFFSET, count);
+            valid = true;
+        }
+    }
+
+    private MappedByteBuffer region(long entry) {
+        int regionIndex = (int) (entry >>> REGION_SHIFT);
+        MappedByteBuffer[] mapped = regions;
+        if (regionIndex < mapped.length && mapped[regionIndex] != null) {
+            return mapped[regionIndex];
+        }
+        return map(regionIndex);
+    }
+
+    private synchronized MappedByteBuffer map(int regionIndex) {
+        MappedByteBuffer[] mapped = regions;
+        if (regionIndex < mapped.length && mapped[regionIndex] != null) {
+            return mapped[regionIndex];
+        }
+        try {
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + regionIndex * REGION_BYTES, REGION_BYTES);
+            MappedByteBuffer[] grown = Arrays.copyOf(mapped, Math.max(mapped.length, regionIndex + 1));
+            grown[regionIndex] = region;
+            regions = grown;
+            return region;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map account index region", e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Storage abstraction for the accounts managed by a Bank.
+ * Implementations index accounts by account number so that lookups do not
+ * degrade as the number of stored accounts grows.
+ * @see HashAccountStore
+ * @see Bank
+ */
+public interface AccountStore {
+
+    /**
+     * Adds an account to the store unless an account with the same number already exists.
+     *
+     * @param account the account to add
+     * @return true if the account was added, false if its account number is already taken
+     */
+    boolean add(Account account);
+
+    /**
+     * Searches for an account by its account number.
+     *
+     * @param accountNumber the identifier to search for
+     * @return the matching Account, or null if not found
+     */
+    Account findByNumber(String accountNumber);
+
+    /**
+     * Checks whether an account with the given number exists.
+     *
+     * @param accountNumber the identifier to check
+     * @return true if the account exists, false otherwise
+     */
+    boolean contains(String accountNumber);
+
+    /**
+     * Returns all accounts owned by the given owner.
+     *
+     * @param ownerName name of the account owner
+     * @return the matching accounts; empty if there are none
+     */
+    List<Account> findByOwner(String ownerName);
+
+    /**
+     * Returns all accounts of the given type.
+     *
+     * @param accountType type/category of account (e.g., Savings, Checking)
+     * @return the matching accounts; empty if there are none
+     */
+    List<Account> findByType(String accountType);
+
+    /**
+     * Returns every account in the store.
+     *
+     * @return an unmodifiable view of the stored accounts
+     */
+    Collection<Account> all();
+
+    /**
+     * Gets the number of stored accounts.
+     *
+     * @return the account count
+     */
+    int size();
+
+    /**
+     * Removes every account from the store.
+     */
+    void clear();
+
+    /**
+     * Makes the current balances durable in the store itself, as the checkpoint of the
+     * given transaction sequence number. Called by the Bank while no operation runs; a
+     * store that returns true replaces the Bank's snapshot file.
+     *
+     * @param sequence sequence number of the last transaction the balances reflect
+     * @return true if the store persisted its accounts, false if it keeps them in memory only
+     * @throws IOException if the store cannot be written
+     */
+    default boolean checkpoint(long sequence) throws IOException {
+        return false;
+    }
+
+    /**
+     * Gets the sequence number of the last {@linkplain #checkpoint(long) checkpoint} the
+     * store holds, so the Bank can open it without loading a snapshot.
+     *
+     * @return the sequence number, or -1 if the store holds no checkpoint
+     */
+    default long getCheckpointSequence() {
+        return -1;
+    }
+}
@@ -0,0 +1,82 @@
+package com.jibstech.bank_account_management_system;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares account lookup cost of the hash-indexed AccountStore against the
+ * linear list scan it replaced, at growing account counts.
+ * The hash lookup should stay flat while the scan grows with the account count.
+ * @see HashAccountStore
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountStoreBenchmark {
+
+    private static final int LOOKUP_KEYS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    private int accountCount;
+
+    private HashAccountStore store;
+    private List<Account> list;
+    private String[] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new HashAccountStore();
+        list = new ArrayList<>(accountCount);
+        for (int i = 0; i < accountCount; i++) {
+            Account account = new Account(String.valueOf(1_000_000 + i), "Owner " + (i % 1000),
+                    i % 2 == 0 ? "Savings" : "Checking", 100.0);
+            store.add(account);
+            list.add(account);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        keys = new String[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            keys[i] = String.valueOf(1_000_000 + random.nextInt(accountCount));
+        }
+    }
+
+    private String nextKey() {
+        next = (next + 1) & (LOOKUP_KEYS - 1);
+        return keys[next];
+    }
+
+    @Benchmark
+    public Account hashLookup() {
+        return store.findByNumber(nextKey());
+    }
+
+    @Benchmark
+    public Account linearScanLookup() {
+        String key = nextKey();
+        for (Account account : list) {
+            if (account.getAccountNumber().equals(key)) {
+                return account;
+            }
+        }
+        return null;
+    }
+}
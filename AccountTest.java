@@ -8,22 +8,47 @@ class AccountTest {
 
 	@Test
 	void testDeposit() {
-		fail("Not yet implemented");
+		Account account = new Account("1000001", "Alice", "Savings", 100);
+		assertTrue(account.deposit(50));
+		assertEquals(150.0, account.getBalance());
+		assertFalse(account.deposit(0));
+		assertFalse(account.deposit(-10));
+		assertEquals(150.0, account.getBalance());
 	}
 
 	@Test
 	void testWithdraw() {
-		fail("Not yet implemented");
+		Account account = new Account("1000001", "Alice", "Savings", 100);
+		assertTrue(account.withdraw(100));
+		assertEquals(0.0, account.getBalance());
+		assertFalse(account.withdraw(1));
+		assertFalse(account.withdraw(0));
+		assertEquals(0.0, account.getBalance());
 	}
 
 	@Test
 	void testTransfer() {
-		fail("Not yet implemented");
+		Account sender = new Account("1000001", "Alice", "Savings", 100);
+		Account receiver = new Account("1000002", "Bob", "Checking", 10);
+		assertTrue(sender.transfer(receiver, 60));
+		assertEquals(40.0, sender.getBalance());
+		assertEquals(70.0, receiver.getBalance());
+		assertFalse(sender.transfer(receiver, 41));
+		assertEquals(40.0, sender.getBalance());
+		assertEquals(70.0, receiver.getBalance());
 	}
 
 	@Test
 	void testGetDetails() {
-		fail("Not yet implemented");
+		Account account = new Account("1000001", "Alice", "Savings", 100);
+		Account copy = account.getDetails();
+		assertNotSame(account, copy);
+		assertEquals("1000001", copy.getAccountNumber());
+		assertEquals("Alice", copy.getOwnerName());
+		assertEquals("Savings", copy.getAcountType());
+		assertEquals(100.0, copy.getBalance());
+		account.deposit(1);
+		assertEquals(100.0, copy.getBalance());
 	}
 
 }
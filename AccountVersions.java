@@ -0,0 +1,195 @@
+package com.jibstech.bank_account_management_system;
+
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Multi-version balances of a Bank's accounts, so that readers can see every account as of
+ * one sequence number while writers carry on. Every committed transaction adds a version,
+ * tagged with its sequence number, to each account it changed; a reader pinned to sequence
+ * S sees, for every account, the newest version at or below S.
+ * <p>
+ * Sequence numbers are issued before their transactions are applied and finish out of
+ * order, so a reader is pinned to the {@linkplain #visibleSequence() visible sequence}: the
+ * highest one below which every transaction has finished. Finished sequence numbers are
+ * marked in a ring and the visible sequence is advanced past them without locks.
+ * <p>
+ * An account only has versions while it is being written or a pinned reader may need an
+ * older balance: the first write installs a base version holding the balance before it,
+ * and once no reader needs anything but the newest version the writer drops them all.
+ * Without versions readers use the live balance. Versions no pinned reader can see any
+ * more are unlinked by the writers. Readers never block writers; pinning and unpinning
+ * only synchronize with each other.
+ * @see Bank#snapshot()
+ * @see BankSnapshot
+ */
+final class AccountVersions {
+
+    private static final int RING_SIZE = 1 << 14;
+    private static final long BASE = Long.MIN_VALUE;
+
+    private final ConcurrentHashMap<String, Version> heads = new ConcurrentHashMap<>();
+    private final AtomicLongArray finished = new AtomicLongArray(RING_SIZE);
+    private final AtomicLong visible;
+    private final TreeMap<Long, Integer> pinned = new TreeMap<>();
+    private volatile long horizon = Long.MAX_VALUE;
+
+    /**
+     * Creates versions for accounts whose transactions up to a sequence number have all
+     * finished, e.g. the last one recovered at startup.
+     *
+     * @param sequence the last sequence number issued so far
+     */
+    AccountVersions(long sequence) {
+        visible = new AtomicLong(sequence);
+        for (int i = 0; i < RING_SIZE; i++) {
+            finished.set(i, -1);
+        }
+    }
+
+    /**
+     * Records the balance of an account before its first write, if it has no versions yet.
+     * Must be called, while holding the account's stripe, before the account is changed.
+     *
+     * @param account the account about to be written
+     */
+    void beforeWrite(Account account) {
+        if (!heads.containsKey(account.getAccountNumber())) {
+            heads.putIfAbsent(account.getAccountNumber(), new Version(BASE, account.getBalance(), null));
+        }
+    }
+
+    /**
+     * Adds the current balance of an account as its version for a transaction, and unlinks
+     * versions no pinned reader can see. Must be called while holding the account's stripe,
+     * after {@link #beforeWrite(Account)} and the change.
+     *
+     * @param sequence sequence number of the transaction
+     * @param account the changed account
+     */
+    void write(long sequence, Account account) {
+        long visibleNow = visible.get();
+        long oldestReader = Math.min(horizon, visibleNow);
+        Version head = new Version(sequence, account.getBalance(), heads.get(account.getAccountNumber()));
+        heads.put(account.getAccountNumber(), head);
+        for (Version version = head; version != null; version = version.previous) {
+            if (version.sequence <= oldestReader) {
+                version.previous = null;
+                break;
+            }
+        }
+    }
+
+    /**
+     * Drops the versions of an account once every pinned reader, and every reader pinned
+     * from now on, sees its newest one, which then equals its live balance; accounts nobody
+     * is reading keep no versions. Must be called while holding the account's stripe, after
+     * the transaction that wrote it {@linkplain #finish(long) finished}.
+     *
+     * @param accountNumber the account
+     */
+    void release(String accountNumber) {
+        long visibleNow = visible.get();
+        long oldestReader = Math.min(horizon, visibleNow);
+        Version head = heads.get(accountNumber);
+        if (head != null && head.sequence <= oldestReader) {
+            heads.remove(accountNumber, head);
+        }
+    }
+
+    /**
+     * Marks a transaction as finished, after the versions of all its accounts were written,
+     * and advances the visible sequence past every finished transaction.
+     *
+     * @param sequence sequence number of the transaction
+     */
+    void finish(long sequence) {
+        while (sequence - visible.get() > RING_SIZE) {
+            Thread.onSpinWait(); // more than RING_SIZE transactions are waiting for an older one
+        }
+        finished.set((int) (sequence & (RING_SIZE - 1)), sequence);
+        for (long current = visible.get(); ; current = visible.get()) {
+            long next = current + 1;
+            if (finished.get((int) (next & (RING_SIZE - 1))) != next || !visible.compareAndSet(current, next)) {
+                if (visible.get() == current) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the highest sequence number below which every transaction has finished.
+     *
+     * @return the visible sequence
+     */
+    long visibleSequence() {
+        return visible.get();
+    }
+
+    /**
+     * Pins a reader to the current visible sequence; versions it can see are kept until it
+     * is {@linkplain #unpin(long) unpinned}.
+     *
+     * @return the sequence the reader sees
+     */
+    synchronized long pin() {
+        horizon = Math.min(horizon, visible.get()); // before reading the sequence, see write()
+        long sequence = visible.get();
+        pinned.merge(sequence, 1, Integer::sum);
+        horizon = pinned.firstKey();
+        return sequence;
+    }
+
+    /**
+     * Releases a reader pinned by {@link #pin()}.
+     *
+     * @param sequence the sequence it was pinned to
+     */
+    synchronized void unpin(long sequence) {
+        pinned.computeIfPresent(sequence, (key, count) -> count == 1 ? null : count - 1);
+        horizon = pinned.isEmpty() ? Long.MAX_VALUE : pinned.firstKey();
+    }
+
+    /**
+     * Gets the balance of an account as of a pinned sequence.
+     *
+     * @param account the live account
+     * @param sequence the sequence the reader is pinned to
+     * @return the newest balance at or below the sequence
+     */
+    double balanceAt(Account account, long sequence) {
+        Version head = heads.get(account.getAccountNumber());
+        if (head == null) {
+            double live = account.getBalance();
+            head = heads.get(account.getAccountNumber());
+            if (head == null) {
+                return live; // no write had started when the balance was read
+            }
+        }
+        for (Version version = head; version != null; version = version.previous) {
+            if (version.sequence <= sequence) {
+                return version.balance;
+            }
+        }
+        throw new IllegalStateException("No version of " + account.getAccountNumber() + " at " + sequence);
+    }
+
+    /**
+     * One balance of an account and the transaction that produced it.
+     */
+    private static final class Version {
+
+        final long sequence;
+        final double balance;
+        volatile Version previous;
+
+        Version(long sequence, double balance, Version previous) {
+            this.sequence = sequence;
+            this.balance = balance;
+            this.previous = previous;
+        }
+    }
+}
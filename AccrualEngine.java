@@ -0,0 +1,254 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * Nightly batch that posts interest and fees to every account of the types it has an
+ * {@link AccrualRule} for, e.g. interest on "Savings" and a maintenance fee on "Checking".
+ * <p>
+ * The accounts are split into a fixed number of partitions by a hash of their account
+ * number, and the partitions run in parallel on a fork/join pool. Each partition computes
+ * its amounts in fixed-point minor units and posts them with one all-or-nothing
+ * {@link Bank#postBatch batch}, so it costs one journal commit rather than one per account,
+ * and accounts whose fee is no longer covered when the batch runs are left out of it.
+ * <p>
+ * A run is checkpointed per partition in {@code accrual-<runId>.log}: before a partition's
+ * batch is applied, the sequence number of its first transaction is logged and forced.
+ * Running the same run id again, e.g. after a crash, skips every partition whose batch the
+ * Bank {@linkplain Bank#isRecorded(long) recovered} and posts the rest, so no account is
+ * credited or charged twice. The log is kept after the run, so a repeated run is a no-op.
+ * <p>
+ * Record layout ({@value #RECORD_SIZE} bytes, big-endian): int partition (-1 for the
+ * header, which holds the partition count), long first sequence number (0 for a partition
+ * with nothing to post), int CRC32 of bytes 0-11. A torn record at the tail is discarded.
+ * @see AccrualRule
+ * @see AccrualReport
+ */
+public class AccrualEngine {
+
+    /** Partitions of {@link #AccrualEngine(Bank, Map, Path)} */
+    public static final int DEFAULT_PARTITIONS = 1024;
+
+    private static final int RECORD_SIZE = 16;
+    private static final int CRC_OFFSET = 12;
+    private static final int HEADER = -1;
+
+    private final Bank bank;
+    private final Map<String, AccrualRule> rules;
+    private final Path directory;
+    private final int partitions;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an engine with {@value #DEFAULT_PARTITIONS} partitions on the common pool.
+     *
+     * @param bank the bank to post to
+     * @param rules rule per account type; accounts of other types are left alone
+     * @param directory directory holding the run logs
+     */
+    public AccrualEngine(Bank bank, Map<String, AccrualRule> rules, Path directory) {
+        this(bank, rules, directory, DEFAULT_PARTITIONS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param bank the bank to post to
+     * @param rules rule per account type; accounts of other types are left alone
+     * @param directory directory holding the run logs
+     * @param partitions number of partitions; a restarted run must use the same number
+     * @param pool pool the partitions run on
+     */
+    public AccrualEngine(Bank bank, Map<String, AccrualRule> rules, Path directory, int partitions, ForkJoinPool pool) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be at least 1");
+        }
+        this.bank = bank;
+        this.rules = Map.copyOf(rules);
+        this.directory = directory;
+        this.partitions = partitions;
+        this.pool = pool;
+    }
+
+    /**
+     * Runs, or resumes, an accrual run.
+     *
+     * @param runId identifies the run, e.g. the business date; reusing it resumes the run
+     * @return what this attempt posted
+     * @throws IllegalStateException if the run was started with a different number of partitions
+     * @throws UncheckedIOException if the run log cannot be read or written, or a batch cannot be committed
+     */
+    public AccrualReport run(String runId) {
+        Path file = directory.resolve("accrual-" + runId + ".log");
+        try (FileChannel log = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            BitSet posted = recover(log);
+            int resumed = posted.cardinality();
+            ConcurrentMap<Integer, List<Account>> byPartition = rules.keySet().stream()
+                    .flatMap(type -> bank.findAccountsByType(type).stream())
+                    .parallel()
+                    .collect(Collectors.groupingByConcurrent(account -> partitionOf(account.getAccountNumber())));
+            Totals totals = pool.submit(() -> IntStream.range(0, partitions).parallel()
+                    .filter(partition -> !posted.get(partition))
+                    .mapToObj(partition -> post(partition, byPartition.getOrDefault(partition, List.of()), log))
+                    .reduce(new Totals(), Totals::merge)).join();
+            return new AccrualReport(runId, partitions - resumed, resumed, totals.credits,
+                    Money.fromMinorUnits(totals.credited), totals.debits, Money.fromMinorUnits(totals.debited),
+                    totals.skipped);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to use accrual log " + file, e);
+        }
+    }
+
+    /**
+     * Gets the partition of an account; stable across restarts for a given partition count.
+     */
+    int partitionOf(String accountNumber) {
+        return Math.floorMod(accountNumber.hashCode(), partitions);
+    }
+
+    /**
+     * Computes and posts one partition as an all-or-nothing batch, dropping the lines it
+     * rejects (fees no longer covered) and retrying.
+     */
+    private Totals post(int partition, List<Account> accounts, FileChannel log) {
+        Totals totals = new Totals();
+        List<Posting> postings = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            AccrualRule rule = rules.get(account.getAcountType());
+            long amount = rule.amount(Money.toMinorUnits(account.getBalance()));
+            if (amount > 0) {
+                postings.add(new Posting(rule.getType(), account.getAccountNumber(), null, Money.toDouble(amount)));
+            } else {
+                totals.skipped++;
+            }
+        }
+        try {
+            while (!postings.isEmpty()) {
+                BatchReport report = bank.postAtomically(postings, first -> append(log, partition, first), false);
+                if (report.isCommitted()) {
+                    break;
+                }
+                List<Integer> rejected = report.getRejectedLines();
+                for (int i = rejected.size() - 1; i >= 0; i--) {
+                    postings.remove((int) rejected.get(i));
+                }
+                totals.skipped += rejected.size();
+            }
+            if (postings.isEmpty()) {
+                append(log, partition, 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to commit accrual partition " + partition, e);
+        }
+        for (Posting posting : postings) {
+            long amount = Money.toMinorUnits(posting.getAmount());
+            if (posting.getType() == TransactionType.DEPOSIT) {
+                totals.credits++;
+                totals.credited += amount;
+            } else {
+                totals.debits++;
+                totals.debited += amount;
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Reads the run log, writing its header if the run is new, and gets the partitions
+     * whose batch the Bank holds.
+     */
+    private BitSet recover(FileChannel log) throws IOException {
+        BitSet posted = new BitSet(partitions);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        CRC32 crc = new CRC32();
+        long offset = 0;
+        long size = log.size();
+        while (offset + RECORD_SIZE <= size) {
+            record.clear();
+            while (record.hasRemaining() && log.read(record, offset + record.position()) >= 0) {
+                // keep reading until the record is complete
+            }
+            crc.reset();
+            crc.update(record.array(), 0, CRC_OFFSET);
+            if ((int) crc.getValue() != record.getInt(CRC_OFFSET)) {
+                break;
+            }
+            int partition = record.getInt(0);
+            long sequence = record.getLong(4);
+            if (partition == HEADER) {
+                if (sequence != partitions) {
+                    throw new IllegalStateException("Accrual run was started with " + sequence + " partitions, not " + partitions);
+                }
+            } else if (sequence == 0 || bank.isRecorded(sequence)) {
+                posted.set(partition);
+            }
+            offset += RECORD_SIZE;
+        }
+        if (offset < size) {
+            log.truncate(offset);
+        }
+        if (offset == 0) {
+            append(log, HEADER, partitions);
+        }
+        return posted;
+    }
+
+    /**
+     * Appends one record and forces it to disk.
+     */
+    private static void append(FileChannel log, int partition, long sequence) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putInt(partition).putLong(sequence);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, CRC_OFFSET);
+        record.putInt((int) crc.getValue()).flip();
+        try {
+            synchronized (log) {
+                long position = log.size();
+                while (record.hasRemaining()) {
+                    position += log.write(record, position);
+                }
+                log.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to log accrual partition " + partition, e);
+        }
+    }
+
+    /**
+     * What one or more partitions posted, in minor units.
+     */
+    private static final class Totals {
+
+        long credits;
+        long credited;
+        long debits;
+        long debited;
+        long skipped;
+
+        Totals merge(Totals other) {
+            Totals merged = new Totals();
+            merged.credits = credits + other.credits;
+            merged.credited = credited + other.credited;
+            merged.debits = debits + other.debits;
+            merged.debited = debited + other.debited;
+            merged.skipped = skipped + other.skipped;
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one complete nightly accrual run: interest on the 80% of accounts that are
+ * "Savings" and a fee on the 20% that are "Checking", journaled and forced per partition.
+ * Every invocation is a new run over the same accounts; the bank is checkpointed between
+ * iterations so the journal does not grow across them.
+ * <p>
+ * Each run of the 10M case appends 10M journal and ledger records (about 1.3 GB), so it
+ * needs several GB of free disk space in the temporary directory.
+ * @see AccrualEngine
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class AccrualEngineBenchmark {
+
+    private static final Map<String, AccrualRule> RULES = Map.of(
+            "Savings", AccrualRule.interest(new BigDecimal("0.000137")),
+            "Checking", AccrualRule.fee(new BigDecimal("0.50")));
+
+    @Param({"1000000", "10000000"})
+    private int accountCount;
+
+    @Param({"1024"})
+    private int partitions;
+
+    private Path dataDirectory;
+    private Bank bank;
+    private AccrualEngine engine;
+    private int run;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDirectory = Files.createTempDirectory("accrual-bench");
+        AccountStore store = new HashAccountStore();
+        for (int i = 0; i < accountCount; i++) {
+            store.add(new Account(String.valueOf(10_000_000 + i), "Owner " + i, i % 5 == 0 ? "Checking" : "Savings",
+                    1_000 + i % 100_000));
+        }
+        bank = new Bank(store, dataDirectory, FsyncPolicy.PER_OPERATION, BankLogger.quiet());
+        engine = new AccrualEngine(bank, RULES, dataDirectory, partitions, ForkJoinPool.commonPool());
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkpoint() {
+        bank.checkpoint();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        bank.close();
+        try (Stream<Path> files = Files.walk(dataDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public AccrualReport nightlyRun() {
+        return engine.run("night-" + run++);
+    }
+}
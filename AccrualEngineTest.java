@@ -0,0 +1,137 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AccrualEngineTest {
+
+	private static final Map<String, AccrualRule> RULES = Map.of(
+			"Savings", AccrualRule.interest(new BigDecimal("0.000123")),
+			"Checking", AccrualRule.fee(new BigDecimal("5.00")));
+
+	@TempDir
+	Path dataDirectory;
+
+	@Test
+	void testRulesUseFixedPointHalfEvenRounding() {
+		AccrualRule onePercent = AccrualRule.interest(new BigDecimal("0.01"));
+		assertEquals(0, onePercent.amount(50));
+		assertEquals(2, onePercent.amount(150));
+		assertEquals(1, onePercent.amount(149));
+		assertEquals(Long.MAX_VALUE / 100, AccrualRule.interest(new BigDecimal("0.01")).amount(Long.MAX_VALUE - 7));
+		assertEquals(0, onePercent.amount(-100));
+
+		AccrualRule fee = AccrualRule.fee(new BigDecimal("5.00"));
+		assertEquals(TransactionType.WITHDRAWAL, fee.getType());
+		assertEquals(500, fee.amount(500));
+		assertEquals(0, fee.amount(499));
+		assertThrows(ArithmeticException.class, () -> AccrualRule.interest(new BigDecimal("0.0000000001")));
+		assertThrows(IllegalArgumentException.class, () -> AccrualRule.interest(new BigDecimal("1.5")));
+		assertThrows(IllegalArgumentException.class, () -> AccrualRule.fee(BigDecimal.ZERO));
+	}
+
+	@Test
+	void testRunPostsByAccountTypeAndRepeatIsNoOp() {
+		Bank bank = newBankWithAccounts();
+		AccrualEngine engine = new AccrualEngine(bank, RULES, dataDirectory, 8, ForkJoinPool.commonPool());
+
+		AccrualReport report = engine.run("2026-10-17");
+
+		assertEquals(40, report.getCredits());
+		assertEquals(new BigDecimal("4.80"), report.getCredited());
+		assertEquals(5, report.getDebits());
+		assertEquals(new BigDecimal("25.00"), report.getDebited());
+		assertEquals(5, report.getSkipped());
+		assertEquals(8, report.getPartitionsPosted());
+		assertEquals(1000.12, bank.findAccountByNumber(accountNumber(0)).getBalance(), 0.001);
+		assertEquals(95, bank.findAccountByNumber(accountNumber(40)).getBalance(), 0.001);
+		assertEquals(3, bank.findAccountByNumber(accountNumber(45)).getBalance(), 0.001);
+		assertEquals(1000, bank.findAccountByNumber(accountNumber(50)).getBalance(), 0.001);
+		assertEquals(45, bank.getTransactionCount());
+		assertTrue(bank.reconcile().isBalanced());
+
+		AccrualReport repeat = engine.run("2026-10-17");
+		assertEquals(0, repeat.getPartitionsPosted());
+		assertEquals(8, repeat.getPartitionsResumed());
+		assertEquals(0, repeat.getCredits());
+		assertEquals(45, bank.getTransactionCount());
+		assertThrows(IllegalStateException.class,
+				() -> new AccrualEngine(bank, RULES, dataDirectory, 4, ForkJoinPool.commonPool()).run("2026-10-17"));
+		bank.close();
+	}
+
+	@Test
+	void testCrashedRunResumesWithoutPostingTwice() throws IOException {
+		Bank bank = newBankWithAccounts();
+		AccrualEngine engine = new AccrualEngine(bank, RULES, dataDirectory, 4, ForkJoinPool.commonPool());
+		int donePartition = engine.partitionOf(accountNumber(0));
+		int lostPartition = (donePartition + 1) % 4;
+		try (FileChannel log = FileChannel.open(dataDirectory.resolve("accrual-night.log"), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE)) {
+			writeRecord(log, -1, 4);
+			writeRecord(log, donePartition, 0); // posted before the crash (here: nothing to post)
+			writeRecord(log, lostPartition, 1000); // logged, but its batch never committed
+			log.write(ByteBuffer.wrap(new byte[] {1, 2, 3})); // torn record
+		}
+
+		AccrualReport report = engine.run("night");
+
+		assertEquals(1, report.getPartitionsResumed());
+		assertEquals(3, report.getPartitionsPosted());
+		assertEquals(1000, bank.findAccountByNumber(accountNumber(0)).getBalance(), 0.001);
+		double[] balances = new double[55];
+		for (int i = 0; i < balances.length; i++) {
+			balances[i] = bank.findAccountByNumber(accountNumber(i)).getBalance();
+			if (i < 40 && engine.partitionOf(accountNumber(i)) != donePartition) {
+				assertEquals(1000.12, balances[i], 0.001);
+			}
+		}
+
+		// crash: the journal holds the batches, the bank is never closed
+		Bank restarted = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		AccrualReport resumed = new AccrualEngine(restarted, RULES, dataDirectory, 4, ForkJoinPool.commonPool()).run("night");
+
+		assertEquals(4, resumed.getPartitionsResumed());
+		assertEquals(0, resumed.getPartitionsPosted());
+		for (int i = 0; i < balances.length; i++) {
+			assertEquals(balances[i], restarted.findAccountByNumber(accountNumber(i)).getBalance(), 0.001);
+		}
+		restarted.close();
+	}
+
+	/**
+	 * 40 Savings accounts of 1000.00, 5 Checking accounts of 100.00 and 5 of 3.00, and 5
+	 * Current accounts no rule applies to.
+	 */
+	private Bank newBankWithAccounts() {
+		Bank bank = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		for (int i = 0; i < 55; i++) {
+			String type = i < 40 ? "Savings" : i < 50 ? "Checking" : "Current";
+			bank.createAccount(accountNumber(i), "Owner " + i, type, i >= 45 && i < 50 ? 3 : i < 40 || i >= 50 ? 1000 : 100);
+		}
+		return bank;
+	}
+
+	private static void writeRecord(FileChannel log, int partition, long sequence) throws IOException {
+		ByteBuffer record = ByteBuffer.allocate(16).putInt(partition).putLong(sequence);
+		CRC32 crc = new CRC32();
+		crc.update(record.array(), 0, 12);
+		log.write(record.putInt((int) crc.getValue()).flip());
+	}
+
+	private static String accountNumber(int index) {
+		return String.valueOf(1000000 + index);
+	}
+}
@@ -0,0 +1,131 @@
+package com.jibstech.bank_account_management_system;
+
+import java.math.BigDecimal;
+
+/**
+ * Outcome of one {@link AccrualEngine} run, or of the part of it done after a restart:
+ * how many interest credits and fees were posted and for how much, how many accounts were
+ * skipped, and how many partitions an earlier attempt had already posted.
+ * @see AccrualEngine#run(String)
+ */
+public class AccrualReport {
+
+    private final String runId;
+    private final int partitionsPosted;
+    private final int partitionsResumed;
+    private final long credits;
+    private final BigDecimal credited;
+    private final long debits;
+    private final BigDecimal debited;
+    private final long skipped;
+
+    /**
+     * Constructs a report.
+     *
+     * @param runId identifier of the run
+     * @param partitionsPosted partitions posted by this attempt
+     * @param partitionsResumed partitions an earlier attempt had already posted
+     * @param credits number of interest credits posted
+     * @param credited total interest credited
+     * @param debits number of fees posted
+     * @param debited total fees debited
+     * @param skipped accounts with nothing to post, or whose balance no longer covered their fee
+     */
+    public AccrualReport(String runId, int partitionsPosted, int partitionsResumed, long credits, BigDecimal credited,
+                         long debits, BigDecimal debited, long skipped) {
+        this.runId = runId;
+        this.partitionsPosted = partitionsPosted;
+        this.partitionsResumed = partitionsResumed;
+        this.credits = credits;
+        this.credited = credited;
+        this.debits = debits;
+        this.debited = debited;
+        this.skipped = skipped;
+    }
+
+    /**
+     * Gets the identifier of the run.
+     *
+     * @return the run id
+     */
+    public String getRunId() {
+        return runId;
+    }
+
+    /**
+     * Gets the number of partitions posted by this attempt.
+     *
+     * @return the partition count
+     */
+    public int getPartitionsPosted() {
+        return partitionsPosted;
+    }
+
+    /**
+     * Gets the number of partitions skipped because an earlier attempt of the same run had
+     * already posted them.
+     *
+     * @return the partition count
+     */
+    public int getPartitionsResumed() {
+        return partitionsResumed;
+    }
+
+    /**
+     * Gets the number of interest credits posted.
+     *
+     * @return the deposit count
+     */
+    public long getCredits() {
+        return credits;
+    }
+
+    /**
+     * Gets the total interest credited.
+     *
+     * @return the amount, with a scale of {@value Money#SCALE}
+     */
+    public BigDecimal getCredited() {
+        return credited;
+    }
+
+    /**
+     * Gets the number of fees posted.
+     *
+     * @return the withdrawal count
+     */
+    public long getDebits() {
+        return debits;
+    }
+
+    /**
+     * Gets the total fees debited.
+     *
+     * @return the amount, with a scale of {@value Money#SCALE}
+     */
+    public BigDecimal getDebited() {
+        return debited;
+    }
+
+    /**
+     * Gets the number of accounts of a ruled type that got nothing: zero interest, or a
+     * balance that did not cover the fee.
+     *
+     * @return the account count
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Provides a one-line summary of the run.
+     *
+     * @return the counts and totals
+     */
+    @Override
+    public String toString() {
+        return "Accrual run " + runId + ": " + credits + " credits (" + credited + "), " + debits + " fees ("
+                + debited + "), " + skipped + " skipped, " + partitionsPosted + " partitions posted, "
+                + partitionsResumed + " resumed";
+    }
+}
@@ -0,0 +1,91 @@
+package com.jibstech.bank_account_management_system;
+
+import java.math.BigDecimal;
+
+/**
+ * What an {@link AccrualEngine} run posts to each account of one type: interest credited
+ * as a deposit of a fraction of the balance, or a fixed maintenance fee debited as a
+ * withdrawal. Amounts are computed in fixed-point minor units (see {@link Money}), so a
+ * run over millions of accounts posts exactly the same amounts on every machine.
+ * @see AccrualEngine
+ */
+public final class AccrualRule {
+
+    /** Fixed-point scale of interest rates: rates are held in billionths */
+    private static final long RATE_SCALE = 1_000_000_000L;
+
+    private final TransactionType type;
+    private final long rateBillionths;
+    private final long feeMinor;
+
+    private AccrualRule(TransactionType type, long rateBillionths, long feeMinor) {
+        this.type = type;
+        this.rateBillionths = rateBillionths;
+        this.feeMinor = feeMinor;
+    }
+
+    /**
+     * Creates a rule crediting interest on the balance, rounded half-even to the minor unit.
+     *
+     * @param rate the rate for one run, e.g. 0.0001 for one basis point; between 0 and 1,
+     *             with at most nine decimal places
+     * @return the rule
+     * @throws IllegalArgumentException if the rate is out of range
+     * @throws ArithmeticException if the rate has more than nine decimal places
+     */
+    public static AccrualRule interest(BigDecimal rate) {
+        if (rate.signum() < 0 || rate.compareTo(BigDecimal.ONE) > 0) {
+            throw new IllegalArgumentException("Interest rate must be between 0 and 1: " + rate);
+        }
+        return new AccrualRule(TransactionType.DEPOSIT, rate.movePointRight(9).longValueExact(), 0);
+    }
+
+    /**
+     * Creates a rule debiting a fixed fee. Accounts whose balance does not cover the fee
+     * are skipped.
+     *
+     * @param amount the fee, with at most {@value Money#SCALE} decimal places
+     * @return the rule
+     * @throws IllegalArgumentException if the fee is not positive
+     * @throws ArithmeticException if the fee has more than {@value Money#SCALE} decimal places
+     */
+    public static AccrualRule fee(BigDecimal amount) {
+        if (amount.signum() <= 0) {
+            throw new IllegalArgumentException("Fee must be positive: " + amount);
+        }
+        return new AccrualRule(TransactionType.WITHDRAWAL, 0, Money.toMinorUnits(amount));
+    }
+
+    /**
+     * Gets the kind of transaction the rule posts.
+     *
+     * @return DEPOSIT for interest, WITHDRAWAL for fees
+     */
+    public TransactionType getType() {
+        return type;
+    }
+
+    /**
+     * Computes the amount to post to an account.
+     *
+     * @param balanceMinor the account's balance in minor units
+     * @return the amount in minor units, or 0 if nothing is to be posted
+     */
+    long amount(long balanceMinor) {
+        if (type == TransactionType.WITHDRAWAL) {
+            return balanceMinor >= feeMinor ? feeMinor : 0;
+        }
+        if (balanceMinor <= 0) {
+            return 0;
+        }
+        // split the balance so neither product overflows for any balance a long can hold
+        long whole = balanceMinor / RATE_SCALE * rateBillionths;
+        long fraction = balanceMinor % RATE_SCALE * rateBillionths;
+        long quotient = fraction / RATE_SCALE;
+        long remainder = fraction % RATE_SCALE;
+        if (remainder > RATE_SCALE / 2 || remainder == RATE_SCALE / 2 && (quotient & 1) == 1) {
+            quotient++;
+        }
+        return whole + quotient;
+    }
+}
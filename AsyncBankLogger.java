@@ -0,0 +1,95 @@
+package com.jibstech.bank_account_management_system;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logger that hands messages to a background thread, which passes them on to another
+ * logger, so a caller holding account locks never waits for console or file output.
+ * Messages are queued up to a fixed capacity; when the queue is full, new messages are
+ * dropped and counted rather than blocking the caller.
+ * @see BankLogger
+ */
+public class AsyncBankLogger implements BankLogger, AutoCloseable {
+
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    private final BlockingQueue<String> queue;
+    private final BankLogger target;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * Creates an asynchronous logger with room for 8192 pending messages.
+     *
+     * @param target the logger the background thread writes to
+     */
+    public AsyncBankLogger(BankLogger target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an asynchronous logger and starts its background thread.
+     *
+     * @param target the logger the background thread writes to
+     * @param capacity maximum number of pending messages
+     */
+    public AsyncBankLogger(BankLogger target, int capacity) {
+        this.target = target;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::drain, "bank-logger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a message without blocking; it is dropped if the queue is full or the logger is closed.
+     *
+     * @param message the message
+     */
+    @Override
+    public void log(String message) {
+        if (closed || !queue.offer(message)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Gets the number of messages dropped because the queue was full or the logger closed.
+     *
+     * @return the dropped message count
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops accepting messages and waits briefly for the queued ones to be written.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!closed) {
+                target.log(queue.take());
+            }
+        } catch (InterruptedException e) {
+            // closing: write what is left below
+        }
+        for (String message = queue.poll(); message != null; message = queue.poll()) {
+            target.log(message);
+        }
+    }
+}
@@ -1,51 +1,235 @@
 package com.jibstech.bank_account_management_system;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Manages a collection of Account objects and their associated transactions.
  * Provides methods to create accounts, perform deposits, withdrawals, transfers,
  * and persist data to/from files.
+ * <p>
+ * Account creations, deposits, withdrawals and transfers are recorded in an append-only
+ * {@link Journal}; transaction history lives in a memory-mapped {@link Ledger}. Balances
+ * are only written, as a binary {@link Snapshot}, at checkpoints ({@link #close()} and,
+ * optionally, {@linkplain #scheduleCheckpoints(long) on a timer}). A checkpoint also
+ * archives the ledger history it covers and deletes the journal segments it covers, so
+ * startup only loads the latest snapshot and replays the journal tail written after it.
+ * <p>
+ * The Bank is safe for concurrent callers. Each operation locks the stripes of the
+ * accounts it touches (both accounts of a transfer, in a stable order), and transaction IDs
+ * come from an atomic sequence.
+ * Checkpoints take an exclusive lock so they capture a consistent state. Account views and
+ * history listings read a {@linkplain #snapshot() snapshot} instead, which never blocks
+ * writers: every transaction also records the new balances of its accounts as versions
+ * tagged with its sequence number.
+ * Withdrawals and transfers can be screened against velocity limits by a
+ * {@linkplain #setVelocityScreen(VelocityScreen) VelocityScreen} before they are applied.
+ * Operations print nothing: deposits, withdrawals and transfers return a
+ * {@link TransactionResult}, and storage errors and progress go to a {@link BankLogger}.
+ * An operation whose journal record cannot be written or forced is undone and fails with
+ * an {@link UncheckedIOException}. What reached the disk is then no longer known, so from
+ * then on every mutation fails the same way and no checkpoint is written; reopening the
+ * Bank recovers the state the journal holds.
+ * Outcomes and latencies of every operation are recorded in {@link #getMetrics()}.
  * @see Account
  * @see Transaction
  * @see TransactionType
  */
 public class Bank {
 
-    private List<Account> accounts;
-    private List<Transaction> transactions;
-    private final String FILE_NAME = "accounts.dat";
-    private final String TXN_FILE = "transactions.dat";
+    private static final int LOCK_STRIPES = 1024;
+
+    private final AccountStore accounts;
+    private final Ledger ledger;
+    private final Path snapshotFile;
+    private final Path accountsFile;
+    private final Path transactionsFile;
+    private final Path migratedTransactionsFile;
+    private final Journal journal;
+    private final StripedLocks locks;
+    private final ReadWriteLock checkpointLock;
+    private final AtomicLong sequence;
+    private final BankMetrics metrics;
+    private final BankLogger logger;
+    private final Clock clock;
+    private final Map<String, Double> holds;
+    private final IdempotencyCache idempotency;
+    private final AccountVersions versions;
+    private final BitSet replayedSequences;
+    private final long recoveredCheckpoint;
+    private final long recoveredSequence;
+    private volatile long checkpointSequence;
+    private long ledgerCheckpointCount;
+    private boolean atomicBatch;
+    private volatile IOException storageFailure;
+    private volatile VelocityScreen velocityScreen;
+    private ScheduledExecutorService checkpointer;
 
     /**
-     * Initializes the Bank, loading existing accounts and transactions from file storage.
+     * Initializes the Bank with a hash-indexed account store, loading existing accounts
+     * and transactions from file storage.
      */
     public Bank() {
-        accounts = new ArrayList<>();
-        transactions = new ArrayList<>();
+        this(new HashAccountStore());
+    }
+
+    /**
+     * Initializes the Bank on the given account store, loading existing accounts and
+     * transactions from file storage.
+     *
+     * @param accountStore the store holding and indexing the bank's accounts
+     * @see AccountStore
+     */
+    public Bank(AccountStore accountStore) {
+        this(accountStore, Paths.get(""), FsyncPolicy.PER_OPERATION);
+    }
+
+    /**
+     * Initializes the Bank on the given account store and data directory, loading the last
+     * checkpoint and replaying the journal on top of it.
+     *
+     * @param accountStore the store holding and indexing the bank's accounts
+     * @param dataDirectory directory holding snapshot.dat, ledger.dat and the journal segments
+     * @param fsyncPolicy when journal records are forced to disk
+     * @throws UncheckedIOException if the journal or ledger cannot be opened, or the journal cannot be replayed
+     * @see Journal
+     * @see Ledger
+     */
+    public Bank(AccountStore accountStore, Path dataDirectory, FsyncPolicy fsyncPolicy) {
+        this(accountStore, dataDirectory, fsyncPolicy, BankLogger.console());
+    }
+
+    /**
+     * Initializes the Bank on the given account store and data directory, sending its
+     * diagnostic messages to the given logger.
+     *
+     * @param accountStore the store holding and indexing the bank's accounts
+     * @param dataDirectory directory holding snapshot.dat, ledger.dat and the journal segments
+     * @param fsyncPolicy when journal records are forced to disk
+     * @param logger receives storage errors and progress messages; {@link BankLogger#quiet()} for none
+     * @throws UncheckedIOException if the journal or ledger cannot be opened, or the journal cannot be replayed
+     */
+    public Bank(AccountStore accountStore, Path dataDirectory, FsyncPolicy fsyncPolicy, BankLogger logger) {
+        this(accountStore, dataDirectory, fsyncPolicy, logger, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Initializes the Bank on the given account store and data directory, timestamping its
+     * transactions with the given clock, e.g. a fixed or manually advanced one in tests.
+     *
+     * @param accountStore the store holding and indexing the bank's accounts
+     * @param dataDirectory directory holding snapshot.dat, ledger.dat and the journal segments
+     * @param fsyncPolicy when journal records are forced to disk
+     * @param logger receives storage errors and progress messages; {@link BankLogger#quiet()} for none
+     * @param clock source of transaction timestamps
+     * @throws UncheckedIOException if the journal or ledger cannot be opened, or the journal cannot be replayed
+     */
+    public Bank(AccountStore accountStore, Path dataDirectory, FsyncPolicy fsyncPolicy, BankLogger logger, Clock clock) {
+        this.logger = logger;
+        this.clock = clock;
+        accounts = accountStore;
+        locks = new StripedLocks(LOCK_STRIPES);
+        checkpointLock = new ReentrantReadWriteLock();
+        sequence = new AtomicLong();
+        metrics = new BankMetrics();
+        holds = new ConcurrentHashMap<>();
+        idempotency = new IdempotencyCache();
+        metrics.attach(idempotency);
+        replayedSequences = new BitSet();
+        if (accountStore instanceof DiskAccountStore) {
+            metrics.attach(((DiskAccountStore) accountStore).getCache());
+        }
+        snapshotFile = dataDirectory.resolve("snapshot.dat");
+        accountsFile = dataDirectory.resolve("accounts.dat");
+        transactionsFile = dataDirectory.resolve("transactions.dat");
+        migratedTransactionsFile = dataDirectory.resolve("transactions.bin");
+        try {
+            journal = new Journal(dataDirectory, fsyncPolicy, logger);
+            ledger = new Ledger(dataDirectory.resolve("ledger.dat"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open journal or ledger", e);
+        }
         loadAccountsFromFile();
         loadTransactionsFromFile();
+        recoveredCheckpoint = checkpointSequence;
+        replayJournal();
+        recoveredSequence = sequence.get();
+        versions = new AccountVersions(recoveredSequence);
+        rebuildAccountIndex();
     }
 
     /**
-     * Creates a new account with the specified details and persists it.
+     * Creates a new account with the specified details and records its creation in the
+     * journal, under the fsync policy like any other operation.
      *
      * @param accountNumber unique numeric identifier for the new account
      * @param accountName name of the account owner
      * @param accountType category/type of account (e.g., Savings, Checking)
-     * @param initialBalance starting balance for the account
+     * @param initialBalance starting balance for the account; must be zero or positive
+     * @return true if the account was created, false if the account number is already taken
+     *         or longer than {@value Journal#MAX_ACCOUNT_NUMBER_LENGTH} bytes in UTF-8, or the
+     *         initial balance is negative, infinite or not a number
+     * @throws UncheckedIOException if the creation cannot be journaled; the account is then not created
+     * @throws IllegalArgumentException if the account store refuses the account, e.g. a
+     *         {@link ColumnarAccountStore} given a non-numeric account number
      */
-    public void createAccount(String accountNumber, String accountName, String accountType, double initialBalance) {
+    public boolean createAccount(String accountNumber, String accountName, String accountType, double initialBalance) {
+        long start = System.nanoTime();
+        if (!Journal.fitsAccountNumber(accountNumber)) {
+            metrics.recordOutcome(BankMetrics.Operation.CREATE_ACCOUNT, FailureReason.INVALID_ACCOUNT_NUMBER, start);
+            return false;
+        }
+        if (!(initialBalance >= 0) || initialBalance == Double.POSITIVE_INFINITY) {
+            metrics.recordOutcome(BankMetrics.Operation.CREATE_ACCOUNT, FailureReason.INVALID_AMOUNT, start);
+            return false;
+        }
         Account newAccount = new Account(accountNumber, accountName, accountType, initialBalance);
-        accounts.add(newAccount);
-        System.out.println("Account created successfully!");
-        saveAccountsToFile();
+        checkpointLock.readLock().lock();
+        locks.lock(accountNumber);
+        try {
+            if (accounts.contains(accountNumber)) {
+                metrics.recordOutcome(BankMetrics.Operation.CREATE_ACCOUNT, FailureReason.ACCOUNT_EXISTS, start);
+                return false;
+            }
+            try {
+                metrics.written(BankMetrics.File.JOURNAL, journalAccount(newAccount));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to journal account " + accountNumber, e);
+            }
+            if (!accounts.add(newAccount)) {
+                metrics.recordOutcome(BankMetrics.Operation.CREATE_ACCOUNT, FailureReason.ACCOUNT_EXISTS, start);
+                return false;
+            }
+        } finally {
+            locks.unlock(accountNumber);
+            checkpointLock.readLock().unlock();
+        }
+        metrics.recordOutcome(BankMetrics.Operation.CREATE_ACCOUNT, null, start);
+        return true;
     }
 
     /**
@@ -55,12 +239,27 @@ public class Bank {
      * @return the matching Account, or null if not found
      */
     public Account findAccountByNumber(String accountNumber) {
-        for (Account account : accounts) {
-            if (account.getAccountNumber().equals(accountNumber)) {
-                return account;
-            }
-        }
-        return null;
+        return accounts.findByNumber(accountNumber);
+    }
+
+    /**
+     * Returns all accounts owned by the given owner.
+     *
+     * @param ownerName name of the account owner
+     * @return the matching accounts; empty if there are none
+     */
+    public List<Account> findAccountsByOwner(String ownerName) {
+        return accounts.findByOwner(ownerName);
+    }
+
+    /**
+     * Returns all accounts of the given type.
+     *
+     * @param accountType type/category of account (e.g., Savings, Checking)
+     * @return the matching accounts; empty if there are none
+     */
+    public List<Account> findAccountsByType(String accountType) {
+        return accounts.findByType(accountType);
     }
 
     /**
@@ -68,18 +267,11 @@ public class Bank {
      *
      * @param accountNumber target account identifier
      * @param amount amount to deposit; must be positive
+     * @return the outcome, with the new balance or the reason the deposit was rejected
+     * @throws UncheckedIOException if the deposit cannot be journaled; it is then not applied
      */
-    public void depositToAccount(String accountNumber, double amount) {
-        Account account = findAccountByNumber(accountNumber);
-        if (account != null && account.deposit(amount)) {
-            Transaction txn = new Transaction("TXN" + (transactions.size() + 1), accountNumber, amount, TransactionType.DEPOSIT);
-            transactions.add(txn);
-            System.out.println("Deposit successful! New account balance: #" + account.getBalance());
-            saveTransactionssToFile();
-            saveAccountsToFile();
-        } else {
-            System.out.println("Deposit failed! Invalid account or amount");
-        }
+    public TransactionResult depositToAccount(String accountNumber, double amount) {
+        return deposit(accountNumber, amount, false);
     }
 
     /**
@@ -87,18 +279,11 @@ public class Bank {
      *
      * @param accountNumber target account identifier
      * @param amount amount to withdraw; must be positive and <= account balance
+     * @return the outcome, with the new balance or the reason the withdrawal was rejected
+     * @throws UncheckedIOException if the withdrawal cannot be journaled; it is then not applied
      */
-    public void withdrawFromAccount(String accountNumber, double amount) {
-        Account account = findAccountByNumber(accountNumber);
-        if (account != null && account.withdraw(amount)) {
-            Transaction txn = new Transaction("TXN" + (transactions.size() + 1), accountNumber, amount, TransactionType.WITHDRAWAL);
-            transactions.add(txn);
-            System.out.println("Withdrawal successful! New account balance: #" + account.getBalance());
-            saveTransactionssToFile();
-            saveAccountsToFile();
-        } else {
-            System.out.println("Withdrawal failed! Insufficient funds or invalid account");
-        }
+    public TransactionResult withdrawFromAccount(String accountNumber, double amount) {
+        return withdraw(accountNumber, amount, false);
     }
 
     /**
@@ -107,95 +292,1275 @@ public class Bank {
      * @param senderAccount account number of the sender
      * @param receiverAccount account number of the receiver
      * @param amount amount to transfer; must be positive and <= sender's balance
+     * @return the outcome, with the sender's new balance or the reason the transfer was rejected
+     * @throws UncheckedIOException if the transfer cannot be journaled; it is then not applied
      */
-    public void transferBetweenAccounts(String senderAccount, String receiverAccount, double amount) {
+    public TransactionResult transferBetweenAccounts(String senderAccount, String receiverAccount, double amount) {
+        return transfer(senderAccount, receiverAccount, amount, false);
+    }
+
+    /**
+     * Performs a deposit unless a deposit with the same idempotency key was performed in the
+     * last {@value IdempotencyCache#DEFAULT_WINDOW_MINUTES} minutes, so a client can safely retry after a timeout.
+     * Under heavy load a key is remembered only until {@value IdempotencyCache#DEFAULT_MAX_KEYS}
+     * newer keys have been seen, and a deposit that threw is forgotten, so its retry runs again.
+     *
+     * @param accountNumber target account identifier
+     * @param amount amount to deposit; must be positive
+     * @param idempotencyKey client-chosen key identifying the request, or null to always deposit
+     * @return the outcome, or that of the original request if the key was seen before;
+     *         {@link FailureReason#IDEMPOTENCY_KEY_REUSED} if the key was used for another operation
+     */
+    public TransactionResult depositToAccount(String accountNumber, double amount, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return deposit(accountNumber, amount, false);
+        }
+        return deduplicate(BankMetrics.Operation.DEPOSIT, idempotencyKey, "deposit " + accountNumber + " " + amount,
+                () -> deposit(accountNumber, amount, false));
+    }
+
+    /**
+     * Performs a withdrawal unless a withdrawal with the same idempotency key was performed
+     * in the last {@value IdempotencyCache#DEFAULT_WINDOW_MINUTES} minutes.
+     *
+     * @param accountNumber target account identifier
+     * @param amount amount to withdraw; must be positive and <= account balance
+     * @param idempotencyKey client-chosen key identifying the request, or null to always withdraw
+     * @return the outcome, or that of the original request if the key was seen before;
+     *         {@link FailureReason#IDEMPOTENCY_KEY_REUSED} if the key was used for another operation
+     */
+    public TransactionResult withdrawFromAccount(String accountNumber, double amount, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return withdraw(accountNumber, amount, false);
+        }
+        return deduplicate(BankMetrics.Operation.WITHDRAWAL, idempotencyKey, "withdraw " + accountNumber + " " + amount,
+                () -> withdraw(accountNumber, amount, false));
+    }
+
+    /**
+     * Transfers funds unless a transfer with the same idempotency key was performed in the
+     * last {@value IdempotencyCache#DEFAULT_WINDOW_MINUTES} minutes.
+     *
+     * @param senderAccount account number of the sender
+     * @param receiverAccount account number of the receiver
+     * @param amount amount to transfer; must be positive and <= sender's balance
+     * @param idempotencyKey client-chosen key identifying the request, or null to always transfer
+     * @return the outcome, or that of the original request if the key was seen before;
+     *         {@link FailureReason#IDEMPOTENCY_KEY_REUSED} if the key was used for another operation
+     */
+    public TransactionResult transferBetweenAccounts(String senderAccount, String receiverAccount, double amount,
+                                                     String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return transfer(senderAccount, receiverAccount, amount, false);
+        }
+        return deduplicate(BankMetrics.Operation.TRANSFER, idempotencyKey,
+                "transfer " + senderAccount + " " + receiverAccount + " " + amount,
+                () -> transfer(senderAccount, receiverAccount, amount, false));
+    }
+
+    /**
+     * Runs an operation through the idempotency cache, counting a key reused for another
+     * operation as a failure of the operation.
+     */
+    private TransactionResult deduplicate(BankMetrics.Operation operation, String idempotencyKey, String request,
+                                          Supplier<TransactionResult> action) {
+        long start = System.nanoTime();
+        TransactionResult result = idempotency.execute(idempotencyKey, request, action);
+        if (result.getFailureReason() == FailureReason.IDEMPOTENCY_KEY_REUSED) {
+            metrics.record(operation, result, start);
+        }
+        return result;
+    }
+
+    /**
+     * Applies a deposit and appends it to the journal.
+     *
+     * @param accountNumber target account identifier
+     * @param amount amount to deposit
+     * @param batched if true, the journal record is not forced; the caller must call {@link #syncJournal()}
+     * @return the outcome of the deposit
+     * @throws UncheckedIOException if the deposit cannot be journaled; it is then not applied
+     */
+    TransactionResult deposit(String accountNumber, double amount, boolean batched) {
+        long start = System.nanoTime();
+        Account account = findAccountByNumber(accountNumber);
+        if (account == null) {
+            return metrics.record(BankMetrics.Operation.DEPOSIT, TransactionResult.failure(FailureReason.UNKNOWN_ACCOUNT), start);
+        }
+        TransactionResult result;
+        checkpointLock.readLock().lock();
+        locks.lock(accountNumber);
+        try {
+            versions.beforeWrite(account);
+            if (account.deposit(amount)) {
+                Transaction txn = recordTransaction(accountNumber, null, amount, TransactionType.DEPOSIT, batched);
+                result = TransactionResult.success(txn, account.getBalance());
+            } else {
+                result = TransactionResult.failure(FailureReason.INVALID_AMOUNT);
+            }
+        } finally {
+            locks.unlock(accountNumber);
+            checkpointLock.readLock().unlock();
+        }
+        return metrics.record(BankMetrics.Operation.DEPOSIT, result, start);
+    }
+
+    /**
+     * Applies a withdrawal and appends it to the journal.
+     *
+     * @param accountNumber target account identifier
+     * @param amount amount to withdraw
+     * @param batched if true, the journal record is not forced; the caller must call {@link #syncJournal()}
+     * @return the outcome of the withdrawal
+     * @throws UncheckedIOException if the withdrawal cannot be journaled; it is then not applied
+     */
+    TransactionResult withdraw(String accountNumber, double amount, boolean batched) {
+        long start = System.nanoTime();
+        Account account = findAccountByNumber(accountNumber);
+        if (account == null) {
+            return metrics.record(BankMetrics.Operation.WITHDRAWAL, TransactionResult.failure(FailureReason.UNKNOWN_ACCOUNT), start);
+        }
+        TransactionResult result;
+        checkpointLock.readLock().lock();
+        locks.lock(accountNumber);
+        try {
+            VelocityScreen screen = atomicBatch ? null : velocityScreen; // batch lines were screened in validate()
+            FailureReason screened = screen(screen, account, amount);
+            if (screened != null) {
+                result = TransactionResult.failure(screened);
+            } else {
+                versions.beforeWrite(account);
+                boolean applied = false;
+                try {
+                    if (isAvailable(account, amount) && account.withdraw(amount)) {
+                        Transaction txn = recordTransaction(accountNumber, null, amount, TransactionType.WITHDRAWAL, batched);
+                        applied = true;
+                        result = TransactionResult.success(txn, account.getBalance());
+                    } else {
+                        result = rejection(amount);
+                    }
+                } finally {
+                    if (!applied) {
+                        released(screen, account, amount);
+                    }
+                }
+            }
+        } finally {
+            locks.unlock(accountNumber);
+            checkpointLock.readLock().unlock();
+        }
+        return metrics.record(BankMetrics.Operation.WITHDRAWAL, result, start);
+    }
+
+    /**
+     * Applies a transfer and appends it to the journal.
+     *
+     * @param senderAccount account number of the sender
+     * @param receiverAccount account number of the receiver
+     * @param amount amount to transfer
+     * @param batched if true, the journal record is not forced; the caller must call {@link #syncJournal()}
+     * @return the outcome of the transfer, carrying the sender's new balance
+     * @throws UncheckedIOException if the transfer cannot be journaled; it is then not applied
+     */
+    TransactionResult transfer(String senderAccount, String receiverAccount, double amount, boolean batched) {
+        long start = System.nanoTime();
         Account sender = findAccountByNumber(senderAccount);
         Account receiver = findAccountByNumber(receiverAccount);
-        if (sender != null && receiver != null && sender.transfer(receiver, amount)) {
-            Transaction txn = new Transaction("TXN" + (transactions.size() + 1), senderAccount, amount, TransactionType.TRANSFER);
-            transactions.add(txn);
-            System.out.println("Transfer successful! Sender new account balance #" + sender.getBalance());
-            saveTransactionssToFile();
-            saveAccountsToFile();
-        } else {
-            System.out.println("Transfer failed! Insufficient balance or invalid accounts");
+        if (sender == null || receiver == null) {
+            return metrics.record(BankMetrics.Operation.TRANSFER, TransactionResult.failure(FailureReason.UNKNOWN_ACCOUNT), start);
         }
+        TransactionResult result;
+        checkpointLock.readLock().lock();
+        locks.lock(senderAccount, receiverAccount);
+        try {
+            VelocityScreen screen = atomicBatch ? null : velocityScreen; // batch lines were screened in validate()
+            FailureReason screened = screen(screen, sender, amount);
+            if (screened != null) {
+                result = TransactionResult.failure(screened);
+            } else {
+                versions.beforeWrite(sender);
+                versions.beforeWrite(receiver);
+                boolean applied = false;
+                try {
+                    if (isAvailable(sender, amount) && sender.transfer(receiver, amount)) {
+                        Transaction txn = recordTransaction(senderAccount, receiverAccount, amount, TransactionType.TRANSFER, batched);
+                        applied = true;
+                        result = TransactionResult.success(txn, sender.getBalance());
+                    } else {
+                        result = rejection(amount);
+                    }
+                } finally {
+                    if (!applied) {
+                        released(screen, sender, amount);
+                    }
+                }
+            }
+        } finally {
+            locks.unlock(senderAccount, receiverAccount);
+            checkpointLock.readLock().unlock();
+        }
+        return metrics.record(BankMetrics.Operation.TRANSFER, result, start);
     }
 
     /**
-     * Displays details of the specified account.
+     * Reserves funds of an account for a transfer to another shard, so that later
+     * withdrawals and transfers cannot spend them. Released by {@link #releaseHold} or
+     * turned into a withdrawal by {@link #applyLeg}; holds are not persisted. The funds are
+     * screened like a withdrawal by the {@linkplain #setVelocityScreen velocity screen}, and
+     * count towards its limits until released.
      *
-     * @param accountNumber identifier of the account to display
+     * @param accountNumber the account
+     * @param amount amount to reserve
+     * @return null if the funds were reserved, otherwise why not
      */
-    public void viewAccountDetails(String accountNumber) {
+    FailureReason hold(String accountNumber, double amount) {
         Account account = findAccountByNumber(accountNumber);
-        if (account != null) {
-            System.out.println(account);
-        } else {
-            System.out.println("Account is not found");
+        if (account == null) {
+            return FailureReason.UNKNOWN_ACCOUNT;
+        }
+        if (!(amount > 0)) {
+            return FailureReason.INVALID_AMOUNT;
+        }
+        locks.lock(accountNumber);
+        try {
+            VelocityScreen screen = velocityScreen;
+            FailureReason screened = screen(screen, account, amount);
+            if (screened != null) {
+                return screened;
+            }
+            if (!isAvailable(account, amount) || amount > account.getBalance()) {
+                released(screen, account, amount);
+                return FailureReason.INSUFFICIENT_FUNDS;
+            }
+            holds.merge(accountNumber, amount, Double::sum);
+            return null;
+        } finally {
+            locks.unlock(accountNumber);
         }
     }
 
     /**
-     * Prints the history of all recorded transactions.
+     * Releases funds reserved by {@link #hold}.
+     *
+     * @param accountNumber the account
+     * @param amount amount to release
      */
-    public void viewTransactionHistory() {
-        if (transactions.isEmpty()) {
-            System.out.println("No transactions available");
-        } else {
-            for (Transaction history : transactions) {
-                System.out.println(history);
+    void releaseHold(String accountNumber, double amount) {
+        Account account = findAccountByNumber(accountNumber);
+        locks.lock(accountNumber);
+        try {
+            dropHold(accountNumber, amount);
+            if (account != null) {
+                released(velocityScreen, account, amount);
             }
+        } finally {
+            locks.unlock(accountNumber);
+        }
+    }
+
+    /**
+     * Removes funds from the holds of an account. Must be called while holding the account's stripe.
+     */
+    private void dropHold(String accountNumber, double amount) {
+        holds.computeIfPresent(accountNumber, (key, held) -> held - amount > 0.001 ? held - amount : null);
+    }
+
+    /**
+     * Applies one side of a transfer between shards: a withdrawal of previously
+     * {@linkplain #hold held} funds, or a deposit. The sequence number the record will get is
+     * passed to {@code beforeRecord} before it is journaled, so the caller can log it and
+     * later ask {@link #isRecorded(long)} whether the record survived a crash.
+     *
+     * @param accountNumber the account
+     * @param amount amount to move
+     * @param debit true to withdraw held funds, false to deposit
+     * @param beforeRecord receives the sequence number of the record
+     * @return the outcome, with the account's new balance
+     * @throws UncheckedIOException if the record cannot be journaled; the leg is then not applied
+     *                              and held funds stay held
+     */
+    TransactionResult applyLeg(String accountNumber, double amount, boolean debit, LongConsumer beforeRecord) {
+        Account account = findAccountByNumber(accountNumber);
+        if (account == null) {
+            return TransactionResult.failure(FailureReason.UNKNOWN_ACCOUNT);
+        }
+        checkpointLock.readLock().lock();
+        locks.lock(accountNumber);
+        try {
+            if (debit) {
+                dropHold(accountNumber, amount);
+            }
+            versions.beforeWrite(account);
+            if (!(debit ? account.withdraw(amount) : account.deposit(amount))) {
+                if (debit) {
+                    released(velocityScreen, account, amount);
+                }
+                return debit ? rejection(amount) : TransactionResult.failure(FailureReason.INVALID_AMOUNT);
+            }
+            Transaction txn;
+            try {
+                txn = recordTransaction(accountNumber, null, amount,
+                        debit ? TransactionType.WITHDRAWAL : TransactionType.DEPOSIT, false, beforeRecord);
+            } catch (RuntimeException e) {
+                if (debit) {
+                    holds.merge(accountNumber, amount, Double::sum);
+                }
+                throw e;
+            }
+            return TransactionResult.success(txn, account.getBalance()); // a debit was counted when held
+        } finally {
+            locks.unlock(accountNumber);
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tells whether a transaction issued before the last restart reached the snapshot or
+     * the journal, so its effect was recovered. Sequence numbers issued since the restart
+     * are recorded once issued, since a transaction is applied before it gets its number.
+     *
+     * @param id sequence number of the transaction
+     * @return true if its effect is reflected in the balances
+     */
+    boolean isRecorded(long id) {
+        if (id > recoveredSequence) {
+            return id <= sequence.get();
+        }
+        return id <= recoveredCheckpoint || replayedSequences.get((int) (id - recoveredCheckpoint - 1));
+    }
+
+    /**
+     * Checks that a debit leaves the funds held for other shards untouched. Must be called
+     * while holding the account's stripe.
+     */
+    private boolean isAvailable(Account account, double amount) {
+        if (holds.isEmpty()) {
+            return true;
+        }
+        Double held = holds.get(account.getAccountNumber());
+        return held == null || amount <= account.getBalance() - held;
+    }
+
+    /**
+     * Screens a debit against velocity limits, counting it if it passes. Must be called while
+     * holding the account's stripe.
+     *
+     * @return null if there is no screen or the debit passed it, otherwise why it did not
+     */
+    private static FailureReason screen(VelocityScreen screen, Account account, double amount) {
+        return screen == null || !(amount > 0) ? null : screen.screen(account, Money.toMinorUnits(amount));
+    }
+
+    /**
+     * Uncounts a debit that passed the velocity screen but was not applied. Must be called
+     * while holding the account's stripe.
+     */
+    private static void released(VelocityScreen screen, Account account, double amount) {
+        if (screen != null && amount > 0) {
+            screen.release(account, Money.toMinorUnits(amount));
         }
     }
 
     /**
-     * Persists the list of accounts to a file.
+     * Gets the result of a withdrawal or transfer the account refused.
      */
-    public void saveAccountsToFile() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(FILE_NAME))) {
-            oos.writeObject(accounts);
-            System.out.println("Accounts saved successfully");
+    private static TransactionResult rejection(double amount) {
+        return TransactionResult.failure(amount > 0 ? FailureReason.INSUFFICIENT_FUNDS : FailureReason.INVALID_AMOUNT);
+    }
+
+    /**
+     * Posts a batch of deposits, withdrawals and transfers, e.g. a payroll run, and makes it
+     * durable with a single journal commit. Nothing is printed per line.
+     * <p>
+     * In {@link PostingMode#ALL_OR_NOTHING} mode the batch runs exclusively, like a
+     * checkpoint: every line is first checked against the balances the earlier lines
+     * leave behind, and the batch is only applied if all of them pass. Its journal records
+     * form one atomic unit, so a crash before the commit loses the whole batch rather than
+     * part of it. In {@link PostingMode#BEST_EFFORT} mode lines are applied as they arrive,
+     * alongside other callers, and rejected lines are skipped; a line that fails with an
+     * exception is rejected as well. The lines posted are made durable even if the stream
+     * itself throws, e.g. while parsing; use {@link #postLines} to have malformed lines
+     * rejected instead.
+     *
+     * @param postings the lines of the batch; consumed once
+     * @param mode how rejected lines affect the rest of the batch
+     * @return the outcome of every line
+     * @throws UncheckedIOException if the batch cannot be committed to the journal
+     * @see Posting#parse(String)
+     */
+    public BatchReport postBatch(Stream<Posting> postings, PostingMode mode) {
+        try {
+            return mode == PostingMode.ALL_OR_NOTHING
+                    ? postAtomically(postings.toList(), null, true)
+                    : postBestEffort(postings, Function.identity());
         } catch (IOException e) {
-            System.out.println("Error saving accounts " + e.getMessage());
+            throw new UncheckedIOException("Unable to commit batch", e);
+        }
+    }
+
+    /**
+     * Parses and posts a batch of CSV lines like {@link #postBatch}. A line that cannot be
+     * parsed is rejected with {@link FailureReason#MALFORMED_POSTING}; in
+     * {@link PostingMode#ALL_OR_NOTHING} mode it rejects the whole batch, and the malformed
+     * lines are reported as the rejected ones.
+     *
+     * @param lines the lines of the batch, in the format of {@link Posting#parse(String)}; consumed once
+     * @param mode how rejected lines affect the rest of the batch
+     * @return the outcome of every line
+     * @throws UncheckedIOException if the batch cannot be committed to the journal
+     */
+    public BatchReport postLines(Stream<String> lines, PostingMode mode) {
+        try {
+            if (mode == PostingMode.BEST_EFFORT) {
+                return postBestEffort(lines, Posting::parse);
+            }
+            List<Posting> postings = new ArrayList<>();
+            List<TransactionResult> results = new ArrayList<>();
+            List<Integer> malformed = new ArrayList<>();
+            lines.forEachOrdered(line -> {
+                try {
+                    postings.add(Posting.parse(line));
+                    results.add(TransactionResult.failure());
+                } catch (IllegalArgumentException e) {
+                    malformed.add(results.size());
+                    results.add(TransactionResult.failure(FailureReason.MALFORMED_POSTING));
+                }
+            });
+            return malformed.isEmpty() ? postAtomically(postings, null, true) : new BatchReport(false, results, malformed);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to commit batch", e);
+        }
+    }
+
+    /**
+     * Posts the lines of a best-effort batch as they arrive and forces them to the journal,
+     * even if the stream fails partway through.
+     *
+     * @param parser turns a line into a posting; an IllegalArgumentException rejects the line as malformed
+     */
+    private <T> BatchReport postBestEffort(Stream<T> lines, Function<T, Posting> parser) throws IOException {
+        List<TransactionResult> results = new ArrayList<>();
+        List<Integer> rejected = new ArrayList<>();
+        try {
+            lines.forEachOrdered(line -> {
+                Posting posting;
+                try {
+                    posting = parser.apply(line);
+                } catch (IllegalArgumentException e) {
+                    posting = null;
+                }
+                TransactionResult result;
+                if (posting == null) {
+                    result = TransactionResult.failure(FailureReason.MALFORMED_POSTING);
+                } else {
+                    try {
+                        result = post(posting);
+                    } catch (RuntimeException e) {
+                        logger.log("Batch line " + results.size() + " failed " + e.getMessage());
+                        result = TransactionResult.failure();
+                    }
+                }
+                if (!result.isSuccessful()) {
+                    rejected.add(results.size());
+                }
+                results.add(result);
+            });
+        } finally {
+            syncJournal();
+        }
+        return new BatchReport(true, results, rejected);
+    }
+
+    /**
+     * Posts a batch {@linkplain PostingMode#ALL_OR_NOTHING all or nothing}. Once the batch is
+     * validated, and before anything is applied, the sequence number its first line will get
+     * is passed to {@code beforeApply}, so the caller can log it and later ask
+     * {@link #isRecorded(long)} whether the batch survived a crash; the whole batch shares
+     * that outcome.
+     * <p>
+     * Debits are screened by the {@linkplain #setVelocityScreen velocity screen} when the
+     * batch is validated; the bank's own postings, such as accrual fees, are exempt and
+     * only counted towards the limits.
+     *
+     * @param postings the lines of the batch
+     * @param beforeApply receives the first sequence number of the batch, or null
+     * @param screened false to exempt the debits of the batch from velocity screening
+     * @return the outcome of every line; if the batch is rejected, the rejected lines carry
+     *         the reason
+     * @throws IOException if the batch cannot be committed to the journal
+     */
+    BatchReport postAtomically(List<Posting> postings, LongConsumer beforeApply, boolean screened) throws IOException {
+        checkpointLock.writeLock().lock();
+        try {
+            VelocityScreen screen = velocityScreen;
+            BatchReport rejection = validate(postings, screen, screened);
+            if (rejection != null) {
+                return rejection;
+            }
+            List<TransactionResult> results = new ArrayList<>(postings.size());
+            long first = sequence.get() + 1;
+            if (beforeApply != null) {
+                try {
+                    beforeApply.accept(first);
+                } catch (RuntimeException e) {
+                    releaseDebits(screen, postings, List.of());
+                    throw e;
+                }
+            }
+            journal.beginBatch();
+            atomicBatch = true;
+            try {
+                for (Posting posting : postings) {
+                    results.add(post(posting));
+                }
+            } finally {
+                atomicBatch = false;
+                for (long id = first; id <= sequence.get(); id++) {
+                    versions.finish(id); // snapshots see the whole batch or none of it
+                }
+                for (Posting posting : postings) {
+                    versions.release(posting.getAccountNumber());
+                    if (posting.getTargetAccountNumber() != null) {
+                        versions.release(posting.getTargetAccountNumber());
+                    }
+                }
+                try {
+                    journal.commitBatch(); // commits whatever was applied, so the journal matches the balances
+                } catch (IOException e) {
+                    storageFailure = e;
+                    throw e;
+                }
+            }
+            return new BatchReport(true, results, List.of());
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checks every line of a batch against the balances left by the lines before it, and
+     * its debits against the velocity screen, without applying anything. The debits of a
+     * valid batch stay counted by the screen. Must be called under the exclusive checkpoint lock.
+     *
+     * @return null if every line would succeed, otherwise the report rejecting the batch
+     */
+    private BatchReport validate(List<Posting> postings, VelocityScreen screen, boolean screened) {
+        Map<String, Double> balances = new HashMap<>();
+        List<TransactionResult> results = new ArrayList<>(postings.size());
+        List<Integer> rejected = new ArrayList<>();
+        for (int i = 0; i < postings.size(); i++) {
+            Posting posting = postings.get(i);
+            Account account = findAccountByNumber(posting.getAccountNumber());
+            Account receiver = posting.getType() == TransactionType.TRANSFER
+                    ? findAccountByNumber(posting.getTargetAccountNumber()) : null;
+            double amount = posting.getAmount();
+            FailureReason reason = null;
+            if (account == null || (posting.getType() == TransactionType.TRANSFER && receiver == null)) {
+                reason = FailureReason.UNKNOWN_ACCOUNT;
+            } else if (!(amount > 0)) {
+                reason = FailureReason.INVALID_AMOUNT;
+            } else {
+                double balance = balances.getOrDefault(account.getAccountNumber(),
+                        account.getBalance() - holds.getOrDefault(account.getAccountNumber(), 0.0));
+                if (posting.getType() == TransactionType.DEPOSIT) {
+                    balances.put(account.getAccountNumber(), balance + amount);
+                } else if (amount > balance) {
+                    reason = FailureReason.INSUFFICIENT_FUNDS;
+                } else if ((reason = countDebit(screen, screened, account, amount)) == null) {
+                    balances.put(account.getAccountNumber(), balance - amount);
+                    if (receiver != null) {
+                        balances.put(receiver.getAccountNumber(),
+                                balances.getOrDefault(receiver.getAccountNumber(), receiver.getBalance()) + amount);
+                    }
+                }
+            }
+            if (reason != null) {
+                rejected.add(i);
+            }
+            results.add(reason == null ? TransactionResult.failure() : TransactionResult.failure(reason));
+        }
+        if (rejected.isEmpty()) {
+            return null;
+        }
+        releaseDebits(screen, postings, rejected);
+        return new BatchReport(false, results, rejected);
+    }
+
+    /**
+     * Screens a debit of a batch being validated, or only counts it if the batch is exempt.
+     *
+     * @return null if the debit may go ahead, otherwise why not
+     */
+    private FailureReason countDebit(VelocityScreen screen, boolean screened, Account account, double amount) {
+        if (screen == null) {
+            return null;
+        }
+        locks.lock(account.getAccountNumber()); // holds are screened without the checkpoint lock
+        try {
+            if (screened) {
+                return screen.screen(account, Money.toMinorUnits(amount));
+            }
+            screen.record(account, Money.toMinorUnits(amount));
+            return null;
+        } finally {
+            locks.unlock(account.getAccountNumber());
         }
     }
 
     /**
-     * Loads the list of accounts from file storage.
+     * Uncounts the debits of a validated batch that is not applied, except the rejected lines,
+     * which were never counted.
+     */
+    private void releaseDebits(VelocityScreen screen, List<Posting> postings, List<Integer> rejected) {
+        if (screen == null) {
+            return;
+        }
+        Set<Integer> skipped = new HashSet<>(rejected);
+        for (int i = 0; i < postings.size(); i++) {
+            Posting posting = postings.get(i);
+            if (posting.getType() != TransactionType.DEPOSIT && !skipped.contains(i)) {
+                Account account = findAccountByNumber(posting.getAccountNumber());
+                locks.lock(account.getAccountNumber());
+                try {
+                    released(screen, account, posting.getAmount());
+                } finally {
+                    locks.unlock(account.getAccountNumber());
+                }
+            }
+        }
+    }
+
+    private TransactionResult post(Posting posting) {
+        return switch (posting.getType()) {
+            case DEPOSIT -> deposit(posting.getAccountNumber(), posting.getAmount(), true);
+            case WITHDRAWAL -> withdraw(posting.getAccountNumber(), posting.getAmount(), true);
+            case TRANSFER -> transfer(posting.getAccountNumber(), posting.getTargetAccountNumber(), posting.getAmount(), true);
+        };
+    }
+
+    /**
+     * Forces every journal record written so far to disk.
+     *
+     * @throws IOException if the journal cannot be forced
+     */
+    void syncJournal() throws IOException {
+        try {
+            journal.force();
+        } catch (IOException e) {
+            storageFailure = e;
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a consistent, read-only view of every account and of the transaction history as
+     * of the last transaction that, like all before it, has completed. Opening and reading
+     * the view never blocks writers, and it never shows a transaction half applied.
+     *
+     * @return the view; close it once read
+     * @see BankSnapshot
+     */
+    public BankSnapshot snapshot() {
+        return new BankSnapshot(accounts, ledger, versions);
+    }
+
+    /**
+     * Screens every withdrawal and transfer, including those of batches, standing orders,
+     * the command pipeline and transfers to other shards, against velocity limits before it
+     * is applied; debits that would exceed a limit fail with
+     * {@link FailureReason#VELOCITY_LIMIT_EXCEEDED}, and reject an all-or-nothing batch. The
+     * bank's own postings, e.g. accrual fees, are counted but not screened. The screen is first loaded with the withdrawals and transfers the ledger
+     * holds for its longest window, so limits carry over a restart.
+     *
+     * @param screen the screen, or null to stop screening
+     * @see VelocityScreen
+     */
+    public void setVelocityScreen(VelocityScreen screen) {
+        checkpointLock.writeLock().lock();
+        try {
+            LocalDateTime from = screen == null ? null : screen.windowStart();
+            if (from != null) {
+                ledger.select(new TransactionQuery().between(from, null)).forEach(index -> {
+                    Account account = ledger.typeAt(index) == TransactionType.DEPOSIT
+                            ? null : findAccountByNumber(ledger.accountAt(index, false));
+                    if (account != null) {
+                        screen.record(account, ledger.amountAt(index), ledger.epochNanosAt(index) / 1_000_000L);
+                    }
+                });
+            }
+            velocityScreen = screen;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of every recorded transaction.
+     *
+     * @return the transaction history
+     */
+    public List<Transaction> getTransactions() {
+        return ledger.stream().collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the number of transactions recorded so far, which is also the last issued sequence number.
+     *
+     * @return the transaction count
+     */
+    public long getTransactionCount() {
+        return sequence.get();
+    }
+
+    /**
+     * Gets the counters and latency histograms of this bank's operations and persistence.
+     *
+     * @return the live metrics
+     */
+    public BankMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the clock transactions are timestamped with.
+     *
+     * @return the clock
+     */
+    public Clock getClock() {
+        return clock;
+    }
+
+    BankLogger getLogger() {
+        return logger;
+    }
+
+    /**
+     * Returns the transactions matching a query as a lazy stream. Queries on one account
+     * are served from a per-account index and time ranges from a time index, so neither
+     * scans the whole history.
+     *
+     * @param query the filter and paging criteria
+     * @return the matching transactions
+     * @see TransactionQuery
+     */
+    public Stream<Transaction> queryTransactions(TransactionQuery query) {
+        return ledger.query(query);
+    }
+
+    /**
+     * Returns one page of the transactions matching a query, with a cursor for the next page.
+     * The page holds at most {@link TransactionQuery#getLimit()} transactions.
+     *
+     * @param query the filter and paging criteria; must have a limit
+     * @return the page
+     * @throws IllegalArgumentException if the query has no limit
+     */
+    public TransactionPage getTransactionPage(TransactionQuery query) {
+        if (query.getLimit() == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("A page query needs a limit");
+        }
+        long[] matches = ledger.select(query).skip(query.getOffset()).limit(query.getLimit() + 1).toArray();
+        int pageSize = (int) Math.min(matches.length, query.getLimit());
+        List<Transaction> transactions = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            transactions.add(ledger.get(matches[i]));
+        }
+        long nextCursor = matches.length > pageSize && pageSize > 0 ? matches[pageSize - 1] : -1;
+        return new TransactionPage(transactions, nextCursor);
+    }
+
+    /**
+     * Returns the statement of one account for a time range: every transaction the account
+     * took part in, including transfers it received, with the balance after each one.
+     * Served from the ledger's per-account index, so the cost is proportional to the
+     * account's own activity rather than to the whole history.
+     *
+     * @param accountNumber the account
+     * @param from earliest timestamp, inclusive, or null for the whole history
+     * @param to latest timestamp, exclusive, or null for no upper bound
+     * @return the statement lines, oldest first
+     * @see StatementLine
+     */
+    public List<StatementLine> getStatement(String accountNumber, LocalDateTime from, LocalDateTime to) {
+        return ledger.statement(accountNumber, from, to);
+    }
+
+    /**
+     * Builds the end-of-day report: total balance per account type, transaction volumes
+     * per day and type, and every account whose balance does not match its ledger history.
+     * Writers are only paused while the balances are copied; the aggregation itself runs
+     * in parallel on the common fork/join pool, over the ledger records present at the copy.
+     * Unlike a {@linkplain #snapshot() snapshot}, the copy reads the balances the accounts
+     * actually hold, so it also catches changes that bypassed the Bank.
+     *
+     * @return the report
+     * @see Reconciler
+     */
+    public ReconciliationReport reconcile() {
+        List<Account> copies = new ArrayList<>(accounts.size());
+        long ledgerCount;
+        checkpointLock.writeLock().lock();
+        try {
+            for (Account account : accounts.all()) {
+                copies.add(account.getDetails());
+            }
+            ledgerCount = ledger.size();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        return Reconciler.reconcile(copies, ledger, ledgerCount);
+    }
+
+    /**
+     * Writes a snapshot of all accounts, then compacts the history it covers: full ledger
+     * regions are moved to the archive and covered journal segments are deleted. Nothing
+     * is compacted if the snapshot could not be written.
+     */
+    public synchronized void checkpoint() {
+        long start = System.nanoTime();
+        if (!saveAccountsToFile()) {
+            return;
+        }
+        try {
+            if (Files.exists(snapshotFile)) {
+                metrics.written(BankMetrics.File.SNAPSHOT, Files.size(snapshotFile));
+            }
+            ledger.archive(checkpointSequence);
+            journal.deleteCoveredSegments();
+            Files.deleteIfExists(accountsFile);
+            Files.deleteIfExists(transactionsFile);
+            Files.deleteIfExists(migratedTransactionsFile);
+        } catch (IOException e) {
+            logger.log("Error compacting history " + e.getMessage());
+        }
+        metrics.record(BankMetrics.Stage.CHECKPOINT, start);
+    }
+
+    /**
+     * Starts checkpointing in the background at a fixed interval. A run is skipped when no
+     * transaction was recorded since the previous checkpoint. Stopped by {@link #close()}.
+     *
+     * @param intervalMillis time between checkpoints in milliseconds
+     */
+    public synchronized void scheduleCheckpoints(long intervalMillis) {
+        if (checkpointer != null) {
+            checkpointer.shutdown();
+        }
+        checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bank-checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(() -> {
+            if (sequence.get() != checkpointSequence) {
+                checkpoint();
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops background checkpoints, writes a final checkpoint and closes the journal and ledger.
+     */
+    public void close() {
+        ScheduledExecutorService scheduled;
+        synchronized (this) {
+            scheduled = checkpointer;
+            checkpointer = null;
+        }
+        if (scheduled != null) {
+            scheduled.shutdown();
+            try {
+                scheduled.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        checkpoint();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.log("Error closing journal " + e.getMessage());
+        }
+        try {
+            ledger.close();
+        } catch (IOException e) {
+            logger.log("Error closing ledger " + e.getMessage());
+        }
+    }
+
+    /**
+     * Persists every account balance as a snapshot tagged with the sequence number of the
+     * last transaction it reflects. Writers are only paused while the balances are copied
+     * and the journal is rotated; the ledger is forced and the snapshot written afterwards.
+     * A store that persists its accounts itself, such as {@link DiskAccountStore}, is
+     * checkpointed instead while writers are paused, and no snapshot is written.
+     * Nothing is saved once a journal or ledger write failed.
+     *
+     * @return true if the snapshot was saved, false otherwise
+     */
+    public synchronized boolean saveAccountsToFile() {
+        List<Account> copies = new ArrayList<>();
+        long covered;
+        boolean stored;
+        checkpointLock.writeLock().lock();
+        try {
+            if (storageFailure != null) {
+                logger.log("Checkpoint skipped after storage failure " + storageFailure.getMessage());
+                return false;
+            }
+            covered = sequence.get();
+            stored = accounts.checkpoint(covered);
+            if (!stored) {
+                for (Account account : accounts.all()) {
+                    copies.add(account.getDetails());
+                }
+            }
+            journal.rotate(covered);
+        } catch (IOException e) {
+            logger.log("Error checkpointing accounts " + e.getMessage());
+            return false;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        if (!saveTransactionssToFile()) {
+            return false;
+        }
+        try {
+            if (stored) {
+                checkpointSequence = covered;
+                Files.deleteIfExists(snapshotFile); // superseded by the store
+                logger.log("Accounts saved successfully");
+                return true;
+            }
+            new Snapshot(covered, copies).write(snapshotFile);
+            checkpointSequence = covered;
+            logger.log("Accounts saved successfully");
+            return true;
+        } catch (IOException e) {
+            logger.log("Error saving accounts " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Loads the accounts from the latest snapshot, or from an accounts.dat written by
+     * earlier versions if no snapshot exists yet. A store holding its own checkpoint is
+     * used as it is.
      */
-    @SuppressWarnings("unchecked")
     public void loadAccountsFromFile() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(FILE_NAME))) {
-            accounts = (List<Account>) ois.readObject();
-            System.out.println("Accounts loaded successfully");
-        } catch (IOException | ClassNotFoundException e) {
-            System.out.println("Error loading accounts " + e.getMessage());
+        long stored = accounts.getCheckpointSequence();
+        if (stored >= 0) {
+            checkpointSequence = stored;
+            logger.log("Accounts loaded successfully");
+            return;
+        }
+        if (Files.exists(snapshotFile)) {
+            try {
+                Snapshot snapshot = Snapshot.read(snapshotFile);
+                accounts.clear();
+                for (Account account : snapshot.getAccounts()) {
+                    accounts.add(account);
+                }
+                checkpointSequence = snapshot.getSequence();
+                logger.log("Accounts loaded successfully");
+            } catch (IOException e) {
+                logger.log("Error loading accounts " + e.getMessage());
+            }
+        } else {
+            loadLegacyAccounts();
+        }
+    }
+
+    private void loadLegacyAccounts() {
+        try {
+            Snapshot legacy = LegacyMigration.readAccounts(accountsFile);
+            accounts.clear();
+            for (Account account : legacy.getAccounts()) {
+                accounts.add(account);
+            }
+            checkpointSequence = legacy.getSequence();
+            logger.log("Accounts loaded successfully");
+        } catch (IOException e) {
+            logger.log("Error loading accounts " + e.getMessage());
         }
     }
 
     /**
-     * Persists the list of transactions to a file.
+     * Forces the transaction ledger and its account index to disk.
+     *
+     * @return true once the ledger is on disk, false otherwise
      */
-    public void saveTransactionssToFile() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(TXN_FILE))) {
-            oos.writeObject(transactions);
-            System.out.println("Transactions saved successfully");
+    public boolean saveTransactionssToFile() {
+        try {
+            ledger.force();
+            logger.log("Transactions saved successfully");
+            return true;
         } catch (IOException e) {
-            System.out.println("Error saving transactions");
+            logger.log("Error saving transactions " + e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Loads the list of transactions from file storage.
+     * Aligns the transaction ledger with the accounts checkpoint. Records newer than the
+     * checkpoint are dropped, since the journal replays them. A ledger that is still empty
+     * is populated from the transactions.bin written by {@link LegacyMigration}, or from a
+     * transactions.dat written by earlier versions, if one exists.
      */
-    @SuppressWarnings("unchecked")
     public void loadTransactionsFromFile() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(TXN_FILE))) {
-            transactions = (List<Transaction>) ois.readObject();
-            System.out.println("Transactions loaded successfully");
-        } catch (IOException | ClassNotFoundException e) {
-            System.out.println("No previous transactions found");
+        ledger.truncate(checkpointSequence);
+        boolean migrated = Files.exists(migratedTransactionsFile);
+        if (ledger.size() == 0 && (migrated || Files.exists(transactionsFile))) {
+            try {
+                List<Transaction> loaded = migrated ? LegacyMigration.readMigratedTransactions(migratedTransactionsFile)
+                        : LegacyMigration.readTransactions(transactionsFile);
+                long txnSequence = 0;
+                for (Transaction txn : loaded) {
+                    ledger.append(++txnSequence, txn);
+                }
+                ledger.force();
+                logger.log("Transactions imported into ledger: " + loaded.size());
+            } catch (IOException e) {
+                logger.log("Error importing transactions " + e.getMessage());
+            }
+        }
+        ledgerCheckpointCount = ledger.size();
+        sequence.set(Math.max(ledgerCheckpointCount, checkpointSequence));
+        if (ledgerCheckpointCount > 0) {
+            logger.log("Transactions loaded successfully");
+        } else {
+            logger.log("No previous transactions found");
+        }
+    }
+
+    /**
+     * Replays journal records written after the last checkpoint. Accounts created since are
+     * re-created as their records come up, which is always before their transactions. Balances are only
+     * re-applied for records newer than the accounts checkpoint, and transactions are
+     * only re-added when the ledger does not already contain them.
+     */
+    private void replayJournal() {
+        try {
+            long replayed = journal.replay(entry -> {
+                if (entry.isAccountCreation()) {
+                    try {
+                        accounts.add(new Account(entry.getAccountNumber(), entry.getOwnerName(), entry.getAccountType(),
+                                entry.getAmount())); // already there if the snapshot covers it
+                    } catch (IllegalArgumentException e) {
+                        // the store refused the account when it was created, too, so it never existed
+                    }
+                    return;
+                }
+                boolean applied = entry.getSequence() > checkpointSequence;
+                if (applied) {
+                    applyEntry(entry);
+                    replayedSequences.set((int) (entry.getSequence() - checkpointSequence - 1));
+                }
+                if (entry.getSequence() > ledgerCheckpointCount) {
+                    Transaction txn = new Transaction("TXN" + entry.getSequence(), entry.getAccountNumber(),
+                            entry.getTargetAccountNumber(), entry.getAmount(), entry.getType(), entry.getTimestamp());
+                    if (applied) {
+                        appendToLedger(entry.getSequence(), txn);
+                    } else {
+                        appendWithoutBalances(entry.getSequence(), txn); // the snapshot already holds later balances
+                    }
+                }
+                sequence.accumulateAndGet(entry.getSequence(), Math::max);
+            });
+            if (replayed > 0) {
+                logger.log("Journal replayed: " + replayed + " records");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to replay journal", e);
+        }
+    }
+
+    /**
+     * Rebuilds the ledger's account index if it was lost or does not match the ledger,
+     * taking the balances just loaded and replayed as each account's closing balance.
+     */
+    private void rebuildAccountIndex() {
+        if (ledger.isAccountIndexed()) {
+            return;
+        }
+        try {
+            ledger.rebuildAccountIndex(accountNumber -> {
+                Account account = findAccountByNumber(accountNumber);
+                return account == null ? null : Money.toMinorUnits(account.getBalance());
+            });
+            logger.log("Account index rebuilt");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to rebuild account index", e);
+        }
+    }
+
+    private void applyEntry(Journal.Entry entry) {
+        Account account = findAccountByNumber(entry.getAccountNumber());
+        if (account == null) {
+            return;
+        }
+        switch (entry.getType()) {
+            case DEPOSIT -> account.deposit(entry.getAmount());
+            case WITHDRAWAL -> account.withdraw(entry.getAmount());
+            case TRANSFER -> {
+                Account receiver = findAccountByNumber(entry.getTargetAccountNumber());
+                if (receiver != null) {
+                    account.transfer(receiver, entry.getAmount());
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends a transaction to the journal and the ledger and records the new balances of
+     * its accounts as versions. Must be called while
+     * holding the stripes of the affected accounts, so that records for one account reach
+     * the journal in the order they were applied. Batched records
+     * skip the fsync policy and are made durable by the next {@link #syncJournal()}.
+     * If the journal record cannot be written, the change is undone before the exception
+     * is thrown.
+     */
+    private Transaction recordTransaction(String accountNumber, String targetAccountNumber, double amount,
+                                          TransactionType type, boolean batched) {
+        return recordTransaction(accountNumber, targetAccountNumber, amount, type, batched, null);
+    }
+
+    private Transaction recordTransaction(String accountNumber, String targetAccountNumber, double amount,
+                                          TransactionType type, boolean batched, LongConsumer beforeRecord) {
+        long id = sequence.incrementAndGet();
+        Account account = findAccountByNumber(accountNumber);
+        Account target = targetAccountNumber == null ? null : findAccountByNumber(targetAccountNumber);
+        try {
+            versions.write(id, account);
+            if (target != null) {
+                versions.write(id, target);
+            }
+            Transaction txn;
+            try {
+                txn = journal(id, accountNumber, targetAccountNumber, amount, type, batched, beforeRecord);
+            } catch (IOException e) {
+                undo(id, type, account, target, amount);
+                throw new UncheckedIOException("Unable to journal transaction " + id, e);
+            } catch (RuntimeException e) {
+                undo(id, type, account, target, amount);
+                throw e;
+            }
+            appendToLedger(id, txn);
+            return txn;
+        } finally {
+            if (!atomicBatch) {
+                versions.finish(id);
+                versions.release(accountNumber);
+                if (targetAccountNumber != null) {
+                    versions.release(targetAccountNumber);
+                }
+            }
         }
     }
+
+    /**
+     * Writes the journal record of a transaction. Fails without writing anything once an
+     * earlier journal or ledger write failed.
+     *
+     * @throws IOException if the record cannot be written, or forced under the fsync policy
+     */
+    private Transaction journal(long id, String accountNumber, String targetAccountNumber, double amount,
+                                TransactionType type, boolean batched, LongConsumer beforeRecord) throws IOException {
+        checkStorage();
+        if (beforeRecord != null) {
+            beforeRecord.accept(id);
+        }
+        Transaction txn = new Transaction("TXN" + id, accountNumber, targetAccountNumber, amount, type, LocalDateTime.now(clock));
+        long start = System.nanoTime();
+        try {
+            if (batched) {
+                journal.appendBatched(id, type, accountNumber, targetAccountNumber, amount, txn.getTimestamp());
+            } else {
+                journal.append(id, type, accountNumber, targetAccountNumber, amount, txn.getTimestamp());
+            }
+        } catch (IOException e) {
+            storageFailure = e;
+            throw e;
+        }
+        metrics.written(BankMetrics.File.JOURNAL, Journal.RECORD_SIZE);
+        metrics.record(BankMetrics.Stage.JOURNAL_APPEND, start);
+        return txn;
+    }
+
+    /**
+     * Writes the journal records of a new account.
+     *
+     * @return the number of bytes written
+     * @throws IOException if the records cannot be written, or forced under the fsync policy
+     */
+    private int journalAccount(Account account) throws IOException {
+        checkStorage();
+        try {
+            return journal.appendAccount(sequence.get(), account, LocalDateTime.now(clock));
+        } catch (IOException e) {
+            storageFailure = e;
+            throw e;
+        }
+    }
+
+    /**
+     * Fails once an earlier journal or ledger write failed, since what reached the disk is
+     * then no longer known.
+     */
+    private void checkStorage() throws IOException {
+        IOException failed = storageFailure;
+        if (failed != null) {
+            throw new IOException("Storage failed earlier, reopen the bank to recover: " + failed.getMessage(), failed);
+        }
+    }
+
+    /**
+     * Reverts the change of a transaction that could not be journaled, and records the
+     * reverted balances as its versions.
+     */
+    private void undo(long id, TransactionType type, Account account, Account target, double amount) {
+        switch (type) {
+            case DEPOSIT -> account.withdraw(amount);
+            case WITHDRAWAL -> account.deposit(amount);
+            case TRANSFER -> target.transfer(account, amount);
+        }
+        versions.write(id, account);
+        if (target != null) {
+            versions.write(id, target);
+        }
+    }
+
+    /**
+     * Appends a transaction to the ledger together with the current balances of its accounts,
+     * which must already reflect it.
+     *
+     * @throws UncheckedIOException if the ledger cannot be extended; the transaction is then
+     *                              only in the journal, and further mutations are refused
+     */
+    private void appendToLedger(long id, Transaction txn) {
+        String target = txn.getTargetAccountNumber();
+        try {
+            ledger.append(id, txn.getType(), txn.getAccountNumber(), target, Money.toMinorUnits(txn.getAmount()),
+                    Journal.toEpochNanos(txn.getTimestamp()), balanceMinor(txn.getAccountNumber()),
+                    target == null ? 0 : balanceMinor(target));
+            metrics.written(BankMetrics.File.LEDGER,
+                    Ledger.RECORD_SIZE + (target == null ? 1 : 2) * AccountIndex.ENTRY_SIZE);
+        } catch (IOException e) {
+            storageFailure = e;
+            throw new UncheckedIOException("Transaction " + id + " is journaled but missing from the ledger", e);
+        }
+    }
+
+    private void appendWithoutBalances(long id, Transaction txn) {
+        try {
+            ledger.append(id, txn);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to add transaction " + id + " to the ledger", e);
+        }
+    }
+
+    private long balanceMinor(String accountNumber) {
+        Account account = findAccountByNumber(accountNumber);
+        return account == null ? 0 : Money.toMinorUnits(account.getBalance());
+    }
 }
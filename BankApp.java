@@ -1,6 +1,7 @@
 package com.jibstech.bank_account_management_system;
 
 import java.util.InputMismatchException;
+import java.util.Iterator;
 import java.util.Scanner;
 
 
@@ -11,6 +12,8 @@ import java.util.Scanner;
  */
 public class BankApp {
 
+	private static final long CHECKPOINT_INTERVAL_MILLIS = 5 * 60 * 1000;
+
 	/**
      * Main method to launch the application, display the menu, and process user input.
      *
@@ -19,6 +22,8 @@ public class BankApp {
 	public static void main(String[] args) {
 		Scanner scanner = new Scanner(System.in);
 		Bank bank = new Bank();
+		bank.getMetrics().register("default");
+		bank.scheduleCheckpoints(CHECKPOINT_INTERVAL_MILLIS);
 		
 		
 		while (true) {
@@ -49,7 +54,11 @@ public class BankApp {
 						System.out.print("Enter initial balance: ");
 						double initialBalance = getValidatedDouble(scanner);
 						
-						bank.createAccount(accountNum, accountName, accountType, initialBalance);
+						if (bank.createAccount(accountNum, accountName, accountType, initialBalance)) {
+							System.out.println("Account created successfully!");
+						} else {
+							System.out.println("Account creation failed! Account number " + accountNum + " already exists");
+						}
 					} catch (NumberFormatException e) {
 						System.out.println("An error occured while creating an account, please try again");
 						}
@@ -63,7 +72,12 @@ public class BankApp {
 						System.out.print("Enter amount to deposit: ");
 						double amount = getValidatedAmount(scanner);
 						
-						bank.depositToAccount(accountNum, amount);
+						TransactionResult result = bank.depositToAccount(accountNum, amount);
+						if (result.isSuccessful()) {
+							System.out.println("Deposit successful! New account balance: #" + result.getBalance());
+						} else {
+							System.out.println("Deposit failed! " + describe(result.getFailureReason()));
+						}
 					} catch (NumberFormatException e) {
 						System.out.println("An error occurred while depositing into account, please try again: " + e.getMessage());
 					}
@@ -77,7 +91,12 @@ public class BankApp {
 						System.out.print("Enter amount to withdraw: ");
 						double amount = getValidatedAmount(scanner);
 						
-						bank.withdrawFromAccount(accountNum, amount);
+						TransactionResult result = bank.withdrawFromAccount(accountNum, amount);
+						if (result.isSuccessful()) {
+							System.out.println("Withdrawal successful! New account balance: #" + result.getBalance());
+						} else {
+							System.out.println("Withdrawal failed! " + describe(result.getFailureReason()));
+						}
 					} catch (NumberFormatException e) {
 						System.out.println("Error occurred while trying to withdraw, please try again: " + e.getMessage());
 					}
@@ -94,7 +113,12 @@ public class BankApp {
 						System.out.println("Enter amount to transfer: ");
 						double amount = getValidatedAmount(scanner);
 						
-						bank.transferBetweenAccounts(accountNumSender, accountNumReceiver, amount);
+						TransactionResult result = bank.transferBetweenAccounts(accountNumSender, accountNumReceiver, amount);
+						if (result.isSuccessful()) {
+							System.out.println("Transfer successful! Sender new account balance #" + result.getBalance());
+						} else {
+							System.out.println("Transfer failed! " + describe(result.getFailureReason()));
+						}
 						
 					} catch (NumberFormatException e) {
 						System.out.println("Error occurred while transferring, please try again: " + e.getMessage());
@@ -106,12 +130,13 @@ public class BankApp {
 						System.out.println("Enter account number: ");
 						String accountNum = getValidatedAccountNumber(scanner);
 						
-						bank.viewAccountDetails(accountNum);	
+						printAccountDetails(bank, accountNum);
 				}
-				case 6 -> bank.viewTransactionHistory(); 
+				case 6 -> printTransactionHistory(bank);
 				
 				case 7 -> {
 					System.out.println("Exiting the bank management system...");
+					bank.close();
 					System.exit(0);
 					scanner.close();
 					return;
@@ -122,6 +147,32 @@ public class BankApp {
 		}
 	}
 		
+	private static void printAccountDetails(Bank bank, String accountNumber) {
+		try (BankSnapshot snapshot = bank.snapshot()) {
+			Account account = snapshot.findAccountByNumber(accountNumber);
+			System.out.println(account != null ? account : "Account is not found");
+		}
+	}
+
+	private static void printTransactionHistory(Bank bank) {
+		try (BankSnapshot snapshot = bank.snapshot()) {
+			Iterator<Transaction> transactions = snapshot.queryTransactions(new TransactionQuery()).iterator();
+			if (!transactions.hasNext()) {
+				System.out.println("No transactions available");
+			}
+			transactions.forEachRemaining(System.out::println);
+		}
+	}
+
+	private static String describe(FailureReason reason) {
+		return switch (reason) {
+			case UNKNOWN_ACCOUNT -> "Account not found";
+			case INVALID_AMOUNT -> "Invalid amount";
+			case INSUFFICIENT_FUNDS -> "Insufficient funds";
+			default -> "Rejected: " + reason;
+		};
+	}
+
 	private static int getValidatedChoice(Scanner scanner) {
         int choice;
         while (true) {
@@ -155,7 +206,11 @@ public class BankApp {
     private static double getValidatedDouble(Scanner scanner) {
         while (true) {
             try {
-                return scanner.nextDouble();
+                double value = scanner.nextDouble();
+                if (Double.isFinite(value) && value >= 0) {
+                    return value;
+                }
+                System.out.println("Enter a balance of zero or more");
             } catch (InputMismatchException e) {
                 System.out.println("Invalid input! Please enter a valid double.");
                 scanner.nextLine(); // Clear invalid input
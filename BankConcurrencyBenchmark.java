@@ -0,0 +1,80 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures transfer and deposit throughput of the striped-lock Bank engine.
+ * Run with several thread counts (e.g. {@code -t 1,2,4,8}) to check that throughput
+ * scales with cores; transfers between random account pairs rarely contend.
+ * With {@link FsyncPolicy#NONE} the disk does not cap throughput; with
+ * {@link FsyncPolicy#PER_OPERATION} throughput still grows with the thread count, since
+ * concurrent operations share the journal's fsyncs instead of queueing for one each.
+ * @see Bank
+ * @see StripedLocks
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BankConcurrencyBenchmark {
+
+    @Param({"10000"})
+    private int accountCount;
+
+    @Param({"NONE", "PER_OPERATION"})
+    private FsyncPolicy fsyncPolicy;
+
+    private Path dataDirectory;
+    private Bank bank;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDirectory = Files.createTempDirectory("bank-bench");
+        AccountStore store = new HashAccountStore();
+        for (int i = 0; i < accountCount; i++) {
+            store.add(new Account(accountNumber(i), "Owner " + i, "Savings", 1_000_000));
+        }
+        bank = new Bank(store, dataDirectory, fsyncPolicy, BankLogger.quiet());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bank.close();
+    }
+
+    @Benchmark
+    public TransactionResult transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return bank.transfer(accountNumber(random.nextInt(accountCount)),
+                accountNumber(random.nextInt(accountCount)), 1, false);
+    }
+
+    @Benchmark
+    public TransactionResult deposit() {
+        return bank.deposit(accountNumber(ThreadLocalRandom.current().nextInt(accountCount)), 1, false);
+    }
+
+    private static String accountNumber(int index) {
+        return String.valueOf(1_000_000 + index);
+    }
+}
@@ -0,0 +1,115 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BankConcurrencyTest {
+
+	private static final int ACCOUNTS = 64;
+	private static final int THREADS = 8;
+	private static final int OPERATIONS_PER_THREAD = 5_000;
+
+	@TempDir
+	Path dataDirectory;
+
+	@Test
+	void testConcurrentTransfersConserveMoney() throws Exception {
+		Bank bank = newBankWithAccounts();
+		AtomicInteger successful = new AtomicInteger();
+
+		runConcurrently(() -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			String sender = accountNumber(random.nextInt(ACCOUNTS));
+			String receiver = accountNumber(random.nextInt(ACCOUNTS));
+			if (bank.transfer(sender, receiver, 1 + random.nextInt(50), false).isSuccessful()) {
+				successful.incrementAndGet();
+			}
+		});
+
+		assertEquals(ACCOUNTS * 1000.0, totalBalance(bank));
+		assertEquals(successful.get(), bank.getTransactionCount());
+		bank.close();
+	}
+
+	@Test
+	void testConcurrentOperationsIssueUniqueTransactionIds() throws Exception {
+		Bank bank = newBankWithAccounts();
+
+		runConcurrently(() -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			String account = accountNumber(random.nextInt(ACCOUNTS));
+			if (random.nextBoolean()) {
+				bank.deposit(account, 10, false);
+			} else {
+				bank.withdraw(account, 10, false);
+			}
+		});
+
+		Set<String> ids = new HashSet<>();
+		for (Transaction txn : bank.getTransactions()) {
+			assertTrue(ids.add(txn.getTransactionId()), "duplicate id " + txn.getTransactionId());
+		}
+		bank.close();
+	}
+
+	@Test
+	void testJournalReplayRestoresConcurrentTransfers() throws Exception {
+		Bank bank = newBankWithAccounts();
+		runConcurrently(() -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			bank.transfer(accountNumber(random.nextInt(ACCOUNTS)), accountNumber(random.nextInt(ACCOUNTS)),
+					1 + random.nextInt(50), false);
+		});
+
+		Bank reopened = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		for (int i = 0; i < ACCOUNTS; i++) {
+			assertEquals(bank.findAccountByNumber(accountNumber(i)).getBalance(),
+					reopened.findAccountByNumber(accountNumber(i)).getBalance());
+		}
+		assertEquals(bank.getTransactionCount(), reopened.getTransactionCount());
+	}
+
+	private Bank newBankWithAccounts() {
+		Bank bank = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		for (int i = 0; i < ACCOUNTS; i++) {
+			bank.createAccount(accountNumber(i), "Owner " + i, "Savings", 1000);
+		}
+		return bank;
+	}
+
+	private static void runConcurrently(Runnable operation) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		for (int t = 0; t < THREADS; t++) {
+			executor.execute(() -> {
+				for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+					operation.run();
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+	}
+
+	private static double totalBalance(Bank bank) {
+		double total = 0;
+		for (int i = 0; i < ACCOUNTS; i++) {
+			total += bank.findAccountByNumber(accountNumber(i)).getBalance();
+		}
+		return total;
+	}
+
+	private static String accountNumber(int index) {
+		return String.valueOf(1_000_000 + index);
+	}
+}
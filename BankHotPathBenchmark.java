@@ -0,0 +1,147 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Regression suite for the Account and Bank hot paths: single-account operations,
+ * account lookup, account creation and the public deposit/transfer entry points with the
+ * journal forced per operation, as in production. Parameterised by account count and by
+ * the length of the history already in the ledger; {@link BenchmarkRunner} repeats the
+ * suite at several thread counts with the GC profiler attached.
+ * <p>
+ * Reported as throughput and as sampled latency, whose output carries the p50 to p99.99
+ * percentiles.
+ * @see BenchmarkRunner
+ * @see Bank
+ * @see Account
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BankHotPathBenchmark {
+
+    @State(Scope.Thread)
+    public static class AccountState {
+        final Account account = new Account("1000001", "Owner", "Savings", 1_000_000);
+        final Account target = new Account("1000002", "Owner", "Savings", 1_000_000);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BankState {
+
+        @Param({"1000", "100000"})
+        int accountCount;
+
+        @Param({"0", "1000000"})
+        long historySize;
+
+        final AtomicLong nextAccount = new AtomicLong(1_000_000_000L);
+        Path dataDirectory;
+        Bank bank;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dataDirectory = Files.createTempDirectory("bank-hot-path");
+            AccountStore store = new HashAccountStore();
+            for (int i = 0; i < accountCount; i++) {
+                store.add(new Account(accountNumber(i), "Owner " + i, "Savings", 1_000_000));
+            }
+            bank = new Bank(store, dataDirectory, FsyncPolicy.PER_OPERATION, BankLogger.quiet());
+            for (long i = 0; i < historySize; i++) {
+                bank.deposit(accountNumber((int) (i % accountCount)), 1, true);
+            }
+            bank.syncJournal();
+            bank.checkpoint();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            bank.close();
+            try (Stream<Path> files = Files.walk(dataDirectory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+
+        String randomAccount() {
+            return accountNumber(ThreadLocalRandom.current().nextInt(accountCount));
+        }
+
+        /**
+         * Draws a sender and a different receiver.
+         */
+        String[] randomPair() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int sender = random.nextInt(accountCount);
+            int receiver = (sender + 1 + random.nextInt(accountCount - 1)) % accountCount;
+            return new String[] {accountNumber(sender), accountNumber(receiver)};
+        }
+    }
+
+    @Benchmark
+    public boolean accountDeposit(AccountState state) {
+        return state.account.deposit(5);
+    }
+
+    @Benchmark
+    public boolean accountDepositWithdraw(AccountState state) {
+        return state.account.deposit(5) & state.account.withdraw(5);
+    }
+
+    @Benchmark
+    public boolean accountTransfer(AccountState state) {
+        return state.account.transfer(state.target, 5) & state.target.transfer(state.account, 5);
+    }
+
+    @Benchmark
+    public Account findAccountByNumber(BankState state) {
+        return state.bank.findAccountByNumber(state.randomAccount());
+    }
+
+    /**
+     * Journals the creation with the journal forced, so it does not depend on the account count.
+     */
+    @Benchmark
+    public boolean createAccount(BankState state) {
+        return state.bank.createAccount(String.valueOf(state.nextAccount.incrementAndGet()), "Owner", "Savings", 100);
+    }
+
+    @Benchmark
+    public TransactionResult depositToAccount(BankState state) {
+        return state.bank.depositToAccount(state.randomAccount(), 1);
+    }
+
+    @Benchmark
+    public TransactionResult transferBetweenAccounts(BankState state) {
+        String[] pair = state.randomPair();
+        return state.bank.transferBetweenAccounts(pair[0], pair[1], 1);
+    }
+
+    private static String accountNumber(int index) {
+        return String.valueOf(1_000_000 + index);
+    }
+}
@@ -0,0 +1,154 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator for a running {@link BankServer}. Creates a set of accounts, then runs
+ * many concurrent clients, each on its own virtual thread where available, issuing random
+ * deposits and transfers for a fixed time. Prints throughput, error count and latency
+ * percentiles.
+ * <p>
+ * Usage: {@code BankLoadGenerator [baseUri] [clients] [seconds] [accounts]}, by default
+ * {@code http://localhost:8080 1000 30 1000}.
+ * @see BankServer
+ * @see BankServerBenchmark
+ */
+public final class BankLoadGenerator {
+
+    private static final int MAX_SAMPLES_PER_CLIENT = 1 << 16;
+
+    private final HttpClient client;
+    private final URI base;
+    private final int accountCount;
+
+    /**
+     * Creates a load generator for one server.
+     *
+     * @param base base URI of the server, e.g. {@code http://localhost:8080}
+     * @param accountCount number of accounts the load is spread over
+     */
+    public BankLoadGenerator(URI base, int accountCount) {
+        this.client = HttpClient.newHttpClient();
+        this.base = base;
+        this.accountCount = accountCount;
+    }
+
+    /**
+     * Creates the accounts the load runs against; accounts that already exist are reused.
+     *
+     * @throws IOException if the server cannot be reached
+     * @throws InterruptedException if interrupted while waiting for the server
+     */
+    public void createAccounts() throws IOException, InterruptedException {
+        for (int i = 0; i < accountCount; i++) {
+            send("POST", "/accounts?number=" + accountNumber(i) + "&name=Load&type=Savings&balance=1000000");
+        }
+    }
+
+    /**
+     * Sends one random deposit or transfer.
+     *
+     * @return the HTTP status code
+     * @throws IOException if the request fails
+     * @throws InterruptedException if interrupted while waiting for the response
+     */
+    public int randomOperation() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String account = accountNumber(random.nextInt(accountCount));
+        if (random.nextBoolean()) {
+            return send("POST", "/accounts/" + account + "/deposit?amount=1");
+        }
+        return send("POST", "/transfers?from=" + account + "&to=" + accountNumber(random.nextInt(accountCount)) + "&amount=1");
+    }
+
+    private int send(String method, String pathAndQuery) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(base.resolve(pathAndQuery))
+                .method(method, HttpRequest.BodyPublishers.noBody()).build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static String accountNumber(int index) {
+        return String.valueOf(1_000_000 + index);
+    }
+
+    /**
+     * Runs the load.
+     *
+     * @param args optional base URI, client count, duration in seconds and account count
+     * @throws Exception if the accounts cannot be created or a client thread fails
+     */
+    public static void main(String[] args) throws Exception {
+        URI base = URI.create(args.length > 0 ? args[0] : "http://localhost:8080");
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 30;
+        int accounts = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+
+        BankLoadGenerator generator = new BankLoadGenerator(base, accounts);
+        generator.createAccounts();
+
+        ExecutorService executor = BankServer.newRequestExecutor();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        List<long[]> samples = new ArrayList<>(clients);
+        int[] sampleCounts = new int[clients];
+        for (int c = 0; c < clients; c++) {
+            long[] latencies = new long[MAX_SAMPLES_PER_CLIENT];
+            samples.add(latencies);
+            int client = c;
+            executor.execute(() -> {
+                int n = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        if (generator.randomOperation() >= 500) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    latencies[n++ & (MAX_SAMPLES_PER_CLIENT - 1)] = System.nanoTime() - start;
+                    completed.incrementAndGet();
+                }
+                sampleCounts[client] = Math.min(n, MAX_SAMPLES_PER_CLIENT);
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(seconds + 60, TimeUnit.SECONDS);
+
+        int total = Arrays.stream(sampleCounts).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(samples.get(c), 0, all, offset, sampleCounts[c]);
+            offset += sampleCounts[c];
+        }
+        Arrays.sort(all);
+        System.out.printf("%d clients, %d requests in %d s: %.0f req/s, %d errors%n",
+                clients, completed.get(), seconds, completed.get() / (double) seconds, errors.get());
+        for (String percentile : new String[] {"50", "90", "99", "99.9"}) {
+            System.out.printf("p%s: %.3f ms%n", percentile, percentile(all, Double.parseDouble(percentile)) / 1e6);
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile / 100 * sorted.length) - 1)];
+    }
+}
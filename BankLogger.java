@@ -0,0 +1,37 @@
+package com.jibstech.bank_account_management_system;
+
+/**
+ * Receives the diagnostic messages of a Bank: storage errors and progress of startup,
+ * checkpoints and recovery. Results of deposits, withdrawals and transfers are never
+ * logged; they are returned to the caller.
+ * @see Bank#Bank(AccountStore, java.nio.file.Path, FsyncPolicy, BankLogger)
+ * @see AsyncBankLogger
+ */
+@FunctionalInterface
+public interface BankLogger {
+
+    /**
+     * Logs one diagnostic message.
+     *
+     * @param message the message
+     */
+    void log(String message);
+
+    /**
+     * Gets a logger that prints each message to standard output on the calling thread.
+     *
+     * @return the console logger
+     */
+    static BankLogger console() {
+        return System.out::println;
+    }
+
+    /**
+     * Gets a logger that discards every message, for headless callers.
+     *
+     * @return the quiet logger
+     */
+    static BankLogger quiet() {
+        return message -> { };
+    }
+}
@@ -0,0 +1,58 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BankLoggerTest {
+
+	@TempDir
+	Path dataDirectory;
+
+	@Test
+	void testQuietBankPrintsNothingAndReturnsResults() {
+		PrintStream console = System.out;
+		ByteArrayOutputStream printed = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(printed));
+		try {
+			AccountStore store = new HashAccountStore();
+			store.add(new Account("1000001", "Alice", "Savings", 100));
+			Bank bank = new Bank(store, dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+			TransactionResult deposit = bank.depositToAccount("1000001", 50);
+			TransactionResult withdrawal = bank.withdrawFromAccount("1000001", 500);
+			TransactionResult transfer = bank.transferBetweenAccounts("1000001", "9999999", 10);
+			bank.createAccount("1000002", "Bob", "Savings", 0);
+			bank.close();
+
+			assertTrue(deposit.isSuccessful());
+			assertEquals(150.0, deposit.getBalance());
+			assertEquals(FailureReason.INSUFFICIENT_FUNDS, withdrawal.getFailureReason());
+			assertEquals(FailureReason.UNKNOWN_ACCOUNT, transfer.getFailureReason());
+		} finally {
+			System.setOut(console);
+		}
+		assertEquals(0, printed.size());
+	}
+
+	@Test
+	void testAsyncLoggerDeliversQueuedMessagesOnClose() {
+		List<String> messages = new CopyOnWriteArrayList<>();
+		AsyncBankLogger logger = new AsyncBankLogger(messages::add, 16);
+		for (int i = 0; i < 10; i++) {
+			logger.log("message " + i);
+		}
+		logger.close();
+		logger.log("late");
+
+		assertEquals(10, messages.size());
+		assertEquals("message 0", messages.get(0));
+		assertEquals(1, logger.getDroppedCount());
+	}
+}
@@ -0,0 +1,272 @@
+package com.jibstech.bank_account_management_system;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Low-overhead metrics of a Bank: outcome counters and latency histograms per operation,
+ * latency of journal appends and checkpoints, and bytes written to the journal, ledger
+ * and snapshot, requests answered from the idempotency cache, and the page cache of a
+ * {@link DiskAccountStore}. Counters are striped {@link LongAdder}s and histograms are
+ * lock-free, so recording costs two {@link System#nanoTime()} calls and a few
+ * uncontended atomic increments per operation.
+ * <p>
+ * Readable through {@link #getCounters()} and {@link #getLatencyMicros()}, over JMX once
+ * {@linkplain #register(String) registered}, and as text through {@link #dump()}.
+ * @see Bank#getMetrics()
+ * @see LatencyHistogram
+ */
+public class BankMetrics implements BankMetricsMXBean {
+
+    /**
+     * An operation whose outcome and latency are recorded.
+     */
+    public enum Operation {
+        DEPOSIT, WITHDRAWAL, TRANSFER, CREATE_ACCOUNT
+    }
+
+    /**
+     * A persistence step whose latency is recorded.
+     */
+    public enum Stage {
+        JOURNAL_APPEND, CHECKPOINT
+    }
+
+    /**
+     * A file whose written bytes are counted.
+     */
+    public enum File {
+        JOURNAL, LEDGER, SNAPSHOT
+    }
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9"};
+    private static final String[] QUANTILES = {"0.5", "0.9", "0.99", "0.999"};
+    private static final FailureReason[] REASONS = FailureReason.values();
+
+    private final Map<Operation, OperationMetrics> operations = new EnumMap<>(Operation.class);
+    private final Map<Stage, LatencyHistogram> stages = new EnumMap<>(Stage.class);
+    private final Map<File, LongAdder> bytes = new EnumMap<>(File.class);
+    private volatile PageCache cache;
+    private volatile IdempotencyCache idempotency;
+
+    /**
+     * Creates empty metrics.
+     */
+    public BankMetrics() {
+        for (Operation operation : Operation.values()) {
+            operations.put(operation, new OperationMetrics());
+        }
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new LatencyHistogram());
+        }
+        for (File file : File.values()) {
+            bytes.put(file, new LongAdder());
+        }
+    }
+
+    /**
+     * Records the outcome and latency of an operation.
+     *
+     * @param operation the operation
+     * @param result its outcome
+     * @param startNanos {@link System#nanoTime()} when the operation started
+     * @return the result, for chaining
+     */
+    TransactionResult record(Operation operation, TransactionResult result, long startNanos) {
+        recordOutcome(operation, result.isSuccessful() ? null : result.getFailureReason(), startNanos);
+        return result;
+    }
+
+    /**
+     * Records the outcome and latency of an operation.
+     *
+     * @param operation the operation
+     * @param failure why it failed, or null if it succeeded
+     * @param startNanos {@link System#nanoTime()} when the operation started
+     */
+    void recordOutcome(Operation operation, FailureReason failure, long startNanos) {
+        OperationMetrics metrics = operations.get(operation);
+        metrics.latency.record(System.nanoTime() - startNanos);
+        (failure == null ? metrics.successes : metrics.failures[failure.ordinal()]).increment();
+    }
+
+    /**
+     * Records the latency of a persistence step.
+     *
+     * @param stage the step
+     * @param startNanos {@link System#nanoTime()} when the step started
+     */
+    void record(Stage stage, long startNanos) {
+        stages.get(stage).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Counts bytes written to a file.
+     *
+     * @param file the file
+     * @param written number of bytes
+     */
+    void written(File file, long written) {
+        bytes.get(file).add(written);
+    }
+
+    /**
+     * Includes the hits, misses, evictions and write-back latency of an account page cache.
+     *
+     * @param cache the cache of the Bank's account store
+     */
+    void attach(PageCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Includes the number of requests answered from an idempotency cache.
+     *
+     * @param idempotency the Bank's cache of results by idempotency key
+     */
+    void attach(IdempotencyCache idempotency) {
+        this.idempotency = idempotency;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server under
+     * {@code com.jibstech.bank:type=BankMetrics,name=<name>}.
+     *
+     * @param name distinguishes several banks in one JVM
+     * @throws IllegalStateException if the MBean cannot be registered, e.g. because the name is taken
+     */
+    public void register(String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                    new ObjectName("com.jibstech.bank:type=BankMetrics,name=" + ObjectName.quote(name)));
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register bank metrics " + name, e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        operations.forEach((operation, metrics) -> {
+            counters.put(name(operation) + ".success", metrics.successes.sum());
+            for (FailureReason reason : REASONS) {
+                counters.put(name(operation) + "." + name(reason), metrics.failures[reason.ordinal()].sum());
+            }
+        });
+        bytes.forEach((file, written) -> counters.put(name(file) + ".bytes", written.sum()));
+        IdempotencyCache keys = idempotency;
+        if (keys != null) {
+            counters.put("idempotent_replays", keys.replays());
+        }
+        PageCache pages = cache;
+        if (pages != null) {
+            counters.put("account_cache.hits", pages.hits());
+            counters.put("account_cache.misses", pages.misses());
+            counters.put("account_cache.evictions", pages.evictions());
+            counters.put("account_cache.write_backs", pages.writeBacks());
+        }
+        return counters;
+    }
+
+    @Override
+    public Map<String, Double> getLatencyMicros() {
+        Map<String, Double> latencies = new LinkedHashMap<>();
+        operations.forEach((operation, metrics) -> putLatencies(latencies, name(operation), metrics.latency));
+        stages.forEach((stage, histogram) -> putLatencies(latencies, name(stage), histogram));
+        PageCache pages = cache;
+        if (pages != null) {
+            putLatencies(latencies, "page_write_back", pages.writeBackLatency());
+        }
+        return latencies;
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder text = new StringBuilder();
+        text.append("# TYPE bank_operations_total counter\n");
+        operations.forEach((operation, metrics) -> {
+            counter(text, "bank_operations_total", "operation", name(operation), "outcome", "success", metrics.successes.sum());
+            for (FailureReason reason : REASONS) {
+                counter(text, "bank_operations_total", "operation", name(operation), "outcome", name(reason),
+                        metrics.failures[reason.ordinal()].sum());
+            }
+        });
+        text.append("# TYPE bank_operation_latency_seconds summary\n");
+        operations.forEach((operation, metrics) -> summary(text, "bank_operation_latency_seconds", "operation",
+                name(operation), metrics.latency));
+        text.append("# TYPE bank_persistence_latency_seconds summary\n");
+        stages.forEach((stage, histogram) -> summary(text, "bank_persistence_latency_seconds", "stage", name(stage), histogram));
+        text.append("# TYPE bank_written_bytes_total counter\n");
+        bytes.forEach((file, written) -> text.append("bank_written_bytes_total{file=\"").append(name(file)).append("\"} ")
+                .append(written.sum()).append('\n'));
+        IdempotencyCache keys = idempotency;
+        if (keys != null) {
+            text.append("# TYPE bank_idempotent_replays_total counter\n");
+            text.append("bank_idempotent_replays_total ").append(keys.replays()).append('\n');
+        }
+        PageCache pages = cache;
+        if (pages != null) {
+            text.append("# TYPE bank_account_cache_total counter\n");
+            text.append("bank_account_cache_total{event=\"hit\"} ").append(pages.hits()).append('\n');
+            text.append("bank_account_cache_total{event=\"miss\"} ").append(pages.misses()).append('\n');
+            text.append("bank_account_cache_total{event=\"eviction\"} ").append(pages.evictions()).append('\n');
+            text.append("bank_account_cache_total{event=\"write_back\"} ").append(pages.writeBacks()).append('\n');
+            text.append("# TYPE bank_page_write_back_latency_seconds summary\n");
+            summary(text, "bank_page_write_back_latency_seconds", "file", "accounts", pages.writeBackLatency());
+        }
+        return text.toString();
+    }
+
+    private static void putLatencies(Map<String, Double> latencies, String name, LatencyHistogram histogram) {
+        latencies.put(name + ".count", (double) histogram.count());
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            latencies.put(name + "." + PERCENTILE_NAMES[i], histogram.percentile(PERCENTILES[i]) / 1e3);
+        }
+        latencies.put(name + ".max", histogram.max() / 1e3);
+    }
+
+    private static void counter(StringBuilder text, String metric, String label, String value, String label2,
+                                String value2, long count) {
+        text.append(metric).append('{').append(label).append("=\"").append(value).append("\",").append(label2)
+                .append("=\"").append(value2).append("\"} ").append(count).append('\n');
+    }
+
+    private static void summary(StringBuilder text, String metric, String label, String value, LatencyHistogram histogram) {
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            text.append(metric).append('{').append(label).append("=\"").append(value).append("\",quantile=\"")
+                    .append(QUANTILES[i]).append("\"} ").append(histogram.percentile(PERCENTILES[i]) / 1e9).append('\n');
+        }
+        text.append(metric).append("_sum{").append(label).append("=\"").append(value).append("\"} ")
+                .append(histogram.sum() / 1e9).append('\n');
+        text.append(metric).append("_count{").append(label).append("=\"").append(value).append("\"} ")
+                .append(histogram.count()).append('\n');
+    }
+
+    private static String name(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Outcome counters and latency of one operation.
+     */
+    private static final class OperationMetrics {
+
+        final LongAdder successes = new LongAdder();
+        final LongAdder[] failures = new LongAdder[REASONS.length];
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        OperationMetrics() {
+            for (int i = 0; i < failures.length; i++) {
+                failures[i] = new LongAdder();
+            }
+        }
+    }
+}
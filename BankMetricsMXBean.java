@@ -0,0 +1,33 @@
+package com.jibstech.bank_account_management_system;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link BankMetrics}, exposed over JMX once
+ * {@linkplain BankMetrics#register(String) registered}.
+ */
+public interface BankMetricsMXBean {
+
+    /**
+     * Gets every counter: operation outcomes (e.g. {@code deposit.success},
+     * {@code withdrawal.insufficient_funds}) and bytes written per file.
+     *
+     * @return the counters by name
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Gets the latency percentiles, count and maximum of every operation and persistence
+     * stage (e.g. {@code transfer.p99}, {@code checkpoint.max}), in microseconds.
+     *
+     * @return the latencies by name
+     */
+    Map<String, Double> getLatencyMicros();
+
+    /**
+     * Renders every metric in the Prometheus text exposition format.
+     *
+     * @return the metrics as text
+     */
+    String dump();
+}
@@ -0,0 +1,55 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BankMetricsTest {
+
+	@TempDir
+	Path dataDirectory;
+
+	@Test
+	void testCountsOutcomesByReason() {
+		AccountStore store = new HashAccountStore();
+		store.add(new Account("1000001", "Alice", "Savings", 100));
+		store.add(new Account("1000002", "Bob", "Savings", 0));
+		Bank bank = new Bank(store, dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		bank.depositToAccount("1000001", 50);
+		bank.depositToAccount("1000001", -5);
+		bank.withdrawFromAccount("1000002", 10);
+		bank.transferBetweenAccounts("1000001", "9999999", 10);
+		bank.transferBetweenAccounts("1000001", "1000002", 10);
+		bank.createAccount("1000001", "Alice", "Savings", 0);
+
+		Map<String, Long> counters = bank.getMetrics().getCounters();
+		assertEquals(1, counters.get("deposit.success"));
+		assertEquals(1, counters.get("deposit.invalid_amount"));
+		assertEquals(1, counters.get("withdrawal.insufficient_funds"));
+		assertEquals(1, counters.get("transfer.unknown_account"));
+		assertEquals(1, counters.get("transfer.success"));
+		assertEquals(1, counters.get("create_account.account_exists"));
+		assertEquals(2 * Journal.RECORD_SIZE, counters.get("journal.bytes"));
+		assertEquals(2.0, bank.getMetrics().getLatencyMicros().get("journal_append.count"));
+		assertTrue(bank.getMetrics().dump().contains(
+				"bank_operations_total{operation=\"deposit\",outcome=\"success\"} 1"));
+		bank.close();
+	}
+
+	@Test
+	void testHistogramPercentilesWithinBucketPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1; value <= 100_000; value++) {
+			histogram.record(value * 1000);
+		}
+
+		assertEquals(100_000, histogram.count());
+		assertEquals(100_000_000, histogram.max());
+		assertEquals(50_000_000, histogram.percentile(50), 50_000_000 * 0.04);
+		assertEquals(99_000_000, histogram.percentile(99), 99_000_000 * 0.04);
+	}
+}
@@ -0,0 +1,403 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded HTTP front end exposing a Bank to many concurrent clients, built on the JDK's
+ * {@code com.sun.net.httpserver}. Every request runs on its own virtual thread when the
+ * JVM supports them (Java 21 and later), so a client blocked on a journal fsync costs a
+ * few hundred bytes rather than a platform thread; older JVMs fall back to a cached pool.
+ * <p>
+ * Parameters are passed in the query string and responses are JSON:
+ * <pre>
+ * POST /accounts?number=&amp;name=&amp;type=&amp;balance=      create an account
+ * GET  /accounts/{number}                            account details
+ * POST /accounts/{number}/deposit?amount=            deposit
+ * POST /accounts/{number}/withdraw?amount=           withdraw
+ * GET  /accounts/{number}/transactions?limit=&amp;after=  one page of history, oldest first
+ * POST /transfers?from=&amp;to=&amp;amount=                  transfer
+ * GET  /metrics                                      {@linkplain BankMetrics#dump() metrics} as plain text
+ * </pre>
+ * A server built on a {@link LocalShard} also serves the two-phase commit calls of a
+ * {@link ShardedBank} coordinator, for a {@link RemoteShard}:
+ * <pre>
+ * POST /shard/prepare?tx=&amp;account=&amp;amount=&amp;debit=     prepare one side of a transfer
+ * POST /shard/commit?tx=                             apply a prepared side; 404 if none
+ * POST /shard/abort?tx=                              abandon a prepared side
+ * </pre>
+ * Deposits, withdrawals and transfers may carry an {@code Idempotency-Key} header of up to
+ * {@value #MAX_IDEMPOTENCY_KEY_LENGTH} characters; a request repeating the key of an earlier
+ * one gets the earlier response and is not applied again.
+ * <p>
+ * Unknown accounts answer 404, an account number already taken 409, a rejected
+ * operation (invalid amount, insufficient funds or an idempotency key reused for another
+ * operation) 422 and malformed parameters 400.
+ * @see Bank
+ * @see BankLoadGenerator
+ */
+public class BankServer implements Closeable {
+
+    private static final int BACKLOG = 4096;
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+    private final Bank bank;
+    private final LocalShard shard;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Binds the server; requests are served once it is {@linkplain #start() started}.
+     *
+     * @param bank the bank to expose
+     * @param address address to listen on; port 0 picks a free port
+     * @throws IOException if the address cannot be bound
+     */
+    public BankServer(Bank bank, InetSocketAddress address) throws IOException {
+        this(bank, null, address);
+    }
+
+    /**
+     * Binds a server for one shard of a {@link ShardedBank}, adding the two-phase commit
+     * endpoints to those of its Bank.
+     *
+     * @param shard the shard to expose
+     * @param address address to listen on; port 0 picks a free port
+     * @throws IOException if the address cannot be bound
+     */
+    public BankServer(LocalShard shard, InetSocketAddress address) throws IOException {
+        this(shard.getBank(), shard, address);
+        server.createContext("/shard", exchange -> handle(exchange, this::shard));
+    }
+
+    private BankServer(Bank bank, LocalShard shard, InetSocketAddress address) throws IOException {
+        this.bank = bank;
+        this.shard = shard;
+        this.server = HttpServer.create(address, BACKLOG);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/accounts", exchange -> handle(exchange, this::accounts));
+        server.createContext("/transfers", exchange -> handle(exchange, this::transfers));
+        server.createContext("/metrics", exchange -> handle(exchange, this::metrics));
+    }
+
+    /**
+     * Starts serving requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waits briefly for those in flight and releases the threads.
+     * The Bank is left open.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Opens the Bank in a data directory and serves it until the JVM is stopped. The Bank
+     * is opened as a {@link LocalShard}, so the process can also serve as one shard of a
+     * {@link ShardedBank} running elsewhere.
+     *
+     * @param args optional port, 8080 by default, and data directory, the working directory by default
+     * @throws IOException if the port cannot be bound or the data directory created
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Path dataDirectory = args.length > 1 ? Files.createDirectories(Paths.get(args[1])) : Paths.get("");
+        AsyncBankLogger logger = new AsyncBankLogger(BankLogger.console());
+        Bank bank = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.PER_OPERATION, logger);
+        LocalShard shard = new LocalShard(bank, dataDirectory.resolve("participant.log"));
+        bank.getMetrics().register(args.length > 0 ? "port-" + port : "default");
+        bank.scheduleCheckpoints(TimeUnit.MINUTES.toMillis(5));
+        BankServer server = new BankServer(shard, new InetSocketAddress(port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            shard.close();
+            logger.close();
+        }));
+        server.start();
+        logger.log("Bank server listening on port " + server.getPort());
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per request when the JVM has
+     * virtual threads, looked up reflectively so the code still builds for Java 17.
+     *
+     * @return the executor
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "bank-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private Response accounts(HttpExchange exchange, Map<String, String> params) {
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        String method = exchange.getRequestMethod();
+        if (path.length == 2) {
+            return "POST".equals(method) ? createAccount(params) : Response.METHOD_NOT_ALLOWED;
+        }
+        String accountNumber = path[2];
+        Account account = bank.findAccountByNumber(accountNumber);
+        if (account == null) {
+            return Response.error(404, "Account " + accountNumber + " not found");
+        }
+        if (path.length == 3) {
+            return "GET".equals(method) ? new Response(200, accountJson(account)) : Response.METHOD_NOT_ALLOWED;
+        }
+        boolean post = "POST".equals(method);
+        return switch (path.length == 4 ? path[3] : "") {
+            case "deposit" -> post ? result(bank.depositToAccount(accountNumber, amount(params), idempotencyKey(exchange))) : Response.METHOD_NOT_ALLOWED;
+            case "withdraw" -> post ? result(bank.withdrawFromAccount(accountNumber, amount(params), idempotencyKey(exchange))) : Response.METHOD_NOT_ALLOWED;
+            case "transactions" -> "GET".equals(method) ? history(accountNumber, params) : Response.METHOD_NOT_ALLOWED;
+            default -> Response.error(404, "No such resource");
+        };
+    }
+
+    private Response transfers(HttpExchange exchange, Map<String, String> params) {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            return Response.METHOD_NOT_ALLOWED;
+        }
+        String from = required(params, "from");
+        String to = required(params, "to");
+        if (bank.findAccountByNumber(from) == null || bank.findAccountByNumber(to) == null) {
+            return Response.error(404, "Account not found");
+        }
+        return result(bank.transferBetweenAccounts(from, to, amount(params), idempotencyKey(exchange)));
+    }
+
+    private Response metrics(HttpExchange exchange, Map<String, String> params) {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            return Response.METHOD_NOT_ALLOWED;
+        }
+        return new Response(200, "text/plain; version=0.0.4", bank.getMetrics().dump());
+    }
+
+    private Response shard(HttpExchange exchange, Map<String, String> params) {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            return Response.METHOD_NOT_ALLOWED;
+        }
+        long transactionId = Long.parseLong(required(params, "tx"));
+        String path = exchange.getRequestURI().getPath();
+        switch (path.substring(path.lastIndexOf('/') + 1)) {
+            case "prepare" -> {
+                FailureReason reason = shard.prepare(transactionId, required(params, "account"), amount(params),
+                        Boolean.parseBoolean(required(params, "debit")));
+                if (reason == FailureReason.UNKNOWN_ACCOUNT) {
+                    return Response.error(404, "Account not found");
+                }
+                return reason == null ? new Response(200, "{\"prepared\":" + transactionId + "}")
+                        : Response.error(422, "Rejected: " + reason);
+            }
+            case "commit" -> {
+                TransactionResult result = shard.commit(transactionId);
+                if (result.isSuccessful() || result.getFailureReason() != null) {
+                    return result(result);
+                }
+                return Response.error(404, "Transfer " + transactionId + " not prepared");
+            }
+            case "abort" -> {
+                shard.abort(transactionId);
+                return new Response(200, "{\"aborted\":" + transactionId + "}");
+            }
+            default -> {
+                return Response.error(404, "No such resource");
+            }
+        }
+    }
+
+    private Response createAccount(Map<String, String> params) {
+        String accountNumber = required(params, "number");
+        if (!Journal.fitsAccountNumber(accountNumber)) {
+            throw new IllegalArgumentException("Account number is longer than " + Journal.MAX_ACCOUNT_NUMBER_LENGTH + " bytes");
+        }
+        double balance = params.containsKey("balance") ? Double.parseDouble(params.get("balance")) : 0;
+        if (!Double.isFinite(balance) || balance < 0) {
+            throw new IllegalArgumentException("balance must be a non-negative number");
+        }
+        if (!bank.createAccount(accountNumber, required(params, "name"), required(params, "type"), balance)) {
+            return Response.error(409, "Account " + accountNumber + " already exists");
+        }
+        return new Response(201, accountJson(bank.findAccountByNumber(accountNumber)));
+    }
+
+    private Response history(String accountNumber, Map<String, String> params) {
+        int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_PAGE_SIZE;
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        TransactionQuery query = new TransactionQuery().account(accountNumber).limit(limit);
+        if (params.containsKey("after")) {
+            query.after(Long.parseLong(params.get("after")));
+        }
+        TransactionPage page = bank.getTransactionPage(query);
+        StringBuilder json = new StringBuilder("{\"transactions\":[");
+        for (int i = 0; i < page.getTransactions().size(); i++) {
+            json.append(i == 0 ? "" : ",").append(transactionJson(page.getTransactions().get(i)));
+        }
+        json.append("],\"nextCursor\":").append(page.hasNext() ? Long.toString(page.getNextCursor()) : "null").append('}');
+        return new Response(200, json.toString());
+    }
+
+    private static Response result(TransactionResult result) {
+        if (!result.isSuccessful()) {
+            return Response.error(422, "Rejected: " + result.getFailureReason());
+        }
+        return new Response(200, "{\"transaction\":" + transactionJson(result.getTransaction())
+                + ",\"balance\":" + result.getBalance() + "}");
+    }
+
+    private static String idempotencyKey(HttpExchange exchange) {
+        String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+        if (key != null && key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key is longer than " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+        return key;
+    }
+
+    private static double amount(Map<String, String> params) {
+        return Double.parseDouble(required(params, "amount"));
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static String accountJson(Account account) {
+        return "{\"number\":" + quote(account.getAccountNumber()) + ",\"name\":" + quote(account.getOwnerName())
+                + ",\"type\":" + quote(account.getAcountType()) + ",\"balance\":" + account.getBalance() + "}";
+    }
+
+    private static String transactionJson(Transaction txn) {
+        return "{\"id\":" + quote(txn.getTransactionId()) + ",\"account\":" + quote(txn.getAccountNumber())
+                + ",\"target\":" + (txn.getTargetAccountNumber() == null ? "null" : quote(txn.getTargetAccountNumber()))
+                + ",\"type\":\"" + txn.getType() + "\",\"amount\":" + txn.getAmount()
+                + ",\"timestamp\":\"" + txn.getTimestamp() + "\"}";
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static Map<String, String> parameters(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static void handle(HttpExchange exchange, Handler handler) throws IOException {
+        Response response;
+        try {
+            exchange.getRequestBody().readAllBytes();
+            response = handler.handle(exchange, parameters(exchange.getRequestURI().getRawQuery()));
+        } catch (IllegalArgumentException e) {
+            response = Response.error(400, e.getMessage());
+        } catch (UncheckedIOException e) {
+            response = Response.error(500, e.getMessage());
+        }
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", response.contentType);
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(HttpExchange exchange, Map<String, String> params);
+    }
+
+    /**
+     * Status code and body of a response, JSON unless stated otherwise.
+     */
+    private static final class Response {
+
+        static final Response METHOD_NOT_ALLOWED = error(405, "Method not allowed");
+
+        final int status;
+        final String contentType;
+        final String body;
+
+        Response(int status, String body) {
+            this(status, "application/json", body);
+        }
+
+        Response(int status, String contentType, String body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, "{\"error\":" + quote(message == null ? "" : message) + "}");
+        }
+    }
+}
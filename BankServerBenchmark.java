@@ -0,0 +1,70 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures deposit and transfer round trips through the HTTP front end, over loopback.
+ * Run with many threads (e.g. {@code -t 64,512}) to see how the server copes with
+ * concurrent clients; for tens of thousands of clients use {@link BankLoadGenerator}.
+ * The journal runs with {@link FsyncPolicy#NONE} so the disk does not cap throughput.
+ * @see BankServer
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BankServerBenchmark {
+
+    @Param({"1000"})
+    private int accountCount;
+
+    private Path dataDirectory;
+    private Bank bank;
+    private BankServer server;
+    private BankLoadGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDirectory = Files.createTempDirectory("bank-server-bench");
+        AccountStore store = new HashAccountStore();
+        for (int i = 0; i < accountCount; i++) {
+            store.add(new Account(String.valueOf(1_000_000 + i), "Owner " + i, "Savings", 1_000_000));
+        }
+        bank = new Bank(store, dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+        server = new BankServer(bank, new InetSocketAddress("localhost", 0));
+        server.start();
+        generator = new BankLoadGenerator(URI.create("http://localhost:" + server.getPort()), accountCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+        bank.close();
+    }
+
+    @Benchmark
+    public int randomOperation() throws IOException, InterruptedException {
+        return generator.randomOperation();
+    }
+}
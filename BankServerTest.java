@@ -0,0 +1,88 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BankServerTest {
+
+	@TempDir
+	Path dataDirectory;
+
+	private Bank bank;
+	private BankServer server;
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@BeforeEach
+	void setUp() throws Exception {
+		AccountStore store = new HashAccountStore();
+		store.add(new Account("1000001", "Alice", "Savings", 100));
+		bank = new Bank(store, dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		server = new BankServer(bank, new InetSocketAddress("localhost", 0));
+		server.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.close();
+		bank.close();
+	}
+
+	@Test
+	void testOperationsAndStatusCodes() throws Exception {
+		assertEquals(201, send("POST", "/accounts?number=1000002&name=Bob&type=Checking").statusCode());
+		assertEquals(409, send("POST", "/accounts?number=1000002&name=Bob&type=Checking").statusCode());
+		assertEquals(400, send("POST", "/accounts?number=1000003&name=Eve&type=Checking&balance=NaN").statusCode());
+		assertEquals(400, send("POST", "/accounts?number=1000003&name=Eve&type=Checking&balance=Infinity").statusCode());
+		assertEquals(400, send("POST", "/accounts?number=1000003&name=Eve&type=Checking&balance=-5").statusCode());
+		assertNull(bank.findAccountByNumber("1000003"));
+		assertFalse(bank.createAccount("1000003", "Eve", "Checking", Double.NaN));
+		assertFalse(bank.createAccount("1000003", "Eve", "Checking", -0.01));
+		assertFalse(bank.createAccount("1000003", "Eve", "Checking", Double.POSITIVE_INFINITY));
+		assertNull(bank.findAccountByNumber("1000003"));
+		assertEquals(200, send("POST", "/accounts/1000001/deposit?amount=50").statusCode());
+		assertEquals(200, send("POST", "/transfers?from=1000001&to=1000002&amount=30").statusCode());
+		assertEquals(422, send("POST", "/accounts/1000002/withdraw?amount=31").statusCode());
+		assertEquals(400, send("POST", "/accounts/1000002/withdraw").statusCode());
+		assertEquals(404, send("GET", "/accounts/9999999").statusCode());
+		assertEquals(405, send("GET", "/transfers").statusCode());
+
+		assertTrue(send("GET", "/accounts/1000002").body().contains("\"balance\":30.0"));
+		assertTrue(send("GET", "/accounts/1000002/transactions").body().contains("\"target\":\"1000002\""));
+	}
+
+	@Test
+	void testIdempotencyKeyHeaderSuppressesRetries() throws Exception {
+		HttpResponse<String> first = send("POST", "/accounts/1000001/withdraw?amount=40", "retry-1");
+		HttpResponse<String> retry = send("POST", "/accounts/1000001/withdraw?amount=40", "retry-1");
+
+		assertEquals(200, retry.statusCode());
+		assertEquals(first.body(), retry.body());
+		assertEquals(60, bank.findAccountByNumber("1000001").getBalance(), 0.001);
+		assertEquals(422, send("POST", "/accounts/1000001/deposit?amount=40", "retry-1").statusCode());
+		assertEquals(400, send("POST", "/accounts/1000001/deposit?amount=40", "k".repeat(256)).statusCode());
+	}
+
+	private HttpResponse<String> send(String method, String pathAndQuery) throws Exception {
+		return send(method, pathAndQuery, null);
+	}
+
+	private HttpResponse<String> send(String method, String pathAndQuery, String idempotencyKey) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + pathAndQuery))
+				.method(method, HttpRequest.BodyPublishers.noBody());
+		if (idempotencyKey != null) {
+			request.header("Idempotency-Key", idempotencyKey);
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+}
@@ -0,0 +1,96 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.Closeable;
+
+/**
+ * One shard of a {@link ShardedBank}: a Bank holding a share of the accounts, in this JVM
+ * ({@link LocalShard}) or in another process ({@link RemoteShard}). Besides the usual
+ * operations on its own accounts, a shard takes part in transfers to and from other
+ * shards through a two-phase commit driven by the ShardedBank.
+ * @see ShardedBank
+ */
+public interface BankShard extends Closeable {
+
+    /**
+     * Creates an account on this shard.
+     *
+     * @param accountNumber unique identifier for the new account
+     * @param accountName name of the account owner
+     * @param accountType category/type of account
+     * @param initialBalance starting balance
+     * @return true if the account was created, false if the number is taken or invalid
+     */
+    boolean createAccount(String accountNumber, String accountName, String accountType, double initialBalance);
+
+    /**
+     * Finds an account of this shard.
+     *
+     * @param accountNumber the account number
+     * @return the account, or null if this shard has none with that number
+     */
+    Account findAccountByNumber(String accountNumber);
+
+    /**
+     * Deposits to an account of this shard.
+     *
+     * @param accountNumber target account identifier
+     * @param amount amount to deposit
+     * @return the outcome
+     */
+    TransactionResult depositToAccount(String accountNumber, double amount);
+
+    /**
+     * Withdraws from an account of this shard.
+     *
+     * @param accountNumber target account identifier
+     * @param amount amount to withdraw
+     * @return the outcome
+     */
+    TransactionResult withdrawFromAccount(String accountNumber, double amount);
+
+    /**
+     * Transfers between two accounts of this shard.
+     *
+     * @param senderAccount account number of the sender
+     * @param receiverAccount account number of the receiver
+     * @param amount amount to transfer
+     * @return the outcome, carrying the sender's new balance
+     */
+    TransactionResult transferBetweenAccounts(String senderAccount, String receiverAccount, double amount);
+
+    /**
+     * Phase one: promises to apply one side of a transfer between shards. A debit holds
+     * the funds so nothing else can spend them. Once this returns null the promise
+     * survives a crash until {@link #commit(long)} or {@link #abort(long)}.
+     *
+     * @param transactionId the coordinator's id of the transfer
+     * @param accountNumber account of this shard
+     * @param amount amount of the transfer
+     * @param debit true for the sending side, false for the receiving side
+     * @return null if prepared, otherwise why the side cannot be applied
+     */
+    FailureReason prepare(long transactionId, String accountNumber, double amount, boolean debit);
+
+    /**
+     * Phase two: applies a prepared side, as a withdrawal or a deposit.
+     *
+     * @param transactionId the coordinator's id of the transfer
+     * @return the outcome of the side; {@link TransactionResult#failure()} if nothing is
+     *         prepared under that id because it was already committed
+     */
+    TransactionResult commit(long transactionId);
+
+    /**
+     * Phase two: abandons a prepared side and releases its hold. Does nothing if nothing
+     * is prepared under that id.
+     *
+     * @param transactionId the coordinator's id of the transfer
+     */
+    void abort(long transactionId);
+
+    /**
+     * Releases the shard; a local shard also closes its Bank.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,131 @@
+package com.jibstech.bank_account_management_system;
+
+import java.util.stream.Stream;
+
+/**
+ * Consistent, read-only view of a Bank as of one transaction sequence number. Every
+ * transaction up to that number is reflected in full and none after it, so a transfer is
+ * never seen debited but not yet credited, and a batch posted
+ * {@linkplain PostingMode#ALL_OR_NOTHING all or nothing} is seen whole or not at all.
+ * <p>
+ * Balances are served from the Bank's {@link AccountVersions}, so opening and reading a
+ * view never blocks deposits, withdrawals or transfers, and writers carry on while a long
+ * report runs. The accounts it returns are frozen: their balances never change and they
+ * refuse deposits and withdrawals. A view keeps the balance versions it can see alive, so
+ * it should be closed once read.
+ * <p>
+ * Accounts created after the view was opened may appear in it with their initial balance,
+ * since account creation is not a transaction.
+ * @see Bank#snapshot()
+ */
+public final class BankSnapshot implements AutoCloseable {
+
+    private final AccountStore accounts;
+    private final Ledger ledger;
+    private final AccountVersions versions;
+    private final long sequence;
+    private final long ledgerCount;
+    private boolean closed;
+
+    /**
+     * Pins a view of the given accounts and ledger to the current visible sequence.
+     *
+     * @param accounts the live accounts
+     * @param ledger the live ledger
+     * @param versions the balance versions of the accounts
+     */
+    BankSnapshot(AccountStore accounts, Ledger ledger, AccountVersions versions) {
+        this.accounts = accounts;
+        this.ledger = ledger;
+        this.versions = versions;
+        this.sequence = versions.pin();
+        this.ledgerCount = ledger.size(); // every record up to the sequence is appended by now
+    }
+
+    /**
+     * Gets the sequence number of the last transaction reflected in the view.
+     *
+     * @return the sequence
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Finds an account as of the view.
+     *
+     * @param accountNumber identifier of the account
+     * @return a frozen copy of the account, or null if not found
+     */
+    public Account findAccountByNumber(String accountNumber) {
+        Account account = accounts.findByNumber(accountNumber);
+        return account == null ? null : freeze(account);
+    }
+
+    /**
+     * Gets every account as of the view, in no particular order.
+     *
+     * @return a stream of frozen copies of the accounts
+     */
+    public Stream<Account> accounts() {
+        return accounts.all().stream().map(this::freeze);
+    }
+
+    /**
+     * Returns the transactions matching a query that are reflected in the view, as a lazy
+     * stream. Records appended after the view was opened are skipped.
+     *
+     * @param query the filter and paging criteria
+     * @return the matching transactions
+     * @see Bank#queryTransactions(TransactionQuery)
+     */
+    public Stream<Transaction> queryTransactions(TransactionQuery query) {
+        return ledger.select(query)
+                .filter(index -> index < ledgerCount && ledger.sequenceAt(index) <= sequence)
+                .skip(query.getOffset())
+                .limit(query.getLimit())
+                .mapToObj(ledger::get);
+    }
+
+    /**
+     * Releases the balance versions kept for the view. Accounts already returned stay valid.
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            versions.unpin(sequence);
+        }
+    }
+
+    private Account freeze(Account account) {
+        return new FrozenAccount(account, versions.balanceAt(account, sequence));
+    }
+
+    /**
+     * An account with its balance as of a snapshot.
+     */
+    private static final class FrozenAccount extends Account {
+
+        private static final long serialVersionUID = 1L;
+
+        FrozenAccount(Account account, double balance) {
+            super(account.getAccountNumber(), account.getOwnerName(), account.getAcountType(), balance);
+        }
+
+        @Override
+        public boolean deposit(double amount) {
+            throw new UnsupportedOperationException("Snapshot accounts are read-only");
+        }
+
+        @Override
+        public boolean withdraw(double amount) {
+            throw new UnsupportedOperationException("Snapshot accounts are read-only");
+        }
+
+        @Override
+        public Account getDetails() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures transfers running next to a reader that totals every balance, once through a
+ * {@link BankSnapshot} and once through {@link Bank#reconcile()}, which pauses writers
+ * while it copies the balances. Compare the throughput of the transfers in the two groups
+ * with the {@code writersOnly} group to see what each reader costs the writers.
+ * @see BankSnapshot
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class BankSnapshotBenchmark {
+
+    @Param({"10000", "100000"})
+    private int accountCount;
+
+    private Path dataDirectory;
+    private Bank bank;
+    private String[] accountNumbers;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDirectory = Files.createTempDirectory("snapshot-bench");
+        AccountStore store = new HashAccountStore();
+        accountNumbers = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountNumbers[i] = String.valueOf(1_000_000 + i);
+            store.add(new Account(accountNumbers[i], "Owner " + i, "Savings", 1_000_000));
+        }
+        bank = new Bank(store, dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bank.close();
+    }
+
+    @Benchmark
+    @Group("writersOnly")
+    @GroupThreads(3)
+    public TransactionResult transferAlone() {
+        return transfer();
+    }
+
+    @Benchmark
+    @Group("snapshotReader")
+    @GroupThreads(3)
+    public TransactionResult transferBesideSnapshot() {
+        return transfer();
+    }
+
+    @Benchmark
+    @Group("snapshotReader")
+    @GroupThreads(1)
+    public double snapshotTotal() {
+        try (BankSnapshot snapshot = bank.snapshot()) {
+            return snapshot.accounts().mapToDouble(Account::getBalance).sum();
+        }
+    }
+
+    @Benchmark
+    @Group("reconcileReader")
+    @GroupThreads(3)
+    public TransactionResult transferBesideReconcile() {
+        return transfer();
+    }
+
+    @Benchmark
+    @Group("reconcileReader")
+    @GroupThreads(1)
+    public ReconciliationReport reconcileTotal() {
+        return bank.reconcile();
+    }
+
+    private TransactionResult transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return bank.transfer(accountNumbers[random.nextInt(accountCount)], accountNumbers[random.nextInt(accountCount)],
+                1, true);
+    }
+}
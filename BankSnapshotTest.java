@@ -0,0 +1,124 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BankSnapshotTest {
+
+	private static final int ACCOUNTS = 32;
+
+	@TempDir
+	Path dataDirectory;
+
+	@Test
+	void testSnapshotIsFrozenAtItsSequence() {
+		Bank bank = newBankWithAccounts();
+		bank.depositToAccount(accountNumber(0), 50);
+
+		try (BankSnapshot snapshot = bank.snapshot()) {
+			bank.transferBetweenAccounts(accountNumber(0), accountNumber(1), 300);
+			bank.withdrawFromAccount(accountNumber(2), 100);
+
+			assertEquals(1, snapshot.getSequence());
+			assertEquals(1050, snapshot.findAccountByNumber(accountNumber(0)).getBalance(), 0.001);
+			assertEquals(1000, snapshot.findAccountByNumber(accountNumber(1)).getBalance(), 0.001);
+			assertEquals(1000, snapshot.findAccountByNumber(accountNumber(2)).getBalance(), 0.001);
+			assertNull(snapshot.findAccountByNumber("9999999"));
+			assertEquals(1, snapshot.queryTransactions(new TransactionQuery()).count());
+			assertEquals(0, snapshot.queryTransactions(new TransactionQuery().account(accountNumber(1))).count());
+			Account frozen = snapshot.findAccountByNumber(accountNumber(0));
+			assertThrows(UnsupportedOperationException.class, () -> frozen.deposit(1));
+			assertThrows(UnsupportedOperationException.class, () -> frozen.transfer(frozen, 1));
+		}
+		try (BankSnapshot snapshot = bank.snapshot()) {
+			assertEquals(3, snapshot.getSequence());
+			assertEquals(750, snapshot.findAccountByNumber(accountNumber(0)).getBalance(), 0.001);
+			assertEquals(1300, snapshot.findAccountByNumber(accountNumber(1)).getBalance(), 0.001);
+			assertEquals(3, snapshot.queryTransactions(new TransactionQuery().offset(0)).count());
+		}
+		bank.close();
+	}
+
+	@Test
+	void testConcurrentTransfersNeverTearASnapshot() throws Exception {
+		Bank bank = newBankWithAccounts();
+		ExecutorService writers = Executors.newFixedThreadPool(4);
+		for (int t = 0; t < 4; t++) {
+			writers.execute(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < 5_000; i++) {
+					bank.transfer(accountNumber(random.nextInt(ACCOUNTS)), accountNumber(random.nextInt(ACCOUNTS)),
+							1 + random.nextInt(100), true);
+				}
+			});
+		}
+		writers.shutdown();
+		BankSnapshot held = bank.snapshot();
+		while (!writers.isTerminated()) {
+			try (BankSnapshot snapshot = bank.snapshot()) {
+				assertEquals(ACCOUNTS * 1000.0, snapshot.accounts().mapToDouble(Account::getBalance).sum(), 0.001);
+			}
+		}
+		assertTrue(writers.awaitTermination(1, TimeUnit.MINUTES));
+
+		assertEquals(ACCOUNTS * 1000.0, held.accounts().mapToDouble(Account::getBalance).sum(), 0.001);
+		assertEquals(held.getSequence(), held.queryTransactions(new TransactionQuery()).count());
+		held.close();
+		try (BankSnapshot snapshot = bank.snapshot()) {
+			assertEquals(bank.getTransactionCount(), snapshot.getSequence());
+			for (int i = 0; i < ACCOUNTS; i++) {
+				assertEquals(bank.findAccountByNumber(accountNumber(i)).getBalance(),
+						snapshot.findAccountByNumber(accountNumber(i)).getBalance(), 0.001);
+			}
+		}
+		bank.close();
+	}
+
+	@Test
+	void testAtomicBatchIsSeenWholeOrNotAtAll() throws Exception {
+		Bank bank = newBankWithAccounts();
+		BankSnapshot before = bank.snapshot();
+		Thread poster = new Thread(() -> {
+			for (int i = 0; i < 200; i++) {
+				bank.postBatch(Stream.of(
+						new Posting(TransactionType.WITHDRAWAL, accountNumber(0), null, 1),
+						new Posting(TransactionType.DEPOSIT, accountNumber(1), null, 1)), PostingMode.ALL_OR_NOTHING);
+			}
+		});
+		poster.start();
+		while (poster.isAlive()) {
+			try (BankSnapshot snapshot = bank.snapshot()) {
+				assertEquals(0, snapshot.getSequence() % 2);
+				assertEquals(2000, snapshot.findAccountByNumber(accountNumber(0)).getBalance()
+						+ snapshot.findAccountByNumber(accountNumber(1)).getBalance(), 0.001);
+			}
+		}
+		poster.join();
+
+		assertEquals(1000, before.findAccountByNumber(accountNumber(0)).getBalance(), 0.001);
+		assertEquals(0, before.queryTransactions(new TransactionQuery()).count());
+		before.close();
+		bank.close();
+	}
+
+	private Bank newBankWithAccounts() {
+		Bank bank = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		for (int i = 0; i < ACCOUNTS; i++) {
+			bank.createAccount(accountNumber(i), "Owner " + i, "Savings", 1000);
+		}
+		return bank;
+	}
+
+	private static String accountNumber(int index) {
+		return String.valueOf(1000000 + index);
+	}
+}
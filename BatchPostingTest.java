@@ -0,0 +1,102 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchPostingTest {
+
+	@TempDir
+	Path dataDirectory;
+
+	private Bank openBank() {
+		AccountStore store = new HashAccountStore();
+		store.add(new Account("1000001", "Alice", "Savings", 100));
+		store.add(new Account("1000002", "Bob", "Savings", 0));
+		return new Bank(store, dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+	}
+
+	@Test
+	void testAllOrNothingRejectsWholeBatch() {
+		Bank bank = openBank();
+		BatchReport report = bank.postBatch(Stream.of("TRANSFER,1000001,80,1000002", "WITHDRAWAL,1000001,30",
+				"DEPOSIT,9999999,5").map(Posting::parse), PostingMode.ALL_OR_NOTHING);
+
+		assertFalse(report.isCommitted());
+		assertEquals(List.of(1, 2), report.getRejectedLines());
+		assertEquals(100.0, bank.findAccountByNumber("1000001").getBalance());
+		assertEquals(0, bank.getTransactionCount());
+		bank.close();
+	}
+
+	@Test
+	void testBestEffortSkipsRejectedLines() {
+		Bank bank = openBank();
+		BatchReport report = bank.postBatch(Stream.of("TRANSFER,1000001,80,1000002", "WITHDRAWAL,1000001,30",
+				"DEPOSIT,1000002,5").map(Posting::parse), PostingMode.BEST_EFFORT);
+
+		assertTrue(report.isCommitted());
+		assertEquals(List.of(1), report.getRejectedLines());
+		assertEquals(2, report.getPostedCount());
+		assertEquals(20.0, bank.findAccountByNumber("1000001").getBalance());
+		assertEquals(85.0, bank.findAccountByNumber("1000002").getBalance());
+		bank.close();
+	}
+
+	@Test
+	void testMalformedLinesAreRejected() {
+		Bank bank = openBank();
+		BatchReport bestEffort = bank.postLines(Stream.of("DEPOSIT,1000002,5", "DEPOSIT,1000002", "REFUND,1000002,1",
+				"TRANSFER,1000001,abc,1000002", "WITHDRAWAL,1000001,10"), PostingMode.BEST_EFFORT);
+		assertTrue(bestEffort.isCommitted());
+		assertEquals(List.of(1, 2, 3), bestEffort.getRejectedLines());
+		assertEquals(FailureReason.MALFORMED_POSTING, bestEffort.getResults().get(2).getFailureReason());
+		assertEquals(2, bestEffort.getPostedCount());
+
+		BatchReport atomic = bank.postLines(Stream.of("DEPOSIT,1000002,5", "TRANSFER,1000001,5"),
+				PostingMode.ALL_OR_NOTHING);
+		assertFalse(atomic.isCommitted());
+		assertEquals(List.of(1), atomic.getRejectedLines());
+		assertEquals(FailureReason.MALFORMED_POSTING, atomic.getResults().get(1).getFailureReason());
+		assertEquals(5.0, bank.findAccountByNumber("1000002").getBalance());
+		assertEquals(90.0, bank.findAccountByNumber("1000001").getBalance());
+		bank.close();
+	}
+
+	@Test
+	void testLinesPostedBeforeAStreamFailureAreDurable() {
+		Bank bank = openBank();
+		bank.checkpoint();
+		assertThrows(IllegalArgumentException.class, () -> bank.postBatch(Stream.of("DEPOSIT,1000002,5", "DEPOSIT")
+				.map(Posting::parse), PostingMode.BEST_EFFORT));
+		assertEquals(5.0, bank.findAccountByNumber("1000002").getBalance());
+
+		// reopened without a checkpoint, as after a crash
+		Bank reopened = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		assertEquals(5.0, reopened.findAccountByNumber("1000002").getBalance());
+		reopened.close();
+	}
+
+	@Test
+	void testUncommittedBatchIsDroppedOnReplay() throws Exception {
+		Bank bank = openBank();
+		bank.checkpoint();
+		bank.postBatch(Stream.of(Posting.parse("DEPOSIT,1000002,7")), PostingMode.ALL_OR_NOTHING);
+		try (Journal journal = new Journal(dataDirectory, FsyncPolicy.NONE)) {
+			journal.beginBatch();
+			journal.appendBatched(2, TransactionType.DEPOSIT, "1000002", null, 1000, LocalDateTime.now());
+			journal.force();
+		}
+
+		Bank reopened = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		assertEquals(7.0, reopened.findAccountByNumber("1000002").getBalance());
+		assertEquals(1, reopened.getTransactionCount());
+		reopened.close();
+	}
+}
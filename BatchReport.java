@@ -0,0 +1,80 @@
+package com.jibstech.bank_account_management_system;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a batch posted through {@link Bank#postBatch}: one TransactionResult per line,
+ * in the order of the batch, and the lines that were rejected.
+ * @see PostingMode
+ * @see Posting
+ */
+public class BatchReport {
+
+    private final boolean committed;
+    private final List<TransactionResult> results;
+    private final List<Integer> rejectedLines;
+
+    /**
+     * Constructs a report.
+     *
+     * @param committed true if the batch was applied, false if an all-or-nothing batch was rejected
+     * @param results the outcome of every line, in batch order
+     * @param rejectedLines zero-based indexes of the lines that could not be applied
+     */
+    public BatchReport(boolean committed, List<TransactionResult> results, List<Integer> rejectedLines) {
+        this.committed = committed;
+        this.results = Collections.unmodifiableList(results);
+        this.rejectedLines = Collections.unmodifiableList(rejectedLines);
+    }
+
+    /**
+     * Tells whether the batch was applied. A best-effort batch is always applied, even if
+     * some of its lines were rejected.
+     *
+     * @return false if an all-or-nothing batch was rejected as a whole
+     */
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    /**
+     * Gets the outcome of every line. When an all-or-nothing batch is rejected, every line
+     * reports a failure.
+     *
+     * @return the results, in batch order
+     */
+    public List<TransactionResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Gets the lines that could not be applied: unknown accounts, invalid amounts or
+     * insufficient funds, taking the earlier lines of the batch into account.
+     *
+     * @return zero-based line indexes, in ascending order
+     */
+    public List<Integer> getRejectedLines() {
+        return rejectedLines;
+    }
+
+    /**
+     * Gets the number of lines that were applied.
+     *
+     * @return the posted line count
+     */
+    public int getPostedCount() {
+        return committed ? results.size() - rejectedLines.size() : 0;
+    }
+
+    /**
+     * Provides a string representation of the report.
+     *
+     * @return the outcome with the posted and rejected line counts
+     */
+    @Override
+    public String toString() {
+        return (committed ? "Committed" : "Rejected") + ": " + getPostedCount() + " posted, "
+                + rejectedLines.size() + " rejected";
+    }
+}
@@ -0,0 +1,205 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in group-commit front end for a Bank.
+ * Deposits, withdrawals and transfers submitted by any number of callers are queued
+ * and applied by a single committer thread, which makes each batch durable with one
+ * journal flush once either the batch is full or the flush window has elapsed.
+ * Every caller receives a future that completes after its batch is on disk. If an
+ * operation cannot be journaled, or the flush of its batch fails, the futures concerned
+ * complete exceptionally, since their operations may not survive a restart.
+ * <p>
+ * The wrapped Bank keeps its synchronous per-call behaviour for callers that use it directly.
+ * @see Bank
+ * @see TransactionResult
+ */
+public class BatchingBank implements Closeable {
+
+    private static final long CLOSE_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Bank bank;
+    private final int maxBatchSize;
+    private final long flushWindowNanos;
+    private final BlockingQueue<PendingOperation> queue;
+    private final Thread committer;
+    private volatile boolean closed;
+
+    /**
+     * Starts a batching front end for the given bank.
+     *
+     * @param bank the bank that applies and journals the operations
+     * @param maxBatchSize number of operations after which a batch is committed
+     * @param flushWindowMicros maximum time in microseconds an operation waits for its batch to fill
+     */
+    public BatchingBank(Bank bank, int maxBatchSize, long flushWindowMicros) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.bank = bank;
+        this.maxBatchSize = maxBatchSize;
+        this.flushWindowNanos = TimeUnit.MICROSECONDS.toNanos(flushWindowMicros);
+        this.queue = new LinkedBlockingQueue<>();
+        this.committer = new Thread(this::run, "bank-group-commit");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Queues a deposit.
+     *
+     * @param accountNumber target account identifier
+     * @param amount amount to deposit; must be positive
+     * @return a future completed with the outcome once the deposit is durable
+     */
+    public CompletableFuture<TransactionResult> deposit(String accountNumber, double amount) {
+        return submit(new PendingOperation(TransactionType.DEPOSIT, accountNumber, null, amount));
+    }
+
+    /**
+     * Queues a withdrawal.
+     *
+     * @param accountNumber target account identifier
+     * @param amount amount to withdraw; must be positive and <= account balance
+     * @return a future completed with the outcome once the withdrawal is durable
+     */
+    public CompletableFuture<TransactionResult> withdraw(String accountNumber, double amount) {
+        return submit(new PendingOperation(TransactionType.WITHDRAWAL, accountNumber, null, amount));
+    }
+
+    /**
+     * Queues a transfer.
+     *
+     * @param senderAccount account number of the sender
+     * @param receiverAccount account number of the receiver
+     * @param amount amount to transfer; must be positive and <= sender's balance
+     * @return a future completed with the outcome once the transfer is durable
+     */
+    public CompletableFuture<TransactionResult> transfer(String senderAccount, String receiverAccount, double amount) {
+        return submit(new PendingOperation(TransactionType.TRANSFER, senderAccount, receiverAccount, amount));
+    }
+
+    /**
+     * Stops accepting operations, commits everything already queued and stops the committer thread.
+     * The wrapped Bank is left open.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PendingOperation late;
+        while ((late = queue.poll()) != null) {
+            late.future.completeExceptionally(new RejectedExecutionException("BatchingBank is closed"));
+        }
+    }
+
+    private CompletableFuture<TransactionResult> submit(PendingOperation operation) {
+        if (closed) {
+            operation.future.completeExceptionally(new RejectedExecutionException("BatchingBank is closed"));
+            return operation.future;
+        }
+        queue.add(operation);
+        // close() may have drained the queue and stopped the committer since the check above
+        if (closed && queue.remove(operation)) {
+            operation.future.completeExceptionally(new RejectedExecutionException("BatchingBank is closed"));
+        }
+        return operation.future;
+    }
+
+    private void run() {
+        List<PendingOperation> batch = new ArrayList<>(maxBatchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingOperation first = queue.poll(CLOSE_CHECK_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushWindowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    // waits in short slices, so close() does not have to sit out a long flush window
+                    PendingOperation next = remaining > 0 && !closed
+                            ? queue.poll(Math.min(remaining, CLOSE_CHECK_NANOS), TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next != null) {
+                        batch.add(next);
+                    } else if (remaining <= 0 || closed) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // the committer is never interrupted by close(), since an interrupt would close the journal's FileChannel
+                closed = true;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingOperation> batch) {
+        TransactionResult[] results = new TransactionResult[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                results[i] = apply(batch.get(i));
+            } catch (RuntimeException e) {
+                batch.get(i).future.completeExceptionally(e); // e.g. its journal record could not be written
+            }
+        }
+        try {
+            bank.syncJournal();
+        } catch (IOException e) {
+            for (PendingOperation operation : batch) {
+                operation.future.completeExceptionally(e);
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (results[i] != null) {
+                batch.get(i).future.complete(results[i]);
+            }
+        }
+    }
+
+    private TransactionResult apply(PendingOperation operation) {
+        return switch (operation.type) {
+            case DEPOSIT -> bank.deposit(operation.accountNumber, operation.amount, true);
+            case WITHDRAWAL -> bank.withdraw(operation.accountNumber, operation.amount, true);
+            case TRANSFER -> bank.transfer(operation.accountNumber, operation.targetAccountNumber, operation.amount, true);
+        };
+    }
+
+    /**
+     * An operation waiting to be applied in the next batch.
+     */
+    private static final class PendingOperation {
+
+        private final TransactionType type;
+        private final String accountNumber;
+        private final String targetAccountNumber;
+        private final double amount;
+        private final CompletableFuture<TransactionResult> future = new CompletableFuture<>();
+
+        PendingOperation(TransactionType type, String accountNumber, String targetAccountNumber, double amount) {
+            this.type = type;
+            this.accountNumber = accountNumber;
+            this.targetAccountNumber = targetAccountNumber;
+            this.amount = amount;
+        }
+    }
+}
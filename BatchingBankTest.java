@@ -0,0 +1,160 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchingBankTest {
+
+	private static final long ONE_MINUTE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+	@TempDir
+	Path dataDirectory;
+
+	@Test
+	void testConcurrentOperationsAreDurableWhenTheirFuturesComplete() throws Exception {
+		Bank bank = newBank(FsyncPolicy.NONE);
+		Path segment = dataDirectory.resolve("journal-00000000000000000000.dat");
+		long accountBytes = Files.size(segment);
+		BatchingBank batching = new BatchingBank(bank, 64, 2_000);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<List<CompletableFuture<TransactionResult>>>> submitted = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			submitted.add(executor.submit(() -> {
+				List<CompletableFuture<TransactionResult>> futures = new ArrayList<>();
+				for (int i = 0; i < 250; i++) {
+					futures.add(batching.transfer("1000001", "1000002", 1));
+				}
+				return futures;
+			}));
+		}
+		executor.shutdown();
+		for (Future<List<CompletableFuture<TransactionResult>>> producer : submitted) {
+			for (CompletableFuture<TransactionResult> future : producer.get()) {
+				assertTrue(future.get(1, TimeUnit.MINUTES).isSuccessful());
+			}
+		}
+
+		// no fsync policy applies, so the records reached the file through the batch flushes
+		assertEquals(accountBytes + 1000L * Journal.RECORD_SIZE, Files.size(segment));
+		assertEquals(0, bank.findAccountByNumber("1000001").getBalance(), 0.001);
+		assertEquals(1000, bank.findAccountByNumber("1000002").getBalance(), 0.001);
+		batching.close();
+		bank.close();
+
+		Bank reopened = newBank(FsyncPolicy.NONE);
+		assertEquals(1000, reopened.getTransactionCount());
+		assertEquals(1000, reopened.findAccountByNumber("1000002").getBalance(), 0.001);
+		reopened.close();
+	}
+
+	@Test
+	void testFullBatchCommitsBeforeTheFlushWindowAndCloseDrainsTheRest() throws Exception {
+		Bank bank = newBank(FsyncPolicy.NONE);
+		BatchingBank batching = new BatchingBank(bank, 4, ONE_MINUTE_MICROS);
+		List<CompletableFuture<TransactionResult>> full = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			full.add(batching.deposit("1000002", 10));
+		}
+		for (CompletableFuture<TransactionResult> future : full) {
+			assertTrue(future.get(30, TimeUnit.SECONDS).isSuccessful());
+		}
+
+		CompletableFuture<TransactionResult> waiting = batching.withdraw("1000002", 5);
+		CompletableFuture<TransactionResult> unknown = batching.deposit("9999999", 5);
+		Thread.sleep(200);
+		assertFalse(waiting.isDone()); // its batch is neither full nor past the window
+		batching.close();
+		assertTrue(waiting.getNow(null).isSuccessful());
+		assertEquals(FailureReason.UNKNOWN_ACCOUNT, unknown.getNow(null).getFailureReason());
+		assertEquals(35, bank.findAccountByNumber("1000002").getBalance(), 0.001);
+
+		ExecutionException rejected = assertThrows(ExecutionException.class,
+				() -> batching.deposit("1000002", 1).get());
+		assertInstanceOf(RejectedExecutionException.class, rejected.getCause());
+		bank.close();
+	}
+
+	@Test
+	void testJournalFailureFailsTheFuturesAndKeepsTheCommitterRunning() throws Exception {
+		Bank bank = newBank(FsyncPolicy.PER_OPERATION);
+		Thread.currentThread().interrupt(); // an interrupted write closes the journal's channel
+		try {
+			assertThrows(UncheckedIOException.class, () -> bank.depositToAccount("1000002", 10));
+		} finally {
+			Thread.interrupted();
+		}
+
+		BatchingBank batching = new BatchingBank(bank, 8, 1_000);
+		CompletableFuture<TransactionResult> first = batching.deposit("1000002", 10);
+		CompletableFuture<TransactionResult> second = batching.transfer("1000001", "1000002", 10);
+		ExecutionException failed = assertThrows(ExecutionException.class, () -> first.get(30, TimeUnit.SECONDS));
+		assertInstanceOf(UncheckedIOException.class, failed.getCause());
+		assertThrows(ExecutionException.class, () -> second.get(30, TimeUnit.SECONDS));
+
+		CompletableFuture<TransactionResult> later = batching.withdraw("1000001", 10);
+		failed = assertThrows(ExecutionException.class, () -> later.get(30, TimeUnit.SECONDS));
+		assertInstanceOf(IOException.class, failed.getCause().getCause());
+		batching.close();
+		assertEquals(1000, bank.findAccountByNumber("1000001").getBalance(), 0.001);
+		assertEquals(0, bank.findAccountByNumber("1000002").getBalance(), 0.001);
+		bank.close();
+	}
+
+	/**
+	 * Account 1000001 with 1000.00 and 1000002 with nothing, created only if the data
+	 * directory does not hold them yet.
+	 */
+	@Test
+	void testOperationsRacingCloseAlwaysComplete() throws Exception {
+		Bank bank = newBank(FsyncPolicy.NONE);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		for (int round = 0; round < 50; round++) {
+			BatchingBank batching = new BatchingBank(bank, 16, 100);
+			List<Future<List<CompletableFuture<TransactionResult>>>> submitted = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				submitted.add(executor.submit(() -> {
+					List<CompletableFuture<TransactionResult>> futures = new ArrayList<>();
+					for (int i = 0; i < 200; i++) {
+						futures.add(batching.deposit("1000002", 1));
+					}
+					return futures;
+				}));
+			}
+			batching.close();
+			for (Future<List<CompletableFuture<TransactionResult>>> producer : submitted) {
+				for (CompletableFuture<TransactionResult> future : producer.get()) {
+					try {
+						assertTrue(future.get(1, TimeUnit.MINUTES).isSuccessful());
+					} catch (ExecutionException e) {
+						assertInstanceOf(RejectedExecutionException.class, e.getCause());
+					}
+				}
+			}
+		}
+		executor.shutdown();
+		bank.close();
+	}
+
+	private Bank newBank(FsyncPolicy fsyncPolicy) {
+		Bank bank = new Bank(new HashAccountStore(), dataDirectory, fsyncPolicy, BankLogger.quiet());
+		bank.createAccount("1000001", "Alice", "Checking", 1000);
+		bank.createAccount("1000002", "Bob", "Checking", 0);
+		return bank;
+	}
+}
@@ -0,0 +1,60 @@
+package com.jibstech.bank_account_management_system;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmark suite once per thread count with the GC profiler attached, so every
+ * result carries the allocation rate ({@code gc.alloc.rate.norm}, bytes per operation)
+ * next to throughput and latency percentiles. Results are written as JSON, one file per
+ * thread count, for comparison against the previous run.
+ * <p>
+ * Usage: {@code java -jar target/benchmarks.jar [threads,...] [JMH options]}, e.g.
+ * {@code 1,4,8 AccountStore -p accountCount=1000}. The thread counts default to 1, 4 and 8;
+ * the remaining arguments are passed to JMH, and without a benchmark filter the
+ * {@link BankHotPathBenchmark} suite is run.
+ * @see BankHotPathBenchmark
+ */
+public final class BenchmarkRunner {
+
+    private static final int[] DEFAULT_THREADS = {1, 4, 8};
+
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Runs the suite.
+     *
+     * @param args optional comma-separated thread counts, followed by JMH command line options
+     * @throws RunnerException if a benchmark fails
+     * @throws CommandLineOptionException if the JMH options cannot be parsed
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        int[] threadCounts = DEFAULT_THREADS;
+        if (args.length > 0 && args[0].matches("\\d+(,\\d+)*")) {
+            threadCounts = Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray();
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        for (int threads : threadCounts) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("jmh-result-" + threads + "t.json")
+                    .parent(commandLine);
+            if (commandLine.getIncludes().isEmpty()) {
+                options.include(BankHotPathBenchmark.class.getSimpleName());
+            }
+            new Runner(options.build()).run();
+        }
+    }
+}
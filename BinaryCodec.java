@@ -0,0 +1,497 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, versioned binary encoding of Account and Transaction, read and written
+ * directly from and to {@link ByteBuffer}s. It replaces Java serialization: there are no
+ * class descriptors or object graphs, and decoding only ever creates Accounts and
+ * Transactions, so untrusted input cannot instantiate arbitrary classes.
+ * <p>
+ * Amounts and balances are zigzag varints of minor units (see {@link Money}). Account
+ * types are dictionary-encoded, so the type name is written once and then referenced by
+ * a small number. Timestamps are UTC epoch nanoseconds, stored as the difference to the
+ * previous transaction. {@code TXN<n>} IDs are stored as the number alone. Strings are
+ * varint-length-prefixed UTF-8.
+ * <p>
+ * The dictionary and the last timestamp make a codec stateful. One codec encodes one
+ * stream, and a stream must be decoded in order by a fresh codec. {@link Writer} and
+ * {@link Reader} put a codec stream into a file, after a header with a magic number, a
+ * format version and a caller-defined tag. Each record is length-prefixed, so a reader
+ * can skip fields appended by later versions.
+ * @see Snapshot
+ * @see LegacyMigration
+ */
+public final class BinaryCodec {
+
+    /** Version of the record encoding */
+    public static final int VERSION = 1;
+
+    private static final byte KIND_ACCOUNT = 0;
+    private static final byte KIND_LOCK_FREE = 1;
+    private static final int FLAG_TARGET = 1;
+    private static final int FLAG_NUMERIC_ID = 2;
+    private static final String ID_PREFIX = "TXN";
+    private static final int MAX_VARINT_SIZE = 10;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final Map<String, Integer> typeIds = new HashMap<>();
+    private final List<String> typeNames = new ArrayList<>();
+    private long lastEpochNanos;
+
+    /**
+     * Encodes an account. The buffer must have at least {@link #maxSize(Account)} bytes remaining.
+     *
+     * @param buffer buffer to write to
+     * @param account the account
+     */
+    public void writeAccount(ByteBuffer buffer, Account account) {
+        boolean lockFree = account instanceof LockFreeAccount;
+        buffer.put(lockFree ? KIND_LOCK_FREE : KIND_ACCOUNT);
+        putString(buffer, account.getAccountNumber());
+        putString(buffer, account.getOwnerName());
+        putAccountType(buffer, account.getAcountType());
+        putVarLong(buffer, lockFree ? ((LockFreeAccount) account).getBalanceMinor() : Money.toMinorUnits(account.getBalance()));
+    }
+
+    /**
+     * Decodes an account written by {@link #writeAccount(ByteBuffer, Account)}.
+     *
+     * @param buffer buffer positioned at the account
+     * @return the account
+     * @throws IllegalArgumentException if the bytes are not a valid account
+     * @throws BufferUnderflowException if the account is truncated
+     */
+    public Account readAccount(ByteBuffer buffer) {
+        byte kind = buffer.get();
+        String accountNumber = getString(buffer);
+        String ownerName = getString(buffer);
+        String accountType = getAccountType(buffer);
+        long balanceMinor = getVarLong(buffer);
+        return switch (kind) {
+            case KIND_ACCOUNT -> new Account(accountNumber, ownerName, accountType, Money.toDouble(balanceMinor));
+            case KIND_LOCK_FREE -> new LockFreeAccount(accountNumber, ownerName, accountType, Money.fromMinorUnits(balanceMinor));
+            default -> throw new IllegalArgumentException("Unknown account kind " + kind);
+        };
+    }
+
+    /**
+     * Encodes a transaction. The buffer must have at least {@link #maxSize(Transaction)} bytes remaining.
+     *
+     * @param buffer buffer to write to
+     * @param txn the transaction
+     */
+    public void writeTransaction(ByteBuffer buffer, Transaction txn) {
+        long numericId = numericId(txn.getTransactionId());
+        int flags = (txn.getTargetAccountNumber() != null ? FLAG_TARGET : 0) | (numericId >= 0 ? FLAG_NUMERIC_ID : 0);
+        buffer.put((byte) flags);
+        buffer.put((byte) txn.getType().ordinal());
+        if (numericId >= 0) {
+            putVarLong(buffer, numericId);
+        } else {
+            putString(buffer, txn.getTransactionId());
+        }
+        putString(buffer, txn.getAccountNumber());
+        if (txn.getTargetAccountNumber() != null) {
+            putString(buffer, txn.getTargetAccountNumber());
+        }
+        putVarLong(buffer, Money.toMinorUnits(txn.getAmount()));
+        long epochNanos = Journal.toEpochNanos(txn.getTimestamp());
+        putVarLong(buffer, epochNanos - lastEpochNanos);
+        lastEpochNanos = epochNanos;
+    }
+
+    /**
+     * Decodes a transaction written by {@link #writeTransaction(ByteBuffer, Transaction)}.
+     *
+     * @param buffer buffer positioned at the transaction
+     * @return the transaction
+     * @throws IllegalArgumentException if the bytes are not a valid transaction
+     * @throws BufferUnderflowException if the transaction is truncated
+     */
+    public Transaction readTransaction(ByteBuffer buffer) {
+        int flags = buffer.get();
+        int type = buffer.get();
+        if (type < 0 || type >= TYPES.length) {
+            throw new IllegalArgumentException("Unknown transaction type " + type);
+        }
+        String transactionId = (flags & FLAG_NUMERIC_ID) != 0 ? ID_PREFIX + getVarLong(buffer) : getString(buffer);
+        String accountNumber = getString(buffer);
+        String targetAccountNumber = (flags & FLAG_TARGET) != 0 ? getString(buffer) : null;
+        double amount = Money.toDouble(getVarLong(buffer));
+        lastEpochNanos += getVarLong(buffer);
+        return new Transaction(transactionId, accountNumber, targetAccountNumber, amount, TYPES[type],
+                Journal.fromEpochNanos(lastEpochNanos));
+    }
+
+    /**
+     * Gets an upper bound of the encoded size of an account.
+     *
+     * @param account the account
+     * @return the maximum number of bytes {@link #writeAccount(ByteBuffer, Account)} writes
+     */
+    public static int maxSize(Account account) {
+        return 1 + maxSize(account.getAccountNumber()) + maxSize(account.getOwnerName())
+                + MAX_VARINT_SIZE + maxSize(account.getAcountType()) + MAX_VARINT_SIZE;
+    }
+
+    /**
+     * Gets an upper bound of the encoded size of a transaction.
+     *
+     * @param txn the transaction
+     * @return the maximum number of bytes {@link #writeTransaction(ByteBuffer, Transaction)} writes
+     */
+    public static int maxSize(Transaction txn) {
+        return 2 + maxSize(txn.getTransactionId()) + maxSize(txn.getAccountNumber())
+                + (txn.getTargetAccountNumber() == null ? 0 : maxSize(txn.getTargetAccountNumber())) + 2 * MAX_VARINT_SIZE;
+    }
+
+    private void putAccountType(ByteBuffer buffer, String accountType) {
+        Integer id = typeIds.get(accountType);
+        if (id != null) {
+            putVarLong(buffer, id);
+            return;
+        }
+        putVarLong(buffer, typeIds.size()); // the next free ID introduces a new entry
+        putString(buffer, accountType);
+        typeIds.put(accountType, typeIds.size());
+    }
+
+    private String getAccountType(ByteBuffer buffer) {
+        long id = getVarLong(buffer);
+        if (id >= 0 && id < typeNames.size()) {
+            return typeNames.get((int) id);
+        }
+        if (id != typeNames.size()) {
+            throw new IllegalArgumentException("Unknown account type " + id);
+        }
+        String accountType = getString(buffer);
+        typeNames.add(accountType);
+        return accountType;
+    }
+
+    private static long numericId(String transactionId) {
+        if (transactionId == null || !transactionId.startsWith(ID_PREFIX)
+                || transactionId.length() == ID_PREFIX.length() || transactionId.length() > ID_PREFIX.length() + 18
+                || transactionId.charAt(ID_PREFIX.length()) == '0') {
+            return -1;
+        }
+        long id = 0;
+        for (int i = ID_PREFIX.length(); i < transactionId.length(); i++) {
+            char c = transactionId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    private static int maxSize(String value) {
+        return MAX_VARINT_SIZE + 3 * value.length();
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarLong(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        long length = getVarLong(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        if (!buffer.hasArray()) {
+            byte[] bytes = new byte[(int) length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), (int) length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + (int) length);
+        return value;
+    }
+
+    /**
+     * Writes a zigzag varint: seven bits per byte, small magnitudes of either sign in few bytes.
+     */
+    static void putVarLong(ByteBuffer buffer, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        buffer.put((byte) zigzag);
+    }
+
+    /**
+     * Gets the capacity of a buffer grown to hold the given number of bytes: the next power
+     * of two, or exactly that many bytes once the next power of two would overflow an int.
+     */
+    private static int grownCapacity(int wanted) {
+        return wanted > 1 << 30 ? wanted : Integer.highestOneBit(wanted) << 1;
+    }
+
+    static long getVarLong(ByteBuffer buffer) {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Writes a codec stream to a file: the header, then length-prefixed records through a
+     * 64 KB buffer. Closing flushes and forces the file.
+     */
+    public static final class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private final BinaryCodec codec = new BinaryCodec();
+        private ByteBuffer record = ByteBuffer.allocate(1 << 10);
+
+        /**
+         * Creates or truncates the file and writes its header.
+         *
+         * @param file the file
+         * @param magic identifies the kind of file
+         * @param version version of the file format
+         * @param tag caller-defined header value, e.g. a sequence number
+         * @throws IOException if the file cannot be created
+         */
+        public Writer(Path file, int magic, int version, long tag) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            buffer.putInt(magic).putInt(version).putInt(VERSION).putLong(tag);
+        }
+
+        /**
+         * Appends an account record.
+         *
+         * @param account the account
+         * @throws IOException if the file cannot be written
+         */
+        public void write(Account account) throws IOException {
+            codec.writeAccount(recordBuffer(maxSize(account)), account);
+            flushRecord();
+        }
+
+        /**
+         * Appends a transaction record.
+         *
+         * @param txn the transaction
+         * @throws IOException if the file cannot be written
+         */
+        public void write(Transaction txn) throws IOException {
+            codec.writeTransaction(recordBuffer(maxSize(txn)), txn);
+            flushRecord();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (channel) {
+                drain();
+                channel.force(true);
+            }
+        }
+
+        private ByteBuffer recordBuffer(int maxSize) {
+            if (record.capacity() < maxSize) {
+                record = ByteBuffer.allocate(grownCapacity(maxSize));
+            }
+            return record.clear();
+        }
+
+        private void flushRecord() throws IOException {
+            record.flip();
+            if (buffer.remaining() < MAX_VARINT_SIZE + record.remaining()) {
+                drain();
+            }
+            if (buffer.remaining() < MAX_VARINT_SIZE + record.remaining()) {
+                ByteBuffer large = ByteBuffer.allocate(MAX_VARINT_SIZE + record.remaining());
+                putVarLong(large, record.remaining());
+                large.put(record).flip();
+                while (large.hasRemaining()) {
+                    channel.write(large);
+                }
+                return;
+            }
+            putVarLong(buffer, record.remaining());
+            buffer.put(record);
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads a codec stream written by {@link Writer}, one record at a time.
+     */
+    public static final class Reader implements Closeable {
+
+        private static final int HEADER_SIZE = 20;
+
+        private final FileChannel channel;
+        private final BinaryCodec codec = new BinaryCodec();
+        private final int version;
+        private final long tag;
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private boolean eof;
+
+        /**
+         * Opens the file and checks its header.
+         *
+         * @param file the file
+         * @param magic expected kind of file
+         * @throws IOException if the file cannot be read, is of another kind, or uses a newer record encoding
+         */
+        public Reader(Path file, int magic) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                buffer.flip();
+                if (!fill(HEADER_SIZE) || buffer.getInt() != magic) {
+                    throw new IOException("Not a " + Integer.toHexString(magic) + " file: " + file);
+                }
+                version = buffer.getInt();
+                int codecVersion = buffer.getInt();
+                if (codecVersion > VERSION) {
+                    throw new IOException("Unsupported codec version " + codecVersion + ": " + file);
+                }
+                tag = buffer.getLong();
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Gets the file format version from the header.
+         *
+         * @return the version
+         */
+        public int getVersion() {
+            return version;
+        }
+
+        /**
+         * Gets the caller-defined header value.
+         *
+         * @return the tag
+         */
+        public long getTag() {
+            return tag;
+        }
+
+        /**
+         * Tells whether another record follows.
+         *
+         * @return true unless the end of the file was reached
+         * @throws IOException if the file cannot be read
+         */
+        public boolean hasNext() throws IOException {
+            return fill(1);
+        }
+
+        /**
+         * Reads the next record as an account.
+         *
+         * @return the account
+         * @throws IOException if the file cannot be read or the record is truncated or corrupt
+         */
+        public Account readAccount() throws IOException {
+            ByteBuffer next = nextRecord();
+            try {
+                return codec.readAccount(next);
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("Corrupt account record", e);
+            }
+        }
+
+        /**
+         * Reads the next record as a transaction.
+         *
+         * @return the transaction
+         * @throws IOException if the file cannot be read or the record is truncated or corrupt
+         */
+        public Transaction readTransaction() throws IOException {
+            ByteBuffer next = nextRecord();
+            try {
+                return codec.readTransaction(next);
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("Corrupt transaction record", e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private ByteBuffer nextRecord() throws IOException {
+            fill(MAX_VARINT_SIZE);
+            long length;
+            try {
+                length = getVarLong(buffer);
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new EOFException("Truncated record length");
+            }
+            if (length < 0 || length > Integer.MAX_VALUE - MAX_VARINT_SIZE) {
+                throw new IOException("Corrupt record length " + length);
+            }
+            long left = buffer.remaining() + channel.size() - channel.position();
+            if (length > left) {
+                // checked before the buffer grows, so a corrupt length cannot allocate gigabytes
+                throw new IOException("Corrupt record length " + length + ", only " + left + " bytes left in the file");
+            }
+            if (!fill((int) length)) {
+                throw new EOFException("Truncated record");
+            }
+            ByteBuffer next = buffer.slice(buffer.position(), (int) length);
+            buffer.position(buffer.position() + (int) length);
+            return next;
+        }
+
+        /**
+         * Makes at least the given number of bytes available, growing the buffer for large records.
+         *
+         * @return false if the file ends first
+         */
+        private boolean fill(int wanted) throws IOException {
+            if (buffer.remaining() >= wanted) {
+                return true;
+            }
+            if (buffer.capacity() < wanted) {
+                buffer = ByteBuffer.allocate(grownCapacity(wanted)).put(buffer);
+            } else {
+                buffer.compact();
+            }
+            while (!eof && buffer.position() < wanted) {
+                eof = channel.read(buffer) < 0;
+            }
+            buffer.flip();
+            return buffer.remaining() >= wanted;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares encoding and decoding time of BinaryCodec against Java serialization, for
+ * a list of accounts and a list of transactions. The encoded size of each list in both
+ * formats is printed during setup. Run with {@code -prof gc} to compare allocation.
+ * @see BinaryCodec
+ * @see LegacyMigration
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinaryCodecBenchmark {
+
+    @Param({"100000"})
+    private int count;
+
+    private List<Account> accounts;
+    private List<Transaction> transactions;
+    private ByteBuffer buffer;
+    private byte[] serializedAccounts;
+    private byte[] serializedTransactions;
+    private ByteBuffer encodedAccounts;
+    private ByteBuffer encodedTransactions;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] types = {"Savings", "Checking", "Current"};
+        accounts = new ArrayList<>(count);
+        transactions = new ArrayList<>(count);
+        LocalDateTime start = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            String accountNumber = String.valueOf(1_000_000_000L + i);
+            accounts.add(new Account(accountNumber, "Owner " + i, types[i % types.length], 1234.56));
+            transactions.add(new Transaction("TXN" + (i + 1), accountNumber,
+                    i % 3 == 0 ? String.valueOf(1_000_000_000L + (i + 1) % count) : null, 25.5,
+                    i % 3 == 0 ? TransactionType.TRANSFER : TransactionType.DEPOSIT, start.plusNanos(i * 1_000_000L)));
+        }
+        buffer = ByteBuffer.allocate(count * 128);
+        serializedAccounts = serialize(accounts);
+        serializedTransactions = serialize(transactions);
+        encodedAccounts = copy(encodeAccounts());
+        encodedTransactions = copy(encodeTransactions());
+        System.out.printf("%n%d accounts: serialized %d B, codec %d B%n%d transactions: serialized %d B, codec %d B%n",
+                count, serializedAccounts.length, encodedAccounts.remaining(),
+                count, serializedTransactions.length, encodedTransactions.remaining());
+    }
+
+    @Benchmark
+    public ByteBuffer encodeAccounts() {
+        BinaryCodec codec = new BinaryCodec();
+        buffer.clear();
+        for (Account account : accounts) {
+            codec.writeAccount(buffer, account);
+        }
+        return buffer.flip();
+    }
+
+    @Benchmark
+    public ByteBuffer encodeTransactions() {
+        BinaryCodec codec = new BinaryCodec();
+        buffer.clear();
+        for (Transaction txn : transactions) {
+            codec.writeTransaction(buffer, txn);
+        }
+        return buffer.flip();
+    }
+
+    @Benchmark
+    public List<Account> decodeAccounts() {
+        BinaryCodec codec = new BinaryCodec();
+        ByteBuffer in = encodedAccounts.duplicate();
+        List<Account> decoded = new ArrayList<>(count);
+        while (in.hasRemaining()) {
+            decoded.add(codec.readAccount(in));
+        }
+        return decoded;
+    }
+
+    @Benchmark
+    public List<Transaction> decodeTransactions() {
+        BinaryCodec codec = new BinaryCodec();
+        ByteBuffer in = encodedTransactions.duplicate();
+        List<Transaction> decoded = new ArrayList<>(count);
+        while (in.hasRemaining()) {
+            decoded.add(codec.readTransaction(in));
+        }
+        return decoded;
+    }
+
+    @Benchmark
+    public byte[] serializeAccounts() throws IOException {
+        return serialize(accounts);
+    }
+
+    @Benchmark
+    public byte[] serializeTransactions() throws IOException {
+        return serialize(transactions);
+    }
+
+    @Benchmark
+    public Object deserializeAccounts() throws IOException, ClassNotFoundException {
+        return deserialize(serializedAccounts);
+    }
+
+    @Benchmark
+    public Object deserializeTransactions() throws IOException, ClassNotFoundException {
+        return deserialize(serializedTransactions);
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    private static ByteBuffer copy(ByteBuffer source) {
+        return ByteBuffer.allocate(source.remaining()).put(source).flip();
+    }
+}
@@ -0,0 +1,152 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BinaryCodecTest {
+
+	@TempDir
+	Path dataDirectory;
+
+	@Test
+	void testAccountsRoundTripWithDictionaryTypes() {
+		BinaryCodec writer = new BinaryCodec();
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		writer.writeAccount(buffer, new Account("1000001", "Alice", "Savings", 100.25));
+		int first = buffer.position();
+		writer.writeAccount(buffer, new Account("1000002", "Bob", "Savings", -3));
+		int second = buffer.position() - first;
+		writer.writeAccount(buffer, new LockFreeAccount("1000003", "Carol", "Checking", new BigDecimal("7.50")));
+		buffer.flip();
+
+		BinaryCodec reader = new BinaryCodec();
+		Account alice = reader.readAccount(buffer);
+		Account bob = reader.readAccount(buffer);
+		Account carol = reader.readAccount(buffer);
+
+		assertEquals("Alice", alice.getOwnerName());
+		assertEquals(100.25, alice.getBalance());
+		assertEquals("Savings", bob.getAcountType());
+		assertEquals(-3.0, bob.getBalance());
+		assertInstanceOf(LockFreeAccount.class, carol);
+		assertEquals(750, ((LockFreeAccount) carol).getBalanceMinor());
+		assertTrue(second < first - "Alice".length(), "second Savings account should reference the dictionary");
+	}
+
+	@Test
+	void testTransactionsRoundTrip() {
+		LocalDateTime now = LocalDateTime.now();
+		List<Transaction> transactions = List.of(
+				new Transaction("TXN1", "1000001", null, 10.5, TransactionType.DEPOSIT, now),
+				new Transaction("TXN2", "1000001", "1000002", 2, TransactionType.TRANSFER, now.minusSeconds(5)),
+				new Transaction("manual-7", "1000002", null, 1, TransactionType.WITHDRAWAL, now.plusNanos(1)));
+		BinaryCodec writer = new BinaryCodec();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+		for (Transaction txn : transactions) {
+			writer.writeTransaction(buffer, txn);
+		}
+		buffer.flip();
+
+		BinaryCodec reader = new BinaryCodec();
+		for (Transaction expected : transactions) {
+			Transaction actual = reader.readTransaction(buffer);
+			assertEquals(expected.getTransactionId(), actual.getTransactionId());
+			assertEquals(expected.getAccountNumber(), actual.getAccountNumber());
+			assertEquals(expected.getTargetAccountNumber(), actual.getTargetAccountNumber());
+			assertEquals(expected.getAmount(), actual.getAmount());
+			assertEquals(expected.getType(), actual.getType());
+			assertEquals(expected.getTimestamp(), actual.getTimestamp());
+		}
+		assertFalse(buffer.hasRemaining());
+	}
+
+	@Test
+	void testReaderRejectsRecordLengthsBeyondTheFile() throws IOException {
+		Path file = dataDirectory.resolve("records.dat");
+		try (BinaryCodec.Writer writer = new BinaryCodec.Writer(file, 0x54455354, 1, 0)) {
+			writer.write(new Account("1000001", "Alice", "Savings", 10));
+		}
+		ByteBuffer corrupt = ByteBuffer.allocate(16);
+		BinaryCodec.putVarLong(corrupt, 1_500_000_000L); // would need a buffer past 2^31 bytes
+		corrupt.put(new byte[] {1, 2, 3});
+		Files.write(file, Arrays.copyOf(corrupt.array(), corrupt.position()), StandardOpenOption.APPEND);
+
+		try (BinaryCodec.Reader reader = new BinaryCodec.Reader(file, 0x54455354)) {
+			assertEquals("Alice", reader.readAccount().getOwnerName());
+			assertTrue(reader.hasNext());
+			IOException e = assertThrows(IOException.class, reader::readAccount);
+			assertTrue(e.getMessage().contains("1500000000"));
+		}
+	}
+
+	@Test
+	void testReadsVersion1Snapshot() throws IOException {
+		Path file = dataDirectory.resolve("snapshot.dat");
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+			out.writeInt(0x534E4150);
+			out.writeInt(1);
+			out.writeLong(42);
+			out.writeInt(1);
+			out.writeByte(0);
+			out.writeUTF("1000001");
+			out.writeUTF("Alice");
+			out.writeUTF("Savings");
+			out.writeDouble(12.5);
+		}
+
+		Snapshot snapshot = Snapshot.read(file);
+
+		assertEquals(42, snapshot.getSequence());
+		assertEquals(12.5, snapshot.getAccounts().get(0).getBalance());
+	}
+
+	@Test
+	void testMigratesLegacyFilesIntoBank() throws IOException {
+		List<Account> accounts = new ArrayList<>(List.of(new Account("1000001", "Alice", "Savings", 90)));
+		List<Transaction> transactions = new ArrayList<>(List.of(
+				new Transaction("TXN1", "1000001", 100, TransactionType.DEPOSIT, LocalDateTime.of(2026, 10, 17, 9, 30)),
+				new Transaction("TXN2", "1000001", 10, TransactionType.WITHDRAWAL, LocalDateTime.of(2026, 10, 17, 9, 31))));
+		try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(dataDirectory.resolve("accounts.dat")))) {
+			out.writeObject(accounts);
+			out.writeLong(2);
+		}
+		try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(dataDirectory.resolve("transactions.dat")))) {
+			out.writeObject(transactions);
+		}
+
+		assertArrayEquals(new int[] {1, 2}, LegacyMigration.migrate(dataDirectory));
+		assertFalse(Files.exists(dataDirectory.resolve("accounts.dat")));
+		Bank bank = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+
+		assertEquals(90.0, bank.findAccountByNumber("1000001").getBalance());
+		assertEquals(2, bank.getTransactionCount());
+		bank.close();
+		assertFalse(Files.exists(dataDirectory.resolve("transactions.bin")));
+	}
+
+	@Test
+	void testLegacyReaderRejectsOtherClasses() throws IOException {
+		Path file = dataDirectory.resolve("transactions.dat");
+		try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(file))) {
+			out.writeObject(new HashMap<>());
+		}
+
+		assertThrows(IOException.class, () -> LegacyMigration.readTransactions(file));
+	}
+}
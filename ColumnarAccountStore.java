@@ -0,0 +1,411 @@
+package com.jibstech.bank_account_management_system;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * AccountStore for tens of millions of accounts that keeps no per-account heap objects.
+ * Each account occupies one fixed-width slot in off-heap chunks holding its encoded
+ * account number, its balance in minor units, an interned account type code and the
+ * location of its owner name in an off-heap name arena. Account numbers are mapped to
+ * slots by a primitive open-addressing {@link LongIntHashMap}.
+ * <p>
+ * Lookups return a lightweight view bound to the slot; deposits and withdrawals through
+ * the view update the off-heap balance with compare-and-set. A standalone Account is
+ * only created when a caller asks for one through {@link Account#getDetails()}.
+ * Account numbers must be numeric with at most {@value #MAX_DIGITS} digits, and owner
+ * names at most {@value #MAX_OWNER_NAME_BYTES} bytes long in UTF-8, taking at most
+ * {@value #MAX_NAME_ARENA_BYTES} bytes together.
+ * <p>
+ * Slot layout ({@value #SLOT_SIZE} bytes, native byte order):
+ * <pre>
+ *  0  long   account number key (numeric value shifted left 5, OR digit count)
+ *  8  long   balance in minor units
+ * 16  short  account type code
+ * 18  short  owner name length in bytes (unsigned)
+ * 20  int    owner name offset in the name arena
+ * </pre>
+ * @see AccountStore
+ * @see Money
+ */
+public class ColumnarAccountStore implements AccountStore {
+
+    /** Maximum number of digits in an account number held by this store */
+    public static final int MAX_DIGITS = 16;
+    /** Maximum length in UTF-8 bytes of an owner name held by this store */
+    public static final int MAX_OWNER_NAME_BYTES = 0xFFFF;
+    /** Maximum size in bytes of the name arena, the largest buffer a JVM reliably allocates */
+    public static final int MAX_NAME_ARENA_BYTES = Integer.MAX_VALUE - 8;
+
+    private static final int SLOT_SIZE = 24;
+    private static final int KEY_OFFSET = 0;
+    private static final int BALANCE_OFFSET = 8;
+    private static final int TYPE_OFFSET = 16;
+    private static final int OWNER_LENGTH_OFFSET = 18;
+    private static final int OWNER_OFFSET = 20;
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SLOTS - 1;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final StampedLock indexLock = new StampedLock();
+    private final LongIntHashMap index;
+    private final List<String> typeNames = new CopyOnWriteArrayList<>();
+    private final Map<String, Short> typeCodes = new HashMap<>();
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private volatile ByteBuffer names;
+    private volatile int size;
+
+    /**
+     * Constructs an empty store.
+     *
+     * @param expectedAccounts number of accounts to size the index for
+     */
+    public ColumnarAccountStore(int expectedAccounts) {
+        index = new LongIntHashMap(expectedAccounts);
+        names = ByteBuffer.allocateDirect((int) Math.min(Math.max(1024L, expectedAccounts * 16L), MAX_NAME_ARENA_BYTES));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the account number is not numeric or has more than {@value #MAX_DIGITS} digits,
+     *         or the owner name is longer than {@value #MAX_OWNER_NAME_BYTES} bytes
+     * @throws IllegalStateException if the name arena has no room left for the owner name
+     */
+    @Override
+    public synchronized boolean add(Account account) {
+        long key = encodeKey(account.getAccountNumber());
+        if (key < 0) {
+            throw new IllegalArgumentException("Account number must be numeric with at most " + MAX_DIGITS
+                    + " digits: " + account.getAccountNumber());
+        }
+        byte[] owner = account.getOwnerName().getBytes(StandardCharsets.UTF_8);
+        if (owner.length > MAX_OWNER_NAME_BYTES) {
+            throw new IllegalArgumentException("Owner name must be at most " + MAX_OWNER_NAME_BYTES
+                    + " bytes long: " + account.getAccountNumber());
+        }
+        if (index.get(key) != LongIntHashMap.MISSING) {
+            return false;
+        }
+        int slot = size;
+        ByteBuffer chunk = chunkForNewSlot(slot);
+        int base = base(slot);
+        chunk.putLong(base + KEY_OFFSET, key);
+        chunk.putLong(base + BALANCE_OFFSET, Money.toMinorUnits(account.getBalance()));
+        chunk.putShort(base + TYPE_OFFSET, typeCode(account.getAcountType()));
+        chunk.putShort(base + OWNER_LENGTH_OFFSET, (short) owner.length);
+        chunk.putInt(base + OWNER_OFFSET, appendName(owner));
+        long stamp = indexLock.writeLock();
+        try {
+            index.putIfAbsent(key, slot);
+        } finally {
+            indexLock.unlockWrite(stamp);
+        }
+        size = slot + 1;
+        return true;
+    }
+
+    @Override
+    public Account findByNumber(String accountNumber) {
+        int slot = slotOf(accountNumber);
+        return slot == LongIntHashMap.MISSING ? null : new SlotView(this, slot);
+    }
+
+    @Override
+    public boolean contains(String accountNumber) {
+        return slotOf(accountNumber) != LongIntHashMap.MISSING;
+    }
+
+    @Override
+    public List<Account> findByOwner(String ownerName) {
+        byte[] owner = ownerName.getBytes(StandardCharsets.UTF_8);
+        List<Account> matches = new ArrayList<>();
+        ByteBuffer arena = names;
+        byte[] candidate = new byte[owner.length];
+        int count = size;
+        for (int slot = 0; slot < count; slot++) {
+            ByteBuffer chunk = chunk(slot);
+            if (ownerLength(chunk, slot) == owner.length) {
+                arena.get(chunk.getInt(base(slot) + OWNER_OFFSET), candidate);
+                if (Arrays.equals(owner, candidate)) {
+                    matches.add(new SlotView(this, slot));
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public List<Account> findByType(String accountType) {
+        List<Account> matches = new ArrayList<>();
+        int code = typeNames.indexOf(accountType);
+        if (code < 0) {
+            return matches;
+        }
+        int count = size;
+        for (int slot = 0; slot < count; slot++) {
+            if (chunk(slot).getShort(base(slot) + TYPE_OFFSET) == code) {
+                matches.add(new SlotView(this, slot));
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public Collection<Account> all() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Account> iterator() {
+                int count = size;
+                return new Iterator<>() {
+                    private int slot;
+
+                    @Override
+                    public boolean hasNext() {
+                        return slot < count;
+                    }
+
+                    @Override
+                    public Account next() {
+                        if (slot >= count) {
+                            throw new NoSuchElementException();
+                        }
+                        return new SlotView(ColumnarAccountStore.this, slot++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void clear() {
+        long stamp = indexLock.writeLock();
+        try {
+            index.clear();
+        } finally {
+            indexLock.unlockWrite(stamp);
+        }
+        size = 0;
+        names.clear();
+    }
+
+    /**
+     * Gets the off-heap memory held by the slot chunks and the name arena.
+     *
+     * @return the number of bytes allocated off-heap
+     */
+    public long offHeapBytes() {
+        return (long) chunks.length * CHUNK_SLOTS * SLOT_SIZE + names.capacity();
+    }
+
+    private int slotOf(String accountNumber) {
+        long key = accountNumber == null ? -1 : encodeKey(accountNumber);
+        if (key < 0) {
+            return LongIntHashMap.MISSING;
+        }
+        long stamp = indexLock.tryOptimisticRead();
+        int slot = index.get(key);
+        if (!indexLock.validate(stamp)) {
+            stamp = indexLock.readLock();
+            try {
+                slot = index.get(key);
+            } finally {
+                indexLock.unlockRead(stamp);
+            }
+        }
+        return slot;
+    }
+
+    private ByteBuffer chunkForNewSlot(int slot) {
+        int chunkIndex = slot >>> CHUNK_SHIFT;
+        ByteBuffer[] current = chunks;
+        if (chunkIndex == current.length) {
+            ByteBuffer[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[chunkIndex] = ByteBuffer.allocateDirect(CHUNK_SLOTS * SLOT_SIZE).order(ByteOrder.nativeOrder());
+            chunks = grown;
+            return grown[chunkIndex];
+        }
+        return current[chunkIndex];
+    }
+
+    private short typeCode(String accountType) {
+        Short code = typeCodes.get(accountType);
+        if (code == null) {
+            if (typeNames.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct account types");
+            }
+            code = (short) typeNames.size();
+            typeNames.add(accountType);
+            typeCodes.put(accountType, code);
+        }
+        return code;
+    }
+
+    private int appendName(byte[] owner) {
+        ByteBuffer arena = names;
+        if (arena.remaining() < owner.length) {
+            long needed = (long) arena.position() + owner.length;
+            if (needed > MAX_NAME_ARENA_BYTES) {
+                throw new IllegalStateException("Owner names exceed the " + MAX_NAME_ARENA_BYTES + " bytes of the name arena");
+            }
+            ByteBuffer grown = ByteBuffer.allocateDirect((int) Math.min(Math.max(arena.capacity() * 2L, needed), MAX_NAME_ARENA_BYTES));
+            grown.put(arena.duplicate().flip());
+            names = grown;
+            arena = grown;
+        }
+        int offset = arena.position();
+        arena.put(owner);
+        return offset;
+    }
+
+    /**
+     * Encodes a numeric account number as its value shifted left 5 bits, OR its digit count,
+     * so that numbers with leading zeros stay distinct.
+     *
+     * @return the key, or -1 if the account number is not numeric or too long
+     */
+    static long encodeKey(String accountNumber) {
+        int digits = accountNumber.length();
+        if (digits == 0 || digits > MAX_DIGITS) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < digits; i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value << 5 | digits;
+    }
+
+    static String decodeKey(long key) {
+        int digits = (int) (key & 0x1F);
+        String value = Long.toString(key >>> 5);
+        return value.length() == digits ? value : "0".repeat(digits - value.length()) + value;
+    }
+
+    private ByteBuffer chunk(int slot) {
+        return chunks[slot >>> CHUNK_SHIFT];
+    }
+
+    private static int base(int slot) {
+        return (slot & CHUNK_MASK) * SLOT_SIZE;
+    }
+
+    private static int ownerLength(ByteBuffer chunk, int slot) {
+        return Short.toUnsignedInt(chunk.getShort(base(slot) + OWNER_LENGTH_OFFSET));
+    }
+
+    /**
+     * Account view bound to one slot of a ColumnarAccountStore. Field values are decoded on
+     * each call; balance updates go straight to the off-heap slot. Serializing a view writes
+     * a standalone Account snapshot instead.
+     */
+    private static final class SlotView extends Account {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ColumnarAccountStore store;
+        private final int slot;
+
+        SlotView(ColumnarAccountStore store, int slot) {
+            super(null, null, null, 0);
+            this.store = store;
+            this.slot = slot;
+        }
+
+        @Override
+        public String getAccountNumber() {
+            return decodeKey(store.chunk(slot).getLong(base(slot) + KEY_OFFSET));
+        }
+
+        @Override
+        public String getOwnerName() {
+            ByteBuffer chunk = store.chunk(slot);
+            byte[] owner = new byte[ownerLength(chunk, slot)];
+            store.names.get(chunk.getInt(base(slot) + OWNER_OFFSET), owner);
+            return new String(owner, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String getAcountType() {
+            return store.typeNames.get(store.chunk(slot).getShort(base(slot) + TYPE_OFFSET));
+        }
+
+        @Override
+        public double getBalance() {
+            return Money.toDouble((long) LONGS.getVolatile(store.chunk(slot), base(slot) + BALANCE_OFFSET));
+        }
+
+        @Override
+        public boolean deposit(double amount) {
+            long minor = Money.toMinorUnits(amount);
+            if (minor <= 0) {
+                return false;
+            }
+            LONGS.getAndAdd(store.chunk(slot), base(slot) + BALANCE_OFFSET, minor);
+            return true;
+        }
+
+        @Override
+        public boolean withdraw(double amount) {
+            long minor = Money.toMinorUnits(amount);
+            if (minor <= 0) {
+                return false;
+            }
+            ByteBuffer chunk = store.chunk(slot);
+            int offset = base(slot) + BALANCE_OFFSET;
+            long current = (long) LONGS.getVolatile(chunk, offset);
+            while (minor <= current) {
+                long witnessed = (long) LONGS.compareAndExchange(chunk, offset, current, current - minor);
+                if (witnessed == current) {
+                    return true;
+                }
+                current = witnessed;
+            }
+            return false;
+        }
+
+        @Override
+        public Account getDetails() {
+            return new Account(getAccountNumber(), getOwnerName(), getAcountType(), getBalance());
+        }
+
+        @Override
+        public String toString() {
+            return getDetails().toString();
+        }
+
+        private Object writeReplace() {
+            return getDetails();
+        }
+    }
+}
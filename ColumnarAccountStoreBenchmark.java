@@ -0,0 +1,94 @@
+package com.jibstech.bank_account_management_system;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares lookup and deposit cost, and heap footprint, of the off-heap ColumnarAccountStore
+ * against the object-per-account HashAccountStore at up to 10M accounts.
+ * The footprint of each store (heap delta after a full GC, plus off-heap bytes for the
+ * columnar store) is printed during setup; run with {@code -prof gc} to compare allocation
+ * and GC churn per operation.
+ * @see ColumnarAccountStore
+ * @see HashAccountStore
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+@State(Scope.Benchmark)
+public class ColumnarAccountStoreBenchmark {
+
+    private static final int LOOKUP_KEYS = 1024;
+
+    @Param({"1000000", "10000000"})
+    private int accountCount;
+
+    @Param({"columnar", "hash"})
+    private String storeType;
+
+    private AccountStore store;
+    private String[] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long heapBefore = usedHeap();
+        if (storeType.equals("columnar")) {
+            store = new ColumnarAccountStore(accountCount);
+        } else {
+            store = new HashAccountStore(false);
+        }
+        String[] types = {"Savings", "Checking", "Current"};
+        for (int i = 0; i < accountCount; i++) {
+            store.add(new Account(String.valueOf(1_000_000_000L + i), "Owner " + i, types[i % types.length], 100.0));
+        }
+        long heapBytes = usedHeap() - heapBefore;
+        long offHeapBytes = store instanceof ColumnarAccountStore columnar ? columnar.offHeapBytes() : 0;
+        System.out.printf("%n%s store, %d accounts: heap %d MB (%d B/account), off-heap %d MB%n",
+                storeType, accountCount, heapBytes >> 20, heapBytes / accountCount, offHeapBytes >> 20);
+
+        SplittableRandom random = new SplittableRandom(42);
+        keys = new String[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            keys[i] = String.valueOf(1_000_000_000L + random.nextInt(accountCount));
+        }
+    }
+
+    private String nextKey() {
+        next = (next + 1) & (LOOKUP_KEYS - 1);
+        return keys[next];
+    }
+
+    @Benchmark
+    public Account lookup() {
+        return store.findByNumber(nextKey());
+    }
+
+    @Benchmark
+    public boolean lookupAndDeposit() {
+        return store.findByNumber(nextKey()).deposit(1.0);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,101 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class ColumnarAccountStoreTest {
+
+	@Test
+	void testAddAndFindAcrossChunks() {
+		int accounts = 70_000; // more than one chunk of slots
+		ColumnarAccountStore store = new ColumnarAccountStore(16);
+		for (int i = 0; i < accounts; i++) {
+			assertTrue(store.add(new Account(accountNumber(i), "Owner " + i % 100, i % 2 == 0 ? "Savings" : "Checking", i)));
+		}
+		assertFalse(store.add(new Account(accountNumber(7), "Other", "Savings", 0)));
+		assertTrue(store.add(new Account("0001000007", "Padded", "Savings", 0))); // leading zeros keep it distinct
+
+		assertEquals(accounts + 1, store.size());
+		Account found = store.findByNumber(accountNumber(65_537));
+		assertEquals(accountNumber(65_537), found.getAccountNumber());
+		assertEquals("Owner 37", found.getOwnerName());
+		assertEquals("Checking", found.getAcountType());
+		assertEquals(65_537, found.getBalance(), 0.001);
+		assertEquals("Padded", store.findByNumber("0001000007").getOwnerName());
+		assertEquals(7, store.findByNumber(accountNumber(7)).getBalance(), 0.001);
+		assertNull(store.findByNumber("9999999"));
+		assertNull(store.findByNumber("12AB"));
+		assertFalse(store.contains(null));
+		assertEquals(accounts / 100, store.findByOwner("Owner 42").size());
+		assertEquals(accounts / 2, store.findByType("Checking").size());
+		assertTrue(store.findByType("Business").isEmpty());
+		assertEquals(accounts + 1, store.all().size());
+		assertThrows(IllegalArgumentException.class, () -> store.add(new Account("12AB", "Owner", "Savings", 0)));
+		assertThrows(IllegalArgumentException.class, () -> store.add(new Account("12345678901234567", "Owner", "Savings", 0)));
+
+		store.clear();
+		assertEquals(0, store.size());
+		assertNull(store.findByNumber(accountNumber(7)));
+	}
+
+	@Test
+	void testOwnerNamesUpToTheLimitRoundTrip() {
+		ColumnarAccountStore store = new ColumnarAccountStore(16);
+		String longest = "A".repeat(ColumnarAccountStore.MAX_OWNER_NAME_BYTES);
+		String beyondShort = "B".repeat(40_000);
+		assertTrue(store.add(new Account("1000001", longest, "Savings", 0)));
+		assertTrue(store.add(new Account("1000002", beyondShort, "Savings", 0)));
+		assertThrows(IllegalArgumentException.class,
+				() -> store.add(new Account("1000003", longest + "A", "Savings", 0)));
+
+		assertEquals(longest, store.findByNumber("1000001").getOwnerName());
+		assertEquals(beyondShort, store.findByNumber("1000002").getOwnerName());
+		assertEquals(1, store.findByOwner(beyondShort).size());
+		assertFalse(store.contains("1000003"));
+		assertEquals(2, store.size());
+	}
+
+	@Test
+	void testConcurrentBalanceUpdatesNeverOverdraw() throws InterruptedException {
+		ColumnarAccountStore store = new ColumnarAccountStore(16);
+		store.add(new Account("1000001", "Alice", "Checking", 1000));
+		store.add(new Account("1000002", "Bob", "Checking", 0));
+		AtomicInteger withdrawn = new AtomicInteger();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			Thread thread = new Thread(() -> {
+				Account alice = store.findByNumber("1000001");
+				Account bob = store.findByNumber("1000002");
+				for (int i = 0; i < 500; i++) {
+					if (alice.withdraw(1.5)) {
+						withdrawn.incrementAndGet();
+					}
+					bob.deposit(0.25);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(666, withdrawn.get()); // 1000 / 1.5, and no more
+		assertEquals(1, store.findByNumber("1000001").getBalance(), 0.001);
+		assertEquals(1000, store.findByNumber("1000002").getBalance(), 0.001);
+		assertFalse(store.findByNumber("1000001").withdraw(0));
+		assertFalse(store.findByNumber("1000001").deposit(-1));
+		Account details = store.findByNumber("1000002").getDetails();
+		assertEquals(1000, details.getBalance(), 0.001);
+		assertEquals("Bob", details.getOwnerName());
+	}
+
+	private static String accountNumber(int index) {
+		return String.valueOf(1_000_000 + index);
+	}
+}
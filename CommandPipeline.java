@@ -0,0 +1,334 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Opt-in front end for a Bank that runs deposits, withdrawals and transfers through a
+ * pre-allocated ring buffer, in the style of the LMAX Disruptor. Any number of producer
+ * threads publish commands into the ring; two consumer threads take them in order:
+ * <ol>
+ *   <li>the business-logic thread applies every published command to the accounts and
+ *       appends its journal record, without forcing it;</li>
+ *   <li>the journal thread forces everything applied so far with one fsync, then publishes
+ *       the results and frees the slots for reuse.</li>
+ * </ol>
+ * Both stages always take every command available to them, so batches grow with the load
+ * and one fsync covers as many commands as arrived during the previous one. Commands are
+ * claimed, published and consumed through sequence counters rather than locks or queue
+ * nodes, and a producer that finds the ring full waits for the journal thread to free a
+ * slot.
+ * <p>
+ * Results are delivered either to the {@link ResultHandler} given at construction, under
+ * the caller's correlation id, which allocates nothing per command in the pipeline itself,
+ * or through a future for the {@link #deposit}, {@link #withdraw} and {@link #transfer}
+ * convenience methods. Either way a result is only delivered once its command is durable.
+ * <p>
+ * The business-logic thread still takes the account locks, uncontended, so the wrapped Bank
+ * stays safe for callers that use it directly, and checkpoints still see a consistent
+ * state.
+ * @see Bank
+ * @see BatchingBank
+ */
+public class CommandPipeline implements Closeable {
+
+    private static final int SPINS = 1000;
+    private static final long PARK_NANOS = 1000;
+
+    /**
+     * Receives the outcome of every command published with a correlation id, on the
+     * journal thread, in the order the commands were applied.
+     */
+    public interface ResultHandler {
+
+        /**
+         * Called once the command is applied and durable.
+         *
+         * @param correlationId the id the command was published with
+         * @param result its outcome
+         */
+        void onResult(long correlationId, TransactionResult result);
+
+        /**
+         * Called instead of {@link #onResult} if the command failed unexpectedly or its
+         * journal record could not be forced; the command may have been applied.
+         *
+         * @param correlationId the id the command was published with
+         * @param error what went wrong
+         */
+        void onError(long correlationId, Exception error);
+    }
+
+    private final Bank bank;
+    private final ResultHandler handler;
+    private final Command[] ring;
+    private final int mask;
+    private final AtomicLongArray published;
+    /** Next sequence to claim, or -(final count) - 1 once closed */
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong(-1);
+    private final AtomicLong released = new AtomicLong(-1);
+    private final Thread businessLogic;
+    private final Thread journaller;
+
+    /**
+     * Starts a pipeline whose results are only delivered through futures.
+     *
+     * @param bank the bank that applies and journals the commands
+     * @param ringSize number of slots; rounded up to a power of two
+     */
+    public CommandPipeline(Bank bank, int ringSize) {
+        this(bank, ringSize, null);
+    }
+
+    /**
+     * Starts a pipeline delivering the results of {@link #publish published} commands to a handler.
+     *
+     * @param bank the bank that applies and journals the commands
+     * @param ringSize number of slots; rounded up to a power of two
+     * @param handler receives the results of commands published with a correlation id
+     */
+    public CommandPipeline(Bank bank, int ringSize, ResultHandler handler) {
+        if (ringSize < 1) {
+            throw new IllegalArgumentException("ringSize must be at least 1");
+        }
+        int size = Integer.highestOneBit(Math.max(1, ringSize - 1)) << 1;
+        this.bank = bank;
+        this.handler = handler;
+        this.ring = new Command[size];
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Command();
+            published.set(i, -1);
+        }
+        this.businessLogic = new Thread(this::applyCommands, "bank-business-logic");
+        this.journaller = new Thread(this::journalCommands, "bank-journaller");
+        businessLogic.setDaemon(true);
+        journaller.setDaemon(true);
+        businessLogic.start();
+        journaller.start();
+    }
+
+    /**
+     * Publishes a command whose result goes to the pipeline's {@link ResultHandler}.
+     * Blocks while the ring is full.
+     *
+     * @param correlationId passed back with the result
+     * @param type what to do
+     * @param accountNumber the account, or the sender of a transfer
+     * @param targetAccountNumber the receiver of a transfer, otherwise null
+     * @param amount amount to move; must be positive
+     * @throws IllegalStateException if the pipeline has no result handler
+     * @throws RejectedExecutionException if the pipeline is closed
+     */
+    public void publish(long correlationId, TransactionType type, String accountNumber, String targetAccountNumber,
+                        double amount) {
+        if (handler == null) {
+            throw new IllegalStateException("No result handler");
+        }
+        publish(correlationId, null, type, accountNumber, targetAccountNumber, amount);
+    }
+
+    /**
+     * Publishes a deposit.
+     *
+     * @param accountNumber target account identifier
+     * @param amount amount to deposit; must be positive
+     * @return a future completed with the outcome once the deposit is durable
+     */
+    public CompletableFuture<TransactionResult> deposit(String accountNumber, double amount) {
+        return submit(TransactionType.DEPOSIT, accountNumber, null, amount);
+    }
+
+    /**
+     * Publishes a withdrawal.
+     *
+     * @param accountNumber target account identifier
+     * @param amount amount to withdraw; must be positive and <= account balance
+     * @return a future completed with the outcome once the withdrawal is durable
+     */
+    public CompletableFuture<TransactionResult> withdraw(String accountNumber, double amount) {
+        return submit(TransactionType.WITHDRAWAL, accountNumber, null, amount);
+    }
+
+    /**
+     * Publishes a transfer.
+     *
+     * @param senderAccount account number of the sender
+     * @param receiverAccount account number of the receiver
+     * @param amount amount to transfer; must be positive and <= sender's balance
+     * @return a future completed with the outcome once the transfer is durable
+     */
+    public CompletableFuture<TransactionResult> transfer(String senderAccount, String receiverAccount, double amount) {
+        return submit(TransactionType.TRANSFER, senderAccount, receiverAccount, amount);
+    }
+
+    /**
+     * Stops accepting commands, applies and delivers everything already published and stops
+     * both threads. The wrapped Bank is left open.
+     */
+    @Override
+    public void close() {
+        long next;
+        do {
+            next = claimed.get();
+        } while (next >= 0 && !claimed.compareAndSet(next, -next - 1));
+        try {
+            businessLogic.join();
+            journaller.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<TransactionResult> submit(TransactionType type, String accountNumber,
+                                                        String targetAccountNumber, double amount) {
+        CompletableFuture<TransactionResult> future = new CompletableFuture<>();
+        publish(0, future, type, accountNumber, targetAccountNumber, amount);
+        return future;
+    }
+
+    private void publish(long correlationId, CompletableFuture<TransactionResult> future, TransactionType type,
+                         String accountNumber, String targetAccountNumber, double amount) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence < 0) {
+                throw new RejectedExecutionException("CommandPipeline is closed");
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        for (int spins = 0; sequence - ring.length > released.get(); spins++) {
+            idle(spins);
+        }
+        Command command = ring[(int) (sequence & mask)];
+        command.correlationId = correlationId;
+        command.future = future;
+        command.type = type;
+        command.accountNumber = accountNumber;
+        command.targetAccountNumber = targetAccountNumber;
+        command.amount = amount;
+        published.lazySet((int) (sequence & mask), sequence);
+    }
+
+    /** Business-logic stage: applies commands in sequence order as they are published. */
+    private void applyCommands() {
+        long next = 0;
+        for (int spins = 0; ; ) {
+            long available = next - 1;
+            while (published.get((int) ((available + 1) & mask)) == available + 1) {
+                available++;
+            }
+            if (available < next) {
+                if (claimed.get() == -next - 1) {
+                    return;
+                }
+                idle(spins++);
+                continue;
+            }
+            spins = 0;
+            for (long sequence = next; sequence <= available; sequence++) {
+                apply(ring[(int) (sequence & mask)]);
+            }
+            applied.lazySet(available);
+            next = available + 1;
+        }
+    }
+
+    /** Journal stage: makes applied commands durable, publishes their results and frees their slots. */
+    private void journalCommands() {
+        long next = 0;
+        for (int spins = 0; ; ) {
+            long available = applied.get();
+            if (available < next) {
+                if (!businessLogic.isAlive() && applied.get() < next) {
+                    return;
+                }
+                idle(spins++);
+                continue;
+            }
+            spins = 0;
+            IOException failure = null;
+            try {
+                bank.syncJournal();
+            } catch (IOException e) {
+                failure = e;
+            }
+            for (long sequence = next; sequence <= available; sequence++) {
+                deliver(ring[(int) (sequence & mask)], failure);
+            }
+            released.lazySet(available);
+            next = available + 1;
+        }
+    }
+
+    private void apply(Command command) {
+        try {
+            command.result = switch (command.type) {
+                case DEPOSIT -> bank.deposit(command.accountNumber, command.amount, true);
+                case WITHDRAWAL -> bank.withdraw(command.accountNumber, command.amount, true);
+                case TRANSFER -> bank.transfer(command.accountNumber, command.targetAccountNumber, command.amount, true);
+            };
+        } catch (RuntimeException e) {
+            command.error = e;
+        }
+    }
+
+    private void deliver(Command command, IOException failure) {
+        Exception error = failure != null ? failure : command.error;
+        try {
+            if (command.future != null) {
+                if (error != null) {
+                    command.future.completeExceptionally(error);
+                } else {
+                    command.future.complete(command.result);
+                }
+            } else if (error != null) {
+                handler.onError(command.correlationId, error);
+            } else {
+                handler.onResult(command.correlationId, command.result);
+            }
+        } catch (RuntimeException e) {
+            // a failing handler must not stall the pipeline
+        } finally {
+            command.clear();
+        }
+    }
+
+    /** Spins briefly, then parks, while there is nothing to do. */
+    private static void idle(int spins) {
+        if (spins < SPINS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    /**
+     * One slot of the ring, reused for every command that lands on it.
+     */
+    private static final class Command {
+
+        long correlationId;
+        CompletableFuture<TransactionResult> future;
+        TransactionType type;
+        String accountNumber;
+        String targetAccountNumber;
+        double amount;
+        TransactionResult result;
+        RuntimeException error;
+
+        void clear() {
+            future = null;
+            accountNumber = null;
+            targetAccountNumber = null;
+            result = null;
+            error = null;
+        }
+    }
+}
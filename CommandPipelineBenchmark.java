@@ -0,0 +1,101 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares deposits through the synchronous Bank methods with deposits through a
+ * CommandPipeline, as throughput and as sampled latency. Run with several threads (e.g.
+ * {@code -t 1,4,8}).
+ * <p>
+ * {@code syncDeposit} uses the journal's fsync policy. The pipeline forces the journal
+ * once per batch whatever the policy, so compare it with {@code PER_OPERATION}.
+ * {@code pipelinedDeposit} publishes without waiting; the full ring throttles producers to
+ * what the pipeline sustains. {@code pipelinedDepositAwait} waits for each durable result.
+ * @see CommandPipeline
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandPipelineBenchmark {
+
+    @Param({"NONE", "PER_OPERATION"})
+    private FsyncPolicy fsyncPolicy;
+
+    @Param({"10000"})
+    private int accountCount;
+
+    @Param({"4096"})
+    private int ringSize;
+
+    private Path dataDirectory;
+    private Bank bank;
+    private CommandPipeline pipeline;
+    private String[] accountNumbers;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDirectory = Files.createTempDirectory("pipeline-bench");
+        AccountStore store = new HashAccountStore();
+        accountNumbers = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountNumbers[i] = String.valueOf(1_000_000 + i);
+            store.add(new Account(accountNumbers[i], "Owner " + i, "Savings", 1_000_000));
+        }
+        bank = new Bank(store, dataDirectory, fsyncPolicy, BankLogger.quiet());
+        pipeline = new CommandPipeline(bank, ringSize, new CommandPipeline.ResultHandler() {
+            @Override
+            public void onResult(long correlationId, TransactionResult result) {
+            }
+
+            @Override
+            public void onError(long correlationId, Exception error) {
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pipeline.close();
+        bank.close();
+    }
+
+    @Benchmark
+    public TransactionResult syncDeposit() {
+        return bank.depositToAccount(randomAccount(), 1);
+    }
+
+    @Benchmark
+    public void pipelinedDeposit() {
+        pipeline.publish(0, TransactionType.DEPOSIT, randomAccount(), null, 1);
+    }
+
+    @Benchmark
+    public TransactionResult pipelinedDepositAwait() {
+        return pipeline.deposit(randomAccount(), 1).join();
+    }
+
+    private String randomAccount() {
+        return accountNumbers[ThreadLocalRandom.current().nextInt(accountCount)];
+    }
+}
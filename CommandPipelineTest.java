@@ -0,0 +1,115 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CommandPipelineTest {
+
+	private static final int ACCOUNTS = 16;
+	private static final int THREADS = 4;
+	private static final int COMMANDS_PER_THREAD = 10_000;
+
+	@TempDir
+	Path dataDirectory;
+
+	@Test
+	void testConcurrentProducersConserveMoneyAndGetEveryResult() throws Exception {
+		Bank bank = newBankWithAccounts();
+		AtomicIntegerArray delivered = new AtomicIntegerArray(THREADS * COMMANDS_PER_THREAD);
+		AtomicInteger errors = new AtomicInteger();
+		CommandPipeline pipeline = new CommandPipeline(bank, 64, new CommandPipeline.ResultHandler() {
+			@Override
+			public void onResult(long correlationId, TransactionResult result) {
+				delivered.incrementAndGet((int) correlationId);
+			}
+
+			@Override
+			public void onError(long correlationId, Exception error) {
+				errors.incrementAndGet();
+			}
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		for (int t = 0; t < THREADS; t++) {
+			int producer = t;
+			executor.execute(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < COMMANDS_PER_THREAD; i++) {
+					pipeline.publish(producer * COMMANDS_PER_THREAD + i, TransactionType.TRANSFER,
+							accountNumber(random.nextInt(ACCOUNTS)), accountNumber(random.nextInt(ACCOUNTS)),
+							1 + random.nextInt(50));
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+		pipeline.close();
+
+		assertEquals(0, errors.get());
+		for (int i = 0; i < delivered.length(); i++) {
+			assertEquals(1, delivered.get(i), "result " + i);
+		}
+		assertEquals(ACCOUNTS * 1000.0, totalBalance(bank));
+		double[] balances = new double[ACCOUNTS];
+		for (int i = 0; i < ACCOUNTS; i++) {
+			balances[i] = bank.findAccountByNumber(accountNumber(i)).getBalance();
+		}
+		bank.close();
+
+		Bank reopened = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		for (int i = 0; i < ACCOUNTS; i++) {
+			assertEquals(balances[i], reopened.findAccountByNumber(accountNumber(i)).getBalance(), 0.001);
+		}
+		reopened.close();
+	}
+
+	@Test
+	void testFuturesCompleteWithResultsAndCloseRejects() throws Exception {
+		Bank bank = newBankWithAccounts();
+		CommandPipeline pipeline = new CommandPipeline(bank, 8);
+
+		CompletableFuture<TransactionResult> deposit = pipeline.deposit(accountNumber(0), 50);
+		CompletableFuture<TransactionResult> withdrawal = pipeline.withdraw(accountNumber(0), 2000);
+		CompletableFuture<TransactionResult> transfer = pipeline.transfer(accountNumber(0), "9999999", 10);
+		pipeline.close();
+
+		assertEquals(1050, deposit.get().getBalance(), 0.001);
+		assertEquals(FailureReason.INSUFFICIENT_FUNDS, withdrawal.get().getFailureReason());
+		assertEquals(FailureReason.UNKNOWN_ACCOUNT, transfer.get().getFailureReason());
+		assertThrows(RejectedExecutionException.class, () -> pipeline.deposit(accountNumber(0), 1));
+		assertThrows(IllegalStateException.class,
+				() -> pipeline.publish(1, TransactionType.DEPOSIT, accountNumber(0), null, 1));
+		bank.close();
+	}
+
+	private Bank newBankWithAccounts() {
+		Bank bank = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		for (int i = 0; i < ACCOUNTS; i++) {
+			bank.createAccount(accountNumber(i), "Owner " + i, "Savings", 1000);
+		}
+		return bank;
+	}
+
+	private static double totalBalance(Bank bank) {
+		double total = 0;
+		for (int i = 0; i < ACCOUNTS; i++) {
+			total += bank.findAccountByNumber(accountNumber(i)).getBalance();
+		}
+		return total;
+	}
+
+	private static String accountNumber(int index) {
+		return String.valueOf(1000000 + index);
+	}
+}
@@ -0,0 +1,102 @@
+package com.jibstech.bank_account_management_system;
+
+import java.util.Arrays;
+
+/**
+ * Maps account numbers to shards by consistent hashing. Every shard owns a number of
+ * virtual nodes spread around a 64-bit ring, and an account belongs to the shard owning
+ * the first node at or after the account number's hash, so accounts spread evenly and
+ * adding a shard moves only about 1/N of them.
+ * <p>
+ * Hashes are FNV-1a with a 64-bit finalizer, which does not depend on the JVM, so every
+ * process of a cluster places accounts the same way.
+ * @see ShardedBank
+ */
+public final class ConsistentHashRing {
+
+    /** Virtual nodes per shard used by {@link #ConsistentHashRing(int)} */
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int shardCount;
+    private final long[] points;
+    private final int[] owners;
+
+    /**
+     * Creates a ring with {@value #DEFAULT_VIRTUAL_NODES} virtual nodes per shard.
+     *
+     * @param shardCount number of shards, at least 1
+     */
+    public ConsistentHashRing(int shardCount) {
+        this(shardCount, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * Creates a ring.
+     *
+     * @param shardCount number of shards, at least 1
+     * @param virtualNodes virtual nodes per shard, at least 1
+     */
+    public ConsistentHashRing(int shardCount, int virtualNodes) {
+        if (shardCount < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("Shard and virtual node counts must be positive");
+        }
+        this.shardCount = shardCount;
+        long[] nodes = new long[shardCount * virtualNodes];
+        int[] nodeOwners = new int[nodes.length];
+        Integer[] order = new Integer[nodes.length];
+        for (int shard = 0, i = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++, i++) {
+                nodes[i] = hash("shard-" + shard + "#" + node);
+                nodeOwners[i] = shard;
+                order[i] = i;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(nodes[a], nodes[b]));
+        points = new long[nodes.length];
+        owners = new int[nodes.length];
+        for (int i = 0; i < order.length; i++) {
+            points[i] = nodes[order[i]];
+            owners[i] = nodeOwners[order[i]];
+        }
+    }
+
+    /**
+     * Gets the number of shards on the ring.
+     *
+     * @return the shard count
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Gets the shard an account belongs to.
+     *
+     * @param accountNumber the account number
+     * @return the shard index, from 0 to {@link #getShardCount()} - 1
+     */
+    public int shardOf(String accountNumber) {
+        int index = Arrays.binarySearch(points, hash(accountNumber));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    static long hash(String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
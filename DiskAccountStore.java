@@ -0,0 +1,744 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * AccountStore that keeps accounts on disk, in a hash file of fixed-size slots, and only
+ * the recently used pages of that file in memory, so the number of accounts is bounded by
+ * the disk rather than the heap. Pages are held by a {@link PageCache} of a configurable
+ * number of pages with LRU eviction; balance updates change the cached page, which is
+ * written back when it is evicted or at the next {@linkplain #checkpoint(long) checkpoint}.
+ * <p>
+ * The main file ({@code accounts.db}) only ever holds the state of the last checkpoint.
+ * Pages written back in between go to a spill file ({@code accounts.db.spill}). A
+ * checkpoint writes every modified page to the spill file, marks it complete, then copies
+ * it into the main file, so a crash at any point leaves either the previous or the new
+ * checkpoint, and the Bank's journal replays what came after it. The table doubles at a
+ * checkpoint once it is {@value #GROW_LOAD_PERCENT}% full.
+ * <p>
+ * Accounts returned by {@link #findByNumber(String)}, {@link #findByOwner(String)} and
+ * {@link #findByType(String)} are views whose balance lives in the file; {@link #all()}
+ * returns copies read page by page without disturbing the cache. Account numbers are
+ * limited to {@value Journal#MAX_ACCOUNT_NUMBER_LENGTH} bytes, types to
+ * {@value #MAX_TYPE_LENGTH} and owner names to {@value #MAX_OWNER_LENGTH} bytes of UTF-8.
+ * The store is not closed by the Bank.
+ * <p>
+ * Slot layout ({@value #SLOT_SIZE} bytes, big-endian, {@value #SLOTS_PER_PAGE} per page
+ * after a header page):
+ * <pre>
+ *  0  byte  1 if the slot is used
+ *  1  byte  account number length, followed by 16 bytes of account number
+ * 24  long  balance in minor units
+ * 32  byte  account type length, followed by 31 bytes of account type
+ * 64  byte  owner name length, followed by 63 bytes of owner name
+ * </pre>
+ * @see PageCache
+ * @see AccountStore
+ */
+public class DiskAccountStore implements AccountStore, Closeable {
+
+    /** Size in bytes of a page of the account file */
+    public static final int PAGE_SIZE = 4096;
+    /** Maximum length in bytes of an account type */
+    public static final int MAX_TYPE_LENGTH = 31;
+    /** Maximum length in bytes of an owner name */
+    public static final int MAX_OWNER_LENGTH = 63;
+    /** Pages cached by {@link #DiskAccountStore(Path)}: 4 MiB */
+    public static final int DEFAULT_CACHE_PAGES = 1024;
+
+    private static final int SLOT_SIZE = 128;
+    private static final int SLOTS_PER_PAGE = PAGE_SIZE / SLOT_SIZE;
+    private static final int NUMBER_OFFSET = 1;
+    private static final int BALANCE_OFFSET = 24;
+    private static final int TYPE_OFFSET = 32;
+    private static final int OWNER_OFFSET = 64;
+    private static final int GROW_LOAD_PERCENT = 70;
+    private static final int MAX_LOAD_PERCENT = 90;
+    private static final int MAGIC = 0x41434442; // "ACDB"
+    private static final int SPILL_MAGIC = 0x5350494C; // "SPIL"
+    private static final int VERSION = 1;
+    private static final long NO_CHECKPOINT = -1;
+
+    private final Path file;
+    private final Path spillFile;
+    private final PageCache cache;
+    private final ReadWriteLock structureLock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> spilled = new HashMap<>();
+    private FileChannel channel;
+    private FileChannel spill;
+    private int capacity;
+    private volatile int size;
+    private volatile long checkpointSequence;
+    private volatile int generation;
+
+    /**
+     * Opens (or creates) a store with a cache of {@value #DEFAULT_CACHE_PAGES} pages.
+     *
+     * @param file the account file, usually {@code accounts.db} in the Bank's data directory
+     * @throws UncheckedIOException if the file cannot be opened or recovered
+     */
+    public DiskAccountStore(Path file) {
+        this(file, DEFAULT_CACHE_PAGES);
+    }
+
+    /**
+     * Opens (or creates) a store, finishing a checkpoint interrupted by a crash and
+     * discarding pages written back after the last checkpoint.
+     *
+     * @param file the account file, usually {@code accounts.db} in the Bank's data directory
+     * @param cachePages most pages of {@value #PAGE_SIZE} bytes held in memory
+     * @throws UncheckedIOException if the file cannot be opened or recovered
+     */
+    public DiskAccountStore(Path file, int cachePages) {
+        this.file = file;
+        this.spillFile = file.resolveSibling(file.getFileName() + ".spill");
+        this.cache = new PageCache(PAGE_SIZE, cachePages, new PageCache.Backing() {
+            @Override
+            public void load(long page, ByteBuffer into) throws IOException {
+                loadPage(page, into);
+            }
+
+            @Override
+            public void writeBack(long page, ByteBuffer from) throws IOException {
+                spillPage(page, from);
+            }
+        });
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() == 0) {
+                capacity = SLOTS_PER_PAGE;
+                checkpointSequence = NO_CHECKPOINT;
+                writeHeader(channel, capacity, 0, NO_CHECKPOINT);
+            } else {
+                readHeader();
+            }
+            spill = FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            recoverSpill();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open account file " + file, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if a field is longer than its slot allows
+     * @throws IllegalStateException if the table is full until the next checkpoint grows it
+     */
+    @Override
+    public boolean add(Account account) {
+        byte[] number = encode(account.getAccountNumber(), Journal.MAX_ACCOUNT_NUMBER_LENGTH, "Account number");
+        byte[] type = encode(account.getAcountType(), MAX_TYPE_LENGTH, "Account type");
+        byte[] owner = encode(account.getOwnerName(), MAX_OWNER_LENGTH, "Owner name");
+        long balance = Money.toMinorUnits(account.getBalance());
+        structureLock.writeLock().lock();
+        try {
+            if (find(number) >= 0) {
+                return false;
+            }
+            if ((size + 1) * 100L > (long) capacity * GROW_LOAD_PERCENT) {
+                if (checkpointSequence == NO_CHECKPOINT) {
+                    commit(NO_CHECKPOINT);
+                    grow();
+                } else if ((size + 1) * 100L > (long) capacity * MAX_LOAD_PERCENT) {
+                    throw new IllegalStateException("Account file is full until the next checkpoint");
+                }
+            }
+            int slot = -find(number) - 1;
+            cache.write(page(slot), page -> {
+                int base = base(slot);
+                page.put(base, (byte) 1);
+                putField(page, base + NUMBER_OFFSET, number);
+                page.putLong(base + BALANCE_OFFSET, balance);
+                putField(page, base + TYPE_OFFSET, type);
+                putField(page, base + OWNER_OFFSET, owner);
+                return null;
+            });
+            size++;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to grow account file", e);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Account findByNumber(String accountNumber) {
+        if (accountNumber == null) {
+            return null;
+        }
+        byte[] number = accountNumber.getBytes(StandardCharsets.UTF_8);
+        if (number.length > Journal.MAX_ACCOUNT_NUMBER_LENGTH) {
+            return null;
+        }
+        structureLock.readLock().lock();
+        try {
+            int slot = find(number);
+            return slot < 0 ? null : cache.read(page(slot), page -> view(page, slot));
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String accountNumber) {
+        return findByNumber(accountNumber) != null;
+    }
+
+    @Override
+    public List<Account> findByOwner(String ownerName) {
+        byte[] owner = ownerName.getBytes(StandardCharsets.UTF_8);
+        return scan((page, base) -> fieldEquals(page, base + OWNER_OFFSET, owner));
+    }
+
+    @Override
+    public List<Account> findByType(String accountType) {
+        byte[] type = accountType.getBytes(StandardCharsets.UTF_8);
+        return scan((page, base) -> fieldEquals(page, base + TYPE_OFFSET, type));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The accounts are copies, read one page at a time; pages are not cached by the scan.
+     */
+    @Override
+    public Collection<Account> all() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Account> iterator() {
+                return new Iterator<>() {
+                    private final ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+                    private final int slots = capacity;
+                    private int slot = -1;
+                    private Account next = advance();
+
+                    @Override
+                    public boolean hasNext() {
+                        return next != null;
+                    }
+
+                    @Override
+                    public Account next() {
+                        if (next == null) {
+                            throw new NoSuchElementException();
+                        }
+                        Account current = next;
+                        next = advance();
+                        return current;
+                    }
+
+                    private Account advance() {
+                        while (++slot < slots) {
+                            if (slot % SLOTS_PER_PAGE == 0) {
+                                cache.copy(page(slot), page);
+                            }
+                            int base = base(slot);
+                            if (page.get(base) == 1) {
+                                return new Account(getField(page, base + NUMBER_OFFSET), getField(page, base + OWNER_OFFSET),
+                                        getField(page, base + TYPE_OFFSET), Money.toDouble(page.getLong(base + BALANCE_OFFSET)));
+                            }
+                        }
+                        return null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        structureLock.writeLock().lock();
+        try {
+            cache.clear();
+            resetSpill();
+            channel.truncate(0);
+            capacity = SLOTS_PER_PAGE;
+            size = 0;
+            checkpointSequence = NO_CHECKPOINT;
+            writeHeader(channel, capacity, 0, NO_CHECKPOINT);
+            generation++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to clear account file", e);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Writes every modified page to the spill file, then copies the spill file into the
+     * account file, and doubles the table if it is {@value #GROW_LOAD_PERCENT}% full.
+     * Balance updates wait until it completes.
+     */
+    @Override
+    public boolean checkpoint(long sequence) throws IOException {
+        structureLock.writeLock().lock();
+        try {
+            commit(sequence);
+            if (size * 100L > (long) capacity * GROW_LOAD_PERCENT) {
+                grow();
+            }
+            return true;
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long getCheckpointSequence() {
+        return checkpointSequence;
+    }
+
+    /**
+     * Gets the share of page accesses served from memory.
+     *
+     * @return hits / (hits + misses), or 0 before the first access
+     */
+    public double getHitRatio() {
+        long hits = cache.hits();
+        long total = hits + cache.misses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Gets the number of pages evicted from the cache.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return cache.evictions();
+    }
+
+    /**
+     * Gets the number of modified pages written back, on eviction or at a checkpoint.
+     *
+     * @return the write-back count
+     */
+    public long getWriteBackCount() {
+        return cache.writeBacks();
+    }
+
+    /**
+     * Gets the cache, whose counters the Bank includes in its metrics.
+     */
+    PageCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Closes the files without a checkpoint; modified pages not checkpointed are lost and
+     * are replayed from the Bank's journal on the next start.
+     *
+     * @throws UncheckedIOException if the files cannot be closed
+     */
+    @Override
+    public void close() {
+        structureLock.writeLock().lock();
+        try {
+            channel.close();
+            spill.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to close account file", e);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    double balance(DiskAccount account) {
+        structureLock.readLock().lock();
+        try {
+            int slot = slotOf(account);
+            return Money.toDouble(cache.read(page(slot), page -> page.getLong(base(slot) + BALANCE_OFFSET)));
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    boolean adjust(DiskAccount account, long minor, boolean withdrawal) {
+        structureLock.readLock().lock();
+        try {
+            int slot = slotOf(account);
+            return cache.write(page(slot), page -> {
+                int offset = base(slot) + BALANCE_OFFSET;
+                long current = page.getLong(offset);
+                if (withdrawal && minor > current) {
+                    return false;
+                }
+                page.putLong(offset, withdrawal ? current - minor : current + minor);
+                return true;
+            });
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /** Finds the slot of an account view, again if the table was rebuilt since. */
+    private int slotOf(DiskAccount account) {
+        if (account.generation != generation) {
+            int slot = find(account.getAccountNumber().getBytes(StandardCharsets.UTF_8));
+            if (slot < 0) {
+                throw new IllegalStateException("Account " + account.getAccountNumber() + " no longer stored");
+            }
+            account.slot = slot;
+            account.generation = generation;
+        }
+        return account.slot;
+    }
+
+    /**
+     * Probes for an account number.
+     *
+     * @return its slot, or -(free slot) - 1 if it is not stored
+     */
+    private int find(byte[] number) {
+        int mask = capacity - 1;
+        int slot = (int) (ConsistentHashRing.hash(new String(number, StandardCharsets.UTF_8)) & mask);
+        for (int probed = 0; probed < capacity; ) {
+            int start = slot;
+            int end = Math.min(capacity, (slot / SLOTS_PER_PAGE + 1) * SLOTS_PER_PAGE);
+            int found = cache.read(page(start), page -> {
+                for (int s = start; s < end; s++) {
+                    int base = base(s);
+                    if (page.get(base) == 0) {
+                        return -s - 1;
+                    }
+                    if (fieldEquals(page, base + NUMBER_OFFSET, number)) {
+                        return s;
+                    }
+                }
+                return Integer.MIN_VALUE;
+            });
+            if (found != Integer.MIN_VALUE) {
+                return found;
+            }
+            probed += end - start;
+            slot = end & mask;
+        }
+        throw new IllegalStateException("Account file is full");
+    }
+
+    private List<Account> scan(SlotPredicate predicate) {
+        List<Account> matches = new ArrayList<>();
+        ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+        structureLock.readLock().lock();
+        try {
+            for (int slot = 0; slot < capacity; slot++) {
+                if (slot % SLOTS_PER_PAGE == 0) {
+                    cache.copy(page(slot), page);
+                }
+                int base = base(slot);
+                if (page.get(base) == 1 && predicate.test(page, base)) {
+                    matches.add(view(page, slot));
+                }
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    private DiskAccount view(ByteBuffer page, int slot) {
+        int base = base(slot);
+        return new DiskAccount(this, getField(page, base + NUMBER_OFFSET), getField(page, base + OWNER_OFFSET),
+                getField(page, base + TYPE_OFFSET), slot, generation);
+    }
+
+    /**
+     * Makes the cached state durable as the checkpoint of a sequence number: modified
+     * pages go to the spill file, which is marked complete and copied into the account file.
+     */
+    private void commit(long sequence) throws IOException {
+        cache.flush();
+        synchronized (spilled) {
+            spill.force(false);
+            writeSpillHeader(true, sequence);
+            spill.force(false);
+            applySpill(sequence);
+        }
+    }
+
+    /** Copies the spilled pages into the account file and empties the spill file. */
+    private void applySpill(long sequence) throws IOException {
+        ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+        for (Map.Entry<Long, Integer> entry : spilled.entrySet()) {
+            readFully(spill, page.clear(), spillOffset(entry.getValue()));
+            writeFully(channel, page, entry.getKey() * PAGE_SIZE);
+        }
+        checkpointSequence = sequence;
+        writeHeader(channel, capacity, size, sequence);
+        channel.force(false);
+        resetSpill();
+    }
+
+    /**
+     * Rebuilds the account file at twice the capacity from its checkpointed content, which
+     * must be current, and swaps it in.
+     */
+    private void grow() throws IOException {
+        int grown = capacity * 2;
+        Path temp = file.resolveSibling(file.getFileName() + ".grow");
+        try (FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(target, grown, size, checkpointSequence);
+            ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+            ByteBuffer probe = ByteBuffer.allocate(1);
+            for (int slot = 0; slot < capacity; slot++) {
+                if (slot % SLOTS_PER_PAGE == 0) {
+                    readFully(channel, page.clear(), page(slot) * PAGE_SIZE);
+                }
+                int base = base(slot);
+                if (page.get(base) != 1) {
+                    continue;
+                }
+                String number = getField(page, base + NUMBER_OFFSET);
+                int mask = grown - 1;
+                int into = (int) (ConsistentHashRing.hash(number) & mask);
+                while (true) {
+                    long offset = page(into) * PAGE_SIZE + base(into);
+                    probe.clear();
+                    if (target.read(probe, offset) <= 0 || probe.get(0) == 0) {
+                        writeFully(target, page.duplicate().position(base).limit(base + SLOT_SIZE), offset);
+                        break;
+                    }
+                    into = (into + 1) & mask;
+                }
+            }
+            target.force(false);
+        }
+        channel.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        capacity = grown;
+        cache.clear();
+        generation++;
+    }
+
+    private void loadPage(long page, ByteBuffer into) throws IOException {
+        synchronized (spilled) {
+            Integer index = spilled.get(page);
+            if (index != null) {
+                readFully(spill, into, spillOffset(index));
+                return;
+            }
+        }
+        readFully(channel, into, page * PAGE_SIZE);
+    }
+
+    /** Writes back a page evicted between checkpoints; the account file is not touched. */
+    private void spillPage(long page, ByteBuffer from) throws IOException {
+        synchronized (spilled) {
+            Integer index = spilled.get(page);
+            if (index == null) {
+                index = spilled.size();
+                spilled.put(page, index);
+                ByteBuffer number = ByteBuffer.allocate(Long.BYTES).putLong(0, page);
+                writeFully(spill, number, spillOffset(index) - Long.BYTES);
+            }
+            writeFully(spill, from, spillOffset(index));
+        }
+    }
+
+    /**
+     * Applies a spill file marked complete by a checkpoint interrupted before it was copied,
+     * and discards one holding only pages written back after the last checkpoint.
+     */
+    private void recoverSpill() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+        readFully(spill, header, 0);
+        if (header.getInt(0) == SPILL_MAGIC && header.get(8) == 1) {
+            long sequence = header.getLong(12);
+            int count = (int) ((spill.size() - PAGE_SIZE) / (PAGE_SIZE + Long.BYTES));
+            ByteBuffer number = ByteBuffer.allocate(Long.BYTES);
+            synchronized (spilled) {
+                for (int index = 0; index < count; index++) {
+                    readFully(spill, number.clear(), spillOffset(index) - Long.BYTES);
+                    spilled.put(number.getLong(0), index);
+                }
+                applySpill(sequence);
+            }
+        } else {
+            resetSpill();
+        }
+    }
+
+    private void resetSpill() throws IOException {
+        synchronized (spilled) {
+            spilled.clear();
+            spill.truncate(0);
+            writeSpillHeader(false, NO_CHECKPOINT);
+        }
+    }
+
+    /**
+     * Spill header: magic, version, complete flag, checkpoint sequence. Entries follow,
+     * each the page number and the page.
+     */
+    private void writeSpillHeader(boolean complete, long sequence) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(20);
+        header.putInt(SPILL_MAGIC).putInt(VERSION).put(complete ? (byte) 1 : 0).put(new byte[3]).putLong(sequence).flip();
+        writeFully(spill, header, 0);
+    }
+
+    /**
+     * Account file header: magic, version, capacity in slots, account count, checkpoint sequence.
+     */
+    private static void writeHeader(FileChannel target, int slots, int accounts, long sequence) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(28);
+        header.putInt(MAGIC).putInt(VERSION).putInt(slots).putLong(accounts).putLong(sequence).flip();
+        writeFully(target, header, 0);
+    }
+
+    private void readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(28);
+        readFully(channel, header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not an account file: " + file);
+        }
+        capacity = header.getInt(8);
+        size = (int) header.getLong(12);
+        checkpointSequence = header.getLong(20);
+    }
+
+    private static long spillOffset(int index) {
+        return PAGE_SIZE + (long) index * (PAGE_SIZE + Long.BYTES) + Long.BYTES;
+    }
+
+    private static long page(int slot) {
+        return 1 + slot / SLOTS_PER_PAGE;
+    }
+
+    private static int base(int slot) {
+        return (slot % SLOTS_PER_PAGE) * SLOT_SIZE;
+    }
+
+    private static byte[] encode(String value, int maxLength, String name) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxLength) {
+            throw new IllegalArgumentException(name + " longer than " + maxLength + " bytes: " + value);
+        }
+        return bytes;
+    }
+
+    private static void putField(ByteBuffer page, int offset, byte[] value) {
+        page.put(offset, (byte) value.length);
+        page.put(offset + 1, value);
+    }
+
+    private static String getField(ByteBuffer page, int offset) {
+        return new String(page.array(), offset + 1, page.get(offset), StandardCharsets.UTF_8);
+    }
+
+    private static boolean fieldEquals(ByteBuffer page, int offset, byte[] value) {
+        return page.get(offset) == value.length
+                && Arrays.equals(page.array(), offset + 1, offset + 1 + value.length, value, 0, value.length);
+    }
+
+    /** Reads until the buffer is full or the file ends; bytes past the end stay as they are. */
+    private static void readFully(FileChannel source, ByteBuffer into, long offset) throws IOException {
+        while (into.hasRemaining()) {
+            int read = source.read(into, offset);
+            if (read < 0) {
+                break;
+            }
+            offset += read;
+        }
+        into.clear();
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer from, long offset) throws IOException {
+        while (from.hasRemaining()) {
+            offset += target.write(from, offset);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SlotPredicate {
+        boolean test(ByteBuffer page, int base);
+    }
+
+    /**
+     * Account view bound to a slot of a DiskAccountStore. Number, owner and type are read
+     * once; the balance is read and updated in the cached page on every call. Serializing
+     * a view writes a standalone Account instead.
+     */
+    private static final class DiskAccount extends Account {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient DiskAccountStore store;
+        private int slot;
+        private int generation;
+
+        DiskAccount(DiskAccountStore store, String accountNumber, String ownerName, String accountType, int slot,
+                    int generation) {
+            super(accountNumber, ownerName, accountType, 0);
+            this.store = store;
+            this.slot = slot;
+            this.generation = generation;
+        }
+
+        @Override
+        public double getBalance() {
+            return store.balance(this);
+        }
+
+        @Override
+        public boolean deposit(double amount) {
+            long minor = Money.toMinorUnits(amount);
+            return minor > 0 && store.adjust(this, minor, false);
+        }
+
+        @Override
+        public boolean withdraw(double amount) {
+            long minor = Money.toMinorUnits(amount);
+            return minor > 0 && store.adjust(this, minor, true);
+        }
+
+        @Override
+        public Account getDetails() {
+            return new Account(getAccountNumber(), getOwnerName(), getAcountType(), getBalance());
+        }
+
+        @Override
+        public String toString() {
+            return getDetails().toString();
+        }
+
+        private Object writeReplace() {
+            return getDetails();
+        }
+    }
+}
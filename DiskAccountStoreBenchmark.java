@@ -0,0 +1,89 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures deposits into a DiskAccountStore as the page cache shrinks relative to the
+ * account file. {@code hotDeposit} touches a small working set of accounts that fits any
+ * cache; {@code uniformDeposit} touches every account, so once the cache holds only part
+ * of the file most deposits miss, evict a modified page and write it back. The hit ratio
+ * and write-back count are printed after each trial.
+ * @see DiskAccountStore
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiskAccountStoreBenchmark {
+
+    private static final int LOOKUP_KEYS = 1024;
+    private static final int HOT_ACCOUNTS = 256;
+
+    @Param({"100000"})
+    private int accountCount;
+
+    @Param({"64", "1024", "8192"})
+    private int cachePages;
+
+    private Path dataDirectory;
+    private DiskAccountStore store;
+    private String[] uniformKeys;
+    private String[] hotKeys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDirectory = Files.createTempDirectory("disk-store-bench");
+        store = new DiskAccountStore(dataDirectory.resolve("accounts.db"), cachePages);
+        for (int i = 0; i < accountCount; i++) {
+            store.add(new Account(String.valueOf(1_000_000 + i), "Owner " + i, "Savings", 100.0));
+        }
+        store.checkpoint(0);
+        SplittableRandom random = new SplittableRandom(42);
+        uniformKeys = new String[LOOKUP_KEYS];
+        hotKeys = new String[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            uniformKeys[i] = String.valueOf(1_000_000 + random.nextInt(accountCount));
+            hotKeys[i] = String.valueOf(1_000_000 + random.nextInt(HOT_ACCOUNTS));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nhit ratio %.3f, %d evictions, %d write-backs%n", store.getHitRatio(),
+                store.getEvictionCount(), store.getWriteBackCount());
+        store.close();
+    }
+
+    @Benchmark
+    public boolean hotDeposit() {
+        next = (next + 1) & (LOOKUP_KEYS - 1);
+        return store.findByNumber(hotKeys[next]).deposit(1);
+    }
+
+    @Benchmark
+    public boolean uniformDeposit() {
+        next = (next + 1) & (LOOKUP_KEYS - 1);
+        return store.findByNumber(uniformKeys[next]).deposit(1);
+    }
+}
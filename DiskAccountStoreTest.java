@@ -0,0 +1,97 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DiskAccountStoreTest {
+
+	private static final int ACCOUNTS = 2000;
+
+	@TempDir
+	Path dataDirectory;
+
+	@Test
+	void testUpdatesSurviveEvictionAndGrowth() throws Exception {
+		try (DiskAccountStore store = new DiskAccountStore(dataDirectory.resolve("accounts.db"), 4)) {
+			for (int i = 0; i < ACCOUNTS; i++) {
+				assertTrue(store.add(new Account(accountNumber(i), "Owner " + i, i % 2 == 0 ? "Savings" : "Checking", i)));
+			}
+			assertFalse(store.add(new Account(accountNumber(7), "Other", "Savings", 0)));
+			for (int i = 0; i < ACCOUNTS; i++) {
+				assertTrue(store.findByNumber(accountNumber(i)).deposit(1));
+			}
+			assertFalse(store.findByNumber(accountNumber(3)).withdraw(5));
+
+			assertEquals(ACCOUNTS, store.size());
+			assertEquals(1235, store.findByNumber(accountNumber(1234)).getBalance(), 0.001);
+			assertEquals("Owner 1234", store.findByNumber(accountNumber(1234)).getOwnerName());
+			assertNull(store.findByNumber("9999999"));
+			assertEquals(ACCOUNTS / 2, store.findByType("Checking").size());
+			assertEquals(1, store.findByOwner("Owner 42").size());
+			double total = 0;
+			for (Account account : store.all()) {
+				total += account.getBalance();
+			}
+			assertEquals((double) ACCOUNTS * (ACCOUNTS + 1) / 2, total, 0.001);
+			assertTrue(store.getEvictionCount() > 0);
+			assertTrue(store.getWriteBackCount() > 0);
+			assertTrue(store.getHitRatio() > 0 && store.getHitRatio() < 1);
+		}
+	}
+
+	@Test
+	void testReopensAtLastCheckpoint() throws Exception {
+		Path file = dataDirectory.resolve("accounts.db");
+		try (DiskAccountStore store = new DiskAccountStore(file, 2)) {
+			for (int i = 0; i < ACCOUNTS; i++) {
+				store.add(new Account(accountNumber(i), "Owner " + i, "Savings", 100));
+			}
+			store.findByNumber(accountNumber(1)).deposit(50);
+			assertTrue(store.checkpoint(42));
+			for (int i = 0; i < ACCOUNTS; i++) {
+				store.findByNumber(accountNumber(i)).withdraw(100); // spilled, never checkpointed
+			}
+		}
+
+		try (DiskAccountStore store = new DiskAccountStore(file, 2)) {
+			assertEquals(42, store.getCheckpointSequence());
+			assertEquals(ACCOUNTS, store.size());
+			assertEquals(150, store.findByNumber(accountNumber(1)).getBalance(), 0.001);
+			assertEquals(100, store.findByNumber(accountNumber(ACCOUNTS - 1)).getBalance(), 0.001);
+		}
+	}
+
+	@Test
+	void testBankReplaysJournalOntoStoreCheckpoint() throws Exception {
+		Path file = dataDirectory.resolve("accounts.db");
+		DiskAccountStore store = new DiskAccountStore(file, 2);
+		Bank bank = new Bank(store, dataDirectory, FsyncPolicy.PER_OPERATION, BankLogger.quiet());
+		for (int i = 0; i < 100; i++) {
+			bank.createAccount(accountNumber(i), "Owner " + i, "Savings", 100);
+		}
+		for (int i = 0; i < 100; i++) {
+			assertTrue(bank.depositToAccount(accountNumber(i), 10).isSuccessful());
+		}
+		assertTrue(bank.transferBetweenAccounts(accountNumber(0), accountNumber(1), 110).isSuccessful());
+		store.close(); // crash: nothing since the last account creation was checkpointed
+
+		store = new DiskAccountStore(file, 2);
+		bank = new Bank(store, dataDirectory, FsyncPolicy.PER_OPERATION, BankLogger.quiet());
+
+		assertEquals(0, bank.findAccountByNumber(accountNumber(0)).getBalance(), 0.001);
+		assertEquals(220, bank.findAccountByNumber(accountNumber(1)).getBalance(), 0.001);
+		assertEquals(110, bank.findAccountByNumber(accountNumber(99)).getBalance(), 0.001);
+		assertTrue(bank.reconcile().getMismatches().isEmpty());
+		assertTrue(bank.getMetrics().dump().contains("bank_account_cache_total{event=\"hit\"}"));
+		bank.close();
+		store.close();
+	}
+
+	private static String accountNumber(int index) {
+		return String.valueOf(1000000 + index);
+	}
+}
@@ -0,0 +1,25 @@
+package com.jibstech.bank_account_management_system;
+
+/**
+ * Why the Bank rejected an operation.
+ * @see TransactionResult#getFailureReason()
+ * @see BankMetrics
+ */
+public enum FailureReason {
+    /** The account, or one account of a transfer, does not exist */
+    UNKNOWN_ACCOUNT,
+    /** The amount is zero, negative or not a number */
+    INVALID_AMOUNT,
+    /** The balance does not cover the withdrawal or transfer */
+    INSUFFICIENT_FUNDS,
+    /** The account number is already taken */
+    ACCOUNT_EXISTS,
+    /** The account number does not fit into a journal record */
+    INVALID_ACCOUNT_NUMBER,
+    /** The idempotency key was already used for a different operation */
+    IDEMPOTENCY_KEY_REUSED,
+    /** The withdrawal or transfer would exceed a velocity limit of the account or the bank */
+    VELOCITY_LIMIT_EXCEEDED,
+    /** The line of a batch could not be parsed into a posting */
+    MALFORMED_POSTING
+}
@@ -0,0 +1,14 @@
+package com.jibstech.bank_account_management_system;
+
+/**
+ * Controls when journal writes are forced to the storage device.
+ * @see Journal
+ */
+public enum FsyncPolicy {
+    /** Every appended record is forced to disk before the operation returns */
+    PER_OPERATION,
+    /** Appended records are forced to disk by a background flusher on a fixed interval */
+    GROUP_COMMIT,
+    /** Records are left to the operating system to flush */
+    NONE
+}
@@ -0,0 +1,120 @@
+package com.jibstech.bank_account_management_system;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default AccountStore backed by a hash index on the account number.
+ * Lookups by account number run in constant time regardless of the number of accounts.
+ * When secondary indexing is enabled, owner name and account type lookups are
+ * served from their own hash indexes instead of scanning every account.
+ * <p>
+ * The store is safe for concurrent use: account number lookups are lock-free, while
+ * additions and secondary index reads synchronize on the store.
+ * @see AccountStore
+ * @see Account
+ */
+public class HashAccountStore implements AccountStore {
+
+    private final Map<String, Account> byNumber;
+    private final Map<String, List<Account>> byOwner;
+    private final Map<String, List<Account>> byType;
+    private final boolean secondaryIndexes;
+
+    /**
+     * Constructs an empty store with secondary indexes enabled.
+     */
+    public HashAccountStore() {
+        this(true);
+    }
+
+    /**
+     * Constructs an empty store.
+     *
+     * @param secondaryIndexes whether to maintain indexes on owner name and account type
+     */
+    public HashAccountStore(boolean secondaryIndexes) {
+        this.byNumber = new ConcurrentHashMap<>();
+        this.byOwner = new HashMap<>();
+        this.byType = new HashMap<>();
+        this.secondaryIndexes = secondaryIndexes;
+    }
+
+    @Override
+    public boolean add(Account account) {
+        if (byNumber.putIfAbsent(account.getAccountNumber(), account) != null) {
+            return false;
+        }
+        if (secondaryIndexes) {
+            synchronized (this) {
+                byOwner.computeIfAbsent(account.getOwnerName(), k -> new ArrayList<>()).add(account);
+                byType.computeIfAbsent(account.getAcountType(), k -> new ArrayList<>()).add(account);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Account findByNumber(String accountNumber) {
+        return accountNumber == null ? null : byNumber.get(accountNumber);
+    }
+
+    @Override
+    public boolean contains(String accountNumber) {
+        return accountNumber != null && byNumber.containsKey(accountNumber);
+    }
+
+    @Override
+    public List<Account> findByOwner(String ownerName) {
+        if (secondaryIndexes) {
+            synchronized (this) {
+                return new ArrayList<>(byOwner.getOrDefault(ownerName, Collections.emptyList()));
+            }
+        }
+        List<Account> matches = new ArrayList<>();
+        for (Account account : byNumber.values()) {
+            if (account.getOwnerName().equals(ownerName)) {
+                matches.add(account);
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public List<Account> findByType(String accountType) {
+        if (secondaryIndexes) {
+            synchronized (this) {
+                return new ArrayList<>(byType.getOrDefault(accountType, Collections.emptyList()));
+            }
+        }
+        List<Account> matches = new ArrayList<>();
+        for (Account account : byNumber.values()) {
+            if (account.getAcountType().equals(accountType)) {
+                matches.add(account);
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public Collection<Account> all() {
+        return Collections.unmodifiableCollection(byNumber.values());
+    }
+
+    @Override
+    public int size() {
+        return byNumber.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        byNumber.clear();
+        byOwner.clear();
+        byType.clear();
+    }
+}
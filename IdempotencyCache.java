@@ -0,0 +1,195 @@
+package com.jibstech.bank_account_management_system;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the results of operations by client-supplied idempotency key for a limited
+ * time, so that a client retrying after a timeout gets the original result instead of
+ * posting the operation twice.
+ * <p>
+ * Keys live in two generations of concurrent hash maps. New keys go into the current
+ * generation; once it is older than the window or holds its maximum number of keys, it
+ * becomes the previous generation and the previous one is dropped. A key is therefore
+ * remembered for one window, or until the maximum number of newer keys has been seen if
+ * that comes first, and memory stays bounded at about twice the maximum. Lookups and
+ * insertions share a read lock and run concurrently; only a rotation of the generations
+ * takes it exclusively, so a key cannot be added to a generation that is being retired.
+ * <p>
+ * The first caller with a key runs the operation; concurrent callers with the same key
+ * wait for it and get the same result. Results are remembered, rejections included. An
+ * operation that throws is forgotten, so callers waiting for it get its exception but a
+ * later retry runs it again. Keys are kept in memory only and are lost on restart.
+ * @see Bank#depositToAccount(String, double, String)
+ */
+final class IdempotencyCache {
+
+    /** Minutes a key is remembered by {@link #IdempotencyCache()} */
+    static final int DEFAULT_WINDOW_MINUTES = 10;
+    /** Keys per generation of {@link #IdempotencyCache()} */
+    static final int DEFAULT_MAX_KEYS = 100_000;
+
+    private final long windowNanos;
+    private final int maxKeys;
+    private final ReadWriteLock rotationLock = new ReentrantReadWriteLock();
+    private volatile Generations generations;
+    private final LongAdder replays = new LongAdder();
+
+    /**
+     * Creates an empty cache remembering keys for {@value #DEFAULT_WINDOW_MINUTES} minutes,
+     * up to {@value #DEFAULT_MAX_KEYS} keys per generation.
+     */
+    IdempotencyCache() {
+        this(Duration.ofMinutes(DEFAULT_WINDOW_MINUTES), DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param window how long a key is remembered, unless {@code maxKeys} newer keys arrive first
+     * @param maxKeys most keys per generation; older keys are dropped early beyond it
+     */
+    IdempotencyCache(Duration window, int maxKeys) {
+        this.windowNanos = window.toNanos();
+        this.maxKeys = maxKeys;
+        this.generations = new Generations(new Generation(System.nanoTime()), null);
+    }
+
+    /**
+     * Runs an operation unless one with the same key ran within the window, in which case
+     * its result is returned.
+     *
+     * @param key the client's idempotency key
+     * @param request describes the operation, e.g. its type, accounts and amount; a key
+     *                reused for a different request is rejected
+     * @param operation the operation to run
+     * @return the result of the operation, the remembered result, or
+     *         {@link FailureReason#IDEMPOTENCY_KEY_REUSED} if the key belongs to another request
+     */
+    TransactionResult execute(String key, String request, Supplier<TransactionResult> operation) {
+        rotateIfDue(System.nanoTime());
+        Entry mine = new Entry(request);
+        Generation generation;
+        Entry entry;
+        rotationLock.readLock().lock();
+        try {
+            Generations current = generations;
+            generation = current.current;
+            entry = current.previous != null ? current.previous.entries.get(key) : null;
+            if (entry == null) {
+                entry = generation.entries.putIfAbsent(key, mine);
+                if (entry == null) {
+                    generation.count.incrementAndGet();
+                }
+            }
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+        if (entry == null) {
+            return run(generation, key, mine, operation);
+        }
+        if (!entry.request.equals(request)) {
+            return TransactionResult.failure(FailureReason.IDEMPOTENCY_KEY_REUSED);
+        }
+        replays.increment();
+        try {
+            return entry.result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Gets the number of requests answered with a remembered result.
+     *
+     * @return the replay count
+     */
+    long replays() {
+        return replays.sum();
+    }
+
+    private static TransactionResult run(Generation generation, String key, Entry entry,
+                                         Supplier<TransactionResult> operation) {
+        TransactionResult result;
+        try {
+            result = operation.get();
+        } catch (RuntimeException | Error e) {
+            generation.entries.remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        entry.result.complete(result);
+        return result;
+    }
+
+    /**
+     * Starts a new generation if the current one is full or older than the window. The
+     * generation dropped then only holds keys older than the window, unless it filled up.
+     */
+    private void rotateIfDue(long now) {
+        if (!isDue(generations.current, now)) {
+            return;
+        }
+        rotationLock.writeLock().lock();
+        try {
+            Generations current = generations;
+            if (isDue(current.current, now)) {
+                generations = new Generations(new Generation(now), current.current);
+            }
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+    }
+
+    private boolean isDue(Generation generation, long now) {
+        return now - generation.started >= windowNanos || generation.count.get() >= maxKeys;
+    }
+
+    /**
+     * The generation keys are added to and the one before it, swapped together.
+     */
+    private static final class Generations {
+
+        final Generation current;
+        final Generation previous;
+
+        Generations(Generation current, Generation previous) {
+            this.current = current;
+            this.previous = previous;
+        }
+    }
+
+    /**
+     * Keys first seen within one window.
+     */
+    private static final class Generation {
+
+        final long started;
+        final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+        final AtomicInteger count = new AtomicInteger();
+
+        Generation(long started) {
+            this.started = started;
+        }
+    }
+
+    /**
+     * The request a key was first used for and its result, once known.
+     */
+    private static final class Entry {
+
+        final String request;
+        final CompletableFuture<TransactionResult> result = new CompletableFuture<>();
+
+        Entry(String request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IdempotencyTest {
+
+	@TempDir
+	Path dataDirectory;
+
+	@Test
+	void testRetryReturnsOriginalResultWithoutReapplying() {
+		Bank bank = newBank();
+
+		TransactionResult first = bank.transferBetweenAccounts("1000001", "1000002", 30, "key-1");
+		TransactionResult retry = bank.transferBetweenAccounts("1000001", "1000002", 30, "key-1");
+
+		assertTrue(first.isSuccessful());
+		assertSame(first, retry);
+		assertEquals(70, bank.findAccountByNumber("1000001").getBalance(), 0.001);
+		assertEquals(130, bank.findAccountByNumber("1000002").getBalance(), 0.001);
+		assertEquals(1, bank.getTransactionCount());
+		assertEquals(1, bank.getMetrics().getCounters().get("idempotent_replays"));
+		assertTrue(bank.depositToAccount("1000001", 30, "key-2").isSuccessful());
+		assertEquals(100, bank.findAccountByNumber("1000001").getBalance(), 0.001);
+		bank.close();
+	}
+
+	@Test
+	void testKeyReusedForAnotherOperationIsRejected() {
+		Bank bank = newBank();
+		assertEquals(FailureReason.INSUFFICIENT_FUNDS, bank.withdrawFromAccount("1000001", 500, "key-1").getFailureReason());
+
+		assertEquals(FailureReason.IDEMPOTENCY_KEY_REUSED,
+				bank.withdrawFromAccount("1000001", 50, "key-1").getFailureReason());
+		assertEquals(FailureReason.IDEMPOTENCY_KEY_REUSED,
+				bank.depositToAccount("1000001", 500, "key-1").getFailureReason());
+		assertEquals(FailureReason.INSUFFICIENT_FUNDS, bank.withdrawFromAccount("1000001", 500, "key-1").getFailureReason());
+		assertEquals(100, bank.findAccountByNumber("1000001").getBalance(), 0.001);
+		assertEquals(2, bank.getMetrics().getCounters().get("deposit.idempotency_key_reused")
+				+ bank.getMetrics().getCounters().get("withdrawal.idempotency_key_reused"));
+		bank.close();
+	}
+
+	@Test
+	void testConcurrentDuplicatesApplyOnce() throws Exception {
+		Bank bank = newBank();
+		int threads = 16;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<TransactionResult>> results = new ArrayList<>();
+		for (int round = 0; round < 50; round++) {
+			String key = "deposit-" + round;
+			for (int i = 0; i < threads; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					return bank.depositToAccount("1000002", 1, key);
+				}));
+			}
+		}
+		start.countDown();
+		for (Future<TransactionResult> result : results) {
+			assertTrue(result.get().isSuccessful());
+		}
+		executor.shutdown();
+
+		assertEquals(150, bank.findAccountByNumber("1000002").getBalance(), 0.001);
+		bank.close();
+	}
+
+	@Test
+	void testKeysExpireAfterWindow() throws Exception {
+		IdempotencyCache cache = new IdempotencyCache(Duration.ofMillis(20), 1000);
+		AtomicInteger runs = new AtomicInteger();
+		Transaction txn = new Transaction("TX1", "1000001", 10, TransactionType.DEPOSIT, LocalDateTime.of(2026, 10, 17, 9, 30));
+
+		cache.execute("key", "deposit", () -> TransactionResult.success(txn, runs.incrementAndGet()));
+		cache.execute("key", "deposit", () -> TransactionResult.success(txn, runs.incrementAndGet()));
+		assertEquals(1, runs.get());
+		Thread.sleep(30);
+		cache.execute("other", "deposit", () -> TransactionResult.success(txn, 0));
+		cache.execute("key", "deposit", () -> TransactionResult.success(txn, runs.incrementAndGet()));
+		assertEquals(1, runs.get());
+		Thread.sleep(30);
+		cache.execute("other", "deposit", () -> TransactionResult.success(txn, 0));
+		cache.execute("key", "deposit", () -> TransactionResult.success(txn, runs.incrementAndGet()));
+
+		assertEquals(2, runs.get());
+		assertEquals(3, cache.replays());
+	}
+
+	@Test
+	void testOperationThatThrowsIsForgotten() {
+		IdempotencyCache cache = new IdempotencyCache(Duration.ofMinutes(10), 1000);
+		Transaction txn = new Transaction("TX1", "1000001", 10, TransactionType.DEPOSIT, LocalDateTime.of(2026, 10, 17, 9, 30));
+
+		assertThrows(IllegalStateException.class, () -> cache.execute("key", "deposit", () -> {
+			throw new IllegalStateException("Journal unavailable");
+		}));
+		TransactionResult retry = cache.execute("key", "deposit", () -> TransactionResult.success(txn, 10));
+
+		assertTrue(retry.isSuccessful());
+		assertSame(retry, cache.execute("key", "deposit", () -> TransactionResult.failure()));
+		assertEquals(1, cache.replays());
+	}
+
+	@Test
+	void testFullGenerationsDropKeysBeforeWindow() {
+		IdempotencyCache cache = new IdempotencyCache(Duration.ofMinutes(10), 2);
+		AtomicInteger runs = new AtomicInteger();
+		Transaction txn = new Transaction("TX1", "1000001", 10, TransactionType.DEPOSIT, LocalDateTime.of(2026, 10, 17, 9, 30));
+
+		for (String key : new String[] {"a", "b", "c", "a", "d", "e", "a"}) {
+			cache.execute(key, "deposit", () -> TransactionResult.success(txn, runs.incrementAndGet()));
+		}
+
+		assertEquals(6, runs.get()); // "a" is remembered past one full generation, not past two
+	}
+
+	private Bank newBank() {
+		AccountStore store = new HashAccountStore();
+		store.add(new Account("1000001", "Alice", "Savings", 100));
+		store.add(new Account("1000002", "Bob", "Checking", 100));
+		return new Bank(store, dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+	}
+}
@@ -0,0 +1,843 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of account mutations.
+ * Every deposit, withdrawal and transfer is written as one fixed-size binary record, and
+ * every account creation as a few, so the cost of recording an operation does not depend
+ * on how much history exists or how many accounts there are.
+ * On startup the journal is replayed onto the last checkpoint written by the Bank.
+ * <p>
+ * The journal is split into segment files named after the checkpoint sequence they
+ * follow ({@code journal-<sequence>.dat}). A checkpoint {@linkplain #rotate(long) rotates}
+ * to a new segment and, once the checkpoint is on disk, deletes the segments it covers,
+ * so the journal never holds more than the tail since the last checkpoint.
+ * <p>
+ * Record layout ({@value #RECORD_SIZE} bytes, big-endian):
+ * <pre>
+ *  0  long  sequence number
+ *  8  long  timestamp (UTC epoch nanoseconds)
+ * 16  long  amount (IEEE 754 bits)
+ * 24  byte  transaction type ordinal
+ * 25  byte  account number length, followed by 16 bytes of account number
+ * 42  byte  target account number length, followed by 16 bytes of target account number
+ * 59  byte  {@value #OPEN_BATCH} if the record belongs to a batch that is not committed yet, else 0
+ * 60  int   CRC32 of bytes 0-59
+ * </pre>
+ * The creation of an account is recorded as well ({@link #appendAccount}): byte 24 holds
+ * {@value #ACCOUNT_CREATED}, the amount is the initial balance, and bytes 42-45 hold the
+ * length of the owner name and account type. These follow in as many continuation records
+ * as they need, each flagged with {@value #CONTINUATION} at byte 24 and carrying
+ * {@value #DETAILS_SIZE} bytes from byte {@value #DETAILS_OFFSET}; replay only passes on a
+ * creation whose continuation records are all intact.
+ * <p>
+ * Records of an atomic batch ({@link #beginBatch()} to {@link #commitBatch()}) are flagged
+ * as open; committing clears the flag on the last one. Replay only passes on a run of open
+ * records once the record that closes it is found, so a batch cut short by a crash is
+ * dropped as a whole.
+ * <p>
+ * {@linkplain #appendBatched Batched} records are collected in a buffer of
+ * {@value #PENDING_RECORDS} records and written together, so a large batch costs one
+ * write per buffer rather than one per record; they reach the file on the next
+ * {@link #force()} at the latest.
+ * <p>
+ * Records are written under the journal's monitor but forced outside it, so appends keep
+ * going while the disk syncs. Under {@link FsyncPolicy#PER_OPERATION} concurrent appenders
+ * share fsyncs: one of them forces everything written so far while the others wait, and
+ * each returns as soon as a force that started after its record was written has finished.
+ * <p>
+ * Once a record cannot be written or forced, what reached the disk is no longer known,
+ * so the journal fails every later append, force and rotation with an IOException
+ * until it is reopened, and replay settles what survived.
+ * @see FsyncPolicy
+ * @see Bank
+ */
+public class Journal implements Closeable {
+
+    /** Size in bytes of a single journal record */
+    public static final int RECORD_SIZE = 64;
+    /** Maximum length in bytes of an account number that fits into a record */
+    public static final int MAX_ACCOUNT_NUMBER_LENGTH = 16;
+
+    private static final int CRC_OFFSET = 60;
+    private static final int FLAG_OFFSET = 59;
+    private static final byte OPEN_BATCH = 1;
+    private static final int TYPE_OFFSET = 24;
+    private static final byte ACCOUNT_CREATED = 0x40;
+    private static final byte CONTINUATION = 0x41;
+    private static final int DETAILS_OFFSET = 25;
+    private static final int DETAILS_SIZE = FLAG_OFFSET - DETAILS_OFFSET;
+    private static final int PENDING_RECORDS = 1024;
+    private static final long DEFAULT_GROUP_COMMIT_MILLIS = 10;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String LEGACY_FILE = "journal.dat";
+
+    private final Path directory;
+    private volatile FileChannel channel;
+    private long position;
+    private Path currentSegment;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE);
+    private final ByteBuffer pending = ByteBuffer.allocateDirect(RECORD_SIZE * PENDING_RECORDS);
+    private final CRC32 crc = new CRC32();
+    private final FsyncPolicy policy;
+    private final BankLogger logger;
+    private final ScheduledExecutorService flusher;
+    private volatile boolean dirty;
+    private volatile IOException failure;
+    private volatile boolean closed;
+    /** Bytes appended since the journal was opened, across segments */
+    private long appended;
+    /** Of {@link #appended}, the bytes known to be on disk; advanced under {@link #forceLock} */
+    private volatile long forced;
+    /** Held by the one appender forcing the journal on behalf of all others */
+    private final Object forceLock = new Object();
+    private boolean batchOpen;
+    private long batchRecords;
+
+    /**
+     * Opens (or creates) a journal with the default group-commit interval.
+     *
+     * @param directory directory holding the journal segments
+     * @param policy when appended records are forced to disk
+     * @throws IOException if the newest segment cannot be opened
+     */
+    public Journal(Path directory, FsyncPolicy policy) throws IOException {
+        this(directory, policy, DEFAULT_GROUP_COMMIT_MILLIS, BankLogger.console());
+    }
+
+    /**
+     * Opens (or creates) a journal with the default group-commit interval, reporting
+     * failures of the background flush to the given logger.
+     *
+     * @param directory directory holding the journal segments
+     * @param policy when appended records are forced to disk
+     * @param logger receives failures of the background flush
+     * @throws IOException if the newest segment cannot be opened
+     */
+    public Journal(Path directory, FsyncPolicy policy, BankLogger logger) throws IOException {
+        this(directory, policy, DEFAULT_GROUP_COMMIT_MILLIS, logger);
+    }
+
+    /**
+     * Opens (or creates) a journal, appending to its newest segment.
+     *
+     * @param directory directory holding the journal segments
+     * @param policy when appended records are forced to disk
+     * @param groupCommitMillis flush interval in milliseconds, used only with {@link FsyncPolicy#GROUP_COMMIT}
+     * @throws IOException if the newest segment cannot be opened
+     */
+    public Journal(Path directory, FsyncPolicy policy, long groupCommitMillis) throws IOException {
+        this(directory, policy, groupCommitMillis, BankLogger.console());
+    }
+
+    /**
+     * Opens (or creates) a journal, appending to its newest segment.
+     *
+     * @param directory directory holding the journal segments
+     * @param policy when appended records are forced to disk
+     * @param groupCommitMillis flush interval in milliseconds, used only with {@link FsyncPolicy#GROUP_COMMIT}
+     * @param logger receives failures of the background flush
+     * @throws IOException if the newest segment cannot be opened
+     */
+    public Journal(Path directory, FsyncPolicy policy, long groupCommitMillis, BankLogger logger) throws IOException {
+        this.directory = directory;
+        this.logger = logger;
+        List<Long> segments = segmentBases();
+        this.channel = openSegment(segments.isEmpty() ? 0 : segments.get(segments.size() - 1));
+        this.position = channel.size();
+        this.policy = policy;
+        if (policy == FsyncPolicy.GROUP_COMMIT) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushIfDirty, groupCommitMillis, groupCommitMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Appends one record to the end of the journal and applies the fsync policy.
+     *
+     * @param sequence sequence number of the transaction
+     * @param type type of transaction
+     * @param accountNumber account the transaction applies to
+     * @param targetAccountNumber receiving account of a transfer, or null
+     * @param amount monetary amount of the transaction
+     * @param timestamp time the transaction was created
+     * @throws IOException if the record cannot be written or forced, or the journal failed earlier
+     */
+    public void append(long sequence, TransactionType type, String accountNumber,
+                       String targetAccountNumber, double amount, LocalDateTime timestamp) throws IOException {
+        long end;
+        synchronized (this) {
+            checkUsable();
+            try {
+                write(sequence, type, accountNumber, targetAccountNumber, amount, timestamp, false);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+            end = appended;
+        }
+        if (policy == FsyncPolicy.PER_OPERATION) {
+            forceThrough(end, false);
+        }
+    }
+
+    /**
+     * Appends one record without applying the fsync policy. Used when a batch of
+     * records is made durable together by a single {@link #force()}; until then the
+     * record may still be held in memory.
+     *
+     * @param sequence sequence number of the transaction
+     * @param type type of transaction
+     * @param accountNumber account the transaction applies to
+     * @param targetAccountNumber receiving account of a transfer, or null
+     * @param amount monetary amount of the transaction
+     * @param timestamp time the transaction was created
+     * @throws IOException if the buffered records cannot be written, or the journal failed earlier
+     */
+    public synchronized void appendBatched(long sequence, TransactionType type, String accountNumber,
+                                           String targetAccountNumber, double amount, LocalDateTime timestamp) throws IOException {
+        checkUsable();
+        try {
+            write(sequence, type, accountNumber, targetAccountNumber, amount, timestamp, true);
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the creation of an account and applies the fsync policy. The record is
+     * followed by continuation records holding the owner name and account type, so its
+     * size depends only on their length.
+     *
+     * @param sequence sequence number of the last transaction issued before the account was created
+     * @param account the new account, holding its initial balance
+     * @param timestamp time the account was created
+     * @return the number of bytes appended
+     * @throws IOException if the records cannot be written or forced, or the journal failed earlier
+     */
+    public int appendAccount(long sequence, Account account, LocalDateTime timestamp) throws IOException {
+        byte[] owner = account.getOwnerName() == null ? new byte[0] : account.getOwnerName().getBytes(StandardCharsets.UTF_8);
+        byte[] type = account.getAcountType() == null ? new byte[0] : account.getAcountType().getBytes(StandardCharsets.UTF_8);
+        byte[] details = ByteBuffer.allocate(Integer.BYTES + owner.length + type.length)
+                .putInt(owner.length).put(owner).put(type).array();
+        int continuations = (details.length + DETAILS_SIZE - 1) / DETAILS_SIZE;
+        ByteBuffer records = ByteBuffer.allocate((1 + continuations) * RECORD_SIZE);
+        records.putLong(0, sequence);
+        records.putLong(8, toEpochNanos(timestamp));
+        records.putLong(16, Double.doubleToLongBits(account.getBalance()));
+        records.put(TYPE_OFFSET, ACCOUNT_CREATED);
+        byte[] number = account.getAccountNumber().getBytes(StandardCharsets.UTF_8);
+        if (number.length > MAX_ACCOUNT_NUMBER_LENGTH) {
+            throw new IllegalArgumentException("Account number too long for journal: " + account.getAccountNumber());
+        }
+        records.put(25, (byte) number.length);
+        records.put(26, number);
+        records.putInt(42, details.length);
+        for (int i = 0; i < continuations; i++) {
+            int base = (i + 1) * RECORD_SIZE;
+            records.put(base + TYPE_OFFSET, CONTINUATION);
+            records.put(base + DETAILS_OFFSET, details, i * DETAILS_SIZE, Math.min(DETAILS_SIZE, details.length - i * DETAILS_SIZE));
+        }
+        for (int base = 0; base < records.capacity(); base += RECORD_SIZE) {
+            ByteBuffer record = records.slice(base, RECORD_SIZE);
+            record.putInt(CRC_OFFSET, checksum(record));
+        }
+        long end;
+        synchronized (this) {
+            checkUsable();
+            try {
+                flushPending();
+                writeFully(records, position);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+            position += records.capacity();
+            appended += records.capacity();
+            dirty = true;
+            end = appended;
+        }
+        if (policy == FsyncPolicy.PER_OPERATION) {
+            forceThrough(end, false);
+        }
+        return records.capacity();
+    }
+
+    /**
+     * Starts an atomic batch: records appended until {@link #commitBatch()} are replayed
+     * only if the commit reached the disk. The caller must keep every other writer out
+     * until the batch is committed.
+     */
+    public synchronized void beginBatch() {
+        batchOpen = true;
+        batchRecords = 0;
+    }
+
+    /**
+     * Commits the open batch by clearing the open flag of its last record, and forces
+     * the batch to disk.
+     *
+     * @throws IOException if the batch cannot be written or forced, or the journal failed earlier
+     */
+    public void commitBatch() throws IOException {
+        long end;
+        synchronized (this) {
+            try {
+                checkUsable();
+                if (batchOpen && batchRecords > 0) {
+                    buffer.put(FLAG_OFFSET, (byte) 0);
+                    buffer.putInt(CRC_OFFSET, checksum(buffer));
+                    buffer.rewind();
+                    if (pending.position() >= RECORD_SIZE) {
+                        pending.put(pending.position() - RECORD_SIZE, buffer, 0, RECORD_SIZE);
+                    } else {
+                        writeFully(buffer, position - RECORD_SIZE);
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            } finally {
+                batchOpen = false;
+            }
+            end = appended;
+        }
+        dirty = false;
+        forceThrough(end, true); // the last record was rewritten in place, so it may have to be forced again
+    }
+
+    /**
+     * Forces every appended record to disk, regardless of the fsync policy.
+     *
+     * @throws IOException if the records cannot be forced, or the journal failed earlier
+     */
+    public void force() throws IOException {
+        checkUsable();
+        dirty = false;
+        long end;
+        synchronized (this) {
+            end = appended;
+        }
+        forceThrough(end, false);
+    }
+
+    /**
+     * Reads every intact record, segment by segment in the order they were written, and
+     * passes it to the consumer. Reading a segment stops at its first torn or corrupt record,
+     * which is truncated away so that subsequent appends follow the last good record. The
+     * records of a batch that was never committed are truncated away with it.
+     *
+     * @param consumer receives each record in the order it was written
+     * @return the number of records replayed
+     * @throws IOException if the journal cannot be read
+     */
+    public synchronized long replay(Consumer<Entry> consumer) throws IOException {
+        long count = 0;
+        Path legacy = directory.resolve(LEGACY_FILE);
+        if (Files.exists(legacy)) {
+            try (FileChannel segment = FileChannel.open(legacy, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                count += replaySegment(segment, consumer);
+            }
+        }
+        for (long base : segmentBases()) {
+            FileChannel current = channel;
+            if (segmentPath(base).equals(currentSegment)) {
+                count += replaySegment(current, consumer);
+                position = current.size();
+            } else {
+                try (FileChannel segment = FileChannel.open(segmentPath(base), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    count += replaySegment(segment, consumer);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Forces the current segment and starts a new one for subsequent appends. Called by a
+     * checkpoint while writers are paused, so that every record in the older segments is
+     * covered by that checkpoint.
+     *
+     * @param checkpointSequence sequence number covered by the checkpoint; names the new segment
+     * @throws IOException if the new segment cannot be created, or the journal failed earlier
+     */
+    public synchronized void rotate(long checkpointSequence) throws IOException {
+        checkUsable();
+        if (segmentPath(checkpointSequence).equals(currentSegment)) {
+            return;
+        }
+        flushPending();
+        FileChannel previous = channel;
+        previous.force(false);
+        channel = openSegment(checkpointSequence);
+        position = channel.size();
+        previous.close();
+    }
+
+    /**
+     * Deletes every segment older than the current one, together with a journal.dat
+     * written by earlier versions. Called once the checkpoint that covers them is on disk.
+     *
+     * @throws IOException if a segment cannot be deleted
+     */
+    public synchronized void deleteCoveredSegments() throws IOException {
+        Files.deleteIfExists(directory.resolve(LEGACY_FILE));
+        for (long base : segmentBases()) {
+            Path segment = segmentPath(base);
+            if (!segment.equals(currentSegment)) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    /**
+     * Forces outstanding records to disk and closes the journal.
+     *
+     * @throws IOException if the journal cannot be closed cleanly
+     */
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        if (channel.isOpen()) {
+            try {
+                force();
+            } finally {
+                closed = true;
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Returns once the first {@code end} bytes appended are on disk. The first caller to find
+     * them missing forces everything written so far; callers queued behind it usually find
+     * their records covered by that force and return without one of their own.
+     *
+     * @param end number of appended bytes that must be durable
+     * @param always force even if those bytes were forced before, because one was rewritten
+     */
+    private void forceThrough(long end, boolean always) throws IOException {
+        if (!always && forced >= end) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (!always && forced >= end) {
+                return;
+            }
+            FileChannel forcing;
+            long through;
+            synchronized (this) {
+                checkUsable();
+                try {
+                    flushPending();
+                } catch (IOException e) {
+                    failure = e;
+                    throw e;
+                }
+                forcing = channel;
+                through = appended;
+            }
+            try {
+                forcing.force(false);
+            } catch (ClosedChannelException e) {
+                if (forcing == channel && !closed) {
+                    failure = e; // e.g. closed by an interrupt, so the records may not be on disk
+                    throw e;
+                }
+                // the segment was rotated out, which forced it, or the journal was closed
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+            forced = through;
+        }
+    }
+
+    private void checkUsable() throws IOException {
+        IOException failed = failure;
+        if (failed != null) {
+            throw new IOException("Journal failed earlier: " + failed.getMessage(), failed);
+        }
+    }
+
+    private void write(long sequence, TransactionType type, String accountNumber, String targetAccountNumber,
+                       double amount, LocalDateTime timestamp, boolean buffered) throws IOException {
+        buffer.clear();
+        buffer.putLong(sequence);
+        buffer.putLong(toEpochNanos(timestamp));
+        buffer.putLong(Double.doubleToLongBits(amount));
+        buffer.put((byte) type.ordinal());
+        putAccountNumber(accountNumber);
+        putAccountNumber(targetAccountNumber);
+        buffer.put(batchOpen ? OPEN_BATCH : 0);
+        buffer.flip();
+        buffer.limit(RECORD_SIZE);
+        buffer.putInt(CRC_OFFSET, checksum(buffer));
+        buffer.rewind();
+        if (buffered) {
+            if (!pending.hasRemaining()) {
+                flushPending();
+            }
+            pending.put(buffer);
+        } else {
+            flushPending();
+            writeFully(buffer, position);
+        }
+        position += RECORD_SIZE;
+        appended += RECORD_SIZE;
+        if (batchOpen) {
+            batchRecords++;
+        }
+        dirty = true;
+    }
+
+    private int checksum(ByteBuffer record) {
+        crc.reset();
+        crc.update(record.duplicate().position(0).limit(CRC_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    /** Writes the buffered records, which end at {@code position}. */
+    private void flushPending() throws IOException {
+        if (pending.position() == 0) {
+            return;
+        }
+        pending.flip();
+        writeFully(pending, position - pending.remaining());
+        pending.clear();
+    }
+
+    private void writeFully(ByteBuffer source, long offset) throws IOException {
+        while (source.hasRemaining()) {
+            offset += channel.write(source, offset);
+        }
+    }
+
+    private long replaySegment(FileChannel segment, Consumer<Entry> consumer) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        long offset = 0;
+        long count = 0;
+        long size = segment.size();
+        List<Entry> openBatch = new ArrayList<>();
+        long openBatchOffset = 0;
+        while (offset + RECORD_SIZE <= size) {
+            record.clear();
+            while (record.hasRemaining()) {
+                if (segment.read(record, offset + record.position()) < 0) {
+                    break;
+                }
+            }
+            if (!isIntact(record)) {
+                break;
+            }
+            if (record.get(TYPE_OFFSET) == ACCOUNT_CREATED) {
+                Entry entry = readAccount(segment, offset, size, record);
+                if (entry == null) {
+                    break; // the continuation records were torn off
+                }
+                consumer.accept(entry);
+                count++;
+                offset += RECORD_SIZE * (1 + continuations(record));
+                continue;
+            }
+            if (record.get(TYPE_OFFSET) == CONTINUATION) {
+                break;
+            }
+            Entry entry = decode(record);
+            if (record.get(FLAG_OFFSET) == OPEN_BATCH) {
+                if (openBatch.isEmpty()) {
+                    openBatchOffset = offset;
+                }
+                openBatch.add(entry);
+            } else {
+                openBatch.forEach(consumer);
+                count += openBatch.size();
+                openBatch.clear();
+                consumer.accept(entry);
+                count++;
+            }
+            offset += RECORD_SIZE;
+        }
+        if (!openBatch.isEmpty()) {
+            offset = openBatchOffset; // the batch was never committed
+        }
+        if (offset < size) {
+            segment.truncate(offset);
+        }
+        return count;
+    }
+
+    private boolean isIntact(ByteBuffer record) {
+        crc.reset();
+        crc.update(record.array(), 0, CRC_OFFSET);
+        return (int) crc.getValue() == record.getInt(CRC_OFFSET);
+    }
+
+    private static int continuations(ByteBuffer head) {
+        return (head.getInt(42) + DETAILS_SIZE - 1) / DETAILS_SIZE;
+    }
+
+    /**
+     * Reads the continuation records of an account creation.
+     *
+     * @return the creation, or null if a continuation record is missing or corrupt
+     */
+    private Entry readAccount(FileChannel segment, long offset, long size, ByteBuffer head) throws IOException {
+        int length = head.getInt(42);
+        if (length < Integer.BYTES || offset + RECORD_SIZE * (1L + continuations(head)) > size) {
+            return null;
+        }
+        ByteBuffer details = ByteBuffer.allocate(length);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        for (long next = offset + RECORD_SIZE; details.hasRemaining(); next += RECORD_SIZE) {
+            record.clear();
+            while (record.hasRemaining() && segment.read(record, next + record.position()) >= 0) {
+                // read the whole record
+            }
+            if (record.hasRemaining() || !isIntact(record) || record.get(TYPE_OFFSET) != CONTINUATION) {
+                return null;
+            }
+            details.put(record.array(), DETAILS_OFFSET, Math.min(DETAILS_SIZE, details.remaining()));
+        }
+        int ownerLength = details.getInt(0);
+        if (ownerLength < 0 || ownerLength > length - Integer.BYTES) {
+            return null;
+        }
+        String owner = new String(details.array(), Integer.BYTES, ownerLength, StandardCharsets.UTF_8);
+        String type = new String(details.array(), Integer.BYTES + ownerLength, length - Integer.BYTES - ownerLength,
+                StandardCharsets.UTF_8);
+        return new Entry(head.getLong(0), getAccountNumber(head, 25), owner, type,
+                Double.longBitsToDouble(head.getLong(16)), fromEpochNanos(head.getLong(8)));
+    }
+
+    private FileChannel openSegment(long base) throws IOException {
+        currentSegment = segmentPath(base);
+        return FileChannel.open(currentSegment, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private Path segmentPath(long base) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, base, SEGMENT_SUFFIX));
+    }
+
+    private List<Long> segmentBases() throws IOException {
+        List<Long> bases = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : stream) {
+                String name = segment.getFileName().toString();
+                bases.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        bases.sort(null);
+        return bases;
+    }
+
+    private void flushIfDirty() {
+        if (dirty && channel.isOpen()) {
+            try {
+                force();
+            } catch (IOException e) {
+                logger.log("Error flushing journal " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Tells whether an account number fits into a record, i.e. is at most
+     * {@value #MAX_ACCOUNT_NUMBER_LENGTH} bytes long in UTF-8.
+     *
+     * @param accountNumber the account number
+     * @return true if it can be journaled
+     */
+    public static boolean fitsAccountNumber(String accountNumber) {
+        return accountNumber.length() <= MAX_ACCOUNT_NUMBER_LENGTH
+                && accountNumber.getBytes(StandardCharsets.UTF_8).length <= MAX_ACCOUNT_NUMBER_LENGTH;
+    }
+
+    private void putAccountNumber(String accountNumber) {
+        byte[] bytes = accountNumber == null ? new byte[0] : accountNumber.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_ACCOUNT_NUMBER_LENGTH) {
+            throw new IllegalArgumentException("Account number too long for journal: " + accountNumber);
+        }
+        buffer.put((byte) bytes.length);
+        buffer.put(bytes);
+        buffer.position(buffer.position() + MAX_ACCOUNT_NUMBER_LENGTH - bytes.length);
+    }
+
+    private static String getAccountNumber(ByteBuffer record, int offset) {
+        int length = record.get(offset);
+        return length == 0 ? null : new String(record.array(), offset + 1, length, StandardCharsets.UTF_8);
+    }
+
+    private static Entry decode(ByteBuffer record) {
+        long sequence = record.getLong(0);
+        long nanos = record.getLong(8);
+        double amount = Double.longBitsToDouble(record.getLong(16));
+        TransactionType type = TYPES[record.get(24)];
+        String account = getAccountNumber(record, 25);
+        String target = getAccountNumber(record, 42);
+        return new Entry(sequence, type, account, target, amount, fromEpochNanos(nanos));
+    }
+
+    static long toEpochNanos(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + timestamp.getNano();
+    }
+
+    static LocalDateTime fromEpochNanos(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    /**
+     * A single mutation read back from the journal.
+     * @see Journal#replay(Consumer)
+     */
+    public static final class Entry {
+
+        private final long sequence;
+        private final TransactionType type;
+        private final String accountNumber;
+        private final String targetAccountNumber;
+        private final double amount;
+        private final LocalDateTime timestamp;
+        private final String ownerName;
+        private final String accountType;
+
+        Entry(long sequence, TransactionType type, String accountNumber, String targetAccountNumber,
+              double amount, LocalDateTime timestamp) {
+            this.sequence = sequence;
+            this.type = type;
+            this.accountNumber = accountNumber;
+            this.targetAccountNumber = targetAccountNumber;
+            this.amount = amount;
+            this.timestamp = timestamp;
+            this.ownerName = null;
+            this.accountType = null;
+        }
+
+        Entry(long sequence, String accountNumber, String ownerName, String accountType, double initialBalance,
+              LocalDateTime timestamp) {
+            this.sequence = sequence;
+            this.type = null;
+            this.accountNumber = accountNumber;
+            this.targetAccountNumber = null;
+            this.amount = initialBalance;
+            this.timestamp = timestamp;
+            this.ownerName = ownerName;
+            this.accountType = accountType;
+        }
+
+        /**
+         * Tells whether the record creates an account rather than recording a transaction.
+         * Its sequence number is then that of the last transaction issued before it, and its
+         * amount the account's initial balance.
+         *
+         * @return true for an account creation
+         */
+        public boolean isAccountCreation() {
+            return type == null;
+        }
+
+        /**
+         * Gets the owner of a created account.
+         *
+         * @return the ownerName, or null for transactions
+         */
+        public String getOwnerName() {
+            return ownerName;
+        }
+
+        /**
+         * Gets the type of a created account.
+         *
+         * @return the accountType, or null for transactions
+         */
+        public String getAccountType() {
+            return accountType;
+        }
+
+        /**
+         * Gets the sequence number of the transaction.
+         *
+         * @return the sequence
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Gets the transaction type.
+         *
+         * @return the type, or null for an account creation
+         */
+        public TransactionType getType() {
+            return type;
+        }
+
+        /**
+         * Gets the account the transaction applies to.
+         *
+         * @return the accountNumber
+         */
+        public String getAccountNumber() {
+            return accountNumber;
+        }
+
+        /**
+         * Gets the receiving account of a transfer.
+         *
+         * @return the targetAccountNumber, or null for deposits and withdrawals
+         */
+        public String getTargetAccountNumber() {
+            return targetAccountNumber;
+        }
+
+        /**
+         * Gets the transaction amount.
+         *
+         * @return the amount
+         */
+        public double getAmount() {
+            return amount;
+        }
+
+        /**
+         * Gets the time the transaction was created.
+         *
+         * @return the timestamp
+         */
+        public LocalDateTime getTimestamp() {
+            return timestamp;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalTest {
+
+	@TempDir
+	Path dataDirectory;
+
+	private Bank openBank() {
+		return new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.PER_OPERATION, BankLogger.quiet());
+	}
+
+	@Test
+	void testUnjournaledOperationIsUndoneAndLaterOnesFail() {
+		Bank bank = openBank();
+		bank.createAccount("1000001", "Alice", "Checking", 100);
+		bank.createAccount("1000002", "Bob", "Checking", 0);
+		assertTrue(bank.depositToAccount("1000001", 50).isSuccessful());
+
+		Thread.currentThread().interrupt(); // an interrupted write closes the journal's channel
+		try {
+			assertThrows(UncheckedIOException.class, () -> bank.transferBetweenAccounts("1000001", "1000002", 25));
+		} finally {
+			Thread.interrupted();
+		}
+		assertEquals(150, bank.findAccountByNumber("1000001").getBalance(), 0.001);
+		assertEquals(0, bank.findAccountByNumber("1000002").getBalance(), 0.001);
+		assertThrows(UncheckedIOException.class, () -> bank.depositToAccount("1000002", 10));
+		assertEquals(0, bank.findAccountByNumber("1000002").getBalance(), 0.001);
+		assertEquals(1, bank.getStatement("1000001", null, null).size());
+		assertFalse(bank.saveAccountsToFile());
+		bank.close();
+
+		Bank reopened = openBank();
+		assertEquals(150, reopened.findAccountByNumber("1000001").getBalance(), 0.001);
+		assertEquals(1, reopened.getTransactionCount());
+		assertTrue(reopened.transferBetweenAccounts("1000001", "1000002", 25).isSuccessful());
+		assertEquals(2, reopened.getStatement("1000001", null, null).size());
+		reopened.close();
+	}
+
+	@Test
+	void testCreatedAccountsAreReplayedWithoutCheckpoint() throws IOException {
+		Bank bank = openBank();
+		String owner = "Alice " + "Longname-".repeat(10);
+		assertTrue(bank.createAccount("1000001", owner, "Checking", 100));
+		assertTrue(bank.createAccount("1000002", "Bob", "Savings", 0));
+		assertTrue(bank.transferBetweenAccounts("1000001", "1000002", 40).isSuccessful());
+		assertTrue(bank.createAccount("1000003", owner, "Savings", 5));
+		assertFalse(Files.exists(dataDirectory.resolve("snapshot.dat")));
+		Path segment = dataDirectory.resolve("journal-00000000000000000000.dat");
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 10); // the last creation is torn, as if the process crashed
+		}
+
+		Bank reopened = openBank();
+		Account alice = reopened.findAccountByNumber("1000001");
+		assertEquals(owner, alice.getOwnerName());
+		assertEquals("Checking", alice.getAcountType());
+		assertEquals(60, alice.getBalance(), 0.001);
+		assertEquals(40, reopened.findAccountByNumber("1000002").getBalance(), 0.001);
+		assertNull(reopened.findAccountByNumber("1000003"));
+		assertEquals(1, reopened.getTransactionCount());
+		assertFalse(reopened.createAccount("1000002", "Bob", "Savings", 0));
+		assertTrue(reopened.createAccount("1000003", "Carol", "Savings", 5));
+		reopened.close();
+
+		Bank checkpointed = openBank();
+		assertEquals("Carol", checkpointed.findAccountByNumber("1000003").getOwnerName());
+		assertEquals(3, checkpointed.findAccountsByType("Savings").size() + checkpointed.findAccountsByType("Checking").size());
+		checkpointed.close();
+	}
+
+	@Test
+	void testAccountNumberIsLimitedInBytes() {
+		Bank bank = openBank();
+
+		assertFalse(bank.createAccount("\u00e9".repeat(9), "Alice", "Checking", 100)); // 9 chars, 18 bytes
+		assertTrue(bank.createAccount("\u00e9".repeat(8), "Bob", "Checking", 100));
+
+		assertEquals(1, bank.getMetrics().getCounters().get("create_account.invalid_account_number"));
+		assertEquals(100, bank.findAccountByNumber("\u00e9".repeat(8)).getBalance(), 0.001);
+		bank.close();
+	}
+
+	@Test
+	void testAccountRefusedByTheStoreIsSkippedOnReplay() {
+		Bank bank = new Bank(new ColumnarAccountStore(16), dataDirectory, FsyncPolicy.PER_OPERATION, BankLogger.quiet());
+		assertTrue(bank.createAccount("1000001", "Alice", "Checking", 100));
+		assertThrows(IllegalArgumentException.class, () -> bank.createAccount("12AB", "Bob", "Checking", 0));
+		assertTrue(bank.depositToAccount("1000001", 5).isSuccessful());
+
+		// reopened without a checkpoint, as after a crash, so the refused creation is replayed
+		Bank reopened = new Bank(new ColumnarAccountStore(16), dataDirectory, FsyncPolicy.PER_OPERATION, BankLogger.quiet());
+		assertEquals(105, reopened.findAccountByNumber("1000001").getBalance(), 0.001);
+		assertEquals(1, reopened.findAccountsByType("Checking").size());
+		reopened.close();
+	}
+}
@@ -0,0 +1,699 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Memory-mapped transaction history made of fixed-width binary records.
+ * The file is mapped region by region, on first access, so opening a ledger costs the
+ * same regardless of its length and history is read in place rather than materialised
+ * on the heap; a Transaction object is only created when a record is requested through
+ * {@link #get(long)} or {@link #stream()}.
+ * <p>
+ * File layout: a {@value #HEADER_SIZE}-byte header (magic, version, record size,
+ * record count, archived record count) followed by {@value #RECORD_SIZE}-byte records,
+ * big-endian:
+ * <pre>
+ *  0  long  sequence number
+ *  8  long  timestamp (UTC epoch nanoseconds)
+ * 16  long  amount in minor units
+ * 24  byte  transaction type ordinal
+ * 25  byte  account number length, followed by 16 bytes of account number
+ * 42  byte  target account number length, followed by 16 bytes of target account number
+ * 59  -     reserved
+ * </pre>
+ * The target account of a transfer is recorded since version 3; earlier records have an
+ * empty target.
+ * Writes go to the mapping and reach the disk when the operating system flushes the
+ * pages or on {@link #force()}; the Bank forces the ledger at every checkpoint and relies
+ * on its Journal for anything newer.
+ * <p>
+ * Full regions that a checkpoint covers can be {@linkplain #archive(long) archived}: they
+ * move to read-only segment files in an {@code archive} directory next to the ledger and
+ * the live file only keeps the records after them. Record indexes are unaffected.
+ * <p>
+ * Every record is also entered into an {@link AccountIndex} for its account and, for a
+ * transfer, its target account, together with each account's balance afterwards. It lets
+ * {@link #statement(String, LocalDateTime, LocalDateTime)} and account queries touch only
+ * that account's records, and can be {@linkplain #rebuildAccountIndex(Function) rebuilt}
+ * from the records if it is lost.
+ * @see Bank
+ * @see Journal
+ */
+public class Ledger implements Closeable {
+
+    /** Size in bytes of the file header */
+    public static final int HEADER_SIZE = 64;
+    /** Size in bytes of a single ledger record */
+    public static final int RECORD_SIZE = 64;
+
+    private static final int MAGIC = 0x42414E4B; // "BANK"
+    private static final int VERSION = 3;
+    private static final int COUNT_OFFSET = 16;
+    private static final int ARCHIVED_OFFSET = 24;
+    private static final int REGION_SHIFT = 16;
+    private static final int REGION_RECORDS = 1 << REGION_SHIFT;
+    private static final int REGION_MASK = REGION_RECORDS - 1;
+    private static final long REGION_BYTES = (long) REGION_RECORDS * RECORD_SIZE;
+    private static final int ACCOUNT_OFFSET = 25;
+    private static final int TARGET_OFFSET = 42;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final Path file;
+    private final Path archiveDirectory;
+    private volatile Layout layout;
+    private volatile MappedByteBuffer[] archivedRegions = new MappedByteBuffer[0];
+    private volatile long count;
+    private long forcedCount;
+    private LedgerIndex timeIndex;
+    private final AccountIndex accountIndex;
+
+    /**
+     * Opens (or creates) a ledger file. Regions are mapped when they are first used.
+     *
+     * @param file path of the ledger file
+     * @throws IOException if the file cannot be opened or is not a ledger
+     */
+    public Ledger(Path file) throws IOException {
+        this.file = file;
+        this.archiveDirectory = file.resolveSibling("archive");
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = channel.size() == 0;
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        int version = header.getInt(4);
+        if (created) {
+            header.putInt(0, MAGIC);
+            header.putInt(8, RECORD_SIZE);
+            header.putLong(COUNT_OFFSET, 0);
+            header.putLong(ARCHIVED_OFFSET, 0);
+        } else if (header.getInt(0) != MAGIC || version < 1 || version > VERSION || header.getInt(8) != RECORD_SIZE) {
+            channel.close();
+            throw new IOException("Not a version " + VERSION + " ledger file: " + file);
+        } else if (version == 1) {
+            header.putLong(ARCHIVED_OFFSET, 0); // version 1 had no archive
+        }
+        header.putInt(4, VERSION);
+        count = header.getLong(COUNT_OFFSET);
+        forcedCount = count;
+        layout = new Layout(channel, header, header.getLong(ARCHIVED_OFFSET));
+        accountIndex = new AccountIndex(file.resolveSibling("account-index.dat"), file.resolveSibling("account-heads.dat"));
+        if (accountIndex.coveredRecords() > count) {
+            accountIndex.invalidate();
+        }
+    }
+
+    /**
+     * Appends one record and enters it into the account index.
+     *
+     * @param sequence sequence number of the transaction
+     * @param type type of transaction
+     * @param accountNumber account the transaction applies to
+     * @param targetAccountNumber receiving account of a transfer, or null
+     * @param amountMinor monetary amount in minor units
+     * @param epochNanos time the transaction was created, in UTC epoch nanoseconds
+     * @param balanceMinor balance of the account after the transaction, in minor units
+     * @param targetBalanceMinor balance of the receiving account after a transfer, in minor units
+     * @return the index of the new record
+     * @throws IOException if the file cannot be extended
+     */
+    public synchronized long append(long sequence, TransactionType type, String accountNumber, String targetAccountNumber,
+                                    long amountMinor, long epochNanos, long balanceMinor, long targetBalanceMinor)
+            throws IOException {
+        long index = write(sequence, type, accountNumber, targetAccountNumber, amountMinor, epochNanos);
+        if (accountIndex.isValid()) {
+            if (accountNumber.equals(targetAccountNumber)) {
+                balanceMinor = targetBalanceMinor - amountMinor; // between the two sides of a transfer to itself
+            }
+            accountIndex.add(index, accountNumber, balanceMinor, false);
+            if (targetAccountNumber != null) {
+                accountIndex.add(index, targetAccountNumber, targetBalanceMinor, true);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Appends an existing Transaction, e.g. when importing a legacy transactions.dat.
+     * Its balances are unknown, so the account index has to be
+     * {@linkplain #rebuildAccountIndex(Function) rebuilt} afterwards.
+     *
+     * @param sequence sequence number to record
+     * @param txn the transaction to copy
+     * @return the index of the new record
+     * @throws IOException if the file cannot be extended
+     */
+    public synchronized long append(long sequence, Transaction txn) throws IOException {
+        accountIndex.invalidate();
+        return write(sequence, txn.getType(), txn.getAccountNumber(), txn.getTargetAccountNumber(),
+                Money.toMinorUnits(txn.getAmount()), Journal.toEpochNanos(txn.getTimestamp()));
+    }
+
+    private long write(long sequence, TransactionType type, String accountNumber, String targetAccountNumber,
+                       long amountMinor, long epochNanos) throws IOException {
+        byte[] account = accountBytes(accountNumber);
+        byte[] target = targetAccountNumber == null ? new byte[0] : accountBytes(targetAccountNumber);
+        long index = count;
+        Layout current = layout;
+        ByteBuffer region = current.region(index);
+        int base = (int) (index & REGION_MASK) * RECORD_SIZE;
+        region.putLong(base, sequence);
+        region.putLong(base + 8, epochNanos);
+        region.putLong(base + 16, amountMinor);
+        region.put(base + 24, (byte) type.ordinal());
+        region.put(base + ACCOUNT_OFFSET, (byte) account.length);
+        region.put(base + ACCOUNT_OFFSET + 1, account);
+        region.put(base + TARGET_OFFSET, (byte) target.length);
+        region.put(base + TARGET_OFFSET + 1, target);
+        if (timeIndex != null) {
+            timeIndex.add(index, epochNanos);
+        }
+        count = index + 1;
+        current.header.putLong(COUNT_OFFSET, count);
+        return index;
+    }
+
+    private static byte[] accountBytes(String accountNumber) {
+        byte[] bytes = accountNumber.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Journal.MAX_ACCOUNT_NUMBER_LENGTH) {
+            throw new IllegalArgumentException("Account number too long for ledger: " + accountNumber);
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets the number of records, including archived ones.
+     *
+     * @return the record count
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Gets the number of records moved to the archive.
+     *
+     * @return the archived record count
+     * @see #archive(long)
+     */
+    public long archivedSize() {
+        return layout.archived;
+    }
+
+    /**
+     * Reads a record as a Transaction.
+     *
+     * @param index the record index, from 0 to {@link #size()} - 1
+     * @return a new Transaction holding the record's values
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Transaction get(long index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Ledger index " + index + " of " + count);
+        }
+        ByteBuffer region = region(index);
+        int base = (int) (index & REGION_MASK) * RECORD_SIZE;
+        return new Transaction("TXN" + region.getLong(base), accountNumber(region, base + ACCOUNT_OFFSET),
+                accountNumber(region, base + TARGET_OFFSET), Money.toDouble(region.getLong(base + 16)),
+                TYPES[region.get(base + 24)], Journal.fromEpochNanos(region.getLong(base + 8)));
+    }
+
+    /**
+     * Gets the sequence number of a record without creating a Transaction.
+     *
+     * @param index the record index, from 0 to {@link #size()} - 1
+     * @return the sequence number
+     */
+    public long sequenceAt(long index) {
+        return region(index).getLong((int) (index & REGION_MASK) * RECORD_SIZE);
+    }
+
+    /**
+     * Gets the amount of a record, in minor units, without creating a Transaction.
+     *
+     * @param index the record index, from 0 to {@link #size()} - 1
+     * @return the amount
+     */
+    long amountAt(long index) {
+        return region(index).getLong((int) (index & REGION_MASK) * RECORD_SIZE + 16);
+    }
+
+    /**
+     * Gets the timestamp of a record without creating a Transaction.
+     *
+     * @param index the record index, from 0 to {@link #size()} - 1
+     * @return the timestamp in UTC epoch nanoseconds
+     */
+    long epochNanosAt(long index) {
+        return region(index).getLong((int) (index & REGION_MASK) * RECORD_SIZE + 8);
+    }
+
+    /**
+     * Gets the type of a record without creating a Transaction.
+     *
+     * @param index the record index, from 0 to {@link #size()} - 1
+     * @return the transaction type
+     */
+    TransactionType typeAt(long index) {
+        return TYPES[region(index).get((int) (index & REGION_MASK) * RECORD_SIZE + 24)];
+    }
+
+    /**
+     * Gets the account of a record without creating a Transaction.
+     *
+     * @param index the record index, from 0 to {@link #size()} - 1
+     * @param target true for the receiving account of a transfer
+     * @return the account number, or null if a target is requested and the record has none
+     */
+    String accountAt(long index, boolean target) {
+        return accountNumber(region(index), (int) (index & REGION_MASK) * RECORD_SIZE + (target ? TARGET_OFFSET : ACCOUNT_OFFSET));
+    }
+
+    /**
+     * Gets the balance every account had before its first record below {@code end}: the
+     * balance the account index holds for that record, less the record's movement. The
+     * first entries of all accounts are found in one parallel pass over the index.
+     *
+     * @param end the number of records to consider
+     * @return opening balances in minor units, keyed by account number
+     */
+    Map<String, Long> openingBalances(long end) {
+        AccountIndex accounts = accountIndex();
+        return LongStream.range(0, accounts.size()).parallel()
+                .filter(entry -> accounts.previous(entry) == AccountIndex.NONE && accounts.ledgerIndex(entry) < end)
+                .boxed()
+                .collect(Collectors.toConcurrentMap(
+                        entry -> accountAt(accounts.ledgerIndex(entry), accounts.isReceiving(entry)),
+                        entry -> {
+                            long index = accounts.ledgerIndex(entry);
+                            boolean credit = accounts.isReceiving(entry) || typeAt(index) == TransactionType.DEPOSIT;
+                            return accounts.balance(entry) - (credit ? amountAt(index) : -amountAt(index));
+                        },
+                        (first, second) -> first));
+    }
+
+    /**
+     * Returns a lazy, sequential stream over the records present when the stream is created.
+     * Records are decoded one at a time as the stream is consumed.
+     *
+     * @return a stream of transactions in ledger order
+     */
+    public Stream<Transaction> stream() {
+        long end = count;
+        Spliterator<Transaction> spliterator = new Spliterators.AbstractSpliterator<>(end,
+                Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE) {
+            private long next;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Transaction> action) {
+                if (next >= end) {
+                    return false;
+                }
+                action.accept(get(next++));
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * Returns the indexes of the records matching a query's account, type, time range and
+     * cursor, in the query's order. Offset and limit are not applied. A query on one account
+     * follows that account's chain in the {@link AccountIndex}, so it only visits the records
+     * the account took part in, including transfers it received. The time index is built in
+     * one pass on the first time-range query and kept current by later appends.
+     *
+     * @param query the criteria
+     * @return a lazy stream of matching record indexes
+     * @see #query(TransactionQuery)
+     */
+    public LongStream select(TransactionQuery query) {
+        boolean descending = query.isNewestFirst();
+        boolean resuming = query.getCursor() >= 0;
+        long start = resuming && !descending ? query.getCursor() + 1 : 0;
+        long end = resuming && descending ? Math.min(count, query.getCursor()) : count;
+        long fromNanos = query.getFrom() == null ? Long.MIN_VALUE : Journal.toEpochNanos(query.getFrom());
+        long toNanos = query.getTo() == null ? Long.MAX_VALUE : Journal.toEpochNanos(query.getTo());
+        LongStream candidates;
+        if (query.getAccountNumber() != null) {
+            candidates = accountIndex().records(query.getAccountNumber(), start, end, descending);
+        } else if (query.getFrom() != null || query.getTo() != null) {
+            candidates = timeIndex().candidates(start, end, fromNanos, toNanos, descending);
+        } else if (start >= end) {
+            candidates = LongStream.empty();
+        } else if (descending) {
+            candidates = LongStream.range(0, end - start).map(i -> end - 1 - i);
+        } else {
+            candidates = LongStream.range(start, end);
+        }
+        int typeOrdinal = query.getType() == null ? -1 : query.getType().ordinal();
+        if (typeOrdinal < 0 && query.getFrom() == null && query.getTo() == null) {
+            return candidates;
+        }
+        return candidates.filter(i -> {
+            ByteBuffer region = region(i);
+            int base = (int) (i & REGION_MASK) * RECORD_SIZE;
+            long nanos = region.getLong(base + 8);
+            return (typeOrdinal < 0 || region.get(base + 24) == typeOrdinal) && nanos >= fromNanos && nanos < toNanos;
+        });
+    }
+
+    /**
+     * Returns the transactions matching a query, with its offset and limit applied.
+     * Records are decoded lazily as the stream is consumed.
+     *
+     * @param query the criteria
+     * @return a lazy stream of matching transactions
+     */
+    public Stream<Transaction> query(TransactionQuery query) {
+        return select(query).skip(query.getOffset()).limit(query.getLimit()).mapToObj(this::get);
+    }
+
+    /**
+     * Builds the statement of one account for a time range: every transaction the account
+     * took part in, oldest first, with the signed amount and the balance after each one.
+     * The account's chain is walked from its newest entry, so the cost is proportional to
+     * the account's own activity. The whole chain is walked even with a {@code from}, since
+     * timestamps are local time and step back when the clocks go back.
+     *
+     * @param accountNumber the account
+     * @param from earliest timestamp, inclusive, or null for the whole history
+     * @param to latest timestamp, exclusive, or null for no upper bound
+     * @return the statement lines in the order they were recorded
+     */
+    public List<StatementLine> statement(String accountNumber, LocalDateTime from, LocalDateTime to) {
+        long fromNanos = from == null ? Long.MIN_VALUE : Journal.toEpochNanos(from);
+        long toNanos = to == null ? Long.MAX_VALUE : Journal.toEpochNanos(to);
+        AccountIndex accounts = accountIndex();
+        List<StatementLine> lines = new ArrayList<>();
+        for (long entry = accounts.head(accountNumber); entry != AccountIndex.NONE; entry = accounts.previous(entry)) {
+            long recordIndex = accounts.ledgerIndex(entry);
+            ByteBuffer region = region(recordIndex);
+            long nanos = region.getLong((int) (recordIndex & REGION_MASK) * RECORD_SIZE + 8);
+            if (nanos >= fromNanos && nanos < toNanos) {
+                Transaction txn = get(recordIndex);
+                long amountMinor = Money.toMinorUnits(txn.getAmount());
+                boolean credit = txn.getType() == TransactionType.DEPOSIT || accounts.isReceiving(entry);
+                lines.add(new StatementLine(txn, Money.fromMinorUnits(credit ? amountMinor : -amountMinor),
+                        Money.fromMinorUnits(accounts.balance(entry))));
+            }
+        }
+        Collections.reverse(lines);
+        return lines;
+    }
+
+    /**
+     * Tells whether the account index matches the records, or has to be rebuilt.
+     *
+     * @return true if the account index is usable
+     */
+    public boolean isAccountIndexed() {
+        return accountIndex.isValid();
+    }
+
+    /**
+     * Rebuilds the account index from the records. Records only hold amounts, so running
+     * balances are worked back from each account's balance at the end of the ledger: a first
+     * pass sums every account's movements to find its opening balance, a second pass enters
+     * the records with their running balances.
+     *
+     * @param closingBalanceMinor balance of an account after the last record, in minor units,
+     *                            or null if unknown, in which case the account is taken to have opened at zero
+     * @throws IOException if the rebuilt index cannot be written
+     */
+    public synchronized void rebuildAccountIndex(Function<String, Long> closingBalanceMinor) throws IOException {
+        Map<String, Long> running = new HashMap<>();
+        for (long i = 0; i < count; i++) {
+            ByteBuffer region = region(i);
+            int base = (int) (i & REGION_MASK) * RECORD_SIZE;
+            long amount = region.getLong(base + 16);
+            String account = accountNumber(region, base + ACCOUNT_OFFSET);
+            String target = accountNumber(region, base + TARGET_OFFSET);
+            running.merge(account, region.get(base + 24) == TransactionType.DEPOSIT.ordinal() ? amount : -amount, Long::sum);
+            if (target != null) {
+                running.merge(target, amount, Long::sum);
+            }
+        }
+        for (Map.Entry<String, Long> account : running.entrySet()) {
+            Long closing = closingBalanceMinor.apply(account.getKey());
+            account.setValue(closing == null ? 0 : closing - account.getValue());
+        }
+        accountIndex.reset();
+        for (long i = 0; i < count; i++) {
+            ByteBuffer region = region(i);
+            int base = (int) (i & REGION_MASK) * RECORD_SIZE;
+            long amount = region.getLong(base + 16);
+            String account = accountNumber(region, base + ACCOUNT_OFFSET);
+            String target = accountNumber(region, base + TARGET_OFFSET);
+            long balance = running.merge(account,
+                    region.get(base + 24) == TransactionType.DEPOSIT.ordinal() ? amount : -amount, Long::sum);
+            accountIndex.add(i, account, balance, false);
+            if (target != null) {
+                accountIndex.add(i, target, running.merge(target, amount, Long::sum), true);
+            }
+        }
+        accountIndex.force(count);
+    }
+
+    /**
+     * Discards every record from the given index onwards. Archived records are never discarded.
+     *
+     * @param newSize number of records to keep
+     */
+    public synchronized void truncate(long newSize) {
+        newSize = Math.max(newSize, layout.archived);
+        accountIndex.truncate(newSize);
+        if (newSize < count) {
+            timeIndex = null; // rebuilt on the next query
+            count = newSize;
+            forcedCount = Math.min(forcedCount, newSize);
+            layout.header.putLong(COUNT_OFFSET, count);
+        }
+    }
+
+    /**
+     * Moves every full region below the given index into the archive directory and
+     * rewrites the live file without them. Readers holding records from the old file
+     * keep working, since its mappings stay valid until they are garbage collected.
+     *
+     * @param upToIndex records below this index may be archived; the Bank passes its
+     *                  checkpoint sequence so only checkpointed history is archived
+     * @return the number of records archived by this call
+     * @throws IOException if the archive or the new live file cannot be written
+     */
+    public synchronized long archive(long upToIndex) throws IOException {
+        Layout current = layout;
+        long archiveTo = (Math.min(upToIndex, count) >>> REGION_SHIFT) << REGION_SHIFT;
+        if (archiveTo <= current.archived) {
+            return 0;
+        }
+        force();
+        Files.createDirectories(archiveDirectory);
+        for (long start = current.archived; start < archiveTo; start += REGION_RECORDS) {
+            Path segment = archivePath(start);
+            Path temp = segment.resolveSibling(segment.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                copy(current.channel, current.offset(start), REGION_BYTES, out, 0);
+                out.force(true);
+            }
+            Files.move(temp, segment, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.put(0, current.header, 0, HEADER_SIZE);
+        header.putLong(ARCHIVED_OFFSET, archiveTo);
+        copy(current.channel, current.offset(archiveTo), (count - archiveTo) * RECORD_SIZE, channel, HEADER_SIZE);
+        header.force();
+        channel.force(true);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        layout = new Layout(channel, header, archiveTo);
+        current.channel.close();
+        return archiveTo - current.archived;
+    }
+
+    /**
+     * Forces the regions written since the last force, and the header, to disk, followed
+     * by the account index.
+     *
+     * @throws IOException if the account index cannot be written
+     */
+    public synchronized void force() throws IOException {
+        Layout current = layout;
+        MappedByteBuffer[] mapped = current.regions;
+        for (int i = current.localRegion(Math.max(forcedCount, current.archived)); i < mapped.length; i++) {
+            if (mapped[i] != null) {
+                mapped[i].force();
+            }
+        }
+        current.header.force();
+        forcedCount = count;
+        accountIndex.force(count);
+    }
+
+    /**
+     * Forces outstanding records to disk and closes the ledger.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (layout.channel.isOpen()) {
+            force();
+            layout.channel.close();
+            accountIndex.close();
+        }
+    }
+
+    private synchronized LedgerIndex timeIndex() {
+        if (timeIndex == null) {
+            LedgerIndex built = new LedgerIndex();
+            for (long i = 0; i < count; i++) {
+                built.add(i, region(i).getLong((int) (i & REGION_MASK) * RECORD_SIZE + 8));
+            }
+            timeIndex = built;
+        }
+        return timeIndex;
+    }
+
+    private AccountIndex accountIndex() {
+        if (!accountIndex.isValid()) {
+            throw new IllegalStateException("The account index must be rebuilt before it can be used");
+        }
+        return accountIndex;
+    }
+
+    private static String accountNumber(ByteBuffer region, int offset) {
+        int length = region.get(offset);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        region.get(offset + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer region(long index) {
+        Layout current = layout;
+        if (index >= current.archived) {
+            ByteBuffer region = current.region(index);
+            return region != null ? region : region(index); // the file was swapped by archive(); retry
+        }
+        int regionIndex = (int) (index >>> REGION_SHIFT);
+        MappedByteBuffer[] archived = archivedRegions;
+        if (regionIndex < archived.length && archived[regionIndex] != null) {
+            return archived[regionIndex];
+        }
+        return mapArchivedRegion(regionIndex);
+    }
+
+    private synchronized MappedByteBuffer mapArchivedRegion(int regionIndex) {
+        MappedByteBuffer[] archived = archivedRegions;
+        if (regionIndex < archived.length && archived[regionIndex] != null) {
+            return archived[regionIndex];
+        }
+        try (FileChannel segment = FileChannel.open(archivePath((long) regionIndex << REGION_SHIFT), StandardOpenOption.READ)) {
+            MappedByteBuffer region = segment.map(FileChannel.MapMode.READ_ONLY, 0, REGION_BYTES);
+            MappedByteBuffer[] grown = Arrays.copyOf(archived, Math.max(archived.length, regionIndex + 1));
+            grown[regionIndex] = region;
+            archivedRegions = grown;
+            return region;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map archived ledger segment", e);
+        }
+    }
+
+    private Path archivePath(long start) {
+        return archiveDirectory.resolve(String.format("ledger-%012d.seg", start));
+    }
+
+    private static void copy(FileChannel source, long position, long length, FileChannel target, long targetPosition)
+            throws IOException {
+        long copied = 0;
+        while (copied < length) {
+            copied += source.transferTo(position + copied, length - copied, target.position(targetPosition + copied));
+        }
+    }
+
+    /**
+     * The live file and its lazily mapped regions. Replaced as a whole when regions
+     * are archived, so a reader always sees a file and archive boundary that belong together.
+     */
+    private static final class Layout {
+
+        final FileChannel channel;
+        final MappedByteBuffer header;
+        final long archived;
+        volatile MappedByteBuffer[] regions = new MappedByteBuffer[0];
+
+        Layout(FileChannel channel, MappedByteBuffer header, long archived) {
+            this.channel = channel;
+            this.header = header;
+            this.archived = archived;
+        }
+
+        long offset(long index) {
+            return HEADER_SIZE + (index - archived) * RECORD_SIZE;
+        }
+
+        int localRegion(long index) {
+            return (int) ((index - archived) >>> REGION_SHIFT);
+        }
+
+        /** Returns the mapped region holding a record, or null if this layout was retired. */
+        ByteBuffer region(long index) {
+            int regionIndex = localRegion(index);
+            MappedByteBuffer[] mapped = regions;
+            if (regionIndex < mapped.length && mapped[regionIndex] != null) {
+                return mapped[regionIndex];
+            }
+            return map(regionIndex);
+        }
+
+        private synchronized MappedByteBuffer map(int regionIndex) {
+            MappedByteBuffer[] mapped = regions;
+            if (regionIndex < mapped.length && mapped[regionIndex] != null) {
+                return mapped[regionIndex];
+            }
+            try {
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE,
+                        HEADER_SIZE + regionIndex * REGION_BYTES, REGION_BYTES);
+                MappedByteBuffer[] grown = Arrays.copyOf(mapped, Math.max(mapped.length, regionIndex + 1));
+                grown[regionIndex] = region;
+                regions = grown;
+                return region;
+            } catch (ClosedChannelException e) {
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot map ledger region", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.jibstech.bank_account_management_system;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * In-memory time index over a {@link Ledger}: the minimum and maximum timestamp of every
+ * block of {@value #BLOCK_SIZE} consecutive records. Per-account lookups are served by
+ * the persistent {@link AccountIndex} instead.
+ * <p>
+ * The index only ever grows at the end. Readers capture the arrays under the lock and
+ * then iterate without it; only the newest block can still change afterwards.
+ * @see Ledger#select(TransactionQuery)
+ */
+final class LedgerIndex {
+
+    static final int BLOCK_SHIFT = 10;
+    static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    private long[] blockMin = new long[16];
+    private long[] blockMax = new long[16];
+    private long[] prefixMax = new long[16];
+    private int blocks;
+
+    /**
+     * Adds a record. Records must be added in ledger order.
+     *
+     * @param index the record index
+     * @param epochNanos the timestamp of the record
+     */
+    synchronized void add(long index, long epochNanos) {
+        int block = (int) (index >>> BLOCK_SHIFT);
+        if (block == blocks) {
+            if (block == blockMin.length) {
+                blockMin = Arrays.copyOf(blockMin, block << 1);
+                blockMax = Arrays.copyOf(blockMax, block << 1);
+                prefixMax = Arrays.copyOf(prefixMax, block << 1);
+            }
+            blockMin[block] = epochNanos;
+            blockMax[block] = epochNanos;
+            blocks++;
+        } else {
+            blockMin[block] = Math.min(blockMin[block], epochNanos);
+            blockMax[block] = Math.max(blockMax[block], epochNanos);
+        }
+        prefixMax[block] = block == 0 ? blockMax[block] : Math.max(prefixMax[block - 1], blockMax[block]);
+    }
+
+    /**
+     * Returns the record indexes in a range whose block may hold a timestamp in the given
+     * time range. Blocks that cannot hold a match are skipped; the caller still checks
+     * each record's own timestamp.
+     *
+     * @param start first record index, inclusive
+     * @param end last record index, exclusive
+     * @param fromNanos earliest timestamp, inclusive
+     * @param toNanos latest timestamp, exclusive
+     * @param descending true to return the highest index first
+     * @return the candidate record indexes, in the requested order
+     */
+    synchronized LongStream candidates(long start, long end, long fromNanos, long toNanos, boolean descending) {
+        if (start >= end) {
+            return LongStream.empty();
+        }
+        long[] min = blockMin;
+        long[] max = blockMax;
+        int firstBlock = Math.max((int) (start >>> BLOCK_SHIFT), firstBlockReaching(fromNanos));
+        int lastBlock = (int) ((end - 1) >>> BLOCK_SHIFT);
+        LongStream blockNumbers = descending
+                ? LongStream.rangeClosed(firstBlock, lastBlock).map(b -> lastBlock + firstBlock - b)
+                : LongStream.rangeClosed(firstBlock, lastBlock);
+        return blockNumbers
+                // the newest block may still be growing, so it is never skipped
+                .filter(b -> b == lastBlock || (max[(int) b] >= fromNanos && min[(int) b] < toNanos))
+                .flatMap(b -> {
+                    long blockStart = Math.max(start, b << BLOCK_SHIFT);
+                    long blockEnd = Math.min(end, (b + 1) << BLOCK_SHIFT);
+                    return descending
+                            ? LongStream.range(0, blockEnd - blockStart).map(i -> blockEnd - 1 - i)
+                            : LongStream.range(blockStart, blockEnd);
+                });
+    }
+
+    private int firstBlockReaching(long fromNanos) {
+        int low = 0;
+        int high = blocks;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prefixMax[mid] < fromNanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,171 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts the Java-serialized {@code accounts.dat} and {@code transactions.dat} written by
+ * earlier versions into {@link BinaryCodec} files: a {@link Snapshot} and
+ * {@code transactions.bin}, which the Bank imports into its ledger on the next start.
+ * The originals are kept as {@code *.dat.migrated}.
+ * <p>
+ * Legacy files are deserialized through an allow-list filter that admits only accounts,
+ * transactions, lists and timestamps, so a tampered file cannot instantiate other classes.
+ * The Bank uses the same filter when it still finds legacy files at startup.
+ * <pre>
+ * java com.jibstech.bank_account_management_system.LegacyMigration [data directory]
+ * </pre>
+ * @see BinaryCodec
+ */
+public final class LegacyMigration {
+
+    /** Magic number of transactions.bin: "TXNS" */
+    static final int TRANSACTIONS_MAGIC = 0x54584E53;
+
+    private static final int TRANSACTIONS_VERSION = 1;
+    private static final String MIGRATED_SUFFIX = ".migrated";
+    private static final ObjectInputFilter LEGACY_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=8;maxrefs=100000000;"
+            + "com.jibstech.bank_account_management_system.Account;"
+            + "com.jibstech.bank_account_management_system.LockFreeAccount;"
+            + "com.jibstech.bank_account_management_system.Transaction;"
+            + "com.jibstech.bank_account_management_system.TransactionType;"
+            + "java.util.ArrayList;java.lang.Object;java.time.Ser;java.time.LocalDateTime;java.lang.Enum;java.lang.Number;"
+            + "java.util.concurrent.atomic.AtomicLong;java.lang.Long;java.lang.Double;java.lang.String;!*");
+
+    private LegacyMigration() {
+    }
+
+    /**
+     * Migrates the legacy files in a data directory, by default the working directory.
+     *
+     * @param args optional data directory
+     * @throws IOException if a legacy file cannot be read or a new file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        Path dataDirectory = Paths.get(args.length > 0 ? args[0] : "");
+        int[] migrated = migrate(dataDirectory);
+        System.out.println("Migrated " + migrated[0] + " accounts and " + migrated[1] + " transactions");
+    }
+
+    /**
+     * Converts {@code accounts.dat} into {@code snapshot.dat}, unless a snapshot already
+     * exists, and {@code transactions.dat} into {@code transactions.bin}. Each legacy file
+     * is renamed to {@code *.dat.migrated} once its replacement is written.
+     *
+     * @param dataDirectory the directory holding the legacy files
+     * @return the number of accounts and of transactions migrated
+     * @throws IOException if a legacy file cannot be read or a new file cannot be written
+     */
+    public static int[] migrate(Path dataDirectory) throws IOException {
+        int[] migrated = new int[2];
+        Path accountsFile = dataDirectory.resolve("accounts.dat");
+        Path snapshotFile = dataDirectory.resolve("snapshot.dat");
+        if (Files.exists(accountsFile) && !Files.exists(snapshotFile)) {
+            Snapshot snapshot = readAccounts(accountsFile);
+            snapshot.write(snapshotFile);
+            retire(accountsFile);
+            migrated[0] = snapshot.getAccounts().size();
+        }
+        Path transactionsFile = dataDirectory.resolve("transactions.dat");
+        if (Files.exists(transactionsFile)) {
+            List<Transaction> transactions = readTransactions(transactionsFile);
+            writeTransactions(dataDirectory.resolve("transactions.bin"), transactions);
+            retire(transactionsFile);
+            migrated[1] = transactions.size();
+        }
+        return migrated;
+    }
+
+    /**
+     * Reads a Java-serialized {@code accounts.dat}: the account list, followed by the
+     * sequence number of its checkpoint in files written after the journal was introduced.
+     *
+     * @param file the legacy accounts file
+     * @return the accounts with their checkpoint sequence, 0 if the file has none
+     * @throws IOException if the file cannot be read or holds other classes
+     */
+    @SuppressWarnings("unchecked")
+    static Snapshot readAccounts(Path file) throws IOException {
+        try (ObjectInputStream in = open(file)) {
+            List<Account> accounts = (List<Account>) in.readObject();
+            long sequence;
+            try {
+                sequence = in.readLong();
+            } catch (EOFException e) {
+                sequence = 0; // written before the journal existed
+            }
+            return new Snapshot(sequence, accounts);
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new InvalidClassException("Not a legacy accounts file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a Java-serialized {@code transactions.dat}.
+     *
+     * @param file the legacy transactions file
+     * @return the transactions in the order they were recorded
+     * @throws IOException if the file cannot be read or holds other classes
+     */
+    @SuppressWarnings("unchecked")
+    static List<Transaction> readTransactions(Path file) throws IOException {
+        try (ObjectInputStream in = open(file)) {
+            return (List<Transaction>) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new InvalidClassException("Not a legacy transactions file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes transactions as a {@link BinaryCodec} stream.
+     *
+     * @param file the file to write, usually {@code transactions.bin}
+     * @param transactions the transactions in the order they were recorded
+     * @throws IOException if the file cannot be written
+     */
+    static void writeTransactions(Path file, List<Transaction> transactions) throws IOException {
+        try (BinaryCodec.Writer out = new BinaryCodec.Writer(file, TRANSACTIONS_MAGIC, TRANSACTIONS_VERSION,
+                transactions.size())) {
+            for (Transaction txn : transactions) {
+                out.write(txn);
+            }
+        }
+    }
+
+    /**
+     * Reads transactions written by {@link #writeTransactions(Path, List)}.
+     *
+     * @param file the file to read
+     * @return the transactions in the order they were recorded
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    static List<Transaction> readMigratedTransactions(Path file) throws IOException {
+        try (BinaryCodec.Reader in = new BinaryCodec.Reader(file, TRANSACTIONS_MAGIC)) {
+            List<Transaction> transactions = new ArrayList<>((int) Math.min(in.getTag(), 1 << 20));
+            while (in.hasNext()) {
+                transactions.add(in.readTransaction());
+            }
+            return transactions;
+        }
+    }
+
+    private static ObjectInputStream open(Path file) throws IOException {
+        ObjectInputStream in = new ObjectInputStream(Files.newInputStream(file));
+        in.setObjectInputFilter(LEGACY_FILTER);
+        return in;
+    }
+
+    private static void retire(Path file) throws IOException {
+        Files.move(file, file.resolveSibling(file.getFileName() + MIGRATED_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
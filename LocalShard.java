@@ -0,0 +1,225 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A shard served by a Bank in this JVM. Its side of every transfer between shards is kept
+ * in a {@link TwoPhaseLog} next to the Bank's files ({@code participant.log}):
+ * <ul>
+ *   <li>prepare places a hold on a debited account and logs PREPARED;</li>
+ *   <li>commit logs COMMIT with the sequence number the withdrawal or deposit is about to
+ *       be journaled under, then applies it;</li>
+ *   <li>abort releases the hold and logs ABORT.</li>
+ * </ul>
+ * On opening, a side logged as committed whose journal record did not survive is applied
+ * again, and debits still in doubt are held again until the coordinator decides them.
+ * The log is then rewritten to hold only the sides in doubt.
+ * @see ShardedBank
+ * @see TwoPhaseLog
+ */
+public class LocalShard implements BankShard {
+
+    private final Bank bank;
+    private final TwoPhaseLog log;
+    private final Map<Long, Prepared> prepared;
+
+    /**
+     * Opens a shard on a Bank, finishing the transfers the log shows were committed.
+     * Must be created before the Bank serves any other operation.
+     *
+     * @param bank the shard's bank
+     * @param logFile the participant log, usually {@code participant.log} in the Bank's data directory
+     * @throws UncheckedIOException if the log cannot be opened or recovered
+     */
+    public LocalShard(Bank bank, Path logFile) {
+        this.bank = bank;
+        this.prepared = new ConcurrentHashMap<>();
+        try {
+            this.log = new TwoPhaseLog(logFile);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to recover participant log", e);
+        }
+    }
+
+    /**
+     * Gets the shard's Bank.
+     *
+     * @return the bank
+     */
+    public Bank getBank() {
+        return bank;
+    }
+
+    @Override
+    public boolean createAccount(String accountNumber, String accountName, String accountType, double initialBalance) {
+        return bank.createAccount(accountNumber, accountName, accountType, initialBalance);
+    }
+
+    @Override
+    public Account findAccountByNumber(String accountNumber) {
+        return bank.findAccountByNumber(accountNumber);
+    }
+
+    @Override
+    public TransactionResult depositToAccount(String accountNumber, double amount) {
+        return bank.depositToAccount(accountNumber, amount);
+    }
+
+    @Override
+    public TransactionResult withdrawFromAccount(String accountNumber, double amount) {
+        return bank.withdrawFromAccount(accountNumber, amount);
+    }
+
+    @Override
+    public TransactionResult transferBetweenAccounts(String senderAccount, String receiverAccount, double amount) {
+        return bank.transferBetweenAccounts(senderAccount, receiverAccount, amount);
+    }
+
+    @Override
+    public FailureReason prepare(long transactionId, String accountNumber, double amount, boolean debit) {
+        if (bank.findAccountByNumber(accountNumber) == null) {
+            return FailureReason.UNKNOWN_ACCOUNT;
+        }
+        if (!(amount > 0)) {
+            return FailureReason.INVALID_AMOUNT;
+        }
+        if (debit) {
+            FailureReason reason = bank.hold(accountNumber, amount);
+            if (reason != null) {
+                return reason;
+            }
+        }
+        try {
+            log.append(new TwoPhaseLog.Record(TwoPhaseLog.Kind.PREPARED, transactionId,
+                    Double.doubleToLongBits(amount), debit, accountNumber, null), true);
+        } catch (IOException e) {
+            if (debit) {
+                bank.releaseHold(accountNumber, amount);
+            }
+            throw new UncheckedIOException("Unable to log prepared transfer " + transactionId, e);
+        }
+        prepared.put(transactionId, new Prepared(accountNumber, amount, debit));
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The side stays prepared, with its hold, until it has been applied, so a commit that
+     * fails can be retried.
+     *
+     * @throws UncheckedIOException if the side cannot be logged or journaled
+     */
+    @Override
+    public TransactionResult commit(long transactionId) {
+        Prepared side = prepared.get(transactionId);
+        if (side == null) {
+            return TransactionResult.failure();
+        }
+        synchronized (side) {
+            if (prepared.get(transactionId) != side) {
+                return TransactionResult.failure(); // committed by a concurrent retry
+            }
+            TransactionResult result = apply(transactionId, side);
+            prepared.remove(transactionId);
+            return result;
+        }
+    }
+
+    @Override
+    public void abort(long transactionId) {
+        Prepared side = prepared.remove(transactionId);
+        if (side == null) {
+            return;
+        }
+        if (side.debit) {
+            bank.releaseHold(side.accountNumber, side.amount);
+        }
+        try {
+            log.append(new TwoPhaseLog.Record(TwoPhaseLog.Kind.ABORT, transactionId), true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to log aborted transfer " + transactionId, e);
+        }
+    }
+
+    /**
+     * Closes the participant log and the Bank. Sides still in doubt stay in the log.
+     */
+    @Override
+    public void close() {
+        try {
+            log.close();
+        } catch (IOException e) {
+            bank.getLogger().log("Error closing participant log " + e.getMessage());
+        }
+        bank.close();
+    }
+
+    private TransactionResult apply(long transactionId, Prepared side) {
+        return bank.applyLeg(side.accountNumber, side.amount, side.debit, sequence -> {
+            try {
+                log.append(new TwoPhaseLog.Record(TwoPhaseLog.Kind.COMMIT, transactionId, sequence,
+                        side.debit, null, null), true);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to log committed transfer " + transactionId, e);
+            }
+        });
+    }
+
+    private void recover() throws IOException {
+        Map<Long, Prepared> sides = new LinkedHashMap<>();
+        Map<Long, Long> committed = new LinkedHashMap<>();
+        for (TwoPhaseLog.Record record : log.read()) {
+            switch (record.kind) {
+                case PREPARED -> sides.put(record.transactionId,
+                        new Prepared(record.accountNumber, record.amount(), record.debit));
+                case COMMIT -> committed.put(record.transactionId, record.value);
+                case ABORT -> sides.remove(record.transactionId);
+                default -> {
+                }
+            }
+        }
+        for (Map.Entry<Long, Long> commit : committed.entrySet()) {
+            Prepared side = sides.remove(commit.getKey());
+            if (side != null && !bank.isRecorded(commit.getValue())) {
+                apply(commit.getKey(), side);
+            }
+        }
+        bank.syncJournal();
+        List<TwoPhaseLog.Record> inDoubt = new ArrayList<>();
+        for (Map.Entry<Long, Prepared> entry : sides.entrySet()) {
+            Prepared side = entry.getValue();
+            if (side.debit && bank.hold(side.accountNumber, side.amount) != null) {
+                bank.getLogger().log("Unable to hold " + side.amount + " on " + side.accountNumber
+                        + " for transfer " + entry.getKey());
+            }
+            prepared.put(entry.getKey(), side);
+            inDoubt.add(new TwoPhaseLog.Record(TwoPhaseLog.Kind.PREPARED, entry.getKey(),
+                    Double.doubleToLongBits(side.amount), side.debit, side.accountNumber, null));
+        }
+        log.rewrite(inDoubt);
+    }
+
+    /**
+     * A side of a transfer waiting for the coordinator's decision.
+     */
+    private static final class Prepared {
+
+        final String accountNumber;
+        final double amount;
+        final boolean debit;
+
+        Prepared(String accountNumber, double amount, boolean debit) {
+            this.accountNumber = accountNumber;
+            this.amount = amount;
+            this.debit = debit;
+        }
+    }
+}
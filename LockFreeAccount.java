@@ -0,0 +1,136 @@
+package com.jibstech.bank_account_management_system;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Account whose balance is a fixed-point count of minor units (kobo/cents) updated with
+ * compare-and-set instead of locks. Deposits are a single atomic add; withdrawals retry a
+ * CAS until they either succeed without taking the balance below zero or find
+ * insufficient funds. The {@link BigDecimal} methods are exact; the inherited
+ * {@code double} methods round to the nearest minor unit.
+ * @see Account
+ * @see Money
+ */
+public class LockFreeAccount extends Account {
+
+    private static final long serialVersionUID = 1L;
+
+    private final AtomicLong balanceMinor;
+
+    /**
+     * Constructs a new LockFreeAccount instance with the specified details.
+     *
+     * @param accountNumber unique identifier for the account
+     * @param ownerName name of the account owner
+     * @param accountType type/category of the account (e.g., Savings, Checking)
+     * @param balance initial account balance, with at most two decimal places
+     */
+    public LockFreeAccount(String accountNumber, String ownerName, String accountType, BigDecimal balance) {
+        this(accountNumber, ownerName, accountType, Money.toMinorUnits(balance));
+    }
+
+    private LockFreeAccount(String accountNumber, String ownerName, String accountType, long balanceMinor) {
+        super(accountNumber, ownerName, accountType, 0);
+        this.balanceMinor = new AtomicLong(balanceMinor);
+    }
+
+    /**
+     * Deposits the specified number of minor units if the amount is positive.
+     *
+     * @param amountMinor the amount to deposit in minor units; must be greater than zero
+     * @return true if deposition succeeded, false otherwise
+     */
+    public boolean depositMinor(long amountMinor) {
+        if (amountMinor <= 0) {
+            return false;
+        }
+        balanceMinor.getAndAdd(amountMinor);
+        return true;
+    }
+
+    /**
+     * Withdraws the specified number of minor units if the balance stays non-negative.
+     *
+     * @param amountMinor the amount to withdraw in minor units; must be greater than zero
+     * @return true if withdrawal succeeded, false otherwise
+     */
+    public boolean withdrawMinor(long amountMinor) {
+        if (amountMinor <= 0) {
+            return false;
+        }
+        long current = balanceMinor.get();
+        while (amountMinor <= current) {
+            long witnessed = balanceMinor.compareAndExchange(current, current - amountMinor);
+            if (witnessed == current) {
+                return true;
+            }
+            current = witnessed;
+        }
+        return false;
+    }
+
+    /**
+     * Deposits an exact decimal amount.
+     *
+     * @param amount the amount to deposit; must be greater than zero with at most two decimal places
+     * @return true if deposition succeeded, false otherwise
+     */
+    public boolean deposit(BigDecimal amount) {
+        return depositMinor(Money.toMinorUnits(amount));
+    }
+
+    /**
+     * Withdraws an exact decimal amount.
+     *
+     * @param amount the amount to withdraw; must be greater than zero with at most two decimal places
+     * @return true if withdrawal succeeded, false otherwise
+     */
+    public boolean withdraw(BigDecimal amount) {
+        return withdrawMinor(Money.toMinorUnits(amount));
+    }
+
+    /**
+     * Gets the current balance in minor units.
+     *
+     * @return the balance in minor units
+     */
+    public long getBalanceMinor() {
+        return balanceMinor.get();
+    }
+
+    /**
+     * Gets the current balance as an exact decimal amount.
+     *
+     * @return the balance with a scale of two
+     */
+    public BigDecimal getBalanceAmount() {
+        return Money.fromMinorUnits(balanceMinor.get());
+    }
+
+    @Override
+    public double getBalance() {
+        return Money.toDouble(balanceMinor.get());
+    }
+
+    @Override
+    public boolean deposit(double amount) {
+        return depositMinor(Money.toMinorUnits(amount));
+    }
+
+    @Override
+    public boolean withdraw(double amount) {
+        return withdrawMinor(Money.toMinorUnits(amount));
+    }
+
+    @Override
+    public Account getDetails() {
+        return new LockFreeAccount(getAccountNumber(), getOwnerName(), getAcountType(), balanceMinor.get());
+    }
+
+    @Override
+    public String toString() {
+        return "Account Number: " + getAccountNumber() + ", Owner Name: " + getOwnerName() +
+               ", Account Type: " + getAcountType() + ", Balance: " + getBalanceAmount();
+    }
+}
@@ -0,0 +1,64 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class LockFreeAccountTest {
+
+	@Test
+	void testExactDecimalArithmetic() {
+		LockFreeAccount account = new LockFreeAccount("1000001", "Owner", "Savings", new BigDecimal("0.10"));
+		for (int i = 0; i < 9; i++) {
+			assertTrue(account.deposit(new BigDecimal("0.10")));
+		}
+		assertEquals(new BigDecimal("1.00"), account.getBalanceAmount());
+		assertEquals(1.0, account.getBalance());
+	}
+
+	@Test
+	void testWithdrawRejectsOverdraftAndNonPositiveAmounts() {
+		LockFreeAccount account = new LockFreeAccount("1000001", "Owner", "Savings", new BigDecimal("5.00"));
+		assertFalse(account.withdraw(new BigDecimal("5.01")));
+		assertFalse(account.withdrawMinor(0));
+		assertFalse(account.depositMinor(-1));
+		assertTrue(account.withdraw(new BigDecimal("5.00")));
+		assertEquals(0, account.getBalanceMinor());
+	}
+
+	@Test
+	void testConcurrentWithdrawalsNeverOverdraw() throws InterruptedException {
+		LockFreeAccount account = new LockFreeAccount("1000001", "Owner", "Savings", new BigDecimal("1000.00"));
+		AtomicInteger successful = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int t = 0; t < 8; t++) {
+			executor.execute(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					if (account.withdrawMinor(7)) {
+						successful.incrementAndGet();
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+		assertTrue(account.getBalanceMinor() >= 0);
+		assertEquals(100_000 - 7L * successful.get(), account.getBalanceMinor());
+	}
+
+	@Test
+	void testGetDetailsKeepsBalance() {
+		LockFreeAccount account = new LockFreeAccount("1000001", "Owner", "Savings", new BigDecimal("12.34"));
+		Account details = account.getDetails();
+		account.depositMinor(100);
+		assertEquals(12.34, details.getBalance());
+		assertEquals("1000001", details.getAccountNumber());
+	}
+}
@@ -0,0 +1,134 @@
+package com.jibstech.bank_account_management_system;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to non-negative {@code int}
+ * values, with linear probing and no boxing. Entries are never removed individually.
+ * <p>
+ * Not thread-safe for writers. {@link #get(long)} only reads array references it has
+ * loaded into locals and probes a bounded number of slots, so it can run under an
+ * optimistic read that is validated afterwards.
+ * @see ColumnarAccountStore
+ */
+final class LongIntHashMap {
+
+    /** Value returned by {@link #get(long)} when the key is absent */
+    static final int MISSING = -1;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int resizeAt;
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Looks up the value of a key.
+     *
+     * @param key the key; must not be {@link Long#MIN_VALUE}
+     * @return the value, or {@link #MISSING}
+     */
+    int get(long key) {
+        long[] k = keys;
+        int[] v = values;
+        int mask = k.length - 1;
+        if (v.length != k.length) {
+            return MISSING; // torn read during a resize; the caller's validation fails
+        }
+        int index = mix(key) & mask;
+        for (int probes = 0; probes < k.length; probes++) {
+            long found = k[index];
+            if (found == key) {
+                return v[index];
+            }
+            if (found == EMPTY) {
+                return MISSING;
+            }
+            index = (index + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * Associates a value with a key unless the key is already present.
+     *
+     * @param key the key; must not be {@link Long#MIN_VALUE}
+     * @param value the value; must be non-negative
+     * @return the existing value, or {@link #MISSING} if the value was inserted
+     */
+    int putIfAbsent(long key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Reserved key");
+        }
+        int existing = get(key);
+        if (existing != MISSING) {
+            return existing;
+        }
+        if (size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        insert(keys, values, key, value);
+        size++;
+        return MISSING;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] newKeys = new long[capacity];
+        int[] newValues = new int[capacity];
+        Arrays.fill(newKeys, EMPTY);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                insert(newKeys, newValues, keys[i], values[i]);
+            }
+        }
+        values = newValues;
+        keys = newKeys;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static void insert(long[] k, int[] v, long key, int value) {
+        int mask = k.length - 1;
+        int index = mix(key) & mask;
+        while (k[index] != EMPTY) {
+            index = (index + 1) & mask;
+        }
+        v[index] = value;
+        k[index] = key;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,44 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class LongIntHashMapTest {
+
+	@Test
+	void testPutIfAbsentKeepsTheFirstValue() {
+		LongIntHashMap map = new LongIntHashMap(4);
+		assertEquals(LongIntHashMap.MISSING, map.get(42));
+		assertEquals(LongIntHashMap.MISSING, map.putIfAbsent(42, 1));
+		assertEquals(1, map.putIfAbsent(42, 2));
+		assertEquals(1, map.get(42));
+		assertEquals(LongIntHashMap.MISSING, map.putIfAbsent(-42, 3)); // negative keys are allowed
+		assertEquals(LongIntHashMap.MISSING, map.putIfAbsent(0, 0));
+		assertEquals(3, map.get(-42));
+		assertEquals(0, map.get(0));
+		assertEquals(3, map.size());
+		assertThrows(IllegalArgumentException.class, () -> map.putIfAbsent(Long.MIN_VALUE, 1));
+	}
+
+	@Test
+	void testGrowsFarBeyondTheExpectedSize() {
+		LongIntHashMap map = new LongIntHashMap(1);
+		int entries = 100_000;
+		for (int i = 0; i < entries; i++) {
+			// keys sharing their low bits, as encoded account numbers do
+			assertEquals(LongIntHashMap.MISSING, map.putIfAbsent((long) i << 5 | 7, i));
+		}
+		assertEquals(entries, map.size());
+		for (int i = 0; i < entries; i++) {
+			assertEquals(i, map.get((long) i << 5 | 7));
+		}
+		assertEquals(LongIntHashMap.MISSING, map.get((long) entries << 5 | 7));
+
+		map.clear();
+		assertEquals(0, map.size());
+		assertEquals(LongIntHashMap.MISSING, map.get(7));
+		assertEquals(LongIntHashMap.MISSING, map.putIfAbsent(7, 5));
+		assertEquals(5, map.get(7));
+	}
+}
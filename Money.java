@@ -0,0 +1,60 @@
+package com.jibstech.bank_account_management_system;
+
+import java.math.BigDecimal;
+
+/**
+ * Conversions between monetary amounts and fixed-point minor units (kobo/cents).
+ * Balances held as a {@code long} count of minor units are exact, unlike {@code double}.
+ * @see LockFreeAccount
+ */
+public final class Money {
+
+    /** Number of decimal places held in minor units */
+    public static final int SCALE = 2;
+
+    private static final double MINOR_PER_MAJOR = 100.0;
+
+    private Money() {
+    }
+
+    /**
+     * Converts an exact decimal amount to minor units.
+     *
+     * @param amount the amount, with at most {@value #SCALE} decimal places
+     * @return the amount in minor units
+     * @throws ArithmeticException if the amount has more than {@value #SCALE} decimal places or does not fit in a long
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    /**
+     * Converts a floating-point amount to minor units, rounding to the nearest minor unit.
+     *
+     * @param amount the amount
+     * @return the amount in minor units
+     */
+    public static long toMinorUnits(double amount) {
+        return Math.round(amount * MINOR_PER_MAJOR);
+    }
+
+    /**
+     * Converts minor units to an exact decimal amount.
+     *
+     * @param minorUnits the amount in minor units
+     * @return the amount with a scale of {@value #SCALE}
+     */
+    public static BigDecimal fromMinorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * Converts minor units to a floating-point amount.
+     *
+     * @param minorUnits the amount in minor units
+     * @return the amount as a double
+     */
+    public static double toDouble(long minorUnits) {
+        return minorUnits / MINOR_PER_MAJOR;
+    }
+}
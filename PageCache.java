@@ -0,0 +1,240 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded write-back cache of fixed-size file pages. Pages are spread over segments by
+ * page number, each an access-ordered map evicting its least recently used page, so
+ * callers touching different segments do not contend. A page is only accessed while its
+ * segment is locked, which makes every {@link PageFunction} atomic for that page.
+ * <p>
+ * Modified pages are written back through the {@link Backing} when evicted or
+ * {@linkplain #flush() flushed}. Hits, misses, evictions and the latency of every
+ * write-back are counted.
+ * @see DiskAccountStore
+ */
+final class PageCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    /**
+     * Where pages are loaded from and written back to.
+     */
+    interface Backing {
+
+        /**
+         * Reads a page into a buffer of one page, zeroed first.
+         */
+        void load(long page, ByteBuffer into) throws IOException;
+
+        /**
+         * Writes a modified page.
+         */
+        void writeBack(long page, ByteBuffer from) throws IOException;
+    }
+
+    /**
+     * Work done on a page while its segment is locked.
+     */
+    @FunctionalInterface
+    interface PageFunction<T> {
+        T apply(ByteBuffer page);
+    }
+
+    private final int pageSize;
+    private final Backing backing;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder writeBacks = new LongAdder();
+    private final LatencyHistogram writeBackLatency = new LatencyHistogram();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param pageSize size of a page in bytes
+     * @param maxPages most pages held at once, at least 1
+     * @param backing the file the pages belong to
+     */
+    PageCache(int pageSize, int maxPages, Backing backing) {
+        this.pageSize = pageSize;
+        this.backing = backing;
+        int count = Math.max(1, Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxPages)));
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(Math.max(1, maxPages / count));
+        }
+    }
+
+    /**
+     * Runs a function on a page without modifying it, loading the page on a miss.
+     */
+    <T> T read(long page, PageFunction<T> function) {
+        return access(page, false, function);
+    }
+
+    /**
+     * Runs a function on a page and marks the page modified, loading it on a miss.
+     */
+    <T> T write(long page, PageFunction<T> function) {
+        return access(page, true, function);
+    }
+
+    /**
+     * Copies the current content of a page, cached or not, without caching it, so a
+     * full scan does not evict the working set.
+     */
+    void copy(long page, ByteBuffer into) {
+        Segment segment = segment(page);
+        synchronized (segment) {
+            Page cached = segment.pages.get(page);
+            into.clear();
+            if (cached != null) {
+                into.put(cached.buffer.duplicate().clear()).flip();
+                return;
+            }
+            try {
+                zero(into);
+                backing.load(page, into);
+                into.clear();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read page " + page, e);
+            }
+        }
+    }
+
+    /**
+     * Writes back every modified page; the pages stay cached.
+     *
+     * @throws IOException if a page cannot be written
+     */
+    void flush() throws IOException {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                for (Map.Entry<Long, Page> entry : segment.pages.entrySet()) {
+                    if (entry.getValue().dirty) {
+                        writeBack(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops every page without writing it back.
+     */
+    void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.pages.clear();
+            }
+        }
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    long writeBacks() {
+        return writeBacks.sum();
+    }
+
+    LatencyHistogram writeBackLatency() {
+        return writeBackLatency;
+    }
+
+    private <T> T access(long page, boolean modify, PageFunction<T> function) {
+        Segment segment = segment(page);
+        synchronized (segment) {
+            Page cached = segment.pages.get(page);
+            try {
+                if (cached == null) {
+                    misses.increment();
+                    cached = new Page(ByteBuffer.allocate(pageSize));
+                    backing.load(page, cached.buffer);
+                    segment.pages.put(page, cached);
+                    evictOverflow(segment);
+                } else {
+                    hits.increment();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to load page " + page, e);
+            }
+            cached.dirty |= modify;
+            return function.apply(cached.buffer.clear());
+        }
+    }
+
+    /** Evicts least recently used pages beyond the segment's capacity; the newest page stays. */
+    private void evictOverflow(Segment segment) throws IOException {
+        Iterator<Map.Entry<Long, Page>> eldest = segment.pages.entrySet().iterator();
+        while (segment.pages.size() > segment.capacity) {
+            Map.Entry<Long, Page> entry = eldest.next();
+            if (entry.getValue().dirty) {
+                writeBack(entry.getKey(), entry.getValue());
+            }
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private void writeBack(long page, Page cached) throws IOException {
+        long start = System.nanoTime();
+        backing.writeBack(page, cached.buffer.duplicate().clear());
+        cached.dirty = false;
+        writeBacks.increment();
+        writeBackLatency.record(System.nanoTime() - start);
+    }
+
+    private Segment segment(long page) {
+        return segments[(int) (page & (segments.length - 1))];
+    }
+
+    private static void zero(ByteBuffer buffer) {
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) 0);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * One page held in memory.
+     */
+    private static final class Page {
+
+        final ByteBuffer buffer;
+        boolean dirty;
+
+        Page(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Pages of one segment, least recently used first.
+     */
+    private static final class Segment {
+
+        final int capacity;
+        final LinkedHashMap<Long, Page> pages = new LinkedHashMap<>(16, 0.75f, true);
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.jibstech.bank_account_management_system;
+
+/**
+ * One line of a batch posting: a deposit, withdrawal or transfer instruction.
+ * @see Bank#postBatch(java.util.stream.Stream, PostingMode)
+ */
+public class Posting {
+
+    private final TransactionType type;
+    private final String accountNumber;
+    private final String targetAccountNumber;
+    private final double amount;
+
+    /**
+     * Constructs a posting.
+     *
+     * @param type type of transaction
+     * @param accountNumber account the posting applies to; the sender of a transfer
+     * @param targetAccountNumber receiving account of a transfer, or null otherwise
+     * @param amount amount to post
+     * @throws IllegalArgumentException if a transfer has no receiving account
+     */
+    public Posting(TransactionType type, String accountNumber, String targetAccountNumber, double amount) {
+        if (type == TransactionType.TRANSFER && targetAccountNumber == null) {
+            throw new IllegalArgumentException("A transfer posting needs a receiving account");
+        }
+        this.type = type;
+        this.accountNumber = accountNumber;
+        this.targetAccountNumber = type == TransactionType.TRANSFER ? targetAccountNumber : null;
+        this.amount = amount;
+    }
+
+    /**
+     * Parses a CSV line of the form {@code type,account,amount[,targetAccount]}, e.g.
+     * {@code DEPOSIT,1000001,2500.00} or {@code TRANSFER,1000001,10.50,1000002}.
+     *
+     * @param line the line to parse
+     * @return the posting
+     * @throws IllegalArgumentException if the line is malformed
+     */
+    public static Posting parse(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length < 3 || fields.length > 4) {
+            throw new IllegalArgumentException("Expected type,account,amount[,targetAccount]: " + line);
+        }
+        TransactionType type = TransactionType.valueOf(fields[0].trim().toUpperCase());
+        String target = fields.length == 4 && !fields[3].isBlank() ? fields[3].trim() : null;
+        return new Posting(type, fields[1].trim(), target, Double.parseDouble(fields[2].trim()));
+    }
+
+    /**
+     * Gets the transaction type.
+     *
+     * @return the type
+     */
+    public TransactionType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the account the posting applies to.
+     *
+     * @return the accountNumber
+     */
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    /**
+     * Gets the receiving account of a transfer.
+     *
+     * @return the targetAccountNumber, or null for deposits and withdrawals
+     */
+    public String getTargetAccountNumber() {
+        return targetAccountNumber;
+    }
+
+    /**
+     * Gets the amount to post.
+     *
+     * @return the amount
+     */
+    public double getAmount() {
+        return amount;
+    }
+
+    /**
+     * Provides a string representation of the posting in its CSV form.
+     *
+     * @return the posting as {@code type,account,amount[,targetAccount]}
+     */
+    @Override
+    public String toString() {
+        return type + "," + accountNumber + "," + amount + (targetAccountNumber != null ? "," + targetAccountNumber : "");
+    }
+}
@@ -0,0 +1,12 @@
+package com.jibstech.bank_account_management_system;
+
+/**
+ * Controls how a batch posted through {@link Bank#postBatch} treats lines that cannot be applied.
+ * @see BatchReport
+ */
+public enum PostingMode {
+    /** The batch is validated first and only applied if every line can be; it is journaled as one atomic unit */
+    ALL_OR_NOTHING,
+    /** Every valid line is applied and rejected lines are skipped */
+    BEST_EFFORT
+}
@@ -0,0 +1,111 @@
+package com.jibstech.bank_account_management_system;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Builds a {@link ReconciliationReport} with parallel passes on the common fork/join pool.
+ * The ledger pass splits the record range into chunks that are summed independently,
+ * reading amounts, types and timestamps in place, and merges the per-chunk totals; the
+ * account pass groups the balances by account type. Both scale with the available cores.
+ * <p>
+ * An account's ledger balance is its opening balance, taken from the first entry of its
+ * {@link AccountIndex} chain, plus the net movement of all its records; it must equal the
+ * balance the account holds.
+ * @see Bank#reconcile()
+ */
+final class Reconciler {
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final long NANOS_PER_DAY = 86_400_000_000_000L;
+
+    private Reconciler() {
+    }
+
+    /**
+     * Reconciles a consistent copy of the accounts against the ledger records they reflect.
+     *
+     * @param accounts copies of every account, taken while no transaction was in flight
+     * @param ledger the ledger
+     * @param ledgerCount number of ledger records the copies reflect
+     * @return the report
+     */
+    static ReconciliationReport reconcile(List<Account> accounts, Ledger ledger, long ledgerCount) {
+        Totals totals = LongStream.range(0, ledgerCount).parallel()
+                .collect(Totals::new, (chunk, index) -> chunk.add(ledger, index), Totals::merge);
+        Map<String, Long> openings = ledger.openingBalances(ledgerCount);
+
+        ConcurrentMap<String, long[]> byType = accounts.parallelStream().collect(Collectors.toConcurrentMap(
+                Account::getAcountType,
+                account -> new long[] {1, Money.toMinorUnits(account.getBalance())},
+                (first, second) -> new long[] {first[0] + second[0], first[1] + second[1]}));
+        Map<String, ReconciliationReport.TypeTotal> typeTotals = new TreeMap<>();
+        byType.forEach((type, sum) -> typeTotals.put(type, new ReconciliationReport.TypeTotal(sum[0], Money.fromMinorUnits(sum[1]))));
+
+        List<ReconciliationReport.DailyVolume> volumes = new ArrayList<>();
+        new TreeMap<>(totals.volumes).forEach((key, volume) -> volumes.add(new ReconciliationReport.DailyVolume(
+                LocalDate.ofEpochDay(Math.floorDiv(key, TYPES.length)), TYPES[Math.floorMod(key, TYPES.length)],
+                volume[0], Money.fromMinorUnits(volume[1]))));
+
+        Map<String, Account> byNumber = accounts.stream().collect(Collectors.toMap(Account::getAccountNumber, account -> account));
+        List<ReconciliationReport.Mismatch> mismatches = totals.net.entrySet().parallelStream()
+                .filter(net -> {
+                    Account account = byNumber.get(net.getKey());
+                    return account == null || Money.toMinorUnits(account.getBalance())
+                            != openings.getOrDefault(net.getKey(), 0L) + net.getValue()[0];
+                })
+                .map(net -> {
+                    Account account = byNumber.get(net.getKey());
+                    return new ReconciliationReport.Mismatch(net.getKey(),
+                            account == null ? null : Money.fromMinorUnits(Money.toMinorUnits(account.getBalance())),
+                            Money.fromMinorUnits(openings.getOrDefault(net.getKey(), 0L) + net.getValue()[0]));
+                })
+                .sorted(Comparator.comparing(ReconciliationReport.Mismatch::getAccountNumber))
+                .collect(Collectors.toList());
+        return new ReconciliationReport(ledgerCount, typeTotals, volumes, mismatches);
+    }
+
+    /**
+     * Net movement per account and volume per day and type of one chunk of the ledger.
+     */
+    private static final class Totals {
+
+        final Map<String, long[]> net = new HashMap<>();
+        final Map<Long, long[]> volumes = new HashMap<>();
+
+        void add(Ledger ledger, long index) {
+            long amount = ledger.amountAt(index);
+            TransactionType type = ledger.typeAt(index);
+            long day = Math.floorDiv(ledger.epochNanosAt(index), NANOS_PER_DAY);
+            long[] volume = volumes.computeIfAbsent(day * TYPES.length + type.ordinal(), key -> new long[2]);
+            volume[0]++;
+            volume[1] += amount;
+            net.computeIfAbsent(ledger.accountAt(index, false), key -> new long[1])[0]
+                    += type == TransactionType.DEPOSIT ? amount : -amount;
+            String target = ledger.accountAt(index, true);
+            if (target != null) {
+                net.computeIfAbsent(target, key -> new long[1])[0] += amount;
+            }
+        }
+
+        void merge(Totals other) {
+            other.net.forEach((account, sum) -> net.merge(account, sum, (a, b) -> {
+                a[0] += b[0];
+                return a;
+            }));
+            other.volumes.forEach((key, volume) -> volumes.merge(key, volume, (a, b) -> {
+                a[0] += b[0];
+                a[1] += b[1];
+                return a;
+            }));
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.jibstech.bank_account_management_system;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-of-day report produced by {@link Bank#reconcile()}: balances per account type,
+ * transaction volumes per day and type, and the accounts whose balance does not match
+ * the balance implied by their ledger history.
+ * @see Reconciler
+ */
+public class ReconciliationReport {
+
+    private final long transactionCount;
+    private final Map<String, TypeTotal> accountTypeTotals;
+    private final List<DailyVolume> dailyVolumes;
+    private final List<Mismatch> mismatches;
+
+    /**
+     * Constructs a report.
+     *
+     * @param transactionCount number of ledger records the report covers
+     * @param accountTypeTotals account count and total balance per account type
+     * @param dailyVolumes volume per day and transaction type, ordered by day then type
+     * @param mismatches accounts whose balance disagrees with the ledger, ordered by account number
+     */
+    public ReconciliationReport(long transactionCount, Map<String, TypeTotal> accountTypeTotals,
+                                List<DailyVolume> dailyVolumes, List<Mismatch> mismatches) {
+        this.transactionCount = transactionCount;
+        this.accountTypeTotals = Collections.unmodifiableMap(accountTypeTotals);
+        this.dailyVolumes = Collections.unmodifiableList(dailyVolumes);
+        this.mismatches = Collections.unmodifiableList(mismatches);
+    }
+
+    /**
+     * Gets the number of ledger records the report covers.
+     *
+     * @return the transaction count
+     */
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * Gets the account count and total balance of every account type.
+     *
+     * @return the totals, keyed by account type
+     */
+    public Map<String, TypeTotal> getAccountTypeTotals() {
+        return accountTypeTotals;
+    }
+
+    /**
+     * Gets the number and amount of transactions per day and type.
+     *
+     * @return the volumes, ordered by day then type
+     */
+    public List<DailyVolume> getDailyVolumes() {
+        return dailyVolumes;
+    }
+
+    /**
+     * Gets the total amount of one transaction type over the whole ledger.
+     *
+     * @param type the transaction type
+     * @return the total amount, e.g. the total deposits
+     */
+    public BigDecimal getTotal(TransactionType type) {
+        BigDecimal total = Money.fromMinorUnits(0);
+        for (DailyVolume volume : dailyVolumes) {
+            if (volume.getType() == type) {
+                total = total.add(volume.getAmount());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Gets the accounts whose balance does not match their ledger history.
+     *
+     * @return the mismatches, ordered by account number
+     */
+    public List<Mismatch> getMismatches() {
+        return mismatches;
+    }
+
+    /**
+     * Tells whether every account balance matches the ledger.
+     *
+     * @return true if there are no mismatches
+     */
+    public boolean isBalanced() {
+        return mismatches.isEmpty();
+    }
+
+    /**
+     * Provides a string representation of the report.
+     *
+     * @return the report as printable lines
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("Transactions: ").append(transactionCount).append('\n');
+        accountTypeTotals.forEach((type, total) -> text.append(type).append(": ").append(total).append('\n'));
+        dailyVolumes.forEach(volume -> text.append(volume).append('\n'));
+        text.append(isBalanced() ? "All balances match the ledger" : "Mismatches: " + mismatches.size());
+        mismatches.forEach(mismatch -> text.append('\n').append(mismatch));
+        return text.toString();
+    }
+
+    /**
+     * Number of accounts of one type and the sum of their balances.
+     */
+    public static final class TypeTotal {
+
+        private final long accountCount;
+        private final BigDecimal balance;
+
+        TypeTotal(long accountCount, BigDecimal balance) {
+            this.accountCount = accountCount;
+            this.balance = balance;
+        }
+
+        /**
+         * Gets the number of accounts of the type.
+         *
+         * @return the account count
+         */
+        public long getAccountCount() {
+            return accountCount;
+        }
+
+        /**
+         * Gets the sum of the balances of the type's accounts.
+         *
+         * @return the total balance
+         */
+        public BigDecimal getBalance() {
+            return balance;
+        }
+
+        @Override
+        public String toString() {
+            return accountCount + " accounts, Balance: " + balance.toPlainString();
+        }
+    }
+
+    /**
+     * Number and total amount of the transactions of one type on one day.
+     */
+    public static final class DailyVolume {
+
+        private final LocalDate date;
+        private final TransactionType type;
+        private final long count;
+        private final BigDecimal amount;
+
+        DailyVolume(LocalDate date, TransactionType type, long count, BigDecimal amount) {
+            this.date = date;
+            this.type = type;
+            this.count = count;
+            this.amount = amount;
+        }
+
+        /**
+         * Gets the day.
+         *
+         * @return the date
+         */
+        public LocalDate getDate() {
+            return date;
+        }
+
+        /**
+         * Gets the transaction type.
+         *
+         * @return the type
+         */
+        public TransactionType getType() {
+            return type;
+        }
+
+        /**
+         * Gets the number of transactions.
+         *
+         * @return the count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the total amount of the transactions.
+         *
+         * @return the amount
+         */
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        @Override
+        public String toString() {
+            return date + "  " + type + "  " + count + "  " + amount.toPlainString();
+        }
+    }
+
+    /**
+     * An account whose balance differs from the balance implied by its ledger history.
+     */
+    public static final class Mismatch {
+
+        private final String accountNumber;
+        private final BigDecimal balance;
+        private final BigDecimal ledgerBalance;
+
+        Mismatch(String accountNumber, BigDecimal balance, BigDecimal ledgerBalance) {
+            this.accountNumber = accountNumber;
+            this.balance = balance;
+            this.ledgerBalance = ledgerBalance;
+        }
+
+        /**
+         * Gets the account number.
+         *
+         * @return the accountNumber
+         */
+        public String getAccountNumber() {
+            return accountNumber;
+        }
+
+        /**
+         * Gets the balance held by the account.
+         *
+         * @return the balance, or null if the ledger refers to an account that does not exist
+         */
+        public BigDecimal getBalance() {
+            return balance;
+        }
+
+        /**
+         * Gets the balance implied by the account's opening balance and its ledger records.
+         *
+         * @return the ledger balance
+         */
+        public BigDecimal getLedgerBalance() {
+            return ledgerBalance;
+        }
+
+        @Override
+        public String toString() {
+            return accountNumber + "  Balance: " + (balance == null ? "missing" : balance.toPlainString())
+                    + "  Ledger: " + ledgerBalance.toPlainString();
+        }
+    }
+}
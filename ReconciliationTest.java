@@ -0,0 +1,47 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReconciliationTest {
+
+	@TempDir
+	Path dataDirectory;
+
+	@Test
+	void testTotalsAndMismatches() {
+		AccountStore store = new HashAccountStore();
+		store.add(new Account("1000001", "Alice", "Savings", 100));
+		store.add(new Account("1000002", "Bob", "Checking", 50));
+		store.add(new Account("1000003", "Carol", "Savings", 10));
+		Bank bank = new Bank(store, dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		for (int i = 0; i < 1_000; i++) {
+			bank.deposit("1000001", 1, false);
+			bank.transfer("1000001", "1000002", 0.5, false);
+			bank.transfer("1000003", "1000003", 1, false);
+		}
+
+		ReconciliationReport report = bank.reconcile();
+		assertTrue(report.isBalanced(), report::toString);
+		assertEquals(3_000, report.getTransactionCount());
+		assertEquals(new BigDecimal("1000.00"), report.getTotal(TransactionType.DEPOSIT));
+		assertEquals(new BigDecimal("1500.00"), report.getTotal(TransactionType.TRANSFER));
+		assertEquals(2, report.getAccountTypeTotals().get("Savings").getAccountCount());
+		assertEquals(new BigDecimal("610.00"), report.getAccountTypeTotals().get("Savings").getBalance());
+		assertEquals(new BigDecimal("550.00"), report.getAccountTypeTotals().get("Checking").getBalance());
+
+		bank.findAccountByNumber("1000002").deposit(5); // bypasses the journal and ledger
+		List<ReconciliationReport.Mismatch> mismatches = bank.reconcile().getMismatches();
+		assertEquals(1, mismatches.size());
+		assertEquals("1000002", mismatches.get(0).getAccountNumber());
+		assertEquals(new BigDecimal("555.00"), mismatches.get(0).getBalance());
+		assertEquals(new BigDecimal("550.00"), mismatches.get(0).getLedgerBalance());
+		bank.close();
+	}
+}
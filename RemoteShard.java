@@ -0,0 +1,195 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * A shard served by a {@link BankServer} in another process, reached over HTTP. The
+ * server must have been started on a {@link LocalShard}, which adds the two-phase commit
+ * endpoints under {@code /shard}.
+ * <p>
+ * Accounts returned by {@link #findAccountByNumber(String)} are copies; changing them
+ * does not affect the remote shard.
+ * @see BankServer
+ * @see ShardedBank
+ */
+public class RemoteShard implements BankShard {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final URI base;
+    private final HttpClient client;
+
+    /**
+     * Creates a shard talking to a BankServer.
+     *
+     * @param base address of the server, such as {@code http://localhost:8081}
+     */
+    public RemoteShard(URI base) {
+        this.base = base;
+        this.client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+    }
+
+    @Override
+    public boolean createAccount(String accountNumber, String accountName, String accountType, double initialBalance) {
+        HttpResponse<String> response = send("POST", "/accounts", "number", accountNumber, "name", accountName,
+                "type", accountType, "balance", Double.toString(initialBalance));
+        return response.statusCode() == 201;
+    }
+
+    @Override
+    public Account findAccountByNumber(String accountNumber) {
+        HttpResponse<String> response = send("GET", "/accounts/" + encode(accountNumber));
+        if (response.statusCode() != 200) {
+            return null;
+        }
+        String json = response.body();
+        return new Account(field(json, "number"), field(json, "name"), field(json, "type"),
+                Double.parseDouble(field(json, "balance")));
+    }
+
+    @Override
+    public TransactionResult depositToAccount(String accountNumber, double amount) {
+        return result(send("POST", "/accounts/" + encode(accountNumber) + "/deposit", "amount", Double.toString(amount)));
+    }
+
+    @Override
+    public TransactionResult withdrawFromAccount(String accountNumber, double amount) {
+        return result(send("POST", "/accounts/" + encode(accountNumber) + "/withdraw", "amount", Double.toString(amount)));
+    }
+
+    @Override
+    public TransactionResult transferBetweenAccounts(String senderAccount, String receiverAccount, double amount) {
+        return result(send("POST", "/transfers", "from", senderAccount, "to", receiverAccount,
+                "amount", Double.toString(amount)));
+    }
+
+    @Override
+    public FailureReason prepare(long transactionId, String accountNumber, double amount, boolean debit) {
+        HttpResponse<String> response = send("POST", "/shard/prepare", "tx", Long.toString(transactionId),
+                "account", accountNumber, "amount", Double.toString(amount), "debit", Boolean.toString(debit));
+        return response.statusCode() == 200 ? null : failureReason(response);
+    }
+
+    @Override
+    public TransactionResult commit(long transactionId) {
+        HttpResponse<String> response = send("POST", "/shard/commit", "tx", Long.toString(transactionId));
+        return response.statusCode() == 404 ? TransactionResult.failure() : result(response);
+    }
+
+    @Override
+    public void abort(long transactionId) {
+        send("POST", "/shard/abort", "tx", Long.toString(transactionId));
+    }
+
+    /**
+     * Nothing to release; the remote Bank stays open.
+     */
+    @Override
+    public void close() {
+    }
+
+    private HttpResponse<String> send(String method, String path, String... params) {
+        StringBuilder uri = new StringBuilder(base.toString()).append(path);
+        for (int i = 0; i < params.length; i += 2) {
+            uri.append(i == 0 ? '?' : '&').append(params[i]).append('=').append(encode(params[i + 1]));
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri.toString()))
+                .timeout(TIMEOUT)
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Shard " + base + " unreachable", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException("Interrupted calling shard " + base, new IOException(e));
+        }
+        if (response.statusCode() >= 500) {
+            throw new UncheckedIOException("Shard " + base + " answered " + response.statusCode() + ": "
+                    + response.body(), new IOException(response.body()));
+        }
+        return response;
+    }
+
+    private static TransactionResult result(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            return TransactionResult.failure(failureReason(response));
+        }
+        String json = response.body();
+        String target = field(json, "target");
+        Transaction txn = new Transaction(field(json, "id"), field(json, "account"), target,
+                Double.parseDouble(field(json, "amount")), TransactionType.valueOf(field(json, "type")),
+                LocalDateTime.parse(field(json, "timestamp")));
+        return TransactionResult.success(txn, Double.parseDouble(field(json, "balance")));
+    }
+
+    /** Maps a 404 or a 422 "Rejected: REASON" answer back to the reason. */
+    private static FailureReason failureReason(HttpResponse<String> response) {
+        if (response.statusCode() == 404) {
+            return FailureReason.UNKNOWN_ACCOUNT;
+        }
+        String error = field(response.body(), "error");
+        String prefix = "Rejected: ";
+        if (error != null && error.startsWith(prefix)) {
+            try {
+                return FailureReason.valueOf(error.substring(prefix.length()));
+            } catch (IllegalArgumentException e) {
+                // fall through to the generic reason
+            }
+        }
+        return FailureReason.INVALID_AMOUNT;
+    }
+
+    /**
+     * Extracts the first value of a field from the flat JSON written by BankServer.
+     *
+     * @return the unquoted string or the raw number, or null if absent or null
+     */
+    static String field(String json, String name) {
+        String key = "\"" + name + "\":";
+        int start = json.indexOf(key);
+        if (start < 0) {
+            return null;
+        }
+        start += key.length();
+        if (json.charAt(start) != '"') {
+            int end = start;
+            while (end < json.length() && ",}]".indexOf(json.charAt(end)) < 0) {
+                end++;
+            }
+            String value = json.substring(start, end);
+            return "null".equals(value) ? null : value;
+        }
+        StringBuilder value = new StringBuilder();
+        for (int i = start + 1; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                break;
+            }
+            if (c == '\\') {
+                c = json.charAt(++i);
+                if (c == 'u') {
+                    c = (char) Integer.parseInt(json.substring(i + 1, i + 5), 16);
+                    i += 4;
+                }
+            }
+            value.append(c);
+        }
+        return value.toString();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,514 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spreads accounts over several {@link BankShard}s, each a Bank with its own files, and
+ * routes every operation to the shard owning the account by {@linkplain ConsistentHashRing
+ * consistent hashing}. Shards run in this JVM ({@link LocalShard}) or as {@link BankServer}
+ * processes ({@link RemoteShard}); since each has its own journal and locks, throughput
+ * grows with the number of shards.
+ * <p>
+ * A transfer between accounts of the same shard is an ordinary Bank transfer. A transfer
+ * between shards is a two-phase commit, with this class as coordinator:
+ * <ol>
+ *   <li>BEGIN is forced to the coordinator's {@link TwoPhaseLog}
+ *       ({@code coordinator.log});</li>
+ *   <li>the sender's shard prepares a withdrawal, holding the funds, then the receiver's
+ *       shard prepares a deposit;</li>
+ *   <li>if both are prepared, COMMIT is forced and both sides are committed; otherwise
+ *       both are aborted;</li>
+ *   <li>END records that both shards know the outcome.</li>
+ * </ol>
+ * A shard that fails to answer in phase one aborts the transfer. Once COMMIT is logged the
+ * transfer is reported as committed: a side whose commit fails is retried in the background,
+ * with growing delays, until its shard applies it. On opening, transfers the log shows as
+ * begun but not ended are finished: committed if COMMIT was logged and aborted otherwise,
+ * so a transfer is never half applied once coordinator and shards have recovered. The log
+ * is compacted to the transfers still open on opening and every
+ * {@value #COMPACT_EVERY_ENDS} ended transfers, so it stays small however long the
+ * coordinator runs.
+ * <p>
+ * The two sides are recorded in the shards' histories as a withdrawal and a deposit.
+ * Accounts stay on the shard that created them; changing the number of shards of existing
+ * data is not supported.
+ * @see LocalShard
+ * @see RemoteShard
+ */
+public class ShardedBank implements Closeable {
+
+    private static final long NO_TRANSACTION = 0;
+    private static final long FIRST_RETRY_MILLIS = 50;
+    private static final long MAX_RETRY_MILLIS = 5_000;
+    /** Ended transfers after which the coordinator log is compacted */
+    static final int COMPACT_EVERY_ENDS = 1024;
+
+    private final List<BankShard> shards;
+    private final ConsistentHashRing ring;
+    private final TwoPhaseLog log;
+    private final AtomicLong transactionIds;
+    private final IdempotencyCache idempotency = new IdempotencyCache();
+    private final BankLogger logger;
+    private final Clock clock;
+    private final ScheduledThreadPoolExecutor resolver;
+    /** Records of the transfers logged but not ended, guarded by the log's monitor */
+    private final Map<Long, List<TwoPhaseLog.Record>> open = new TreeMap<>();
+    private int endsSinceCompaction;
+
+    /**
+     * Opens a coordinator over the given shards, finishing the transfers left in flight, and
+     * prints its diagnostic messages to the console.
+     *
+     * @param shards the shards, in the same order every time the data is opened
+     * @param coordinatorDirectory directory holding {@code coordinator.log}
+     * @throws UncheckedIOException if the log cannot be opened or a shard cannot be reached during recovery
+     */
+    public ShardedBank(List<BankShard> shards, Path coordinatorDirectory) {
+        this(shards, coordinatorDirectory, BankLogger.console());
+    }
+
+    /**
+     * Opens a coordinator over the given shards, finishing the transfers left in flight.
+     *
+     * @param shards the shards, in the same order every time the data is opened
+     * @param coordinatorDirectory directory holding {@code coordinator.log}
+     * @param logger receives log errors and commits that have to be retried
+     * @throws UncheckedIOException if the log cannot be opened or a shard cannot be reached during recovery
+     */
+    public ShardedBank(List<BankShard> shards, Path coordinatorDirectory, BankLogger logger) {
+        this(shards, coordinatorDirectory, logger, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Opens a coordinator over the given shards with an explicit clock, finishing the
+     * transfers left in flight.
+     *
+     * @param shards the shards, in the same order every time the data is opened
+     * @param coordinatorDirectory directory holding {@code coordinator.log}
+     * @param logger receives log errors and commits that have to be retried
+     * @param clock source of the timestamps of transfers whose sender's side is still being committed
+     * @throws UncheckedIOException if the log cannot be opened or a shard cannot be reached during recovery
+     */
+    public ShardedBank(List<BankShard> shards, Path coordinatorDirectory, BankLogger logger, Clock clock) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.logger = logger;
+        this.clock = clock;
+        this.shards = List.copyOf(shards);
+        this.ring = new ConsistentHashRing(shards.size());
+        this.transactionIds = new AtomicLong();
+        try {
+            this.log = new TwoPhaseLog(coordinatorDirectory.resolve("coordinator.log"));
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to recover coordinator log", e);
+        }
+        this.resolver = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "shard-commit-resolver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        resolver.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Opens a bank of in-JVM shards under a data directory: shard {@code i} keeps its files
+     * in {@code shard-i}, and the coordinator its log in the directory itself.
+     *
+     * @param dataDirectory the data directory, created if missing
+     * @param shardCount number of shards
+     * @param fsyncPolicy when each shard's journal records are forced to disk
+     * @return the sharded bank
+     * @throws UncheckedIOException if a directory cannot be created or a shard cannot be opened
+     */
+    public static ShardedBank local(Path dataDirectory, int shardCount, FsyncPolicy fsyncPolicy) {
+        List<BankShard> shards = new ArrayList<>(shardCount);
+        try {
+            for (int i = 0; i < shardCount; i++) {
+                Path directory = Files.createDirectories(dataDirectory.resolve("shard-" + i));
+                Bank bank = new Bank(new HashAccountStore(), directory, fsyncPolicy, BankLogger.quiet());
+                shards.add(new LocalShard(bank, directory.resolve("participant.log")));
+            }
+        } catch (IOException e) {
+            shards.forEach(BankShard::close);
+            throw new UncheckedIOException("Unable to create shard directory", e);
+        }
+        return new ShardedBank(shards, dataDirectory);
+    }
+
+    /**
+     * Gets the number of shards.
+     *
+     * @return the shard count
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Gets the shard an account belongs to.
+     *
+     * @param accountNumber the account number
+     * @return the shard index
+     */
+    public int shardOf(String accountNumber) {
+        return ring.shardOf(accountNumber);
+    }
+
+    /**
+     * Gets a shard.
+     *
+     * @param index the shard index
+     * @return the shard
+     */
+    public BankShard getShard(int index) {
+        return shards.get(index);
+    }
+
+    /**
+     * Creates an account on the shard it belongs to.
+     *
+     * @param accountNumber unique identifier for the new account
+     * @param accountName name of the account owner
+     * @param accountType category/type of account
+     * @param initialBalance starting balance
+     * @return true if the account was created, false if the number is taken or invalid
+     */
+    public boolean createAccount(String accountNumber, String accountName, String accountType, double initialBalance) {
+        return shardFor(accountNumber).createAccount(accountNumber, accountName, accountType, initialBalance);
+    }
+
+    /**
+     * Finds an account on the shard it belongs to.
+     *
+     * @param accountNumber the account number
+     * @return the account, or null if there is none
+     */
+    public Account findAccountByNumber(String accountNumber) {
+        return shardFor(accountNumber).findAccountByNumber(accountNumber);
+    }
+
+    /**
+     * Performs a deposit on the shard the account belongs to.
+     *
+     * @param accountNumber target account identifier
+     * @param amount amount to deposit; must be positive
+     * @return the outcome, with the new balance or the reason the deposit was rejected
+     */
+    public TransactionResult depositToAccount(String accountNumber, double amount) {
+        return shardFor(accountNumber).depositToAccount(accountNumber, amount);
+    }
+
+    /**
+     * Performs a withdrawal on the shard the account belongs to.
+     *
+     * @param accountNumber target account identifier
+     * @param amount amount to withdraw; must be positive and <= account balance
+     * @return the outcome, with the new balance or the reason the withdrawal was rejected
+     */
+    public TransactionResult withdrawFromAccount(String accountNumber, double amount) {
+        return shardFor(accountNumber).withdrawFromAccount(accountNumber, amount);
+    }
+
+    /**
+     * Performs a deposit unless one with the same idempotency key was performed through
+     * this coordinator in the last {@value IdempotencyCache#DEFAULT_WINDOW_MINUTES} minutes.
+     *
+     * @param accountNumber target account identifier
+     * @param amount amount to deposit; must be positive
+     * @param idempotencyKey client-chosen key identifying the request, or null to always deposit
+     * @return the outcome, or that of the original request if the key was seen before
+     * @see Bank#depositToAccount(String, double, String)
+     */
+    public TransactionResult depositToAccount(String accountNumber, double amount, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return depositToAccount(accountNumber, amount);
+        }
+        return idempotency.execute(idempotencyKey, "deposit " + accountNumber + " " + amount,
+                () -> depositToAccount(accountNumber, amount));
+    }
+
+    /**
+     * Performs a withdrawal unless one with the same idempotency key was performed through
+     * this coordinator in the last {@value IdempotencyCache#DEFAULT_WINDOW_MINUTES} minutes.
+     *
+     * @param accountNumber target account identifier
+     * @param amount amount to withdraw; must be positive and <= account balance
+     * @param idempotencyKey client-chosen key identifying the request, or null to always withdraw
+     * @return the outcome, or that of the original request if the key was seen before
+     * @see Bank#withdrawFromAccount(String, double, String)
+     */
+    public TransactionResult withdrawFromAccount(String accountNumber, double amount, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return withdrawFromAccount(accountNumber, amount);
+        }
+        return idempotency.execute(idempotencyKey, "withdraw " + accountNumber + " " + amount,
+                () -> withdrawFromAccount(accountNumber, amount));
+    }
+
+    /**
+     * Transfers funds unless a transfer with the same idempotency key was performed through
+     * this coordinator in the last {@value IdempotencyCache#DEFAULT_WINDOW_MINUTES} minutes.
+     *
+     * @param senderAccount account number of the sender
+     * @param receiverAccount account number of the receiver
+     * @param amount amount to transfer; must be positive and <= sender's available balance
+     * @param idempotencyKey client-chosen key identifying the request, or null to always transfer
+     * @return the outcome, or that of the original request if the key was seen before
+     * @throws UncheckedIOException as {@link #transferBetweenAccounts(String, String, double)};
+     *         the key is then forgotten, so a retry runs the transfer again
+     * @see Bank#transferBetweenAccounts(String, String, double, String)
+     */
+    public TransactionResult transferBetweenAccounts(String senderAccount, String receiverAccount, double amount,
+                                                     String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return transferBetweenAccounts(senderAccount, receiverAccount, amount);
+        }
+        return idempotency.execute(idempotencyKey, "transfer " + senderAccount + " " + receiverAccount + " " + amount,
+                () -> transferBetweenAccounts(senderAccount, receiverAccount, amount));
+    }
+
+    /**
+     * Transfers funds between two accounts, atomically even when they live on different
+     * shards.
+     *
+     * @param senderAccount account number of the sender
+     * @param receiverAccount account number of the receiver
+     * @param amount amount to transfer; must be positive and <= sender's available balance
+     * @return the outcome, with the sender's new balance or the reason the transfer was rejected;
+     *         the balance is NaN if the sender's side is still being committed in the background
+     * @throws UncheckedIOException if the coordinator log cannot be written or a shard cannot
+     *         be reached before the transfer is decided; it is then aborted, or finished when
+     *         the bank is reopened
+     */
+    public TransactionResult transferBetweenAccounts(String senderAccount, String receiverAccount, double amount) {
+        int from = ring.shardOf(senderAccount);
+        int to = ring.shardOf(receiverAccount);
+        if (from == to) {
+            return shards.get(from).transferBetweenAccounts(senderAccount, receiverAccount, amount);
+        }
+        if (!(amount > 0)) {
+            return TransactionResult.failure(FailureReason.INVALID_AMOUNT);
+        }
+        long transactionId = transactionIds.incrementAndGet();
+        BankShard debit = shards.get(from);
+        BankShard credit = shards.get(to);
+        try {
+            logRecord(new TwoPhaseLog.Record(TwoPhaseLog.Kind.BEGIN, transactionId, Double.doubleToLongBits(amount),
+                    false, senderAccount, receiverAccount), true);
+            FailureReason reason;
+            try {
+                reason = debit.prepare(transactionId, senderAccount, amount, true);
+                if (reason == null) {
+                    reason = credit.prepare(transactionId, receiverAccount, amount, false);
+                }
+            } catch (UncheckedIOException e) {
+                try {
+                    abort(transactionId, debit, credit);
+                } catch (IOException | RuntimeException abortFailure) {
+                    e.addSuppressed(abortFailure); // recovery presumes the abort
+                }
+                throw e;
+            }
+            if (reason != null) {
+                abort(transactionId, debit, credit);
+                return TransactionResult.failure(reason);
+            }
+            logRecord(new TwoPhaseLog.Record(TwoPhaseLog.Kind.COMMIT, transactionId), true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write coordinator log", e);
+        }
+        DecidedTransfer decided = new DecidedTransfer(transactionId, debit, credit);
+        if (!decided.finish()) {
+            resolveLater(decided, FIRST_RETRY_MILLIS);
+        }
+        TransactionResult withdrawal = decided.withdrawal;
+        LocalDateTime timestamp = withdrawal != null && withdrawal.getTransaction() != null
+                ? withdrawal.getTransaction().getTimestamp() : LocalDateTime.now(clock);
+        Transaction txn = new Transaction("XTX" + transactionId, senderAccount, receiverAccount, amount,
+                TransactionType.TRANSFER, timestamp);
+        return TransactionResult.success(txn, withdrawal != null ? withdrawal.getBalance() : Double.NaN);
+    }
+
+    /**
+     * Gets the number of decided transfers with a side still waiting to be committed.
+     *
+     * @return the number of transfers being retried in the background
+     */
+    public int getUnresolvedCount() {
+        return resolver.getQueue().size() + resolver.getActiveCount();
+    }
+
+    /**
+     * Stops retrying decided transfers, then closes the coordinator log and every shard.
+     * Transfers still unresolved are finished when the bank is reopened.
+     */
+    @Override
+    public void close() {
+        resolver.shutdown();
+        try {
+            // not shutdownNow(): an interrupt would close the FileChannel of a shard's journal mid-commit
+            resolver.awaitTermination(MAX_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            logger.log("Error closing coordinator log " + e.getMessage());
+        }
+        shards.forEach(BankShard::close);
+    }
+
+    private BankShard shardFor(String accountNumber) {
+        return shards.get(ring.shardOf(accountNumber));
+    }
+
+    /** Logs the abort, then tells both shards; a lost ABORT record is presumed on recovery. */
+    private void abort(long transactionId, BankShard debit, BankShard credit) throws IOException {
+        logRecord(new TwoPhaseLog.Record(TwoPhaseLog.Kind.ABORT, transactionId), false);
+        debit.abort(transactionId);
+        credit.abort(transactionId);
+        logRecord(new TwoPhaseLog.Record(TwoPhaseLog.Kind.END, transactionId), false);
+    }
+
+    /**
+     * Appends a record to the coordinator log and keeps track of the transfers not ended,
+     * compacting the log every {@value #COMPACT_EVERY_ENDS} ended transfers.
+     */
+    private void logRecord(TwoPhaseLog.Record record, boolean force) throws IOException {
+        synchronized (log) {
+            log.append(record, force);
+            if (record.kind != TwoPhaseLog.Kind.END) {
+                open.computeIfAbsent(record.transactionId, id -> new ArrayList<>()).add(record);
+                return;
+            }
+            open.remove(record.transactionId);
+            if (++endsSinceCompaction >= COMPACT_EVERY_ENDS) {
+                endsSinceCompaction = 0;
+                try {
+                    compact();
+                } catch (IOException e) {
+                    logger.log("Unable to compact coordinator log " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrites the coordinator log to the records of the transfers still open, after an END
+     * for the last id issued so ids are never reused. Must be called holding the log's monitor.
+     */
+    private void compact() throws IOException {
+        List<TwoPhaseLog.Record> kept = new ArrayList<>();
+        kept.add(new TwoPhaseLog.Record(TwoPhaseLog.Kind.END, transactionIds.get()));
+        open.values().forEach(kept::addAll);
+        log.rewrite(kept);
+    }
+
+    private void resolveLater(DecidedTransfer decided, long delayMillis) {
+        try {
+            resolver.schedule(() -> {
+                if (!decided.finish()) {
+                    resolveLater(decided, Math.min(delayMillis * 2, MAX_RETRY_MILLIS));
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // closing: the COMMIT record stays without END, so recovery finishes the transfer
+        }
+    }
+
+    private void recover() throws IOException {
+        Map<Long, TwoPhaseLog.Record> begun = new LinkedHashMap<>();
+        Set<Long> committed = new HashSet<>();
+        long lastId = NO_TRANSACTION;
+        for (TwoPhaseLog.Record record : log.read()) {
+            lastId = Math.max(lastId, record.transactionId);
+            switch (record.kind) {
+                case BEGIN -> begun.put(record.transactionId, record);
+                case COMMIT -> committed.add(record.transactionId);
+                case END -> {
+                    begun.remove(record.transactionId);
+                    committed.remove(record.transactionId);
+                }
+                default -> {
+                }
+            }
+        }
+        for (TwoPhaseLog.Record record : begun.values()) {
+            BankShard debit = shardFor(record.accountNumber);
+            BankShard credit = shardFor(record.otherAccountNumber);
+            if (committed.contains(record.transactionId)) {
+                debit.commit(record.transactionId);
+                credit.commit(record.transactionId);
+            } else {
+                debit.abort(record.transactionId);
+                credit.abort(record.transactionId);
+            }
+        }
+        transactionIds.set(lastId);
+        // keep only the last id, so ids are never reused while a shard may remember them
+        log.rewrite(lastId == NO_TRANSACTION ? List.of() : List.of(new TwoPhaseLog.Record(TwoPhaseLog.Kind.END, lastId)));
+    }
+
+    /**
+     * A transfer whose COMMIT is logged, with the sides its shards have applied so far.
+     */
+    private final class DecidedTransfer {
+
+        private final long transactionId;
+        private final BankShard debit;
+        private final BankShard credit;
+        private TransactionResult withdrawal;
+        private boolean debitDone;
+        private boolean creditDone;
+
+        DecidedTransfer(long transactionId, BankShard debit, BankShard credit) {
+            this.transactionId = transactionId;
+            this.debit = debit;
+            this.credit = credit;
+        }
+
+        /** Commits the sides not yet applied and logs END once both are; true if done. */
+        synchronized boolean finish() {
+            try {
+                if (!debitDone) {
+                    withdrawal = debit.commit(transactionId);
+                    debitDone = true;
+                }
+                if (!creditDone) {
+                    credit.commit(transactionId);
+                    creditDone = true;
+                }
+            } catch (RuntimeException e) {
+                logger.log("Commit of transfer " + transactionId + " failed, retrying: " + e.getMessage());
+                return false;
+            }
+            try {
+                logRecord(new TwoPhaseLog.Record(TwoPhaseLog.Kind.END, transactionId), false);
+            } catch (IOException e) {
+                // both sides are applied; without END, recovery commits them again, which the shards ignore
+                logger.log("Unable to log the end of transfer " + transactionId + ": " + e.getMessage());
+            }
+            return true;
+        }
+    }
+}
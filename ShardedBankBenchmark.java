@@ -0,0 +1,101 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures deposit and transfer throughput of a ShardedBank of in-JVM shards as the
+ * shard count grows. Run with several threads (e.g. {@code -t 8}): every shard forces its
+ * own journal, so deposits should scale with shards until the disk or the cores run out.
+ * Accounts are created one by one through the bank, so setup grows quadratically. Random
+ * transfers mostly cross shards once there are several, and pay for the two-phase
+ * commit's forced log writes; {@code localTransfer} keeps both accounts on one shard.
+ * @see ShardedBank
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardedBankBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    private int shardCount;
+
+    @Param({"PER_OPERATION"})
+    private FsyncPolicy fsyncPolicy;
+
+    @Param({"2000"})
+    private int accountCount;
+
+    private Path dataDirectory;
+    private ShardedBank bank;
+    private String[][] accountsByShard;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDirectory = Files.createTempDirectory("sharded-bench");
+        bank = ShardedBank.local(dataDirectory, shardCount, fsyncPolicy);
+        int[] counts = new int[shardCount];
+        for (int i = 0; i < accountCount; i++) {
+            bank.createAccount(accountNumber(i), "Owner " + i, "Savings", 1_000_000);
+            counts[bank.shardOf(accountNumber(i))]++;
+        }
+        accountsByShard = new String[shardCount][];
+        for (int shard = 0; shard < shardCount; shard++) {
+            accountsByShard[shard] = new String[counts[shard]];
+            counts[shard] = 0;
+        }
+        for (int i = 0; i < accountCount; i++) {
+            int shard = bank.shardOf(accountNumber(i));
+            accountsByShard[shard][counts[shard]++] = accountNumber(i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bank.close();
+    }
+
+    @Benchmark
+    public TransactionResult deposit() {
+        return bank.depositToAccount(accountNumber(ThreadLocalRandom.current().nextInt(accountCount)), 1);
+    }
+
+    @Benchmark
+    public TransactionResult transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return bank.transferBetweenAccounts(accountNumber(random.nextInt(accountCount)),
+                accountNumber(random.nextInt(accountCount)), 1);
+    }
+
+    @Benchmark
+    public TransactionResult localTransfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String[] accounts = accountsByShard[random.nextInt(shardCount)];
+        return bank.transferBetweenAccounts(accounts[random.nextInt(accounts.length)],
+                accounts[random.nextInt(accounts.length)], 1);
+    }
+
+    private static String accountNumber(int index) {
+        return String.valueOf(1_000_000 + index);
+    }
+}
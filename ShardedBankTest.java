@@ -0,0 +1,363 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShardedBankTest {
+
+	@TempDir
+	Path dataDirectory;
+
+	@Test
+	void testRoutesAccountsAndTransfersAcrossShards() {
+		try (ShardedBank bank = ShardedBank.local(dataDirectory, 4, FsyncPolicy.NONE)) {
+			for (int i = 0; i < 40; i++) {
+				assertTrue(bank.createAccount(String.valueOf(1000000 + i), "Owner " + i, "Savings", 100));
+			}
+			for (int i = 0; i < 40; i++) {
+				String accountNumber = String.valueOf(1000000 + i);
+				for (int shard = 0; shard < 4; shard++) {
+					assertEquals(shard == bank.shardOf(accountNumber),
+							bank.getShard(shard).findAccountByNumber(accountNumber) != null);
+				}
+			}
+			String[] pair = accountsOnDifferentShards(bank, 40);
+
+			TransactionResult result = bank.transferBetweenAccounts(pair[0], pair[1], 30);
+
+			assertTrue(result.isSuccessful());
+			assertEquals(70, result.getBalance(), 0.001);
+			assertEquals(TransactionType.TRANSFER, result.getTransaction().getType());
+			assertEquals(130, bank.findAccountByNumber(pair[1]).getBalance(), 0.001);
+			assertEquals(FailureReason.INSUFFICIENT_FUNDS,
+					bank.transferBetweenAccounts(pair[0], pair[1], 71).getFailureReason());
+			assertEquals(70, bank.findAccountByNumber(pair[0]).getBalance(), 0.001);
+		}
+	}
+
+	@Test
+	void testFailedPrepareReleasesHold() {
+		try (ShardedBank bank = ShardedBank.local(dataDirectory, 2, FsyncPolicy.NONE)) {
+			String[] pair = accountsOnDifferentShards(bank, 20);
+			bank.createAccount(pair[0], "Alice", "Savings", 100);
+
+			assertEquals(FailureReason.UNKNOWN_ACCOUNT,
+					bank.transferBetweenAccounts(pair[0], pair[1], 40).getFailureReason());
+
+			assertTrue(bank.withdrawFromAccount(pair[0], 100).isSuccessful());
+		}
+	}
+
+	@Test
+	void testHoldBlocksWithdrawalUntilAborted() {
+		LocalShard shard = new LocalShard(new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet()),
+				dataDirectory.resolve("participant.log"));
+		shard.createAccount("1000001", "Alice", "Savings", 100);
+
+		assertNull(shard.prepare(1, "1000001", 60, true));
+		assertEquals(FailureReason.INSUFFICIENT_FUNDS, shard.withdrawFromAccount("1000001", 50).getFailureReason());
+		assertEquals(FailureReason.INSUFFICIENT_FUNDS, shard.prepare(2, "1000001", 50, true));
+		shard.abort(1);
+
+		assertTrue(shard.withdrawFromAccount("1000001", 50).isSuccessful());
+		shard.close();
+	}
+
+	@Test
+	void testPreparedDebitSurvivesRestart() {
+		LocalShard shard = new LocalShard(new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet()),
+				dataDirectory.resolve("participant.log"));
+		shard.createAccount("1000001", "Alice", "Savings", 100);
+		assertNull(shard.prepare(7, "1000001", 60, true));
+		shard.close();
+
+		shard = new LocalShard(new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet()),
+				dataDirectory.resolve("participant.log"));
+
+		assertFalse(shard.withdrawFromAccount("1000001", 50).isSuccessful());
+		TransactionResult result = shard.commit(7);
+		assertTrue(result.isSuccessful());
+		assertEquals(40, result.getBalance(), 0.001);
+		assertFalse(shard.commit(7).isSuccessful());
+		shard.close();
+	}
+
+	@Test
+	void testFailedCommitKeepsTheSidePrepared() {
+		LocalShard shard = new LocalShard(new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet()),
+				dataDirectory.resolve("participant.log"));
+		shard.createAccount("1000001", "Alice", "Savings", 100);
+		assertNull(shard.prepare(5, "1000001", 60, true));
+
+		Thread.currentThread().interrupt(); // closes the participant log's channel
+		try {
+			assertThrows(UncheckedIOException.class, () -> shard.commit(5));
+		} finally {
+			Thread.interrupted();
+		}
+
+		assertThrows(UncheckedIOException.class, () -> shard.commit(5));
+		assertEquals(100, shard.findAccountByNumber("1000001").getBalance(), 0.001);
+		assertEquals(FailureReason.INSUFFICIENT_FUNDS, shard.withdrawFromAccount("1000001", 50).getFailureReason());
+		shard.getBank().close();
+	}
+
+	@Test
+	void testDecidedTransferIsRetriedUntilBothSidesCommit() throws Exception {
+		BankShard[] shards = new BankShard[2];
+		for (int i = 0; i < 2; i++) {
+			Path directory = dataDirectory.resolve("shard-" + i);
+			Files.createDirectories(directory);
+			LocalShard local = new LocalShard(new Bank(new HashAccountStore(), directory, FsyncPolicy.NONE, BankLogger.quiet()),
+					directory.resolve("participant.log"));
+			shards[i] = new FlakyShard(local, 2);
+		}
+		Clock clock = Clock.fixed(Instant.parse("2026-10-17T09:30:00Z"), ZoneOffset.UTC);
+		try (ShardedBank bank = new ShardedBank(List.of(shards), dataDirectory, BankLogger.quiet(), clock)) {
+			String[] pair = accountsOnDifferentShards(bank, 20);
+			assertTrue(bank.createAccount(pair[0], "Alice", "Savings", 100));
+			assertTrue(bank.createAccount(pair[1], "Bob", "Savings", 0));
+
+			TransactionResult result = bank.transferBetweenAccounts(pair[0], pair[1], 40);
+
+			assertTrue(result.isSuccessful());
+			assertTrue(Double.isNaN(result.getBalance()));
+			assertEquals(LocalDateTime.of(2026, 10, 17, 9, 30), result.getTransaction().getTimestamp());
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (bank.getUnresolvedCount() > 0 && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(0, bank.getUnresolvedCount());
+			assertEquals(60, bank.findAccountByNumber(pair[0]).getBalance(), 0.001);
+			assertEquals(40, bank.findAccountByNumber(pair[1]).getBalance(), 0.001);
+			assertTrue(bank.withdrawFromAccount(pair[0], 60).isSuccessful()); // the hold is gone
+		}
+	}
+
+	@Test
+	void testFailedAbortKeepsThePrepareFailure() throws Exception {
+		FlakyShard[] shards = new FlakyShard[2];
+		for (int i = 0; i < 2; i++) {
+			Path directory = dataDirectory.resolve("shard-" + i);
+			Files.createDirectories(directory);
+			shards[i] = new FlakyShard(new LocalShard(new Bank(new HashAccountStore(), directory, FsyncPolicy.NONE,
+					BankLogger.quiet()), directory.resolve("participant.log")), 0);
+		}
+		try (ShardedBank bank = new ShardedBank(List.of(shards), dataDirectory, BankLogger.quiet())) {
+			String[] pair = accountsOnDifferentShards(bank, 20);
+			assertTrue(bank.createAccount(pair[0], "Alice", "Savings", 100));
+			assertTrue(bank.createAccount(pair[1], "Bob", "Savings", 0));
+			shards[bank.shardOf(pair[1])].unreachable = true;
+
+			UncheckedIOException e = assertThrows(UncheckedIOException.class,
+					() -> bank.transferBetweenAccounts(pair[0], pair[1], 40));
+
+			assertEquals("Prepare failed", e.getCause().getMessage());
+			assertEquals(1, e.getSuppressed().length);
+			assertTrue(bank.withdrawFromAccount(pair[0], 100).isSuccessful()); // the sender's side was aborted
+			shards[bank.shardOf(pair[1])].unreachable = false;
+		}
+	}
+
+	@Test
+	void testCoordinatorLogIsCompactedWhileRunning() throws Exception {
+		String[] pair;
+		Path coordinatorLog = dataDirectory.resolve("coordinator.log");
+		try (ShardedBank bank = ShardedBank.local(dataDirectory, 2, FsyncPolicy.NONE)) {
+			pair = accountsOnDifferentShards(bank, 20);
+			bank.createAccount(pair[0], "Alice", "Savings", 10_000);
+			bank.createAccount(pair[1], "Bob", "Savings", 0);
+			for (int i = 0; i < ShardedBank.COMPACT_EVERY_ENDS + 10; i++) {
+				assertTrue(bank.transferBetweenAccounts(pair[0], pair[1], 1).isSuccessful());
+			}
+
+			assertTrue(Files.size(coordinatorLog) < 64L * TwoPhaseLog.RECORD_SIZE);
+		}
+		try (ShardedBank bank = ShardedBank.local(dataDirectory, 2, FsyncPolicy.NONE)) {
+			int transfers = ShardedBank.COMPACT_EVERY_ENDS + 10;
+			assertEquals(10_000 - transfers, bank.findAccountByNumber(pair[0]).getBalance(), 0.001);
+			assertEquals(transfers, bank.findAccountByNumber(pair[1]).getBalance(), 0.001);
+			TransactionResult next = bank.transferBetweenAccounts(pair[0], pair[1], 1);
+			assertEquals("XTX" + (transfers + 1), next.getTransaction().getTransactionId()); // ids are not reused
+		}
+	}
+
+	@Test
+	void testCommittedSideLostFromJournalIsReapplied() throws Exception {
+		Bank bank = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		bank.createAccount("1000001", "Alice", "Savings", 100);
+		bank.close();
+		try (TwoPhaseLog log = new TwoPhaseLog(dataDirectory.resolve("participant.log"))) {
+			log.append(new TwoPhaseLog.Record(TwoPhaseLog.Kind.PREPARED, 3, Double.doubleToLongBits(25), false,
+					"1000001", null), true);
+			log.append(new TwoPhaseLog.Record(TwoPhaseLog.Kind.COMMIT, 3, 1000, false, null, null), true);
+		}
+
+		LocalShard shard = new LocalShard(new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet()),
+				dataDirectory.resolve("participant.log"));
+
+		assertEquals(125, shard.findAccountByNumber("1000001").getBalance(), 0.001);
+		assertFalse(shard.commit(3).isSuccessful());
+		shard.close();
+	}
+
+	@Test
+	void testCoordinatorRecoveryCommitsDecidedAndAbortsUndecided() throws Exception {
+		String[] pair;
+		try (ShardedBank bank = ShardedBank.local(dataDirectory, 2, FsyncPolicy.NONE)) {
+			pair = accountsOnDifferentShards(bank, 20);
+			bank.createAccount(pair[0], "Alice", "Savings", 100);
+			bank.createAccount(pair[1], "Bob", "Savings", 100);
+			BankShard debit = bank.getShard(bank.shardOf(pair[0]));
+			BankShard credit = bank.getShard(bank.shardOf(pair[1]));
+			for (long transactionId : new long[] {10, 11}) {
+				assertNull(debit.prepare(transactionId, pair[0], 30, true));
+				assertNull(credit.prepare(transactionId, pair[1], 30, false));
+			}
+		}
+		try (TwoPhaseLog log = new TwoPhaseLog(dataDirectory.resolve("coordinator.log"))) {
+			for (long transactionId : new long[] {10, 11}) {
+				log.append(new TwoPhaseLog.Record(TwoPhaseLog.Kind.BEGIN, transactionId, Double.doubleToLongBits(30),
+						false, pair[0], pair[1]), true);
+			}
+			log.append(new TwoPhaseLog.Record(TwoPhaseLog.Kind.COMMIT, 10), true);
+		}
+
+		try (ShardedBank bank = ShardedBank.local(dataDirectory, 2, FsyncPolicy.NONE)) {
+			assertEquals(70, bank.findAccountByNumber(pair[0]).getBalance(), 0.001);
+			assertEquals(130, bank.findAccountByNumber(pair[1]).getBalance(), 0.001);
+			assertTrue(bank.withdrawFromAccount(pair[0], 70).isSuccessful());
+		}
+	}
+
+	@Test
+	void testTransfersBetweenRemoteShards() throws Exception {
+		LocalShard[] locals = new LocalShard[2];
+		BankServer[] servers = new BankServer[2];
+		BankShard[] remotes = new BankShard[2];
+		for (int i = 0; i < 2; i++) {
+			Path directory = dataDirectory.resolve("shard-" + i);
+			Files.createDirectories(directory);
+			locals[i] = new LocalShard(new Bank(new HashAccountStore(), directory, FsyncPolicy.NONE, BankLogger.quiet()),
+					directory.resolve("participant.log"));
+			servers[i] = new BankServer(locals[i], new InetSocketAddress("localhost", 0));
+			servers[i].start();
+			remotes[i] = new RemoteShard(URI.create("http://localhost:" + servers[i].getPort()));
+		}
+		try (ShardedBank bank = new ShardedBank(List.of(remotes), dataDirectory)) {
+			String[] pair = accountsOnDifferentShards(bank, 20);
+			assertTrue(bank.createAccount(pair[0], "Alice", "Savings", 100));
+			assertTrue(bank.createAccount(pair[1], "Bob", "Savings", 0));
+
+			TransactionResult result = bank.transferBetweenAccounts(pair[0], pair[1], 40);
+
+			assertTrue(result.isSuccessful());
+			assertEquals(60, result.getBalance(), 0.001);
+			assertEquals(40, bank.findAccountByNumber(pair[1]).getBalance(), 0.001);
+			assertEquals(FailureReason.INSUFFICIENT_FUNDS,
+					bank.transferBetweenAccounts(pair[0], pair[1], 61).getFailureReason());
+			assertEquals(40, locals[bank.shardOf(pair[1])].findAccountByNumber(pair[1]).getBalance(), 0.001);
+		} finally {
+			for (int i = 0; i < 2; i++) {
+				servers[i].close();
+				locals[i].close();
+			}
+		}
+	}
+
+	/**
+	 * A shard whose first commits fail, as if its journal were briefly unavailable.
+	 */
+	private static final class FlakyShard implements BankShard {
+
+		private final LocalShard shard;
+		private int failuresLeft;
+		private volatile boolean unreachable;
+
+		FlakyShard(LocalShard shard, int failures) {
+			this.shard = shard;
+			this.failuresLeft = failures;
+		}
+
+		@Override
+		public boolean createAccount(String accountNumber, String accountName, String accountType, double initialBalance) {
+			return shard.createAccount(accountNumber, accountName, accountType, initialBalance);
+		}
+
+		@Override
+		public Account findAccountByNumber(String accountNumber) {
+			return shard.findAccountByNumber(accountNumber);
+		}
+
+		@Override
+		public TransactionResult depositToAccount(String accountNumber, double amount) {
+			return shard.depositToAccount(accountNumber, amount);
+		}
+
+		@Override
+		public TransactionResult withdrawFromAccount(String accountNumber, double amount) {
+			return shard.withdrawFromAccount(accountNumber, amount);
+		}
+
+		@Override
+		public TransactionResult transferBetweenAccounts(String senderAccount, String receiverAccount, double amount) {
+			return shard.transferBetweenAccounts(senderAccount, receiverAccount, amount);
+		}
+
+		@Override
+		public FailureReason prepare(long transactionId, String accountNumber, double amount, boolean debit) {
+			if (unreachable) {
+				throw new UncheckedIOException(new IOException("Prepare failed"));
+			}
+			return shard.prepare(transactionId, accountNumber, amount, debit);
+		}
+
+		@Override
+		public synchronized TransactionResult commit(long transactionId) {
+			if (failuresLeft > 0) {
+				failuresLeft--;
+				throw new UncheckedIOException(new IOException("Journal unavailable"));
+			}
+			return shard.commit(transactionId);
+		}
+
+		@Override
+		public void abort(long transactionId) {
+			if (unreachable) {
+				throw new UncheckedIOException(new IOException("Abort failed"));
+			}
+			shard.abort(transactionId);
+		}
+
+		@Override
+		public void close() {
+			shard.close();
+		}
+	}
+
+	private static String[] accountsOnDifferentShards(ShardedBank bank, int candidates) {
+		String first = "1000000";
+		for (int i = 1; i < candidates; i++) {
+			String other = String.valueOf(1000000 + i);
+			if (bank.shardOf(other) != bank.shardOf(first)) {
+				return new String[] {first, other};
+			}
+		}
+		throw new AssertionError("All candidates on one shard");
+	}
+}
@@ -0,0 +1,127 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary checkpoint of every account balance, tagged with the sequence number
+ * of the last transaction it reflects. The Bank loads the latest snapshot and replays
+ * only the journal tail written after it, so startup cost depends on the number of
+ * accounts rather than on the length of the transaction history.
+ * <p>
+ * Format: a {@link BinaryCodec} stream tagged with the sequence number, holding one
+ * record per account. Version 1 snapshots, which stored fixed-width balances and every
+ * account type in full, are still read. Snapshots are written to a temporary file and
+ * atomically renamed into place.
+ * @see Bank
+ * @see BinaryCodec
+ * @see Journal
+ */
+public class Snapshot {
+
+    private static final int MAGIC = 0x534E4150; // "SNAP"
+    private static final int VERSION = 2;
+    private static final int VERSION_1 = 1;
+    private static final byte KIND_LOCK_FREE = 1;
+
+    private final long sequence;
+    private final List<Account> accounts;
+
+    /**
+     * Constructs a snapshot of the given accounts.
+     *
+     * @param sequence sequence number of the last transaction reflected in the balances
+     * @param accounts detached copies of the accounts (see {@link Account#getDetails()})
+     */
+    public Snapshot(long sequence, List<Account> accounts) {
+        this.sequence = sequence;
+        this.accounts = accounts;
+    }
+
+    /**
+     * Gets the sequence number of the last transaction reflected in the balances.
+     *
+     * @return the sequence
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the accounts captured by the snapshot.
+     *
+     * @return the accounts
+     */
+    public List<Account> getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Writes the snapshot to a file, replacing any previous snapshot atomically.
+     *
+     * @param file path of the snapshot file
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void write(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BinaryCodec.Writer out = new BinaryCodec.Writer(temp, MAGIC, VERSION, sequence)) {
+            for (Account account : accounts) {
+                out.write(account);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot file.
+     *
+     * @param file path of the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static Snapshot read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a snapshot: " + file);
+            }
+            int version = in.readInt();
+            if (version == VERSION_1) {
+                return readVersion1(in);
+            }
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            }
+        }
+        try (BinaryCodec.Reader in = new BinaryCodec.Reader(file, MAGIC)) {
+            List<Account> accounts = new ArrayList<>();
+            while (in.hasNext()) {
+                accounts.add(in.readAccount());
+            }
+            return new Snapshot(in.getTag(), accounts);
+        }
+    }
+
+    private static Snapshot readVersion1(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        int count = in.readInt();
+        List<Account> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte kind = in.readByte();
+            String accountNumber = in.readUTF();
+            String ownerName = in.readUTF();
+            String accountType = in.readUTF();
+            if (kind == KIND_LOCK_FREE) {
+                accounts.add(new LockFreeAccount(accountNumber, ownerName, accountType, Money.fromMinorUnits(in.readLong())));
+            } else {
+                accounts.add(new Account(accountNumber, ownerName, accountType, in.readDouble()));
+            }
+        }
+        return new Snapshot(sequence, accounts);
+    }
+}
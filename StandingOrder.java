@@ -0,0 +1,125 @@
+package com.jibstech.bank_account_management_system;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * A transfer scheduled by a {@link StandingOrderScheduler}: once at a given time, or
+ * repeatedly at a fixed interval from its first due time.
+ * @see StandingOrderScheduler#schedule(String, String, double, LocalDateTime)
+ */
+public final class StandingOrder {
+
+    private final long id;
+    private final String senderAccount;
+    private final String receiverAccount;
+    private final long amountMinor;
+    private final long dueMillis;
+    private final long intervalMillis;
+
+    /**
+     * Creates an order; times are ledger time in milliseconds (see {@link Journal#toEpochNanos}).
+     */
+    StandingOrder(long id, String senderAccount, String receiverAccount, long amountMinor, long dueMillis,
+                  long intervalMillis) {
+        this.id = id;
+        this.senderAccount = senderAccount;
+        this.receiverAccount = receiverAccount;
+        this.amountMinor = amountMinor;
+        this.dueMillis = dueMillis;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Gets the identifier the order was given when it was scheduled.
+     *
+     * @return the order id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the account the transfer is taken from.
+     *
+     * @return the sender's account number
+     */
+    public String getSenderAccount() {
+        return senderAccount;
+    }
+
+    /**
+     * Gets the account the transfer is paid into.
+     *
+     * @return the receiver's account number
+     */
+    public String getReceiverAccount() {
+        return receiverAccount;
+    }
+
+    /**
+     * Gets the amount transferred each time the order fires.
+     *
+     * @return the amount
+     */
+    public double getAmount() {
+        return Money.toDouble(amountMinor);
+    }
+
+    /**
+     * Gets the time the order fires next.
+     *
+     * @return the due time
+     */
+    public LocalDateTime getNextDue() {
+        return Journal.fromEpochNanos(dueMillis * 1_000_000L);
+    }
+
+    /**
+     * Gets the time between two transfers of a repeating order.
+     *
+     * @return the interval, or null if the order fires once
+     */
+    public Duration getInterval() {
+        return intervalMillis == 0 ? null : Duration.ofMillis(intervalMillis);
+    }
+
+    long amountMinor() {
+        return amountMinor;
+    }
+
+    long dueMillis() {
+        return dueMillis;
+    }
+
+    long intervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Gets the order as it stands once it fired at a given time: due at the first
+     * occurrence after it, so occurrences missed while the bank was down fire only once.
+     *
+     * @param firedMillis when the order fired
+     * @return the order with its next due time, or null if it fires only once
+     */
+    StandingOrder next(long firedMillis) {
+        if (intervalMillis == 0) {
+            return null;
+        }
+        long missed = firedMillis < dueMillis ? 0 : (firedMillis - dueMillis) / intervalMillis;
+        return new StandingOrder(id, senderAccount, receiverAccount, amountMinor,
+                dueMillis + (missed + 1) * intervalMillis, intervalMillis);
+    }
+
+    /**
+     * Provides a one-line description of the order.
+     *
+     * @return the accounts, amount and schedule
+     */
+    @Override
+    public String toString() {
+        return "Standing order " + id + ": " + Money.fromMinorUnits(amountMinor) + " from " + senderAccount + " to "
+                + receiverAccount + (intervalMillis == 0 ? " at " : " every " + getInterval() + " from ") + getNextDue();
+    }
+}
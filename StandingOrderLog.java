@@ -0,0 +1,213 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent schedule of a {@link StandingOrderScheduler}, kept next to the bank data as
+ * {@code standing-orders.log}. Every order scheduled, every order cancelled and every
+ * order fired is appended as one fixed-size record; the scheduler replays the log at
+ * startup and then rewrites it with one record per remaining order.
+ * <p>
+ * Record layout ({@value #RECORD_SIZE} bytes, big-endian):
+ * <pre>
+ *  0  byte  record kind ordinal
+ *  1  long  order id
+ *  9  long  ORDER: next due time; FIRED: first sequence number of the batch, 0 if none
+ * 17  long  ORDER: interval in milliseconds, 0 for a single transfer; FIRED: time fired
+ * 25  long  ORDER: amount in minor units
+ * 33  byte  sender account number length, followed by 16 bytes of account number
+ * 50  byte  receiver account number length, followed by 16 bytes of account number
+ * 76  int   CRC32 of bytes 0-75
+ * </pre>
+ * Times are ledger time in milliseconds (see {@link Journal#toEpochNanos}). Like the
+ * {@link Journal}, a torn record at the tail is discarded when the log is read.
+ * @see StandingOrderScheduler
+ */
+final class StandingOrderLog implements Closeable {
+
+    static final int RECORD_SIZE = 80;
+
+    private static final int CRC_OFFSET = 76;
+    private static final Kind[] KINDS = Kind.values();
+
+    /**
+     * What a record says about an order.
+     */
+    enum Kind {
+        /** The order was scheduled, or is still scheduled as of a rewrite */
+        ORDER,
+        /** The order was cancelled */
+        CANCEL,
+        /** The order fired, in the batch starting at the given sequence number */
+        FIRED
+    }
+
+    private final Path file;
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+
+    /**
+     * Opens (or creates) a log, appending after its last intact record.
+     *
+     * @param file the log file
+     * @throws IOException if the file cannot be opened
+     */
+    StandingOrderLog(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Appends records with one write and forces them to disk.
+     *
+     * @param records the records
+     * @throws IOException if the records cannot be written
+     */
+    synchronized void append(List<Record> records) throws IOException {
+        ByteBuffer buffer = encode(records);
+        long position = channel.size();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Reads every intact record, oldest first, and truncates a torn tail.
+     *
+     * @return the records
+     * @throws IOException if the file cannot be read
+     */
+    synchronized List<Record> read() throws IOException {
+        List<Record> records = new ArrayList<>();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        long offset = 0;
+        long size = channel.size();
+        while (offset + RECORD_SIZE <= size) {
+            record.clear();
+            while (record.hasRemaining() && channel.read(record, offset + record.position()) >= 0) {
+                // keep reading until the record is complete
+            }
+            crc.reset();
+            crc.update(record.array(), 0, CRC_OFFSET);
+            if ((int) crc.getValue() != record.getInt(CRC_OFFSET)) {
+                break;
+            }
+            records.add(decode(record));
+            offset += RECORD_SIZE;
+        }
+        if (offset < size) {
+            channel.truncate(offset);
+        }
+        return records;
+    }
+
+    /**
+     * Replaces the whole log with the given records, through a temporary file renamed
+     * over the log, so a crash leaves either the old or the new content.
+     *
+     * @param records the records to keep
+     * @throws IOException if the log cannot be rewritten
+     */
+    synchronized void rewrite(List<Record> records) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = encode(records);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    private ByteBuffer encode(List<Record> records) {
+        ByteBuffer buffer = ByteBuffer.allocate(records.size() * RECORD_SIZE);
+        for (Record record : records) {
+            int start = buffer.position();
+            buffer.put((byte) record.kind.ordinal());
+            buffer.putLong(record.orderId);
+            buffer.putLong(record.value);
+            buffer.putLong(record.secondValue);
+            buffer.putLong(record.amountMinor);
+            putAccountNumber(buffer, record.senderAccount);
+            putAccountNumber(buffer, record.receiverAccount);
+            buffer.position(start + CRC_OFFSET);
+            crc.reset();
+            crc.update(buffer.array(), start, CRC_OFFSET);
+            buffer.putInt((int) crc.getValue());
+        }
+        return buffer.flip();
+    }
+
+    private static void putAccountNumber(ByteBuffer buffer, String accountNumber) {
+        byte[] bytes = accountNumber == null ? new byte[0] : accountNumber.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Journal.MAX_ACCOUNT_NUMBER_LENGTH) {
+            throw new IllegalArgumentException("Account number too long for log: " + accountNumber);
+        }
+        buffer.put((byte) bytes.length);
+        buffer.put(bytes);
+        buffer.position(buffer.position() + Journal.MAX_ACCOUNT_NUMBER_LENGTH - bytes.length);
+    }
+
+    private static String getAccountNumber(ByteBuffer record, int offset) {
+        int length = record.get(offset);
+        return length == 0 ? null : new String(record.array(), offset + 1, length, StandardCharsets.UTF_8);
+    }
+
+    private static Record decode(ByteBuffer record) {
+        return new Record(KINDS[record.get(0)], record.getLong(1), record.getLong(9), record.getLong(17),
+                record.getLong(25), getAccountNumber(record, 33), getAccountNumber(record, 50));
+    }
+
+    /**
+     * A single record of the log.
+     */
+    static final class Record {
+
+        final Kind kind;
+        final long orderId;
+        final long value;
+        final long secondValue;
+        final long amountMinor;
+        final String senderAccount;
+        final String receiverAccount;
+
+        Record(Kind kind, long orderId, long value, long secondValue, long amountMinor, String senderAccount,
+               String receiverAccount) {
+            this.kind = kind;
+            this.orderId = orderId;
+            this.value = value;
+            this.secondValue = secondValue;
+            this.amountMinor = amountMinor;
+            this.senderAccount = senderAccount;
+            this.receiverAccount = receiverAccount;
+        }
+
+        Record(Kind kind, long orderId, long value, long secondValue) {
+            this(kind, orderId, value, secondValue, 0, null, null);
+        }
+    }
+}
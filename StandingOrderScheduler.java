@@ -0,0 +1,389 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Standing orders and scheduled transfers: transfers between two accounts of a Bank that
+ * fire once at a given time, or repeatedly at a fixed interval.
+ * <p>
+ * Pending orders wait in a hierarchical {@link TimingWheel} of one-second ticks (by
+ * default), so scheduling and cancelling an order are O(1) however many are pending, and
+ * a run only touches the orders that are due. Each {@link #runDue()}, called by the
+ * caller or {@linkplain #start(Duration) on a timer}, fires every order due by the Bank's
+ * clock as all-or-nothing {@linkplain Bank#postBatch batches} of up to
+ * {@value #MAX_BATCH} transfers, so orders falling due at the same time cost one journal
+ * commit per batch rather than one per order. An order the sender cannot cover, or whose
+ * account is gone, is left out of its batch and counts as fired; a repeating order is then
+ * due again one interval later, and occurrences missed while the bank was down fire once.
+ * <p>
+ * The schedule is kept in {@code standing-orders.log} next to the bank data (see
+ * {@link StandingOrderLog}). Before a batch is applied, its orders are logged as fired
+ * together with the sequence number of its first transfer; after a restart, orders whose
+ * batch the Bank {@linkplain Bank#isRecorded(long) recovered} move on to their next due
+ * time and the others fire again, so no occurrence is paid twice or skipped. The log is
+ * compacted to one record per pending order at startup and on {@link #close()}.
+ * @see StandingOrder
+ */
+public class StandingOrderScheduler implements Closeable {
+
+    /** Tick of {@link #StandingOrderScheduler(Bank, Path)} */
+    public static final Duration DEFAULT_TICK = Duration.ofSeconds(1);
+    /** Most transfers posted in one batch */
+    public static final int MAX_BATCH = 10_000;
+
+    private final Bank bank;
+    private final Clock clock;
+    private final long tickMillis;
+    private final StandingOrderLog log;
+    private final TimingWheel<StandingOrder> wheel;
+    private final Map<Long, TimingWheel.Entry<StandingOrder>> pending = new HashMap<>();
+    private long lastId;
+    private ScheduledExecutorService timer;
+
+    /**
+     * Opens the schedule in a data directory with ticks of one second.
+     *
+     * @param bank the bank to post to; its clock decides when orders are due
+     * @param directory directory holding standing-orders.log, normally the bank's data directory
+     * @throws UncheckedIOException if the schedule cannot be read or compacted
+     */
+    public StandingOrderScheduler(Bank bank, Path directory) {
+        this(bank, directory, DEFAULT_TICK);
+    }
+
+    /**
+     * Opens the schedule in a data directory.
+     *
+     * @param bank the bank to post to; its clock decides when orders are due
+     * @param directory directory holding standing-orders.log, normally the bank's data directory
+     * @param tick resolution of due times; an order fires at the first tick at or after its due time
+     * @throws IllegalArgumentException if the tick is shorter than a millisecond
+     * @throws UncheckedIOException if the schedule cannot be read or compacted
+     */
+    public StandingOrderScheduler(Bank bank, Path directory, Duration tick) {
+        if (tick.toMillis() < 1) {
+            throw new IllegalArgumentException("Tick must be at least one millisecond: " + tick);
+        }
+        this.bank = bank;
+        this.clock = bank.getClock();
+        this.tickMillis = tick.toMillis();
+        this.wheel = new TimingWheel<>(Math.floorDiv(now(), tickMillis));
+        Path file = directory.resolve("standing-orders.log");
+        try {
+            log = new StandingOrderLog(file);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open standing orders " + file, e);
+        }
+    }
+
+    /**
+     * Schedules a single transfer.
+     *
+     * @param senderAccount account to take the amount from
+     * @param receiverAccount account to pay it into
+     * @param amount amount to transfer; must be positive
+     * @param at when to transfer; a time in the past fires with the next run
+     * @return the order
+     * @throws IllegalArgumentException if an account does not exist or the amount is not positive
+     * @throws UncheckedIOException if the order cannot be logged
+     */
+    public StandingOrder schedule(String senderAccount, String receiverAccount, double amount, LocalDateTime at) {
+        return schedule(senderAccount, receiverAccount, amount, at, null);
+    }
+
+    /**
+     * Schedules a standing order transferring the same amount at a fixed interval.
+     *
+     * @param senderAccount account to take the amount from
+     * @param receiverAccount account to pay it into
+     * @param amount amount to transfer each time; must be positive
+     * @param first when to transfer the first time
+     * @param interval time between two transfers, or null for a single transfer
+     * @return the order
+     * @throws IllegalArgumentException if an account does not exist, the amount is not
+     *                                  positive or the interval is shorter than a millisecond
+     * @throws UncheckedIOException if the order cannot be logged
+     */
+    public synchronized StandingOrder schedule(String senderAccount, String receiverAccount, double amount,
+                                               LocalDateTime first, Duration interval) {
+        if (bank.findAccountByNumber(senderAccount) == null || bank.findAccountByNumber(receiverAccount) == null) {
+            throw new IllegalArgumentException("Unknown account: " + senderAccount + " or " + receiverAccount);
+        }
+        if (!(amount > 0)) {
+            throw new IllegalArgumentException("Amount must be positive: " + amount);
+        }
+        if (interval != null && interval.toMillis() < 1) {
+            throw new IllegalArgumentException("Interval must be at least one millisecond: " + interval);
+        }
+        StandingOrder order = new StandingOrder(lastId + 1, senderAccount, receiverAccount, Money.toMinorUnits(amount),
+                Journal.toEpochNanos(first) / 1_000_000L, interval == null ? 0 : interval.toMillis());
+        append(List.of(orderRecord(order)));
+        lastId = order.getId();
+        add(order);
+        return order;
+    }
+
+    /**
+     * Cancels a pending order.
+     *
+     * @param orderId id of the order
+     * @return false if no such order is pending
+     * @throws UncheckedIOException if the cancellation cannot be logged
+     */
+    public synchronized boolean cancel(long orderId) {
+        TimingWheel.Entry<StandingOrder> entry = pending.get(orderId);
+        if (entry == null) {
+            return false;
+        }
+        append(List.of(new StandingOrderLog.Record(StandingOrderLog.Kind.CANCEL, orderId, 0, 0)));
+        pending.remove(orderId);
+        wheel.remove(entry);
+        return true;
+    }
+
+    /**
+     * Returns every pending order with its next due time.
+     *
+     * @return the orders, by id
+     */
+    public synchronized List<StandingOrder> getOrders() {
+        return pending.values().stream()
+                .map(entry -> entry.value)
+                .sorted(Comparator.comparingLong(StandingOrder::getId))
+                .toList();
+    }
+
+    /**
+     * Fires every order due by now.
+     *
+     * @return one line per order fired, in due order; orders left out of their batch are
+     *         reported as rejected lines
+     * @throws UncheckedIOException if the schedule cannot be logged or a batch cannot be
+     *                              committed; the orders not fired yet stay due
+     */
+    public synchronized BatchReport runDue() {
+        long now = now();
+        List<StandingOrder> due = new ArrayList<>();
+        wheel.advance(Math.floorDiv(now, tickMillis), due::add);
+        List<TransactionResult> results = new ArrayList<>(due.size());
+        List<Integer> rejected = new ArrayList<>();
+        int from = 0;
+        try {
+            for (; from < due.size(); from += MAX_BATCH) {
+                fire(due.subList(from, Math.min(from + MAX_BATCH, due.size())), now, results, rejected);
+            }
+        } finally {
+            for (StandingOrder order : due.subList(Math.min(from + MAX_BATCH, due.size()), due.size())) {
+                add(order); // batches after a failed one stay due
+            }
+        }
+        return new BatchReport(true, results, rejected);
+    }
+
+    /**
+     * Runs {@link #runDue()} in the background at a fixed delay, replacing an earlier timer.
+     * Failures go to the Bank's logger and the orders concerned fire with the next run.
+     *
+     * @param period time between two runs; about one tick
+     */
+    public synchronized void start(Duration period) {
+        if (timer != null) {
+            timer.shutdown();
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "standing-orders");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                runDue();
+            } catch (RuntimeException e) {
+                bank.getLogger().log("Unable to run standing orders " + e.getMessage());
+            }
+        }, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background timer, compacts the schedule and closes it. The Bank is left open.
+     *
+     * @throws IOException if the schedule cannot be compacted or closed
+     */
+    @Override
+    public void close() throws IOException {
+        ScheduledExecutorService scheduled;
+        synchronized (this) {
+            scheduled = timer;
+            timer = null;
+        }
+        if (scheduled != null) {
+            scheduled.shutdown();
+            try {
+                scheduled.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            compact();
+            log.close();
+        }
+    }
+
+    /**
+     * Posts one batch of due orders, leaving out the transfers it rejects and retrying,
+     * and moves every order of it on to its next due time once the batch is logged as
+     * fired; if it fails before that, the orders stay due.
+     */
+    private void fire(List<StandingOrder> orders, long now, List<TransactionResult> results, List<Integer> rejected) {
+        List<Posting> postings = new ArrayList<>(orders.size());
+        List<Integer> lines = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            StandingOrder order = orders.get(i);
+            postings.add(new Posting(TransactionType.TRANSFER, order.getSenderAccount(), order.getReceiverAccount(),
+                    order.getAmount()));
+            lines.add(i);
+        }
+        TransactionResult[] outcomes = new TransactionResult[orders.size()];
+        boolean[] logged = new boolean[1];
+        try {
+            while (!postings.isEmpty()) {
+                BatchReport report = bank.postAtomically(postings, first -> {
+                    logFired(orders, first, now);
+                    logged[0] = true;
+                }, true);
+                if (report.isCommitted()) {
+                    for (int i = 0; i < lines.size(); i++) {
+                        outcomes[lines.get(i)] = report.getResults().get(i);
+                    }
+                    break;
+                }
+                List<Integer> refused = report.getRejectedLines();
+                for (int i = refused.size() - 1; i >= 0; i--) {
+                    int line = lines.remove((int) refused.get(i));
+                    postings.remove((int) refused.get(i));
+                    outcomes[line] = report.getResults().get(refused.get(i));
+                }
+            }
+            if (postings.isEmpty()) {
+                logFired(orders, 0, now);
+                logged[0] = true;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to commit standing orders", e);
+        } finally {
+            for (StandingOrder order : orders) {
+                StandingOrder next = logged[0] ? order.next(now) : order;
+                if (next != null) {
+                    add(next);
+                } else {
+                    pending.remove(order.getId());
+                }
+            }
+        }
+        for (TransactionResult outcome : outcomes) {
+            if (!outcome.isSuccessful()) {
+                rejected.add(results.size());
+            }
+            results.add(outcome);
+        }
+    }
+
+    /**
+     * Replays the log, moving orders whose batch the Bank holds on to their next due time,
+     * and compacts it.
+     */
+    private void recover() throws IOException {
+        Map<Long, StandingOrder> orders = new LinkedHashMap<>();
+        for (StandingOrderLog.Record record : log.read()) {
+            lastId = Math.max(lastId, record.orderId);
+            switch (record.kind) {
+                case ORDER -> orders.put(record.orderId, new StandingOrder(record.orderId, record.senderAccount,
+                        record.receiverAccount, record.amountMinor, record.value, record.secondValue));
+                case CANCEL -> orders.remove(record.orderId);
+                case FIRED -> {
+                    StandingOrder order = orders.get(record.orderId);
+                    if (order != null && (record.value == 0 || bank.isRecorded(record.value))) {
+                        StandingOrder next = order.next(record.secondValue);
+                        if (next == null) {
+                            orders.remove(record.orderId);
+                        } else {
+                            orders.put(record.orderId, next);
+                        }
+                    }
+                }
+            }
+        }
+        for (StandingOrder order : orders.values()) {
+            add(order);
+        }
+        compact();
+    }
+
+    /**
+     * Rewrites the log with one record per pending order. If the order with the highest id
+     * is gone, a cancellation of it is kept so that ids are not reused.
+     */
+    private void compact() {
+        List<StandingOrderLog.Record> records = new ArrayList<>(pending.size() + 1);
+        for (StandingOrder order : getOrders()) {
+            records.add(orderRecord(order));
+        }
+        if (lastId > 0 && !pending.containsKey(lastId)) {
+            records.add(new StandingOrderLog.Record(StandingOrderLog.Kind.CANCEL, lastId, 0, 0));
+        }
+        try {
+            log.rewrite(records);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to compact standing orders", e);
+        }
+    }
+
+    private void add(StandingOrder order) {
+        pending.put(order.getId(), wheel.add(Math.floorDiv(order.dueMillis() + tickMillis - 1, tickMillis), order));
+    }
+
+    private void logFired(List<StandingOrder> orders, long firstSequence, long now) {
+        List<StandingOrderLog.Record> records = new ArrayList<>(orders.size());
+        for (StandingOrder order : orders) {
+            records.add(new StandingOrderLog.Record(StandingOrderLog.Kind.FIRED, order.getId(), firstSequence, now));
+        }
+        append(records);
+    }
+
+    private void append(List<StandingOrderLog.Record> records) {
+        try {
+            log.append(records);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to log standing orders", e);
+        }
+    }
+
+    private static StandingOrderLog.Record orderRecord(StandingOrder order) {
+        return new StandingOrderLog.Record(StandingOrderLog.Kind.ORDER, order.getId(), order.dueMillis(),
+                order.intervalMillis(), order.amountMinor(), order.getSenderAccount(), order.getReceiverAccount());
+    }
+
+    /**
+     * Gets the current time as the ledger measures it, in milliseconds.
+     */
+    private long now() {
+        return Journal.toEpochNanos(LocalDateTime.now(clock)) / 1_000_000L;
+    }
+}
@@ -0,0 +1,129 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the standing order scheduler: adding and cancelling an entry in a timing wheel
+ * already holding millions of entries spread over 30 days of one-second ticks, and one
+ * run firing every order of a day that fell due at the same instant, posted in batches
+ * of {@value StandingOrderScheduler#MAX_BATCH}. The orders of a run are written to the
+ * schedule directly before each invocation, so the setup does not fsync every order.
+ * @see StandingOrderScheduler
+ * @see TimingWheel
+ */
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class StandingOrderSchedulerBenchmark {
+
+    private static final long THIRTY_DAYS = 30L * 24 * 60 * 60;
+
+    @State(Scope.Benchmark)
+    public static class WheelState {
+
+        @Param({"1000000", "5000000"})
+        int pending;
+
+        TimingWheel<Long> wheel;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            wheel = new TimingWheel<>(0);
+            for (long i = 0; i < pending; i++) {
+                wheel.add(ThreadLocalRandom.current().nextLong(THIRTY_DAYS), i);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RunState {
+
+        @Param({"100000"})
+        int dueOrders;
+
+        Path dataDirectory;
+        Bank bank;
+        StandingOrderScheduler scheduler;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dataDirectory = Files.createTempDirectory("standing-orders-bench");
+            AccountStore store = new HashAccountStore();
+            for (int i = 0; i < dueOrders; i++) {
+                store.add(new Account(String.valueOf(10_000_000 + i), "Owner " + i, "Checking", 1_000_000));
+            }
+            bank = new Bank(store, dataDirectory, FsyncPolicy.PER_OPERATION, BankLogger.quiet());
+        }
+
+        @Setup(Level.Invocation)
+        public void scheduleOrders() throws IOException {
+            // a tick in the past, so the orders are due even if the run starts within the same tick
+            long due = Journal.toEpochNanos(LocalDateTime.now(bank.getClock())) / 1_000_000L
+                    - StandingOrderScheduler.DEFAULT_TICK.toMillis();
+            List<StandingOrderLog.Record> records = new ArrayList<>(dueOrders);
+            for (int i = 0; i < dueOrders; i++) {
+                records.add(new StandingOrderLog.Record(StandingOrderLog.Kind.ORDER, i + 1, due, 0, 100,
+                        String.valueOf(10_000_000 + i), String.valueOf(10_000_000 + (i + 1) % dueOrders)));
+            }
+            try (StandingOrderLog log = new StandingOrderLog(dataDirectory.resolve("standing-orders.log"))) {
+                log.append(records);
+            }
+            scheduler = new StandingOrderScheduler(bank, dataDirectory);
+        }
+
+        @TearDown(Level.Invocation)
+        public void closeScheduler() throws IOException {
+            scheduler.close();
+            bank.checkpoint();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            bank.close();
+            try (Stream<Path> files = Files.walk(dataDirectory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public boolean addAndCancel(WheelState state) {
+        return state.wheel.remove(state.wheel.add(ThreadLocalRandom.current().nextLong(THIRTY_DAYS), -1L));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public BatchReport fireDueOrders(RunState state) {
+        return state.scheduler.runDue();
+    }
+}
@@ -0,0 +1,164 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StandingOrderSchedulerTest {
+
+	private static final Instant START = Instant.parse("2026-10-17T08:00:00Z");
+
+	@TempDir
+	Path dataDirectory;
+
+	@Test
+	void testWheelFiresEveryEntryAtItsTickAcrossLevels() {
+		long start = 1_000_000_123L;
+		TimingWheel<Long> wheel = new TimingWheel<>(start);
+		long[] distances = {0, 1, 254, 255, 256, 257, 300, 65_535, 65_536, 65_537, 70_000, 200_000};
+		for (long distance : distances) {
+			wheel.add(start + distance, start + distance);
+		}
+		wheel.add(start - 50, -3L); // overdue: fires with the next tick
+		TimingWheel.Entry<Long> cancelled = wheel.add(start + 1000, -1L);
+		assertTrue(wheel.remove(cancelled));
+		assertFalse(wheel.remove(cancelled));
+		assertEquals(distances.length + 1, wheel.size());
+
+		Map<Long, Long> firedAt = new HashMap<>();
+		for (long tick = start; tick <= start + 200_000; tick++) {
+			long now = tick;
+			wheel.advance(tick, value -> assertNull(firedAt.put(value, now)));
+		}
+		for (long distance : distances) {
+			assertEquals(start + distance, firedAt.get(start + distance));
+		}
+		assertEquals(start, firedAt.get(-3L));
+		assertEquals(0, wheel.size());
+
+		List<Long> late = new ArrayList<>();
+		wheel.add(start + 300_000, 1L);
+		wheel.add(start + 250_000, 2L);
+		wheel.advance(start + 400_000, late::add); // one call over a long gap fires in deadline order
+		assertEquals(List.of(2L, 1L), late);
+	}
+
+	@Test
+	void testDueOrdersFireAsOneBatchAndRepeat() throws IOException {
+		TestClock clock = new TestClock();
+		Bank bank = newBank(clock);
+		StandingOrderScheduler scheduler = new StandingOrderScheduler(bank, dataDirectory);
+		LocalDateTime now = LocalDateTime.now(clock);
+		StandingOrder once = scheduler.schedule("1000001", "1000002", 100, now.plusHours(1));
+		StandingOrder rent = scheduler.schedule("1000001", "1000002", 10, now.plusMinutes(30), Duration.ofDays(1));
+		StandingOrder uncovered = scheduler.schedule("1000003", "1000002", 50, now.plusMinutes(30), Duration.ofDays(1));
+		assertThrows(IllegalArgumentException.class, () -> scheduler.schedule("1000001", "9999999", 1, now));
+		assertThrows(IllegalArgumentException.class, () -> scheduler.schedule("1000001", "1000002", 0, now));
+
+		assertEquals(0, scheduler.runDue().getResults().size());
+		clock.advance(Duration.ofMinutes(59));
+		BatchReport report = scheduler.runDue();
+		assertEquals(2, report.getResults().size());
+		assertEquals(List.of(1), report.getRejectedLines());
+		assertEquals(FailureReason.INSUFFICIENT_FUNDS, report.getResults().get(1).getFailureReason());
+		assertEquals(LocalDateTime.now(clock), report.getResults().get(0).getTransaction().getTimestamp());
+		clock.advance(Duration.ofMinutes(1));
+		assertEquals(1, scheduler.runDue().getPostedCount());
+
+		assertEquals(890, bank.findAccountByNumber("1000001").getBalance(), 0.001);
+		assertEquals(110, bank.findAccountByNumber("1000002").getBalance(), 0.001);
+		assertEquals(List.of(rent.getId(), uncovered.getId()), scheduler.getOrders().stream().map(StandingOrder::getId).toList());
+		assertEquals(now.plusMinutes(30).plusDays(1), scheduler.getOrders().get(0).getNextDue());
+		assertFalse(scheduler.cancel(once.getId()));
+		assertTrue(scheduler.cancel(uncovered.getId()));
+
+		clock.advance(Duration.ofDays(3)); // missed occurrences fire once
+		assertEquals(1, scheduler.runDue().getPostedCount());
+		assertEquals(now.plusMinutes(30).plusDays(4), scheduler.getOrders().get(0).getNextDue());
+		assertEquals(3, bank.getTransactionCount());
+		scheduler.close();
+		bank.close();
+
+		Bank restarted = newBank(clock);
+		StandingOrderScheduler reopened = new StandingOrderScheduler(restarted, dataDirectory);
+		assertEquals(1, reopened.getOrders().size());
+		assertEquals(now.plusMinutes(30).plusDays(4), reopened.getOrders().get(0).getNextDue());
+		StandingOrder next = reopened.schedule("1000001", "1000002", 1, now);
+		assertEquals(uncovered.getId() + 1, next.getId());
+		reopened.close();
+		restarted.close();
+	}
+
+	@Test
+	void testRestartFiresOrdersWhoseBatchWasLost() throws IOException {
+		TestClock clock = new TestClock();
+		Bank bank = newBank(clock);
+		long due = Journal.toEpochNanos(LocalDateTime.now(clock)) / 1_000_000L - 1000;
+		try (StandingOrderLog log = new StandingOrderLog(dataDirectory.resolve("standing-orders.log"))) {
+			log.append(List.of(
+					new StandingOrderLog.Record(StandingOrderLog.Kind.ORDER, 1, due, 0, 2500, "1000001", "1000002"),
+					new StandingOrderLog.Record(StandingOrderLog.Kind.ORDER, 2, due, 0, 4000, "1000001", "1000002"),
+					new StandingOrderLog.Record(StandingOrderLog.Kind.FIRED, 1, 1000, due), // batch never committed
+					new StandingOrderLog.Record(StandingOrderLog.Kind.FIRED, 2, 0, due))); // nothing to post
+		}
+
+		StandingOrderScheduler scheduler = new StandingOrderScheduler(bank, dataDirectory);
+		assertEquals(1, scheduler.getOrders().size());
+		BatchReport report = scheduler.runDue();
+
+		assertEquals(1, report.getPostedCount());
+		assertEquals(975, bank.findAccountByNumber("1000001").getBalance(), 0.001);
+		assertTrue(scheduler.getOrders().isEmpty());
+		scheduler.close();
+		bank.close();
+	}
+
+	/**
+	 * Account 1000001 with 1000.00, 1000002 with nothing and 1000003 with 5.00.
+	 */
+	private Bank newBank(Clock clock) {
+		Bank bank = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet(), clock);
+		bank.createAccount("1000001", "Alice", "Checking", 1000);
+		bank.createAccount("1000002", "Bob", "Checking", 0);
+		bank.createAccount("1000003", "Carol", "Checking", 5);
+		return bank;
+	}
+
+	private static final class TestClock extends Clock {
+
+		private Instant now = START;
+
+		void advance(Duration duration) {
+			now = now.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures cold-start time of the Bank against the length of its transaction history.
+ * Setup writes the given number of historical transactions to the ledger, checkpoints
+ * them (snapshot plus archived ledger segments) and leaves a fixed journal tail, so the
+ * benchmark shows whether opening a Bank depends on history length. It should not.
+ * <p>
+ * The 100M case needs about 6.4 GB of free disk space in the temporary directory.
+ * @see Bank
+ * @see Snapshot
+ * @see Ledger#archive(long)
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+    private static final int JOURNAL_TAIL = 10_000;
+
+    @Param({"1000000", "10000000", "100000000"})
+    private long historyLength;
+
+    private Path dataDirectory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDirectory = Files.createTempDirectory("bank-startup");
+        List<Account> accounts = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(new Account(accountNumber(i), "Owner " + i, "Savings", 1_000_000));
+        }
+        long epochNanos = Journal.toEpochNanos(LocalDateTime.now());
+        try (Ledger ledger = new Ledger(dataDirectory.resolve("ledger.dat"))) {
+            long[] balances = new long[ACCOUNTS];
+            for (long seq = 1; seq <= historyLength; seq++) {
+                int account = (int) (seq % ACCOUNTS);
+                balances[account] += 100;
+                ledger.append(seq, TransactionType.DEPOSIT, accountNumber(account), null, 100, epochNanos,
+                        balances[account], 0);
+            }
+            ledger.force();
+            new Snapshot(historyLength, accounts).write(dataDirectory.resolve("snapshot.dat"));
+            ledger.archive(historyLength);
+        }
+        try (Journal journal = new Journal(dataDirectory, FsyncPolicy.NONE)) {
+            journal.rotate(historyLength);
+            LocalDateTime now = LocalDateTime.now();
+            for (long seq = historyLength + 1; seq <= historyLength + JOURNAL_TAIL; seq++) {
+                journal.append(seq, TransactionType.DEPOSIT, accountNumber((int) (seq % ACCOUNTS)), null, 1.0, now);
+            }
+            journal.deleteCoveredSegments();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dataDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Opens the Bank: loads the snapshot, maps the ledger and replays the journal tail.
+     * The Bank is not closed, so every invocation starts from the same checkpoint.
+     */
+    @Benchmark
+    public Bank open() {
+        return new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+    }
+
+    private static String accountNumber(int i) {
+        return String.valueOf(1_000_000 + i);
+    }
+}
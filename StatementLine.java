@@ -0,0 +1,67 @@
+package com.jibstech.bank_account_management_system;
+
+import java.math.BigDecimal;
+
+/**
+ * One line of an account statement: a transaction the account took part in, the amount
+ * it moved from the account's point of view, and the account balance afterwards.
+ * @see Ledger#statement(String, java.time.LocalDateTime, java.time.LocalDateTime)
+ * @see Bank#getStatement(String, java.time.LocalDateTime, java.time.LocalDateTime)
+ */
+public class StatementLine {
+
+    private final Transaction transaction;
+    private final BigDecimal amount;
+    private final BigDecimal balance;
+
+    /**
+     * Constructs a statement line.
+     *
+     * @param transaction the transaction
+     * @param amount signed amount: positive for money received, negative for money paid out
+     * @param balance account balance after the transaction
+     */
+    public StatementLine(Transaction transaction, BigDecimal amount, BigDecimal balance) {
+        this.transaction = transaction;
+        this.amount = amount;
+        this.balance = balance;
+    }
+
+    /**
+     * Gets the transaction.
+     *
+     * @return the transaction
+     */
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    /**
+     * Gets the signed amount: positive for money received, negative for money paid out.
+     *
+     * @return the amount
+     */
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    /**
+     * Gets the account balance after the transaction.
+     *
+     * @return the running balance
+     */
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    /**
+     * Provides a string representation of the statement line.
+     *
+     * @return the transaction's ID, type, timestamp, signed amount and running balance
+     */
+    @Override
+    public String toString() {
+        return transaction.getTimestamp() + "  " + transaction.getTransactionId() + "  " + transaction.getType()
+                + "  " + amount.toPlainString() + "  Balance: " + balance.toPlainString();
+    }
+}
@@ -0,0 +1,103 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StatementTest {
+
+	@TempDir
+	Path dataDirectory;
+
+	private Bank openBank() {
+		AccountStore store = new HashAccountStore();
+		store.add(new Account("1000001", "Alice", "Savings", 100));
+		store.add(new Account("1000002", "Bob", "Savings", 0));
+		return new Bank(store, dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+	}
+
+	@Test
+	void testTransferAppearsOnBothStatementsWithRunningBalance() {
+		Bank bank = openBank();
+		bank.deposit("1000001", 50, false);
+		bank.transfer("1000001", "1000002", 30, false);
+		bank.withdraw("1000002", 5, false);
+
+		List<StatementLine> alice = bank.getStatement("1000001", null, null);
+		assertEquals(List.of("TXN1", "TXN2"), ids(alice));
+		assertEquals(new BigDecimal("-30.00"), alice.get(1).getAmount());
+		assertEquals(new BigDecimal("120.00"), alice.get(1).getBalance());
+
+		List<StatementLine> bob = bank.getStatement("1000002", null, null);
+		assertEquals(List.of("TXN2", "TXN3"), ids(bob));
+		assertEquals(new BigDecimal("30.00"), bob.get(0).getAmount());
+		assertEquals(new BigDecimal("25.00"), bob.get(1).getBalance());
+		assertEquals(2, bank.queryTransactions(new TransactionQuery().account("1000002")).count());
+		bank.close();
+	}
+
+	@Test
+	void testIndexIsRebuiltFromLedger() throws Exception {
+		Bank bank = openBank();
+		bank.transfer("1000001", "1000002", 40, false);
+		bank.deposit("1000002", 2, false);
+		List<String> before = bank.getStatement("1000002", null, null).stream()
+				.map(StatementLine::toString).collect(Collectors.toList());
+		bank.close();
+
+		Files.delete(dataDirectory.resolve("account-heads.dat"));
+		Bank reopened = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		assertEquals(before, reopened.getStatement("1000002", null, null).stream()
+				.map(StatementLine::toString).collect(Collectors.toList()));
+		assertEquals(new BigDecimal("60.00"), reopened.getStatement("1000001", null, null).get(0).getBalance());
+		reopened.close();
+	}
+
+	@Test
+	void testStatementRangeSpansTheEndOfSummerTime() {
+		ZoneId berlin = ZoneId.of("Europe/Berlin");
+		Instant[] now = {Instant.parse("2026-10-25T00:45:00Z")}; // 02:45 summer time
+		Clock clock = new Clock() {
+			@Override
+			public ZoneId getZone() {
+				return berlin;
+			}
+
+			@Override
+			public Clock withZone(ZoneId zone) {
+				return this;
+			}
+
+			@Override
+			public Instant instant() {
+				return now[0];
+			}
+		};
+		AccountStore store = new HashAccountStore();
+		store.add(new Account("1000001", "Alice", "Savings", 100));
+		Bank bank = new Bank(store, dataDirectory, FsyncPolicy.NONE, BankLogger.quiet(), clock);
+		bank.deposit("1000001", 10, false);
+		now[0] = Instant.parse("2026-10-25T01:15:00Z"); // 02:15, after the clocks went back an hour
+		bank.deposit("1000001", 20, false);
+
+		LocalDateTime from = LocalDateTime.of(2026, 10, 25, 2, 30);
+		assertEquals(List.of("TXN1"), ids(bank.getStatement("1000001", from, null)));
+		assertEquals(List.of("TXN1", "TXN2"), ids(bank.getStatement("1000001", from.minusHours(1), null)));
+		bank.close();
+	}
+
+	private static List<String> ids(List<StatementLine> lines) {
+		return lines.stream().map(line -> line.getTransaction().getTransactionId()).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,84 @@
+package com.jibstech.bank_account_management_system;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks that account numbers are hashed onto.
+ * Operations on a single account take that account's stripe; operations on two accounts
+ * take both stripes in ascending stripe order, so concurrent transfers in opposite
+ * directions can never deadlock.
+ * @see Bank
+ */
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * Creates the lock stripes.
+     *
+     * @param stripes requested number of stripes; rounded up to a power of two
+     */
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Locks the stripe of one account.
+     *
+     * @param accountNumber the account to lock
+     */
+    public void lock(String accountNumber) {
+        locks[stripe(accountNumber)].lock();
+    }
+
+    /**
+     * Unlocks the stripe of one account.
+     *
+     * @param accountNumber the account to unlock
+     */
+    public void unlock(String accountNumber) {
+        locks[stripe(accountNumber)].unlock();
+    }
+
+    /**
+     * Locks the stripes of two accounts in a stable order. Takes a single lock
+     * when both accounts share a stripe.
+     *
+     * @param first one of the accounts
+     * @param second the other account
+     */
+    public void lock(String first, String second) {
+        int a = stripe(first);
+        int b = stripe(second);
+        locks[Math.min(a, b)].lock();
+        if (a != b) {
+            locks[Math.max(a, b)].lock();
+        }
+    }
+
+    /**
+     * Unlocks the stripes taken by {@link #lock(String, String)}.
+     *
+     * @param first one of the accounts
+     * @param second the other account
+     */
+    public void unlock(String first, String second) {
+        int a = stripe(first);
+        int b = stripe(second);
+        if (a != b) {
+            locks[Math.max(a, b)].unlock();
+        }
+        locks[Math.min(a, b)].unlock();
+    }
+
+    private int stripe(String accountNumber) {
+        int h = accountNumber.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,177 @@
+package com.jibstech.bank_account_management_system;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel holding values until a tick, for schedules with very many
+ * entries. The wheel has {@value #LEVELS} levels of {@value #SLOTS} slots; a slot of
+ * level 0 spans one tick, and a slot of each higher level spans a whole revolution of the
+ * level below, so with one-second ticks the levels reach about 4 minutes, 18 hours, 194
+ * days and 136 years ahead. Deadlines further out are parked in the last level and
+ * placed again as it turns.
+ * <p>
+ * Every slot is a doubly-linked list of entries, so adding an entry (into the level its
+ * distance falls into) and removing one are O(1). Advancing by one tick fires the current
+ * slot of level 0; each time a level completes a revolution, the current slot of the level
+ * above is emptied and its entries placed again, into lower levels, by their remaining
+ * distance. Advancing an empty wheel costs nothing.
+ * <p>
+ * Not thread-safe: callers synchronize.
+ * @param <T> type of the values
+ * @see StandingOrderScheduler
+ */
+final class TimingWheel<T> {
+
+    static final int SLOT_BITS = 8;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int LEVELS = 4;
+
+    private static final int MASK = SLOTS - 1;
+    private static final long MAX_DISTANCE = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final Entry<T>[] slots;
+    private long next;
+    private int size;
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param nextTick the first tick {@link #advance} will fire
+     */
+    TimingWheel(long nextTick) {
+        next = nextTick;
+        slots = newSlots(LEVELS * SLOTS);
+        for (int i = 0; i < slots.length; i++) {
+            Entry<T> sentinel = new Entry<>(0, null);
+            sentinel.previous = sentinel;
+            sentinel.following = sentinel;
+            slots[i] = sentinel;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Entry<T>[] newSlots(int length) {
+        return (Entry<T>[]) new Entry<?>[length]; // holds only Entry<T>, so the cast is safe
+    }
+
+    /**
+     * Adds a value to fire at a tick. A tick before the next one fires with the next one.
+     *
+     * @param deadline the tick
+     * @param value the value
+     * @return the entry, to {@linkplain #remove(Entry) remove} the value again
+     */
+    Entry<T> add(long deadline, T value) {
+        Entry<T> entry = new Entry<>(deadline, value);
+        place(entry);
+        size++;
+        return entry;
+    }
+
+    /**
+     * Removes an entry that has not fired yet.
+     *
+     * @param entry the entry
+     * @return false if it had already fired or been removed
+     */
+    boolean remove(Entry<T> entry) {
+        if (entry.previous == null) {
+            return false;
+        }
+        unlink(entry);
+        size--;
+        return true;
+    }
+
+    /**
+     * Fires every entry due up to and including a tick, in deadline order tick by tick.
+     *
+     * @param tick the current tick
+     * @param expired receives the value of every entry due
+     */
+    void advance(long tick, Consumer<T> expired) {
+        while (next <= tick) {
+            if (size == 0) {
+                next = tick + 1;
+                return;
+            }
+            int index = (int) (next & MASK);
+            for (int level = 1; index == 0 && level < LEVELS; level++) {
+                index = (int) ((next >>> (SLOT_BITS * level)) & MASK);
+                cascade(level * SLOTS + index);
+            }
+            Entry<T> sentinel = slots[(int) (next & MASK)];
+            while (sentinel.following != sentinel) {
+                Entry<T> entry = sentinel.following;
+                unlink(entry);
+                size--;
+                expired.accept(entry.value);
+            }
+            next++;
+        }
+    }
+
+    /**
+     * Gets the number of entries waiting.
+     *
+     * @return the entry count
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the first tick the next {@link #advance} fires.
+     *
+     * @return the tick
+     */
+    long nextTick() {
+        return next;
+    }
+
+    private void cascade(int slot) {
+        Entry<T> sentinel = slots[slot];
+        Entry<T> entry = sentinel.following;
+        sentinel.previous = sentinel;
+        sentinel.following = sentinel;
+        while (entry != sentinel) {
+            Entry<T> following = entry.following;
+            place(entry);
+            entry = following;
+        }
+    }
+
+    private void place(Entry<T> entry) {
+        long distance = Math.min(Math.max(entry.deadline - next, 0), MAX_DISTANCE);
+        long tick = next + distance;
+        int level = distance < SLOTS ? 0 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(distance)) / SLOT_BITS;
+        Entry<T> sentinel = slots[level * SLOTS + (int) ((tick >>> (SLOT_BITS * level)) & MASK)];
+        entry.previous = sentinel.previous;
+        entry.following = sentinel;
+        sentinel.previous.following = entry;
+        sentinel.previous = entry;
+    }
+
+    private static <T> void unlink(Entry<T> entry) {
+        entry.previous.following = entry.following;
+        entry.following.previous = entry.previous;
+        entry.previous = null;
+        entry.following = null;
+    }
+
+    /**
+     * A value waiting in the wheel.
+     */
+    static final class Entry<T> {
+
+        final long deadline;
+        final T value;
+        Entry<T> previous;
+        Entry<T> following;
+
+        Entry(long deadline, T value) {
+            this.deadline = deadline;
+            this.value = value;
+        }
+    }
+}
@@ -6,7 +6,8 @@ import java.time.LocalDateTime;
 /**
  * Represents a financial transaction associated with an Account.
  * Includes details such as transaction ID, account number, amount, type, and timestamp.
- * Implements Serializable for persistence.
+ * Persisted with {@link BinaryCodec}; Serializable only so that transactions.dat files of
+ * earlier versions can still be read (see {@link LegacyMigration}).
  * @see Account
  * @see TransactionType
  */
@@ -16,24 +17,42 @@ public class Transaction implements Serializable {
 
     private String transactionId;
     private String accountNumber;
+    private String targetAccountNumber;
     private double amount;
     private TransactionType type;
     private LocalDateTime timestamp;
 
     /**
-     * Constructs a new Transaction with the given details and timestamp set to now.
+     * Constructs a Transaction with an explicit timestamp, e.g. when restoring it from the journal.
      *
      * @param transactionId unique identifier for the transaction
      * @param accountNumber associated account's number
      * @param amount monetary amount of the transaction
      * @param type type of transaction (DEPOSIT, WITHDRAWAL, TRANSFER)
+     * @param timestamp time the transaction was created
      */
-    public Transaction(String transactionId, String accountNumber, double amount, TransactionType type) {
+    public Transaction(String transactionId, String accountNumber, double amount, TransactionType type, LocalDateTime timestamp) {
+        this(transactionId, accountNumber, null, amount, type, timestamp);
+    }
+
+    /**
+     * Constructs a Transaction that may move money to a second account.
+     *
+     * @param transactionId unique identifier for the transaction
+     * @param accountNumber associated account's number; the sender of a transfer
+     * @param targetAccountNumber receiving account of a transfer, or null
+     * @param amount monetary amount of the transaction
+     * @param type type of transaction (DEPOSIT, WITHDRAWAL, TRANSFER)
+     * @param timestamp time the transaction was created
+     */
+    public Transaction(String transactionId, String accountNumber, String targetAccountNumber, double amount,
+                       TransactionType type, LocalDateTime timestamp) {
         this.transactionId = transactionId;
         this.accountNumber = accountNumber;
+        this.targetAccountNumber = targetAccountNumber;
         this.amount = amount;
         this.type = type;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = timestamp;
     }
 
     /**
@@ -54,6 +73,15 @@ public class Transaction implements Serializable {
         return accountNumber;
     }
 
+    /**
+     * Gets the receiving account of a transfer.
+     *
+     * @return the targetAccountNumber, or null for deposits, withdrawals and transfers recorded by earlier versions
+     */
+    public String getTargetAccountNumber() {
+        return targetAccountNumber;
+    }
+
     /**
      * Gets the transaction amount.
      *
@@ -81,14 +109,6 @@ public class Transaction implements Serializable {
         return timestamp;
     }
 
-    /**
-     * Prints the transaction details to the console.
-     */
-    public void printTransaction() {
-        System.out.println("TransactionId: " + transactionId + " | Account: " + accountNumber +
-                           " | Amount: " + amount + " | Type: " + type + " | Timestamp: " + timestamp);
-    }
-
     /**
      * Provides a string representation of the transaction.
      *
@@ -97,6 +117,7 @@ public class Transaction implements Serializable {
     @Override
     public String toString() {
         return "TransactionId: " + transactionId + ", AccountNumber: " + accountNumber +
+               (targetAccountNumber != null ? ", TargetAccountNumber: " + targetAccountNumber : "") +
                ", Amount: " + amount + ", Type: " + type + ", Timestamp: " + timestamp;
     }
 }
@@ -0,0 +1,52 @@
+package com.jibstech.bank_account_management_system;
+
+import java.util.List;
+
+/**
+ * One page of transaction history, together with the cursor that resumes after it.
+ * @see TransactionQuery
+ * @see Bank#getTransactionPage(TransactionQuery)
+ */
+public class TransactionPage {
+
+    private final List<Transaction> transactions;
+    private final long nextCursor;
+
+    /**
+     * Constructs a page.
+     *
+     * @param transactions the transactions on the page
+     * @param nextCursor cursor of the following page, or -1 if this is the last page
+     */
+    public TransactionPage(List<Transaction> transactions, long nextCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Gets the transactions on the page.
+     *
+     * @return the transactions
+     */
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * Gets the cursor to pass to {@link TransactionQuery#after(long)} for the next page.
+     *
+     * @return the cursor, or -1 if there are no further matches
+     */
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Tells whether another page may follow.
+     *
+     * @return true if {@link #getNextCursor()} is valid
+     */
+    public boolean hasNext() {
+        return nextCursor >= 0;
+    }
+}
@@ -0,0 +1,184 @@
+package com.jibstech.bank_account_management_system;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filter and paging criteria for reading transaction history.
+ * Every criterion is optional; an empty query matches the whole history in the order it
+ * was recorded. Criteria are set with chained calls, e.g.
+ * <pre>
+ * new TransactionQuery().account("1000001").type(TransactionType.DEPOSIT).newestFirst().limit(20)
+ * </pre>
+ * Paging works either by offset and limit, or by keyset: pass the
+ * {@linkplain TransactionPage#getNextCursor() cursor} of the previous page to {@link #after(long)}.
+ * Keyset paging stays cheap on deep pages and is not disturbed by new transactions.
+ * @see Bank#queryTransactions(TransactionQuery)
+ * @see Bank#getTransactionPage(TransactionQuery)
+ */
+public class TransactionQuery {
+
+    private String accountNumber;
+    private TransactionType type;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long offset;
+    private long limit = Long.MAX_VALUE;
+    private long cursor = -1;
+    private boolean newestFirst;
+
+    /**
+     * Restricts the query to one account.
+     *
+     * @param accountNumber the account number
+     * @return this query
+     */
+    public TransactionQuery account(String accountNumber) {
+        this.accountNumber = accountNumber;
+        return this;
+    }
+
+    /**
+     * Restricts the query to one type of transaction.
+     *
+     * @param type the transaction type
+     * @return this query
+     */
+    public TransactionQuery type(TransactionType type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * Restricts the query to transactions created in a time range.
+     *
+     * @param from earliest timestamp, inclusive, or null for no lower bound
+     * @param to latest timestamp, exclusive, or null for no upper bound
+     * @return this query
+     */
+    public TransactionQuery between(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    /**
+     * Skips a number of matching transactions.
+     *
+     * @param offset number of matches to skip
+     * @return this query
+     */
+    public TransactionQuery offset(long offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Limits the number of transactions returned.
+     *
+     * @param limit maximum number of matches to return
+     * @return this query
+     */
+    public TransactionQuery limit(long limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Resumes after the last transaction of a previous page.
+     *
+     * @param cursor the cursor returned by {@link TransactionPage#getNextCursor()}
+     * @return this query
+     */
+    public TransactionQuery after(long cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    /**
+     * Returns the most recent transactions first.
+     *
+     * @return this query
+     */
+    public TransactionQuery newestFirst() {
+        this.newestFirst = true;
+        return this;
+    }
+
+    /**
+     * Gets the account the query is restricted to.
+     *
+     * @return the accountNumber, or null for every account
+     */
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    /**
+     * Gets the transaction type the query is restricted to.
+     *
+     * @return the type, or null for every type
+     */
+    public TransactionType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the inclusive lower time bound.
+     *
+     * @return the from timestamp, or null
+     */
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    /**
+     * Gets the exclusive upper time bound.
+     *
+     * @return the to timestamp, or null
+     */
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    /**
+     * Gets the number of matches to skip.
+     *
+     * @return the offset
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the maximum number of matches to return.
+     *
+     * @return the limit, {@link Long#MAX_VALUE} if unlimited
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Gets the keyset cursor to resume from.
+     *
+     * @return the cursor, or -1 to start at the beginning
+     */
+    public long getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Tells whether the most recent transactions are returned first.
+     *
+     * @return true for newest-first order
+     */
+    public boolean isNewestFirst() {
+        return newestFirst;
+    }
+}
@@ -0,0 +1,98 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TransactionQueryTest {
+
+	private static final int OPERATIONS = 3_000;
+
+	@TempDir
+	Path dataDirectory;
+
+	private Bank bank;
+
+	@BeforeEach
+	void setUp() {
+		AccountStore store = new HashAccountStore();
+		store.add(new Account("1000001", "Alice", "Savings", 0));
+		store.add(new Account("1000002", "Bob", "Savings", 100));
+		bank = new Bank(store, dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		for (int i = 0; i < OPERATIONS; i++) {
+			bank.deposit(i % 3 == 0 ? "1000001" : "1000002", 10, false);
+			if (i % 5 == 0) {
+				bank.withdraw("1000002", 1, false);
+			}
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		bank.close();
+	}
+
+	@Test
+	void testAccountAndTypeFilters() {
+		List<Transaction> alice = bank.queryTransactions(new TransactionQuery().account("1000001"))
+				.collect(Collectors.toList());
+		assertEquals(OPERATIONS / 3, alice.size());
+		assertTrue(alice.stream().allMatch(txn -> txn.getAccountNumber().equals("1000001")));
+
+		long bobWithdrawals = bank.queryTransactions(new TransactionQuery().account("1000002")
+				.type(TransactionType.WITHDRAWAL)).count();
+		assertEquals(OPERATIONS / 5, bobWithdrawals);
+	}
+
+	@Test
+	void testNewestFirstWithLimitReturnsMostRecent() {
+		List<Transaction> all = bank.queryTransactions(new TransactionQuery().account("1000002"))
+				.collect(Collectors.toList());
+		List<Transaction> recent = bank.queryTransactions(new TransactionQuery().account("1000002")
+				.newestFirst().limit(5)).collect(Collectors.toList());
+
+		assertEquals(5, recent.size());
+		for (int i = 0; i < 5; i++) {
+			assertEquals(all.get(all.size() - 1 - i).getTransactionId(), recent.get(i).getTransactionId());
+		}
+	}
+
+	@Test
+	void testKeysetPagingVisitsEveryMatchOnce() {
+		List<String> paged = new ArrayList<>();
+		TransactionPage page = bank.getTransactionPage(new TransactionQuery().account("1000001").limit(64));
+		paged.addAll(ids(page.getTransactions()));
+		while (page.hasNext()) {
+			page = bank.getTransactionPage(new TransactionQuery().account("1000001").limit(64).after(page.getNextCursor()));
+			paged.addAll(ids(page.getTransactions()));
+		}
+
+		assertEquals(ids(bank.queryTransactions(new TransactionQuery().account("1000001")).collect(Collectors.toList())), paged);
+	}
+
+	@Test
+	void testTimeRangeUsesTimestampBounds() {
+		LocalDateTime future = LocalDateTime.now().plusDays(1);
+		assertEquals(0, bank.queryTransactions(new TransactionQuery().between(future, null)).count());
+		assertEquals(bank.getTransactionCount(), bank.queryTransactions(new TransactionQuery().between(null, future)).count());
+
+		Transaction middle = bank.getTransactions().get((int) bank.getTransactionCount() / 2);
+		List<Transaction> later = bank.queryTransactions(new TransactionQuery().between(middle.getTimestamp(), future))
+				.collect(Collectors.toList());
+		assertTrue(later.stream().noneMatch(txn -> txn.getTimestamp().isBefore(middle.getTimestamp())));
+		assertTrue(ids(later).contains(middle.getTransactionId()));
+	}
+
+	private static List<String> ids(List<Transaction> transactions) {
+		return transactions.stream().map(Transaction::getTransactionId).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,108 @@
+package com.jibstech.bank_account_management_system;
+
+/**
+ * Outcome of a deposit, withdrawal or transfer performed through the Bank.
+ * Holds the recorded Transaction and the resulting balance of the affected account
+ * (the sender's account for transfers).
+ * @see Bank
+ * @see BatchingBank
+ */
+public class TransactionResult {
+
+    private static final TransactionResult FAILED = new TransactionResult(false, null, 0, null);
+    private static final TransactionResult[] FAILURES = new TransactionResult[FailureReason.values().length];
+
+    static {
+        for (FailureReason reason : FailureReason.values()) {
+            FAILURES[reason.ordinal()] = new TransactionResult(false, null, 0, reason);
+        }
+    }
+
+    private final boolean successful;
+    private final Transaction transaction;
+    private final double balance;
+    private final FailureReason failureReason;
+
+    private TransactionResult(boolean successful, Transaction transaction, double balance, FailureReason failureReason) {
+        this.successful = successful;
+        this.transaction = transaction;
+        this.balance = balance;
+        this.failureReason = failureReason;
+    }
+
+    /**
+     * Creates the result of an operation that was applied and recorded.
+     *
+     * @param transaction the recorded transaction
+     * @param balance the balance of the affected account after the operation
+     * @return a successful result
+     */
+    public static TransactionResult success(Transaction transaction, double balance) {
+        return new TransactionResult(true, transaction, balance, null);
+    }
+
+    /**
+     * Gets the result of an operation that was rejected (invalid account, amount or insufficient funds).
+     *
+     * @return a failed result
+     */
+    public static TransactionResult failure() {
+        return FAILED;
+    }
+
+    /**
+     * Gets the result of an operation that was rejected for a known reason.
+     *
+     * @param reason why the operation was rejected
+     * @return a failed result
+     */
+    public static TransactionResult failure(FailureReason reason) {
+        return FAILURES[reason.ordinal()];
+    }
+
+    /**
+     * Checks whether the operation was applied.
+     *
+     * @return true if the operation succeeded, false otherwise
+     */
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    /**
+     * Gets the recorded transaction.
+     *
+     * @return the transaction, or null if the operation failed
+     */
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    /**
+     * Gets the balance of the affected account after the operation.
+     *
+     * @return the balance; 0 if the operation failed
+     */
+    public double getBalance() {
+        return balance;
+    }
+
+    /**
+     * Gets why the operation was rejected.
+     *
+     * @return the reason, or null if the operation succeeded or no reason was given
+     */
+    public FailureReason getFailureReason() {
+        return failureReason;
+    }
+
+    /**
+     * Provides a string representation of the result.
+     *
+     * @return the outcome together with the transaction and balance
+     */
+    @Override
+    public String toString() {
+        return successful ? "Successful: " + transaction + ", Balance: " + balance : failureReason == null ? "Failed" : "Failed: " + failureReason;
+    }
+}
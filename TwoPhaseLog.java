@@ -0,0 +1,221 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Recovery log of the two-phase commit between a {@link ShardedBank} and its shards. The
+ * coordinator and every {@link LocalShard} keep one, recording each step of a transfer
+ * between shards as one fixed-size record, so either side can finish or undo the
+ * transfers in flight after a crash.
+ * <p>
+ * Record layout ({@value #RECORD_SIZE} bytes, big-endian):
+ * <pre>
+ *  0  byte  record kind ordinal
+ *  1  long  transaction id
+ *  9  long  value: amount (IEEE 754 bits) or journal sequence number
+ * 17  byte  1 for the debit side of a transfer, else 0
+ * 18  byte  account number length, followed by 16 bytes of account number
+ * 35  byte  second account number length, followed by 16 bytes of account number
+ * 60  int   CRC32 of bytes 0-59
+ * </pre>
+ * Like the {@link Journal}, a torn record at the tail is discarded when the log is read.
+ * @see ShardedBank
+ * @see LocalShard
+ */
+final class TwoPhaseLog implements Closeable {
+
+    static final int RECORD_SIZE = 64;
+
+    private static final int CRC_OFFSET = 60;
+    private static final Kind[] KINDS = Kind.values();
+
+    /**
+     * Step of a transfer between shards.
+     */
+    enum Kind {
+        /** Coordinator: a transfer started; holds both account numbers and the amount */
+        BEGIN,
+        /** Shard: one side of a transfer is prepared; holds the account, amount and side */
+        PREPARED,
+        /** Coordinator: the transfer is decided; shard: the side was applied under the given sequence number */
+        COMMIT,
+        /** The transfer, or the shard's side of it, was abandoned */
+        ABORT,
+        /** Coordinator: both shards know the outcome */
+        END
+    }
+
+    private final Path file;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+
+    /**
+     * Opens (or creates) a log, appending after its last intact record.
+     *
+     * @param file the log file
+     * @throws IOException if the file cannot be opened
+     */
+    TwoPhaseLog(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Appends one record.
+     *
+     * @param record the record
+     * @param force whether to force the record to disk before returning
+     * @throws IOException if the record cannot be written
+     */
+    synchronized void append(Record record, boolean force) throws IOException {
+        encode(record);
+        long position = channel.size();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        if (force) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Reads every intact record, oldest first, and truncates a torn tail.
+     *
+     * @return the records
+     * @throws IOException if the file cannot be read
+     */
+    synchronized List<Record> read() throws IOException {
+        List<Record> records = new ArrayList<>();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        long offset = 0;
+        long size = channel.size();
+        while (offset + RECORD_SIZE <= size) {
+            record.clear();
+            while (record.hasRemaining() && channel.read(record, offset + record.position()) >= 0) {
+                // keep reading until the record is complete
+            }
+            crc.reset();
+            crc.update(record.array(), 0, CRC_OFFSET);
+            if ((int) crc.getValue() != record.getInt(CRC_OFFSET)) {
+                break;
+            }
+            records.add(decode(record));
+            offset += RECORD_SIZE;
+        }
+        if (offset < size) {
+            channel.truncate(offset);
+        }
+        return records;
+    }
+
+    /**
+     * Replaces the whole log with the given records, through a temporary file renamed
+     * over the log, so a crash leaves either the old or the new content.
+     *
+     * @param records the records to keep
+     * @throws IOException if the log cannot be rewritten
+     */
+    synchronized void rewrite(List<Record> records) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Record record : records) {
+                encode(record);
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    private void encode(Record record) {
+        buffer.clear();
+        buffer.put((byte) record.kind.ordinal());
+        buffer.putLong(record.transactionId);
+        buffer.putLong(record.value);
+        buffer.put(record.debit ? (byte) 1 : 0);
+        putAccountNumber(record.accountNumber);
+        putAccountNumber(record.otherAccountNumber);
+        while (buffer.position() < CRC_OFFSET) {
+            buffer.put((byte) 0);
+        }
+        crc.reset();
+        crc.update(buffer.duplicate().flip());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+    }
+
+    private void putAccountNumber(String accountNumber) {
+        byte[] bytes = accountNumber == null ? new byte[0] : accountNumber.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Journal.MAX_ACCOUNT_NUMBER_LENGTH) {
+            throw new IllegalArgumentException("Account number too long for log: " + accountNumber);
+        }
+        buffer.put((byte) bytes.length);
+        buffer.put(bytes);
+        buffer.position(buffer.position() + Journal.MAX_ACCOUNT_NUMBER_LENGTH - bytes.length);
+    }
+
+    private static String getAccountNumber(ByteBuffer record, int offset) {
+        int length = record.get(offset);
+        return length == 0 ? null : new String(record.array(), offset + 1, length, StandardCharsets.UTF_8);
+    }
+
+    private static Record decode(ByteBuffer record) {
+        return new Record(KINDS[record.get(0)], record.getLong(1), record.getLong(9), record.get(17) == 1,
+                getAccountNumber(record, 18), getAccountNumber(record, 35));
+    }
+
+    /**
+     * A single record of the log.
+     */
+    static final class Record {
+
+        final Kind kind;
+        final long transactionId;
+        final long value;
+        final boolean debit;
+        final String accountNumber;
+        final String otherAccountNumber;
+
+        Record(Kind kind, long transactionId, long value, boolean debit, String accountNumber, String otherAccountNumber) {
+            this.kind = kind;
+            this.transactionId = transactionId;
+            this.value = value;
+            this.debit = debit;
+            this.accountNumber = accountNumber;
+            this.otherAccountNumber = otherAccountNumber;
+        }
+
+        Record(Kind kind, long transactionId) {
+            this(kind, transactionId, 0, false, null, null);
+        }
+
+        double amount() {
+            return Double.longBitsToDouble(value);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.jibstech.bank_account_management_system;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * A velocity limit on the debits of an account, or of the whole bank: at most a number of
+ * withdrawals and outgoing transfers, and at most a total amount, within a sliding time
+ * window, e.g. 20 debits and 5,000.00 in 24 hours. The window is tracked in a fixed number
+ * of buckets, so a debit stops counting between one bucket and the whole window after it
+ * was made; more buckets slide more smoothly but take more memory per account.
+ * @see VelocityScreen
+ */
+public final class VelocityRule {
+
+    /** Buckets per window of {@link #VelocityRule(int, BigDecimal, Duration)} */
+    public static final int DEFAULT_BUCKETS = 24;
+
+    /** Largest debit count a rule can allow, so that a full bucket always exceeds it */
+    static final int MAX_DEBITS = (1 << 15) - 1;
+    /** Largest total, in minor units, a rule can allow, so that a full bucket always exceeds it */
+    static final long MAX_AMOUNT_MINOR = (1L << 47) - 1;
+
+    private final int maxDebits;
+    private final long maxAmountMinor;
+    private final Duration window;
+    private final int buckets;
+    private final long bucketMillis;
+
+    /**
+     * Creates a rule tracking its window in {@value #DEFAULT_BUCKETS} buckets, e.g. hourly
+     * buckets for a 24 hour window.
+     *
+     * @param maxDebits most withdrawals and outgoing transfers within the window
+     * @param maxAmount largest total of those debits within the window
+     * @param window length of the sliding window
+     * @throws IllegalArgumentException if a limit is not positive or too large, or the window too short
+     */
+    public VelocityRule(int maxDebits, BigDecimal maxAmount, Duration window) {
+        this(maxDebits, maxAmount, window, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * Creates a rule.
+     *
+     * @param maxDebits most withdrawals and outgoing transfers within the window
+     * @param maxAmount largest total of those debits within the window
+     * @param window length of the sliding window
+     * @param buckets number of buckets the window is tracked in
+     * @throws IllegalArgumentException if a limit is not positive or too large, or the window
+     *                                  shorter than one millisecond per bucket
+     * @throws ArithmeticException if the amount has more than {@value Money#SCALE} decimal places
+     */
+    public VelocityRule(int maxDebits, BigDecimal maxAmount, Duration window, int buckets) {
+        if (maxDebits < 1 || maxDebits > MAX_DEBITS) {
+            throw new IllegalArgumentException("Debit limit must be between 1 and " + MAX_DEBITS + ": " + maxDebits);
+        }
+        if (maxAmount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount limit must be positive: " + maxAmount);
+        }
+        if (buckets < 1 || window.toMillis() < buckets) {
+            throw new IllegalArgumentException("Window " + window + " cannot be split into " + buckets + " buckets");
+        }
+        this.maxDebits = maxDebits;
+        this.maxAmountMinor = Money.toMinorUnits(maxAmount);
+        if (maxAmountMinor > MAX_AMOUNT_MINOR) {
+            throw new IllegalArgumentException("Amount limit is too large: " + maxAmount);
+        }
+        this.window = window;
+        this.buckets = buckets;
+        this.bucketMillis = window.toMillis() / buckets;
+    }
+
+    /**
+     * Gets the most debits allowed within the window.
+     *
+     * @return the debit count
+     */
+    public int getMaxDebits() {
+        return maxDebits;
+    }
+
+    /**
+     * Gets the largest total of debits allowed within the window.
+     *
+     * @return the amount, with a scale of {@value Money#SCALE}
+     */
+    public BigDecimal getMaxAmount() {
+        return Money.fromMinorUnits(maxAmountMinor);
+    }
+
+    /**
+     * Gets the length of the sliding window.
+     *
+     * @return the window
+     */
+    public Duration getWindow() {
+        return window;
+    }
+
+    /**
+     * Gets the number of buckets the window is tracked in.
+     *
+     * @return the bucket count
+     */
+    public int getBuckets() {
+        return buckets;
+    }
+
+    long maxAmountMinor() {
+        return maxAmountMinor;
+    }
+
+    /**
+     * Gets the number of the bucket a point in time falls into.
+     *
+     * @param epochMillis the time, in milliseconds since the epoch
+     * @return the bucket number
+     */
+    long bucketOf(long epochMillis) {
+        return Math.floorDiv(epochMillis, bucketMillis);
+    }
+
+    /**
+     * Provides a one-line description of the rule.
+     *
+     * @return the limits and window
+     */
+    @Override
+    public String toString() {
+        return maxDebits + " debits and " + getMaxAmount() + " per " + window;
+    }
+}
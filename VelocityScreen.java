@@ -0,0 +1,274 @@
+package com.jibstech.bank_account_management_system;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fraud screening of withdrawals and transfers by velocity: every debit is checked
+ * against the {@link VelocityRule} for its account's type, e.g. "at most 20 debits and
+ * 5,000.00 in 24 hours" for "Checking", and optionally against a bank-wide rule on all
+ * debits together, and is rejected with {@link FailureReason#VELOCITY_LIMIT_EXCEEDED}
+ * before any balance is touched if it would break one.
+ * <p>
+ * Each screened account has a ring of buckets covering its rule's window, every bucket
+ * packing a debit count and total into one long, plus running totals of the ring; a
+ * check advances the ring to the current bucket and compares the totals, so it costs a
+ * hash lookup and a few arithmetic operations however many debits the window holds, and
+ * an account's memory is fixed by its rule's bucket count. Accounts of types without a
+ * rule are not tracked. A debit that passes the screen is counted at once, and the Bank
+ * releases it again if the debit does not go ahead. The per-account rings are only read
+ * and written while the Bank holds the account's stripe, and the shared bank-wide ring is
+ * checked and counted in one synchronized block, so concurrent debits cannot overshoot
+ * either limit. A debit released in a later bucket than it was counted in stays counted,
+ * which only makes the screen stricter.
+ * <p>
+ * Time comes from a {@link Clock} and is measured like the ledger's timestamps, so a
+ * screen attached to a running Bank is loaded with the debits the ledger already holds for
+ * its window. Counts are kept in memory only and reloaded the same way after a restart.
+ * @see Bank#setVelocityScreen(VelocityScreen)
+ * @see VelocityRule
+ */
+public class VelocityScreen {
+
+    private static final int AMOUNT_BITS = 48;
+    private static final long AMOUNT_MASK = (1L << AMOUNT_BITS) - 1;
+    private static final long MAX_COUNT = (1L << (Long.SIZE - AMOUNT_BITS)) - 1;
+
+    private final Map<String, VelocityRule> rules;
+    private final VelocityRule bankWideRule;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final Window bankWide;
+
+    /**
+     * Creates a screen with per-account rules only, on the system clock.
+     *
+     * @param rules rule per account type; debits of accounts of other types are not limited
+     */
+    public VelocityScreen(Map<String, VelocityRule> rules) {
+        this(rules, null, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates a screen.
+     *
+     * @param rules rule per account type; debits of accounts of other types are not limited
+     * @param bankWideRule rule on all debits of the bank together, or null for none
+     * @param clock source of the current time
+     */
+    public VelocityScreen(Map<String, VelocityRule> rules, VelocityRule bankWideRule, Clock clock) {
+        this.rules = Map.copyOf(rules);
+        this.bankWideRule = bankWideRule;
+        this.clock = clock;
+        this.bankWide = bankWideRule == null ? null : new Window(bankWideRule.getBuckets());
+    }
+
+    /**
+     * Gets the number of accounts whose debits are being tracked.
+     *
+     * @return the account count
+     */
+    public int getTrackedAccounts() {
+        return windows.size();
+    }
+
+    /**
+     * Checks whether a debit keeps its account, and the bank, within their limits, and if so
+     * counts it. Must be called while holding the account's stripe; a debit that passes but
+     * does not go ahead must be {@linkplain #release released}.
+     *
+     * @param account the account to be debited
+     * @param amountMinor the amount in minor units
+     * @return null if the debit may go ahead, otherwise {@link FailureReason#VELOCITY_LIMIT_EXCEEDED}
+     */
+    FailureReason screen(Account account, long amountMinor) {
+        VelocityRule rule = rules.get(account.getAcountType());
+        if (rule == null && bankWide == null) {
+            return null;
+        }
+        long now = now();
+        Window window = null;
+        if (rule != null) {
+            if (amountMinor > rule.maxAmountMinor()) {
+                return FailureReason.VELOCITY_LIMIT_EXCEEDED;
+            }
+            window = windows.computeIfAbsent(account.getAccountNumber(), key -> new Window(rule.getBuckets()));
+            if (!window.admits(rule, rule.bucketOf(now), amountMinor)) {
+                return FailureReason.VELOCITY_LIMIT_EXCEEDED;
+            }
+        }
+        if (bankWide != null) {
+            synchronized (bankWide) {
+                long bucket = bankWideRule.bucketOf(now);
+                if (!bankWide.admits(bankWideRule, bucket, amountMinor)) {
+                    return FailureReason.VELOCITY_LIMIT_EXCEEDED;
+                }
+                bankWide.add(bucket, amountMinor);
+            }
+        }
+        if (window != null) {
+            window.add(rule.bucketOf(now), amountMinor);
+        }
+        return null;
+    }
+
+    /**
+     * Uncounts a debit that passed {@link #screen} but did not go ahead. Must be called while
+     * holding the account's stripe.
+     *
+     * @param account the account that was to be debited
+     * @param amountMinor the amount in minor units
+     */
+    void release(Account account, long amountMinor) {
+        VelocityRule rule = rules.get(account.getAcountType());
+        long now = now();
+        if (rule != null) {
+            Window window = windows.get(account.getAccountNumber());
+            if (window != null) {
+                window.remove(rule.bucketOf(now), amountMinor);
+            }
+        }
+        if (bankWide != null) {
+            synchronized (bankWide) {
+                bankWide.remove(bankWideRule.bucketOf(now), amountMinor);
+            }
+        }
+    }
+
+    /**
+     * Counts a debit that went ahead without being screened, e.g. a fee the bank charged.
+     * Must be called while holding the account's stripe.
+     *
+     * @param account the debited account
+     * @param amountMinor the amount in minor units
+     */
+    void record(Account account, long amountMinor) {
+        if (rules.containsKey(account.getAcountType()) || bankWide != null) {
+            record(account, amountMinor, now());
+        }
+    }
+
+    /**
+     * Counts a debit made at a given time, e.g. one loaded from the ledger. Debits older
+     * than the window are ignored. Must be called while holding the account's stripe.
+     *
+     * @param account the debited account
+     * @param amountMinor the amount in minor units
+     * @param epochMillis when the debit was made, as ledger time in milliseconds
+     */
+    void record(Account account, long amountMinor, long epochMillis) {
+        VelocityRule rule = rules.get(account.getAcountType());
+        if (rule != null) {
+            windows.computeIfAbsent(account.getAccountNumber(), key -> new Window(rule.getBuckets()))
+                    .add(rule.bucketOf(epochMillis), amountMinor);
+        }
+        if (bankWide != null) {
+            synchronized (bankWide) {
+                bankWide.add(bankWideRule.bucketOf(epochMillis), amountMinor);
+            }
+        }
+    }
+
+    /**
+     * Gets the start of the longest window of the screen's rules, from which debits must be
+     * loaded into a new screen.
+     *
+     * @return the earliest time that still counts, or null if the screen has no rules
+     */
+    LocalDateTime windowStart() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime start = bankWideRule == null ? null : now.minus(bankWideRule.getWindow());
+        for (VelocityRule rule : rules.values()) {
+            LocalDateTime ruleStart = now.minus(rule.getWindow());
+            if (start == null || ruleStart.isBefore(start)) {
+                start = ruleStart;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * Gets the current time as the ledger measures it.
+     */
+    private long now() {
+        long millis = clock.millis();
+        return millis + clock.getZone().getRules().getOffset(Instant.ofEpochMilli(millis)).getTotalSeconds() * 1000L;
+    }
+
+    /**
+     * A ring of buckets, each holding the debit count (high 16 bits) and total in minor
+     * units (low 48 bits) of one slice of a window, with the running totals of the ring.
+     * Counts and totals saturate rather than wrap, which only makes the screen stricter,
+     * since a rule's limits are below the saturation points.
+     */
+    private static final class Window {
+
+        final long[] buckets;
+        long newest = Long.MIN_VALUE;
+        long count;
+        long amount;
+
+        Window(int buckets) {
+            this.buckets = new long[buckets];
+        }
+
+        /**
+         * Moves the ring forward to a bucket, emptying the buckets that fell out of the window.
+         */
+        void advance(long bucket) {
+            if (bucket <= newest) {
+                return;
+            }
+            long stale = newest == Long.MIN_VALUE ? buckets.length : Math.min(bucket - newest, buckets.length);
+            for (long expired = bucket - stale + 1; expired <= bucket; expired++) {
+                int slot = slot(expired);
+                count -= buckets[slot] >>> AMOUNT_BITS;
+                amount -= buckets[slot] & AMOUNT_MASK;
+                buckets[slot] = 0;
+            }
+            newest = bucket;
+        }
+
+        boolean admits(VelocityRule rule, long bucket, long amountMinor) {
+            advance(bucket);
+            return count < rule.getMaxDebits() && amountMinor <= rule.maxAmountMinor() - amount;
+        }
+
+        void add(long bucket, long amountMinor) {
+            advance(bucket);
+            if (bucket <= newest - buckets.length) {
+                return;
+            }
+            int slot = slot(bucket);
+            long oldCount = buckets[slot] >>> AMOUNT_BITS;
+            long oldAmount = buckets[slot] & AMOUNT_MASK;
+            long newCount = Math.min(oldCount + 1, MAX_COUNT);
+            long newAmount = Math.min(oldAmount + Math.min(amountMinor, AMOUNT_MASK), AMOUNT_MASK);
+            buckets[slot] = newCount << AMOUNT_BITS | newAmount;
+            count += newCount - oldCount;
+            amount += newAmount - oldAmount;
+        }
+
+        void remove(long bucket, long amountMinor) {
+            advance(bucket);
+            if (bucket <= newest - buckets.length) {
+                return;
+            }
+            int slot = slot(bucket);
+            long oldCount = buckets[slot] >>> AMOUNT_BITS;
+            long oldAmount = buckets[slot] & AMOUNT_MASK;
+            long newCount = Math.max(oldCount - 1, 0);
+            long newAmount = Math.max(oldAmount - Math.min(amountMinor, AMOUNT_MASK), 0);
+            buckets[slot] = newCount << AMOUNT_BITS | newAmount;
+            count += newCount - oldCount;
+            amount += newAmount - oldAmount;
+        }
+
+        private int slot(long bucket) {
+            return (int) Math.floorMod(bucket, (long) buckets.length);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.jibstech.bank_account_management_system;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of velocity screening: a check and count of one debit against
+ * millions of tracked accounts, and withdrawals through the Bank with and without a
+ * screen (journal not forced, so the screen is not hidden behind an fsync). Every account
+ * already has a debit in its window, so every check finds and advances a ring.
+ * @see VelocityScreen
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class VelocityScreenBenchmark {
+
+    private static final Map<String, VelocityRule> RULES = Map.of(
+            "Checking", new VelocityRule(VelocityRule.MAX_DEBITS, new BigDecimal("1000000.00"), Duration.ofHours(24)));
+
+    @State(Scope.Benchmark)
+    public static class ScreenState {
+
+        @Param({"1000000", "10000000"})
+        int accountCount;
+
+        Account[] accounts;
+        VelocityScreen screen;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            accounts = new Account[accountCount];
+            screen = new VelocityScreen(RULES);
+            for (int i = 0; i < accountCount; i++) {
+                accounts[i] = new Account(accountNumber(i), "Owner " + i, "Checking", 1_000);
+                screen.record(accounts[i], 100);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BankState {
+
+        @Param({"false", "true"})
+        boolean screened;
+
+        Path dataDirectory;
+        Bank bank;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dataDirectory = Files.createTempDirectory("velocity-bench");
+            AccountStore store = new HashAccountStore();
+            for (int i = 0; i < 1_000_000; i++) {
+                store.add(new Account(accountNumber(i), "Owner " + i, "Checking", 1_000_000));
+            }
+            bank = new Bank(store, dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+            if (screened) {
+                bank.setVelocityScreen(new VelocityScreen(RULES));
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void checkpoint() {
+            bank.checkpoint();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            bank.close();
+            try (Stream<Path> files = Files.walk(dataDirectory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Single-threaded, so the account is never written concurrently, as the Bank's stripe
+     * lock would otherwise ensure.
+     */
+    @Benchmark
+    public FailureReason screenAndRecord(ScreenState state) {
+        Account account = state.accounts[ThreadLocalRandom.current().nextInt(state.accountCount)];
+        return state.screen.screen(account, 1); // a debit that passes is counted by the screen itself
+    }
+
+    @Benchmark
+    public TransactionResult withdrawFromAccount(BankState state) {
+        return state.bank.withdrawFromAccount(accountNumber(ThreadLocalRandom.current().nextInt(1_000_000)), 0.01);
+    }
+
+    private static String accountNumber(int index) {
+        return String.valueOf(10_000_000 + index);
+    }
+}
@@ -0,0 +1,189 @@
+package com.jibstech.bank_account_management_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VelocityScreenTest {
+
+	private static final Map<String, VelocityRule> RULES = Map.of(
+			"Checking", new VelocityRule(3, new BigDecimal("100.00"), Duration.ofHours(24)));
+
+	@TempDir
+	Path dataDirectory;
+
+	@Test
+	void testLimitsSlideWithTheWindow() {
+		Bank bank = newBank();
+		TestClock clock = new TestClock();
+		bank.setVelocityScreen(new VelocityScreen(RULES, null, clock));
+
+		assertTrue(bank.withdrawFromAccount("1000001", 10).isSuccessful());
+		clock.advance(Duration.ofHours(1));
+		assertTrue(bank.transferBetweenAccounts("1000001", "1000002", 10).isSuccessful());
+		assertEquals(FailureReason.VELOCITY_LIMIT_EXCEEDED, bank.withdrawFromAccount("1000001", 80.01).getFailureReason());
+		assertTrue(bank.withdrawFromAccount("1000001", 80).isSuccessful());
+		assertEquals(FailureReason.VELOCITY_LIMIT_EXCEEDED, bank.withdrawFromAccount("1000001", 1).getFailureReason());
+		assertEquals(FailureReason.VELOCITY_LIMIT_EXCEEDED,
+				bank.transferBetweenAccounts("1000001", "1000002", 1).getFailureReason());
+		assertEquals(900, bank.findAccountByNumber("1000001").getBalance(), 0.001);
+		assertEquals(3, bank.getTransactionCount());
+		assertEquals(2, bank.getMetrics().getCounters().get("withdrawal.velocity_limit_exceeded"));
+		assertEquals(1, bank.getMetrics().getCounters().get("transfer.velocity_limit_exceeded"));
+
+		assertTrue(bank.withdrawFromAccount("1000002", 500).isSuccessful()); // Savings has no rule
+		assertTrue(bank.depositToAccount("1000001", 500).isSuccessful()); // deposits are not limited
+		assertEquals(FailureReason.INSUFFICIENT_FUNDS, bank.withdrawFromAccount("1000003", 50).getFailureReason());
+		assertTrue(bank.withdrawFromAccount("1000003", 5).isSuccessful()); // rejected debits do not count
+
+		clock.advance(Duration.ofHours(23));
+		assertEquals(FailureReason.VELOCITY_LIMIT_EXCEEDED, bank.withdrawFromAccount("1000001", 15).getFailureReason());
+		assertTrue(bank.withdrawFromAccount("1000001", 10).isSuccessful()); // the first withdrawal dropped out
+		clock.advance(Duration.ofHours(1));
+		assertTrue(bank.withdrawFromAccount("1000001", 10).isSuccessful());
+		bank.setVelocityScreen(null);
+		assertTrue(bank.withdrawFromAccount("1000001", 500).isSuccessful());
+		bank.close();
+	}
+
+	@Test
+	void testBankWideLimitAndBatches() throws Exception {
+		Bank bank = newBank();
+		VelocityRule bankWide = new VelocityRule(4, new BigDecimal("1000.00"), Duration.ofMinutes(5), 5);
+		bank.setVelocityScreen(new VelocityScreen(Map.of(), bankWide, new TestClock()));
+
+		assertTrue(bank.withdrawFromAccount("1000001", 400).isSuccessful());
+		assertTrue(bank.withdrawFromAccount("1000002", 500).isSuccessful());
+		assertEquals(FailureReason.VELOCITY_LIMIT_EXCEEDED, bank.withdrawFromAccount("1000002", 101).getFailureReason());
+		BatchReport bestEffort = bank.postBatch(List.of(
+				new Posting(TransactionType.WITHDRAWAL, "1000001", null, 50),
+				new Posting(TransactionType.TRANSFER, "1000001", "1000002", 60)).stream(), PostingMode.BEST_EFFORT);
+		assertEquals(List.of(1), bestEffort.getRejectedLines());
+		assertEquals(FailureReason.VELOCITY_LIMIT_EXCEEDED, bestEffort.getResults().get(1).getFailureReason());
+
+		BatchReport atomic = bank.postBatch(List.of(
+				new Posting(TransactionType.WITHDRAWAL, "1000001", null, 20),
+				new Posting(TransactionType.WITHDRAWAL, "1000002", null, 40)).stream(), PostingMode.ALL_OR_NOTHING);
+		assertFalse(atomic.isCommitted());
+		assertEquals(List.of(1), atomic.getRejectedLines());
+		assertEquals(FailureReason.VELOCITY_LIMIT_EXCEEDED, atomic.getResults().get(1).getFailureReason());
+		assertTrue(bank.postBatch(Stream.of(new Posting(TransactionType.WITHDRAWAL, "1000001", null, 30)),
+				PostingMode.ALL_OR_NOTHING).isCommitted()); // the rejected batch no longer counts
+		assertEquals(FailureReason.VELOCITY_LIMIT_EXCEEDED, bank.withdrawFromAccount("1000003", 1).getFailureReason());
+		assertTrue(bank.postAtomically(List.of(new Posting(TransactionType.WITHDRAWAL, "1000001", null, 5)), null, false)
+				.isCommitted()); // the bank's own postings are not screened
+		assertEquals(515, bank.findAccountByNumber("1000001").getBalance(), 0.001);
+		bank.close();
+	}
+
+	@Test
+	void testConcurrentDebitsDoNotOvershootBankWideLimit() throws Exception {
+		Bank bank = newBank();
+		VelocityRule bankWide = new VelocityRule(10, new BigDecimal("1000.00"), Duration.ofMinutes(5), 5);
+		bank.setVelocityScreen(new VelocityScreen(Map.of(), bankWide, new TestClock()));
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<TransactionResult>> results = new ArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			String accountNumber = i % 2 == 0 ? "1000001" : "1000002";
+			results.add(executor.submit(() -> bank.withdrawFromAccount(accountNumber, 1)));
+		}
+		int succeeded = 0;
+		for (Future<TransactionResult> result : results) {
+			succeeded += result.get().isSuccessful() ? 1 : 0;
+		}
+		executor.shutdown();
+
+		assertEquals(10, succeeded);
+		bank.close();
+	}
+
+	@Test
+	void testStandingOrdersAreScreened() throws Exception {
+		Bank bank = newBank();
+		bank.setVelocityScreen(new VelocityScreen(RULES));
+		StandingOrderScheduler scheduler = new StandingOrderScheduler(bank, dataDirectory);
+		LocalDateTime due = LocalDateTime.now(bank.getClock()).minusMinutes(1);
+		scheduler.schedule("1000001", "1000002", 60, due);
+		scheduler.schedule("1000001", "1000002", 50, due);
+
+		BatchReport report = scheduler.runDue();
+
+		assertEquals(List.of(1), report.getRejectedLines());
+		assertEquals(FailureReason.VELOCITY_LIMIT_EXCEEDED, report.getResults().get(1).getFailureReason());
+		assertEquals(940, bank.findAccountByNumber("1000001").getBalance(), 0.001);
+		assertEquals(FailureReason.VELOCITY_LIMIT_EXCEEDED, bank.withdrawFromAccount("1000001", 40.01).getFailureReason());
+		scheduler.close();
+		bank.close();
+	}
+
+	@Test
+	void testScreenIsLoadedFromLedger() {
+		Bank bank = newBank();
+		assertTrue(bank.withdrawFromAccount("1000001", 40).isSuccessful());
+		assertTrue(bank.transferBetweenAccounts("1000001", "1000003", 40).isSuccessful());
+		assertTrue(bank.depositToAccount("1000001", 40).isSuccessful());
+		bank.close();
+
+		Bank restarted = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		restarted.setVelocityScreen(new VelocityScreen(RULES));
+
+		assertEquals(FailureReason.VELOCITY_LIMIT_EXCEEDED, restarted.withdrawFromAccount("1000001", 20.01).getFailureReason());
+		assertTrue(restarted.withdrawFromAccount("1000001", 20).isSuccessful());
+		assertEquals(FailureReason.VELOCITY_LIMIT_EXCEEDED, restarted.withdrawFromAccount("1000001", 0.01).getFailureReason());
+		assertTrue(restarted.withdrawFromAccount("1000003", 50).isSuccessful()); // the transfer counts for its sender only
+		restarted.close();
+	}
+
+	/**
+	 * Checking account 1000001 with 1000.00, Savings account 1000002 with 1000.00 and
+	 * Checking account 1000003 with 10.00.
+	 */
+	private Bank newBank() {
+		Bank bank = new Bank(new HashAccountStore(), dataDirectory, FsyncPolicy.NONE, BankLogger.quiet());
+		bank.createAccount("1000001", "Alice", "Checking", 1000);
+		bank.createAccount("1000002", "Bob", "Savings", 1000);
+		bank.createAccount("1000003", "Carol", "Checking", 10);
+		return bank;
+	}
+
+	private static final class TestClock extends Clock {
+
+		private Instant now = Instant.parse("2026-10-17T09:30:00Z");
+
+		void advance(Duration duration) {
+			now = now.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}